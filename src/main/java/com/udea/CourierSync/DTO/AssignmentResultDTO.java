@@ -0,0 +1,32 @@
+package com.udea.CourierSync.DTO;
+
+import java.util.List;
+
+public class AssignmentResultDTO {
+  private List<VehicleAssignmentDTO> assignments;
+  private List<Long> unassignedShipmentIds;
+
+  public AssignmentResultDTO() {
+  }
+
+  public AssignmentResultDTO(List<VehicleAssignmentDTO> assignments, List<Long> unassignedShipmentIds) {
+    this.assignments = assignments;
+    this.unassignedShipmentIds = unassignedShipmentIds;
+  }
+
+  public List<VehicleAssignmentDTO> getAssignments() {
+    return assignments;
+  }
+
+  public void setAssignments(List<VehicleAssignmentDTO> assignments) {
+    this.assignments = assignments;
+  }
+
+  public List<Long> getUnassignedShipmentIds() {
+    return unassignedShipmentIds;
+  }
+
+  public void setUnassignedShipmentIds(List<Long> unassignedShipmentIds) {
+    this.unassignedShipmentIds = unassignedShipmentIds;
+  }
+}
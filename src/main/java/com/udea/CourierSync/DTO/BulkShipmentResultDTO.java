@@ -0,0 +1,58 @@
+package com.udea.CourierSync.DTO;
+
+public class BulkShipmentResultDTO {
+  private int index;
+  private boolean created;
+  private ShipmentDTO shipment;
+  private String error;
+
+  public BulkShipmentResultDTO() {
+  }
+
+  public BulkShipmentResultDTO(int index, boolean created, ShipmentDTO shipment, String error) {
+    this.index = index;
+    this.created = created;
+    this.shipment = shipment;
+    this.error = error;
+  }
+
+  public static BulkShipmentResultDTO created(int index, ShipmentDTO shipment) {
+    return new BulkShipmentResultDTO(index, true, shipment, null);
+  }
+
+  public static BulkShipmentResultDTO failed(int index, String error) {
+    return new BulkShipmentResultDTO(index, false, null, error);
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public boolean isCreated() {
+    return created;
+  }
+
+  public void setCreated(boolean created) {
+    this.created = created;
+  }
+
+  public ShipmentDTO getShipment() {
+    return shipment;
+  }
+
+  public void setShipment(ShipmentDTO shipment) {
+    this.shipment = shipment;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+}
@@ -0,0 +1,58 @@
+package com.udea.CourierSync.DTO;
+
+public class BulkStatusResultDTO {
+  private int index;
+  private boolean updated;
+  private ShipmentDTO shipment;
+  private String error;
+
+  public BulkStatusResultDTO() {
+  }
+
+  public BulkStatusResultDTO(int index, boolean updated, ShipmentDTO shipment, String error) {
+    this.index = index;
+    this.updated = updated;
+    this.shipment = shipment;
+    this.error = error;
+  }
+
+  public static BulkStatusResultDTO updated(int index, ShipmentDTO shipment) {
+    return new BulkStatusResultDTO(index, true, shipment, null);
+  }
+
+  public static BulkStatusResultDTO failed(int index, String error) {
+    return new BulkStatusResultDTO(index, false, null, error);
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public boolean isUpdated() {
+    return updated;
+  }
+
+  public void setUpdated(boolean updated) {
+    this.updated = updated;
+  }
+
+  public ShipmentDTO getShipment() {
+    return shipment;
+  }
+
+  public void setShipment(ShipmentDTO shipment) {
+    this.shipment = shipment;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+}
@@ -0,0 +1,31 @@
+package com.udea.CourierSync.DTO;
+
+// Body of POST /api/dispatch/next; count defaults to 1
+public class DispatchRequestDTO {
+  private Long vehicleId;
+  private Integer count;
+
+  public DispatchRequestDTO() {
+  }
+
+  public DispatchRequestDTO(Long vehicleId, Integer count) {
+    this.vehicleId = vehicleId;
+    this.count = count;
+  }
+
+  public Long getVehicleId() {
+    return vehicleId;
+  }
+
+  public void setVehicleId(Long vehicleId) {
+    this.vehicleId = vehicleId;
+  }
+
+  public Integer getCount() {
+    return count;
+  }
+
+  public void setCount(Integer count) {
+    this.count = count;
+  }
+}
@@ -0,0 +1,30 @@
+package com.udea.CourierSync.DTO;
+
+public class NearbyShipmentDTO {
+  private ShipmentDTO shipment;
+  private double distanceKm;
+
+  public NearbyShipmentDTO() {
+  }
+
+  public NearbyShipmentDTO(ShipmentDTO shipment, double distanceKm) {
+    this.shipment = shipment;
+    this.distanceKm = distanceKm;
+  }
+
+  public ShipmentDTO getShipment() {
+    return shipment;
+  }
+
+  public void setShipment(ShipmentDTO shipment) {
+    this.shipment = shipment;
+  }
+
+  public double getDistanceKm() {
+    return distanceKm;
+  }
+
+  public void setDistanceKm(double distanceKm) {
+    this.distanceKm = distanceKm;
+  }
+}
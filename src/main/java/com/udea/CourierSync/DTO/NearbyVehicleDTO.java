@@ -0,0 +1,30 @@
+package com.udea.CourierSync.DTO;
+
+public class NearbyVehicleDTO {
+  private VehicleDTO vehicle;
+  private double distanceKm;
+
+  public NearbyVehicleDTO() {
+  }
+
+  public NearbyVehicleDTO(VehicleDTO vehicle, double distanceKm) {
+    this.vehicle = vehicle;
+    this.distanceKm = distanceKm;
+  }
+
+  public VehicleDTO getVehicle() {
+    return vehicle;
+  }
+
+  public void setVehicle(VehicleDTO vehicle) {
+    this.vehicle = vehicle;
+  }
+
+  public double getDistanceKm() {
+    return distanceKm;
+  }
+
+  public void setDistanceKm(double distanceKm) {
+    this.distanceKm = distanceKm;
+  }
+}
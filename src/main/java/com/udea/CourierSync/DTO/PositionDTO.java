@@ -0,0 +1,30 @@
+package com.udea.CourierSync.DTO;
+
+public class PositionDTO {
+  private Double latitude;
+  private Double longitude;
+
+  public PositionDTO() {
+  }
+
+  public PositionDTO(Double latitude, Double longitude) {
+    this.latitude = latitude;
+    this.longitude = longitude;
+  }
+
+  public Double getLatitude() {
+    return latitude;
+  }
+
+  public void setLatitude(Double latitude) {
+    this.latitude = latitude;
+  }
+
+  public Double getLongitude() {
+    return longitude;
+  }
+
+  public void setLongitude(Double longitude) {
+    this.longitude = longitude;
+  }
+}
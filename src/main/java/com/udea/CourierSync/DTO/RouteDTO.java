@@ -0,0 +1,63 @@
+package com.udea.CourierSync.DTO;
+
+import java.util.List;
+
+public class RouteDTO {
+  private Long vehicleId;
+  private String plate;
+  private double distanceKm;
+  // false when the time budget ran out before the route stopped improving
+  private boolean optimized;
+  private List<RouteStopDTO> stops;
+
+  public RouteDTO() {
+  }
+
+  public RouteDTO(Long vehicleId, String plate, double distanceKm, boolean optimized, List<RouteStopDTO> stops) {
+    this.vehicleId = vehicleId;
+    this.plate = plate;
+    this.distanceKm = distanceKm;
+    this.optimized = optimized;
+    this.stops = stops;
+  }
+
+  public Long getVehicleId() {
+    return vehicleId;
+  }
+
+  public void setVehicleId(Long vehicleId) {
+    this.vehicleId = vehicleId;
+  }
+
+  public String getPlate() {
+    return plate;
+  }
+
+  public void setPlate(String plate) {
+    this.plate = plate;
+  }
+
+  public double getDistanceKm() {
+    return distanceKm;
+  }
+
+  public void setDistanceKm(double distanceKm) {
+    this.distanceKm = distanceKm;
+  }
+
+  public boolean isOptimized() {
+    return optimized;
+  }
+
+  public void setOptimized(boolean optimized) {
+    this.optimized = optimized;
+  }
+
+  public List<RouteStopDTO> getStops() {
+    return stops;
+  }
+
+  public void setStops(List<RouteStopDTO> stops) {
+    this.stops = stops;
+  }
+}
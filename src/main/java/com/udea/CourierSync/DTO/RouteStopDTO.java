@@ -0,0 +1,93 @@
+package com.udea.CourierSync.DTO;
+
+import com.udea.CourierSync.enums.RouteStopType;
+import com.udea.CourierSync.enums.ShipmentPriority;
+
+public class RouteStopDTO {
+  private int sequence;
+  private Long shipmentId;
+  private String trackingCode;
+  private RouteStopType type;
+  private String address;
+  private Double latitude;
+  private Double longitude;
+  private ShipmentPriority priority;
+
+  public RouteStopDTO() {
+  }
+
+  public RouteStopDTO(int sequence, Long shipmentId, String trackingCode, RouteStopType type, String address, Double latitude, Double longitude, ShipmentPriority priority) {
+    this.sequence = sequence;
+    this.shipmentId = shipmentId;
+    this.trackingCode = trackingCode;
+    this.type = type;
+    this.address = address;
+    this.latitude = latitude;
+    this.longitude = longitude;
+    this.priority = priority;
+  }
+
+  public int getSequence() {
+    return sequence;
+  }
+
+  public void setSequence(int sequence) {
+    this.sequence = sequence;
+  }
+
+  public Long getShipmentId() {
+    return shipmentId;
+  }
+
+  public void setShipmentId(Long shipmentId) {
+    this.shipmentId = shipmentId;
+  }
+
+  public String getTrackingCode() {
+    return trackingCode;
+  }
+
+  public void setTrackingCode(String trackingCode) {
+    this.trackingCode = trackingCode;
+  }
+
+  public RouteStopType getType() {
+    return type;
+  }
+
+  public void setType(RouteStopType type) {
+    this.type = type;
+  }
+
+  public String getAddress() {
+    return address;
+  }
+
+  public void setAddress(String address) {
+    this.address = address;
+  }
+
+  public Double getLatitude() {
+    return latitude;
+  }
+
+  public void setLatitude(Double latitude) {
+    this.latitude = latitude;
+  }
+
+  public Double getLongitude() {
+    return longitude;
+  }
+
+  public void setLongitude(Double longitude) {
+    this.longitude = longitude;
+  }
+
+  public ShipmentPriority getPriority() {
+    return priority;
+  }
+
+  public void setPriority(ShipmentPriority priority) {
+    this.priority = priority;
+  }
+}
@@ -3,6 +3,8 @@ package com.udea.CourierSync.DTO;
 import com.udea.CourierSync.enums.ShipmentPriority;
 import com.udea.CourierSync.enums.ShipmentStatus;
 
+import java.time.Instant;
+
 public class ShipmentDTO {
     private Long id;
     private String trackingCode;
@@ -10,10 +12,16 @@ public class ShipmentDTO {
     private VehicleDTO vehicle;
     private String originAddress;
     private String destinationAddress;
+    private Double originLatitude;
+    private Double originLongitude;
+    private Double destinationLatitude;
+    private Double destinationLongitude;
     private Double weight;
     private Double volume;
     private ShipmentPriority priority;
     private ShipmentStatus status;
+    private Long version;
+    private Instant createdAt;
 
     public ShipmentDTO() {
     }
@@ -81,6 +89,38 @@ public class ShipmentDTO {
         this.destinationAddress = destinationAddress;
     }
 
+    public Double getOriginLatitude() {
+        return originLatitude;
+    }
+
+    public void setOriginLatitude(Double originLatitude) {
+        this.originLatitude = originLatitude;
+    }
+
+    public Double getOriginLongitude() {
+        return originLongitude;
+    }
+
+    public void setOriginLongitude(Double originLongitude) {
+        this.originLongitude = originLongitude;
+    }
+
+    public Double getDestinationLatitude() {
+        return destinationLatitude;
+    }
+
+    public void setDestinationLatitude(Double destinationLatitude) {
+        this.destinationLatitude = destinationLatitude;
+    }
+
+    public Double getDestinationLongitude() {
+        return destinationLongitude;
+    }
+
+    public void setDestinationLongitude(Double destinationLongitude) {
+        this.destinationLongitude = destinationLongitude;
+    }
+
     public Double getWeight() {
         return weight;
     }
@@ -112,4 +152,20 @@ public class ShipmentDTO {
     public void setStatus(ShipmentStatus status) {
         this.status = status;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
 }
\ No newline at end of file
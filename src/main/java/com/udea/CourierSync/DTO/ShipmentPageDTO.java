@@ -0,0 +1,32 @@
+package com.udea.CourierSync.DTO;
+
+import java.util.List;
+
+public class ShipmentPageDTO {
+  private List<ShipmentDTO> items;
+  private String nextCursor;
+
+  public ShipmentPageDTO() {
+  }
+
+  public ShipmentPageDTO(List<ShipmentDTO> items, String nextCursor) {
+    this.items = items;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<ShipmentDTO> getItems() {
+    return items;
+  }
+
+  public void setItems(List<ShipmentDTO> items) {
+    this.items = items;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+}
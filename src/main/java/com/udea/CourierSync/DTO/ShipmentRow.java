@@ -0,0 +1,53 @@
+package com.udea.CourierSync.DTO;
+
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+
+import java.time.Instant;
+
+/**
+ * Flat read-only projection of a shipment with its client and vehicle, selected directly by
+ * ShipmentRepository constructor expressions so the hot read paths skip entity hydration and
+ * the mapper.
+ */
+public record ShipmentRow(
+    Long id,
+    String trackingCode,
+    Long clientId,
+    String clientName,
+    String clientEmail,
+    String clientPhone,
+    String clientAddress,
+    Long vehicleId,
+    String vehiclePlate,
+    String vehicleModel,
+    Double vehicleMaximumCapacity,
+    Boolean vehicleAvailable,
+    String originAddress,
+    String destinationAddress,
+    Double originLatitude,
+    Double originLongitude,
+    Double destinationLatitude,
+    Double destinationLongitude,
+    Double weight,
+    Double volume,
+    ShipmentPriority priority,
+    ShipmentStatus status,
+    Long version,
+    Instant createdAt) {
+
+  public ShipmentDTO toDTO() {
+    ShipmentDTO dto = new ShipmentDTO(id, trackingCode,
+        new ClientDTO(clientId, clientName, clientEmail, clientPhone, clientAddress),
+        vehicleId == null ? null : new VehicleDTO(vehicleId, vehiclePlate, vehicleModel, vehicleMaximumCapacity,
+            Boolean.TRUE.equals(vehicleAvailable)),
+        originAddress, destinationAddress, weight, volume, priority, status);
+    dto.setOriginLatitude(originLatitude);
+    dto.setOriginLongitude(originLongitude);
+    dto.setDestinationLatitude(destinationLatitude);
+    dto.setDestinationLongitude(destinationLongitude);
+    dto.setVersion(version);
+    dto.setCreatedAt(createdAt);
+    return dto;
+  }
+}
@@ -0,0 +1,85 @@
+package com.udea.CourierSync.DTO;
+
+import com.udea.CourierSync.enums.ShipmentStatus;
+
+import java.time.Instant;
+
+public class StatusHistoryDTO {
+  private Long id;
+  private Long shipmentId;
+  private ShipmentStatus oldStatus;
+  private ShipmentStatus newStatus;
+  private String observations;
+  private String actor;
+  private Instant createdAt;
+
+  public StatusHistoryDTO() {
+  }
+
+  public StatusHistoryDTO(Long id, Long shipmentId, ShipmentStatus oldStatus, ShipmentStatus newStatus,
+      String observations, String actor, Instant createdAt) {
+    this.id = id;
+    this.shipmentId = shipmentId;
+    this.oldStatus = oldStatus;
+    this.newStatus = newStatus;
+    this.observations = observations;
+    this.actor = actor;
+    this.createdAt = createdAt;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public Long getShipmentId() {
+    return shipmentId;
+  }
+
+  public void setShipmentId(Long shipmentId) {
+    this.shipmentId = shipmentId;
+  }
+
+  public ShipmentStatus getOldStatus() {
+    return oldStatus;
+  }
+
+  public void setOldStatus(ShipmentStatus oldStatus) {
+    this.oldStatus = oldStatus;
+  }
+
+  public ShipmentStatus getNewStatus() {
+    return newStatus;
+  }
+
+  public void setNewStatus(ShipmentStatus newStatus) {
+    this.newStatus = newStatus;
+  }
+
+  public String getObservations() {
+    return observations;
+  }
+
+  public void setObservations(String observations) {
+    this.observations = observations;
+  }
+
+  public String getActor() {
+    return actor;
+  }
+
+  public void setActor(String actor) {
+    this.actor = actor;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+}
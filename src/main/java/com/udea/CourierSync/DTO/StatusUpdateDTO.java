@@ -0,0 +1,52 @@
+package com.udea.CourierSync.DTO;
+
+import com.udea.CourierSync.enums.ShipmentStatus;
+
+// One entry of a bulk status update; version is optional and works like If-Match
+public class StatusUpdateDTO {
+  private Long id;
+  private ShipmentStatus status;
+  private String observations;
+  private Long version;
+
+  public StatusUpdateDTO() {
+  }
+
+  public StatusUpdateDTO(Long id, ShipmentStatus status, String observations) {
+    this.id = id;
+    this.status = status;
+    this.observations = observations;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public ShipmentStatus getStatus() {
+    return status;
+  }
+
+  public void setStatus(ShipmentStatus status) {
+    this.status = status;
+  }
+
+  public String getObservations() {
+    return observations;
+  }
+
+  public void setObservations(String observations) {
+    this.observations = observations;
+  }
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+}
@@ -0,0 +1,50 @@
+package com.udea.CourierSync.DTO;
+
+public class VehicleAssignmentDTO {
+  private Long shipmentId;
+  private String trackingCode;
+  private Long vehicleId;
+  private String plate;
+
+  public VehicleAssignmentDTO() {
+  }
+
+  public VehicleAssignmentDTO(Long shipmentId, String trackingCode, Long vehicleId, String plate) {
+    this.shipmentId = shipmentId;
+    this.trackingCode = trackingCode;
+    this.vehicleId = vehicleId;
+    this.plate = plate;
+  }
+
+  public Long getShipmentId() {
+    return shipmentId;
+  }
+
+  public void setShipmentId(Long shipmentId) {
+    this.shipmentId = shipmentId;
+  }
+
+  public String getTrackingCode() {
+    return trackingCode;
+  }
+
+  public void setTrackingCode(String trackingCode) {
+    this.trackingCode = trackingCode;
+  }
+
+  public Long getVehicleId() {
+    return vehicleId;
+  }
+
+  public void setVehicleId(Long vehicleId) {
+    this.vehicleId = vehicleId;
+  }
+
+  public String getPlate() {
+    return plate;
+  }
+
+  public void setPlate(String plate) {
+    this.plate = plate;
+  }
+}
@@ -1,11 +1,17 @@
 package com.udea.CourierSync.DTO;
 
+import java.time.Instant;
+
 public class VehicleDTO {
   private Long id;
   private String plate;
   private String model;
   private Double maximumCapacity;
+  private Double maximumVolume;
   private boolean available;
+  private Double latitude;
+  private Double longitude;
+  private Instant positionUpdatedAt;
 
   public VehicleDTO() {
   }
@@ -50,6 +56,14 @@ public class VehicleDTO {
     this.maximumCapacity = maximumCapacity;
   }
 
+  public Double getMaximumVolume() {
+    return maximumVolume;
+  }
+
+  public void setMaximumVolume(Double maximumVolume) {
+    this.maximumVolume = maximumVolume;
+  }
+
   public boolean isAvailable() {
     return available;
   }
@@ -57,4 +71,28 @@ public class VehicleDTO {
   public void setAvailable(boolean available) {
     this.available = available;
   }
+
+  public Double getLatitude() {
+    return latitude;
+  }
+
+  public void setLatitude(Double latitude) {
+    this.latitude = latitude;
+  }
+
+  public Double getLongitude() {
+    return longitude;
+  }
+
+  public void setLongitude(Double longitude) {
+    this.longitude = longitude;
+  }
+
+  public Instant getPositionUpdatedAt() {
+    return positionUpdatedAt;
+  }
+
+  public void setPositionUpdatedAt(Instant positionUpdatedAt) {
+    this.positionUpdatedAt = positionUpdatedAt;
+  }
 }
@@ -0,0 +1,40 @@
+package com.udea.CourierSync.DTO;
+
+import java.time.Instant;
+
+/**
+ * What a conditional GET needs to decide on a 304: the entity tag and last modification time,
+ * selected by the repositories without loading the entity (or the collection) itself.
+ */
+public record VersionStamp(String tag, Instant lastModified) {
+
+  // single row: the tag is its @Version
+  public VersionStamp(Long version, Instant lastModified) {
+    this(String.valueOf(version), lastModified);
+  }
+
+  // a row serialized with the rows it references: the tag leads with the row's own version (what If-Match
+  // compares) and changes when any of them does; the latest of their update times is the modification time
+  public VersionStamp(Long version, Long clientVersion, Long vehicleVersion, Instant updatedAt,
+      Instant clientUpdatedAt, Instant vehicleUpdatedAt) {
+    this(version + "-" + (clientVersion == null ? "" : clientVersion) + "-"
+        + (vehicleVersion == null ? "" : vehicleVersion),
+        latest(latest(updatedAt, clientUpdatedAt), vehicleUpdatedAt));
+  }
+
+  // whole table: any insert, update or delete changes the row count, the highest id or the sum of versions.
+  // There is no Last-Modified: MAX(updatedAt) does not move when a row is deleted
+  public VersionStamp(Long count, Long maxId, Long versionSum) {
+    this(count + "-" + (maxId == null ? 0 : maxId) + "-" + (versionSum == null ? 0 : versionSum), null);
+  }
+
+  private static Instant latest(Instant a, Instant b) {
+    if (a == null)
+      return b;
+    return b == null || a.isAfter(b) ? a : b;
+  }
+
+  public long lastModifiedMillis() {
+    return lastModified == null ? -1 : lastModified.toEpochMilli();
+  }
+}
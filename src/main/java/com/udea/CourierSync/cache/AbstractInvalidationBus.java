@@ -0,0 +1,52 @@
+package com.udea.CourierSync.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public abstract class AbstractInvalidationBus implements InvalidationBus {
+  private static final Logger logger = LoggerFactory.getLogger(AbstractInvalidationBus.class);
+
+  private final Map<CacheRegion, List<InvalidationListener>> listeners = new ConcurrentHashMap<>();
+
+  @Override
+  public void subscribe(CacheRegion region, InvalidationListener listener) {
+    listeners.computeIfAbsent(region, r -> new CopyOnWriteArrayList<>()).add(listener);
+  }
+
+  protected void dispatch(CacheRegion region, String key) {
+    for (InvalidationListener listener : listeners.getOrDefault(region, List.of())) {
+      try {
+        listener.invalidate(key);
+      } catch (RuntimeException ex) {
+        logger.warn("Cache invalidation listener failed for {}:{}", region, key, ex);
+      }
+    }
+  }
+
+  protected void dispatchAll() {
+    listeners.values().forEach(forRegion -> forRegion.forEach(InvalidationListener::invalidateAll));
+  }
+
+  // Wire format "REGION:key"; the key may itself contain ':'.
+  static String encode(CacheRegion region, String key) {
+    return region.name() + ":" + key;
+  }
+
+  protected void dispatchEncoded(String payload) {
+    int separator = payload == null ? -1 : payload.indexOf(':');
+    if (separator < 0) {
+      logger.warn("Ignoring malformed cache invalidation message: {}", payload);
+      return;
+    }
+    try {
+      dispatch(CacheRegion.valueOf(payload.substring(0, separator)), payload.substring(separator + 1));
+    } catch (IllegalArgumentException ex) {
+      logger.warn("Ignoring cache invalidation for unknown region: {}", payload);
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package com.udea.CourierSync.cache;
+
+// Entity kinds whose changes are broadcast on the InvalidationBus; keys are ids, or tracking codes for SHIPMENT.
+public enum CacheRegion {
+  SHIPMENT,
+  CLIENT,
+  VEHICLE,
+  USER
+}
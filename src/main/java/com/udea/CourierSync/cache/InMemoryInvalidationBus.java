@@ -0,0 +1,15 @@
+package com.udea.CourierSync.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Single-node bus for tests and local runs: published keys go straight to this node's listeners.
+@Component
+@ConditionalOnProperty(name = "app.cache.invalidation.mode", havingValue = "memory", matchIfMissing = true)
+public class InMemoryInvalidationBus extends AbstractInvalidationBus {
+
+  @Override
+  public void publish(CacheRegion region, String key) {
+    dispatch(region, key);
+  }
+}
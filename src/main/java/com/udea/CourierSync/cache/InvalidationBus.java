@@ -0,0 +1,14 @@
+package com.udea.CourierSync.cache;
+
+/**
+ * Broadcasts entity-change keys so every replica can drop its in-process cache entries.
+ *
+ * A published key reaches the listeners of every node, this one included. Implementations tied to
+ * a database publish within the caller's transaction, so other nodes only hear about committed
+ * changes.
+ */
+public interface InvalidationBus {
+  void publish(CacheRegion region, String key);
+
+  void subscribe(CacheRegion region, InvalidationListener listener);
+}
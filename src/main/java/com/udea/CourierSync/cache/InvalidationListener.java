@@ -0,0 +1,24 @@
+package com.udea.CourierSync.cache;
+
+import java.util.function.Consumer;
+
+public interface InvalidationListener {
+  void invalidate(String key);
+
+  // Called when invalidations may have been missed, e.g. after the bus reconnects.
+  void invalidateAll();
+
+  static InvalidationListener of(Consumer<String> invalidate, Runnable invalidateAll) {
+    return new InvalidationListener() {
+      @Override
+      public void invalidate(String key) {
+        invalidate.accept(key);
+      }
+
+      @Override
+      public void invalidateAll() {
+        invalidateAll.run();
+      }
+    };
+  }
+}
@@ -0,0 +1,101 @@
+package com.udea.CourierSync.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Invalidation bus over PostgreSQL LISTEN/NOTIFY.
+ *
+ * Keys are sent with pg_notify on the caller's pooled connection, so PostgreSQL only delivers them
+ * once the surrounding transaction commits. Each node listens on its own connection opened outside
+ * the Hikari pool, and tells every listener to drop everything after (re)connecting, since
+ * notifications sent while it was disconnected are lost.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.invalidation.mode", havingValue = "postgres")
+public class PostgresInvalidationBus extends AbstractInvalidationBus {
+  private static final Logger logger = LoggerFactory.getLogger(PostgresInvalidationBus.class);
+
+  static final String CHANNEL = "cache_invalidation";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private DataSourceProperties dataSourceProperties;
+
+  @Value("${app.cache.invalidation.poll-ms:1000}")
+  private int pollMs;
+
+  @Value("${app.cache.invalidation.reconnect-ms:5000}")
+  private long reconnectMs;
+
+  private volatile boolean running;
+  private Thread listenerThread;
+
+  @PostConstruct
+  void start() {
+    running = true;
+    listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+    listenerThread.setDaemon(true);
+    listenerThread.start();
+  }
+
+  @PreDestroy
+  void stop() {
+    running = false;
+    listenerThread.interrupt();
+  }
+
+  @Override
+  public void publish(CacheRegion region, String key) {
+    jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, encode(region, key));
+  }
+
+  private void listen() {
+    while (running) {
+      try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+          dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + CHANNEL);
+        }
+        dispatchAll();
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              dispatchEncoded(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException ex) {
+        if (!running) {
+          return;
+        }
+        logger.warn("Cache invalidation listener disconnected, retrying in {} ms", reconnectMs, ex);
+        try {
+          Thread.sleep(reconnectMs);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+}
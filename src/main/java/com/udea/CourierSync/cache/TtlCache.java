@@ -0,0 +1,116 @@
+package com.udea.CourierSync.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Small in-memory cache bounded both by size (least recently used entries are evicted first) and
+ * by time (entries expire a fixed time after they were written).
+ *
+ * Loaders passed to {@link #get(Object, Function)} run outside the lock, so two threads missing the
+ * same key at once may both load it; the last write wins. A loader returning null is not cached.
+ */
+public class TtlCache<K, V> {
+  private final int maxSize;
+  private final long ttlNanos;
+  private final LongSupplier clock;
+  private final LinkedHashMap<K, Entry<V>> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public TtlCache(int maxSize, long ttl, TimeUnit unit) {
+    this(maxSize, ttl, unit, System::nanoTime);
+  }
+
+  TtlCache(int maxSize, long ttl, TimeUnit unit, LongSupplier clock) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be positive");
+    }
+    this.maxSize = maxSize;
+    this.ttlNanos = unit.toNanos(ttl);
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        return size() > TtlCache.this.maxSize;
+      }
+    };
+  }
+
+  public synchronized V getIfPresent(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    if (clock.getAsLong() - entry.writtenAt >= ttlNanos) {
+      entries.remove(key);
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return entry.value;
+  }
+
+  public V get(K key, Function<? super K, ? extends V> loader) {
+    V cached = getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+    V loaded = loader.apply(key);
+    if (loaded != null) {
+      put(key, loaded);
+    }
+    return loaded;
+  }
+
+  public synchronized void put(K key, V value) {
+    entries.put(key, new Entry<>(value, clock.getAsLong()));
+  }
+
+  // Stores the value only if there is no live entry for the key; returns whether it was stored.
+  public synchronized boolean putIfAbsent(K key, V value) {
+    Entry<V> entry = entries.get(key);
+    long now = clock.getAsLong();
+    if (entry != null && now - entry.writtenAt < ttlNanos) {
+      return false;
+    }
+    entries.put(key, new Entry<>(value, now));
+    return true;
+  }
+
+  public synchronized void invalidate(K key) {
+    entries.remove(key);
+  }
+
+  public synchronized void invalidateAll() {
+    entries.clear();
+  }
+
+  // Drops expired entries; lookups already ignore them, this only frees the memory sooner.
+  public synchronized void cleanUp() {
+    long now = clock.getAsLong();
+    Iterator<Entry<V>> it = entries.values().iterator();
+    while (it.hasNext()) {
+      if (now - it.next().writtenAt >= ttlNanos) {
+        it.remove();
+      }
+    }
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public CacheStats stats() {
+    return new CacheStats(hits.sum(), misses.sum(), size(), maxSize);
+  }
+
+  private record Entry<V>(V value, long writtenAt) {
+  }
+}
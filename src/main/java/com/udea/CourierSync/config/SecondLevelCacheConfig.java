@@ -0,0 +1,68 @@
+package com.udea.CourierSync.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Hibernate second-level cache regions for the reference entities (Client, Vehicle, User) and the
+ * query cache. Each region is bounded by app.cache.l2.&lt;region&gt;.max-entries and expires entries after
+ * app.cache.l2.&lt;region&gt;.ttl-seconds; Hibernate is handed this CacheManager so it never creates
+ * unbounded regions on its own.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+  public static final List<String> ENTITY_REGIONS = List.of("client", "vehicle", "user");
+  public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+  public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+  private static final String PROVIDER = "org.ehcache.jsr107.EhcacheCachingProvider";
+
+  @Bean(destroyMethod = "close")
+  public CacheManager hibernateCacheManager(Environment env) {
+    CacheManager cacheManager = Caching.getCachingProvider(PROVIDER).getCacheManager();
+    for (String region : ENTITY_REGIONS) {
+      createRegion(cacheManager, region, maxEntries(env, region, 1000), ttl(env, region, 600));
+    }
+    createRegion(cacheManager, QUERY_RESULTS_REGION, maxEntries(env, "query", 1000), ttl(env, "query", 300));
+    // timestamps must outlive every cached query result, so this region is never expired
+    createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, 10_000, null);
+    return cacheManager;
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+    return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+  }
+
+  private static long maxEntries(Environment env, String region, long defaultValue) {
+    return env.getProperty("app.cache.l2." + region + ".max-entries", Long.class, defaultValue);
+  }
+
+  private static Duration ttl(Environment env, String region, long defaultSeconds) {
+    return Duration.ofSeconds(env.getProperty("app.cache.l2." + region + ".ttl-seconds", Long.class, defaultSeconds));
+  }
+
+  private static void createRegion(CacheManager cacheManager, String name, long maxEntries, Duration ttl) {
+    if (cacheManager.getCache(name) != null) {
+      return;
+    }
+    CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+        .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries));
+    if (ttl != null) {
+      builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl));
+    }
+    cacheManager.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(builder));
+  }
+}
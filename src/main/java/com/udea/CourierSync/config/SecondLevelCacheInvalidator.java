@@ -0,0 +1,44 @@
+package com.udea.CourierSync.config;
+
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.cache.InvalidationListener;
+import com.udea.CourierSync.entity.Client;
+import com.udea.CourierSync.entity.User;
+import com.udea.CourierSync.entity.Vehicle;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Keeps the per-node second-level cache coherent with writes made on other replicas.
+@Component
+public class SecondLevelCacheInvalidator {
+
+  @Autowired
+  private InvalidationBus invalidationBus;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @PostConstruct
+  void subscribe() {
+    subscribe(CacheRegion.CLIENT, Client.class);
+    subscribe(CacheRegion.VEHICLE, Vehicle.class);
+    subscribe(CacheRegion.USER, User.class);
+  }
+
+  private void subscribe(CacheRegion region, Class<?> entityClass) {
+    org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    invalidationBus.subscribe(region, InvalidationListener.of(
+        key -> {
+          cache.evictEntityData(entityClass, Long.valueOf(key));
+          cache.evictQueryRegions();
+        },
+        () -> {
+          cache.evictEntityData(entityClass);
+          cache.evictQueryRegions();
+        }));
+  }
+}
@@ -11,11 +11,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import com.udea.CourierSync.services.ClientService;
 import com.udea.CourierSync.DTO.ClientDTO;
+import com.udea.CourierSync.DTO.VersionStamp;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/clients")
@@ -37,23 +40,33 @@ public class ClientController {
     return ResponseEntity.status(HttpStatus.CREATED).body(created);
   }
 
-  @Operation(summary = "Listar todos los clientes", description = "Obtiene una lista de todos los clientes registrados en el sistema.")
+  @Operation(summary = "Listar todos los clientes", description = "Obtiene una lista de todos los clientes registrados en el sistema. Admite If-None-Match: si nada cambió responde 304 sin cargar la lista. No se envía Last-Modified porque no refleja los borrados.")
   @ApiResponses(value = {
-      @ApiResponse(responseCode = "200", description = "Lista de clientes obtenida exitosamente", content = @Content(schema = @Schema(implementation = ClientDTO.class)))
+      @ApiResponse(responseCode = "200", description = "Lista de clientes obtenida exitosamente", content = @Content(schema = @Schema(implementation = ClientDTO.class))),
+      @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag o la fecha enviados")
   })
   @GetMapping
-  public List<ClientDTO> list() {
+  public List<ClientDTO> list(WebRequest request) {
+    if (ETags.notModified(request, clientService.findAllVersionStamp()))
+      return null;
     return clientService.findAll();
   }
 
-  @Operation(summary = "Obtener un cliente por ID", description = "Obtiene los detalles de un cliente específico mediante su ID.")
+  @Operation(summary = "Obtener un cliente por ID", description = "Obtiene los detalles de un cliente específico mediante su ID. Admite If-None-Match / If-Modified-Since: si no cambió responde 304 sin cargarlo.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Cliente encontrado", content = @Content(schema = @Schema(implementation = ClientDTO.class))),
+      @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag o la fecha enviados"),
       @ApiResponse(responseCode = "404", description = "Cliente no encontrado")
   })
   @GetMapping("/{id}")
   public ResponseEntity<ClientDTO> get(
-      @Parameter(description = "ID del cliente", required = true) @PathVariable Long id) {
+      @Parameter(description = "ID del cliente", required = true) @PathVariable Long id,
+      WebRequest request) {
+    Optional<VersionStamp> stamp = clientService.findVersionStamp(id);
+    if (stamp.isEmpty())
+      return ResponseEntity.notFound().build();
+    if (ETags.notModified(request, stamp.get()))
+      return null;
     return clientService.findById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
   }
 
@@ -10,9 +10,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.udea.CourierSync.repository.ShipmentRepository;
-import com.udea.CourierSync.repository.ClientRepository;
-import com.udea.CourierSync.repository.UserRepository;
+import com.udea.CourierSync.cache.CacheStats;
+import com.udea.CourierSync.services.CacheStatsService;
+import com.udea.CourierSync.services.DashboardMetricsService;
 
 import java.util.Map;
 
@@ -23,28 +23,28 @@ import java.util.Map;
 public class DashboardController {
 
   @Autowired
-  private ShipmentRepository shipmentRepository;
+  private DashboardMetricsService dashboardMetricsService;
 
   @Autowired
-  private ClientRepository clientRepository;
+  private CacheStatsService cacheStatsService;
 
-  @Autowired
-  private UserRepository userRepository;
-
-  @Operation(summary = "Obtener métricas del sistema", description = "Obtiene métricas generales del sistema incluyendo el total de envíos, clientes y usuarios. Solo disponible para usuarios con rol ADMIN.")
+  @Operation(summary = "Obtener métricas del sistema", description = "Obtiene métricas generales del sistema incluyendo el total de envíos, clientes y usuarios, y los envíos por estado y por prioridad. Los valores se mantienen en memoria y se reconcilian periódicamente con la base de datos. Solo disponible para usuarios con rol ADMIN.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Métricas obtenidas exitosamente", content = @io.swagger.v3.oas.annotations.media.Content(mediaType = "application/json")),
       @ApiResponse(responseCode = "403", description = "No autorizado - Se requiere rol ADMIN")
   })
   @GetMapping("/metrics")
   public Map<String, Object> metrics() {
-    long shipments = shipmentRepository.count();
-    long clients = clientRepository.count();
-    long users = userRepository.count();
-
-    return Map.of(
-        "shipments", shipments,
-        "clients", clients,
-        "users", users);
+    return dashboardMetricsService.snapshot();
+  }
+
+  @Operation(summary = "Estadísticas de cachés", description = "Obtiene aciertos, fallos y tamaño de las cachés en memoria de esta instancia (códigos de seguimiento, usuarios autenticados, tokens verificados y caché de segundo nivel de Hibernate para clientes, vehículos, usuarios y consultas). Solo disponible para usuarios con rol ADMIN.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Estadísticas obtenidas exitosamente", content = @io.swagger.v3.oas.annotations.media.Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "403", description = "No autorizado - Se requiere rol ADMIN")
+  })
+  @GetMapping("/caches")
+  public Map<String, CacheStats> caches() {
+    return cacheStatsService.snapshot();
   }
 }
@@ -0,0 +1,44 @@
+package com.udea.CourierSync.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.udea.CourierSync.DTO.DispatchRequestDTO;
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.services.DispatchService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/dispatch")
+@Tag(name = "Dispatch", description = "API para despachar envíos pendientes por prioridad")
+public class DispatchController {
+
+  @Autowired
+  private DispatchService dispatchService;
+
+  @Operation(summary = "Tomar los siguientes envíos", description = "Asigna al vehículo indicado los siguientes count envíos PENDIENTE sin vehículo (por defecto 1, máximo 50), primero los de prioridad ALTA y dentro de cada prioridad los más antiguos. Es seguro con varias instancias: un envío nunca se entrega a dos vehículos y las solicitudes simultáneas no se bloquean entre sí. Devuelve menos envíos de los pedidos, o ninguno, si no quedan o si el siguiente ya no cabe en el peso o volumen libres del vehículo; ese envío sigue en la cola. Disponible para ADMIN, OPERATOR y DRIVER.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Envíos asignados", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ShipmentDTO.class)))),
+      @ApiResponse(responseCode = "400", description = "vehicleId ausente o count inválido"),
+      @ApiResponse(responseCode = "404", description = "Vehículo no encontrado"),
+      @ApiResponse(responseCode = "409", description = "El vehículo no está disponible"),
+      @ApiResponse(responseCode = "403", description = "No autorizado")
+  })
+  @PostMapping("/next")
+  @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR', 'DRIVER')")
+  public List<ShipmentDTO> next(@RequestBody DispatchRequestDTO request) {
+    return dispatchService.claimNext(request);
+  }
+}
@@ -0,0 +1,48 @@
+package com.udea.CourierSync.controllers;
+
+import com.udea.CourierSync.DTO.VersionStamp;
+import com.udea.CourierSync.exception.BadRequestException;
+import org.springframework.web.context.request.WebRequest;
+
+// Entity versions travel as strong ETags ("3", or "3-1-2" when the body nests other rows); If-Match must carry one of them
+final class ETags {
+
+  private ETags() {
+  }
+
+  static String of(Object version) {
+    return "\"" + version + "\"";
+  }
+
+  /**
+   * Evaluates If-None-Match / If-Modified-Since against the stamp. When true the 304 status is already
+   * set and the handler should return null; otherwise ETag and Last-Modified are set on the response
+   * and the handler goes on to load the body. Stamps without a modification time (whole tables) only set the ETag.
+   */
+  static boolean notModified(WebRequest request, VersionStamp stamp) {
+    return request.checkNotModified(of(stamp.tag()), stamp.lastModifiedMillis());
+  }
+
+  // null when the header is absent or "*", i.e. no version to check against; only the leading version counts
+  static Long parseIfMatch(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+      return null;
+    }
+    String value = ifMatch.trim();
+    if (value.startsWith("W/")) {
+      value = value.substring(2);
+    }
+    if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+      value = value.substring(1, value.length() - 1);
+    }
+    int nested = value.indexOf('-');
+    if (nested > 0) {
+      value = value.substring(0, nested);
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException ex) {
+      throw new BadRequestException("Invalid If-Match header: " + ifMatch);
+    }
+  }
+}
@@ -5,19 +5,47 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.udea.CourierSync.idempotency.IdempotencyService;
+import com.udea.CourierSync.services.ShipmentEventHub;
+import com.udea.CourierSync.services.ShipmentExportService;
 import com.udea.CourierSync.services.ShipmentService;
+import com.udea.CourierSync.services.VehicleAssignmentService;
+import com.udea.CourierSync.DTO.AssignmentResultDTO;
+import com.udea.CourierSync.DTO.BulkShipmentResultDTO;
+import com.udea.CourierSync.DTO.BulkStatusResultDTO;
+import com.udea.CourierSync.DTO.NearbyShipmentDTO;
 import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.DTO.ShipmentPageDTO;
+import com.udea.CourierSync.DTO.StatusHistoryDTO;
+import com.udea.CourierSync.DTO.StatusUpdateDTO;
+import com.udea.CourierSync.DTO.VersionStamp;
+import com.udea.CourierSync.enums.RouteStopType;
+import com.udea.CourierSync.enums.ShipmentPriority;
 import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.exception.BadRequestException;
+import com.udea.CourierSync.exception.ResourceNotFoundException;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/shipments")
@@ -27,61 +55,193 @@ public class ShipmentController {
   @Autowired
   private ShipmentService shipmentService;
 
-  @Operation(summary = "Crear un nuevo envío", description = "Crea un nuevo envío en el sistema. Los ADMIN pueden crear envíos con cualquier estado, mientras que los OPERATOR solo pueden crear envíos con estado PENDING.")
+  @Autowired
+  private ShipmentExportService shipmentExportService;
+
+  @Autowired
+  private ShipmentEventHub shipmentEventHub;
+
+  @Autowired
+  private IdempotencyService idempotencyService;
+
+  @Autowired
+  private VehicleAssignmentService vehicleAssignmentService;
+
+  @Value("${app.export.request-timeout-ms:600000}")
+  private long exportRequestTimeoutMs;
+
+  @Operation(summary = "Crear un nuevo envío", description = "Crea un nuevo envío en el sistema. Los ADMIN pueden crear envíos con cualquier estado, mientras que los OPERATOR solo pueden crear envíos con estado PENDIENTE (o sin estado, que se toma como PENDIENTE). Si se envía la cabecera Idempotency-Key, los reintentos con la misma clave devuelven la respuesta original sin crear otro envío.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "201", description = "Envío creado exitosamente", content = @Content(schema = @Schema(implementation = ShipmentDTO.class))),
-      @ApiResponse(responseCode = "400", description = "Datos inválidos"),
+      @ApiResponse(responseCode = "400", description = "Datos inválidos o Idempotency-Key reutilizada con otra petición"),
+      @ApiResponse(responseCode = "409", description = "Ya hay una petición en curso con la misma Idempotency-Key"),
       @ApiResponse(responseCode = "403", description = "No autorizado para crear este tipo de envío")
   })
   @PostMapping
-  @PreAuthorize("hasRole('ADMIN') or (hasRole('OPERATOR') and #dto.status == 'PENDING')")
-  public ResponseEntity<ShipmentDTO> create(@RequestBody ShipmentDTO dto) {
-    ShipmentDTO created = shipmentService.createShipment(dto);
-    return ResponseEntity.status(HttpStatus.CREATED).body(created);
+  // status is an enum, so compare its name; an enum never equals a string literal in SpEL. No status means
+  // PENDIENTE, as in the bulk create.
+  @PreAuthorize("hasRole('ADMIN') or (hasRole('OPERATOR') and (#dto.status == null or #dto.status.name() == 'PENDIENTE'))")
+  public ResponseEntity<ShipmentDTO> create(
+      @Parameter(description = "Clave única por intento lógico para reintentar sin duplicar") @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+      @RequestBody ShipmentDTO dto) {
+    return idempotencyService.execute(idempotencyKey, "POST /api/shipments", dto, ShipmentDTO.class, () -> {
+      ShipmentDTO created = shipmentService.createShipment(dto);
+      return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    });
   }
 
-  @Operation(summary = "Listar todos los envíos", description = "Obtiene una lista de todos los envíos en el sistema. Disponible para ADMIN, OPERATOR y DRIVER.")
+  @Operation(summary = "Crear envíos en lote", description = "Crea hasta 5000 envíos en una sola petición (por ejemplo, al importar un manifiesto). Cada fila se valida por separado y la respuesta indica, en el mismo orden, si se creó o el motivo del error. Los OPERATOR solo pueden crear filas con estado PENDIENTE (o sin estado); las demás se rechazan. Disponible para ADMIN y OPERATOR.")
   @ApiResponses(value = {
-      @ApiResponse(responseCode = "200", description = "Lista de envíos obtenida exitosamente", content = @Content(schema = @Schema(implementation = ShipmentDTO.class))),
+      @ApiResponse(responseCode = "200", description = "Lote procesado; ver el resultado de cada fila", content = @Content(array = @ArraySchema(schema = @Schema(implementation = BulkShipmentResultDTO.class)))),
+      @ApiResponse(responseCode = "400", description = "Lote vacío o demasiado grande"),
+      @ApiResponse(responseCode = "403", description = "No autorizado")
+  })
+  @PostMapping("/bulk")
+  @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR')")
+  public List<BulkShipmentResultDTO> createBulk(@RequestBody List<ShipmentDTO> dtos) {
+    return shipmentService.createShipments(dtos);
+  }
+
+  @Operation(summary = "Listar envíos paginados", description = "Obtiene una página de envíos ordenados por ID usando paginación por cursor. Se puede filtrar por estado, prioridad, cliente y vehículo. Disponible para ADMIN, OPERATOR y DRIVER.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Página de envíos obtenida exitosamente", content = @Content(schema = @Schema(implementation = ShipmentPageDTO.class))),
+      @ApiResponse(responseCode = "400", description = "Cursor o tamaño de página inválido"),
       @ApiResponse(responseCode = "403", description = "No autorizado")
   })
   @GetMapping
   @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR', 'DRIVER')")
-  public List<ShipmentDTO> list() {
-    return shipmentService.findAll();
+  public ShipmentPageDTO list(
+      @Parameter(description = "Cursor devuelto en nextCursor por la página anterior") @RequestParam(required = false) String cursor,
+      @Parameter(description = "Tamaño de página (por defecto 50, máximo 200)") @RequestParam(required = false) Integer size,
+      @Parameter(description = "Filtrar por estado") @RequestParam(required = false) ShipmentStatus status,
+      @Parameter(description = "Filtrar por prioridad") @RequestParam(required = false) ShipmentPriority priority,
+      @Parameter(description = "Filtrar por ID de cliente") @RequestParam(required = false) Long clientId,
+      @Parameter(description = "Filtrar por ID de vehículo") @RequestParam(required = false) Long vehicleId) {
+    return shipmentService.findPage(cursor, size, status, priority, clientId, vehicleId);
   }
 
-  @Operation(summary = "Obtener un envío por ID", description = "Obtiene los detalles de un envío específico mediante su ID. Disponible para ADMIN, OPERATOR y DRIVER.")
+  @Operation(summary = "Envíos cercanos", description = "Obtiene los envíos no entregados ni cancelados cuyo punto de recogida (stop=PICKUP, origen) o de entrega (stop=DELIVERY, destino) está dentro del radio indicado, del más cercano al más lejano, con la distancia en km. Solo se consideran envíos con coordenadas. Disponible para ADMIN, OPERATOR y DRIVER.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Envíos encontrados", content = @Content(array = @ArraySchema(schema = @Schema(implementation = NearbyShipmentDTO.class)))),
+      @ApiResponse(responseCode = "400", description = "Coordenadas, radio o límite inválidos"),
+      @ApiResponse(responseCode = "403", description = "No autorizado")
+  })
+  @GetMapping("/nearby")
+  @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR', 'DRIVER')")
+  public List<NearbyShipmentDTO> nearby(
+      @Parameter(description = "Latitud del punto", required = true) @RequestParam Double latitude,
+      @Parameter(description = "Longitud del punto", required = true) @RequestParam Double longitude,
+      @Parameter(description = "Radio de búsqueda en km (máximo 50)") @RequestParam(defaultValue = "2") Double radiusKm,
+      @Parameter(description = "PICKUP busca por origen, DELIVERY por destino") @RequestParam(defaultValue = "PICKUP") RouteStopType stop,
+      @Parameter(description = "Número máximo de resultados (por defecto 50, máximo 200)") @RequestParam(required = false) Integer limit) {
+    return shipmentService.findNearby(latitude, longitude, radiusKm, stop, limit);
+  }
+
+  @Operation(summary = "Exportar todos los envíos", description = "Exporta todos los envíos en formato NDJSON (por defecto) o CSV. La respuesta se escribe en streaming, por lo que el consumo de memoria no depende del número de envíos. Solo disponible para ADMIN.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Exportación iniciada"),
+      @ApiResponse(responseCode = "400", description = "Formato no soportado"),
+      @ApiResponse(responseCode = "403", description = "No autorizado")
+  })
+  @GetMapping("/export")
+  @PreAuthorize("hasRole('ADMIN')")
+  public WebAsyncTask<Void> export(
+      @Parameter(description = "Formato de exportación: ndjson o csv") @RequestParam(defaultValue = "ndjson") String format,
+      HttpServletResponse response) {
+    // the timeout applies to this request only; other async endpoints keep the container default
+    if ("csv".equalsIgnoreCase(format)) {
+      response.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8).toString());
+      response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"shipments.csv\"");
+      return new WebAsyncTask<>(exportRequestTimeoutMs, () -> {
+        shipmentExportService.exportCsv(response.getOutputStream());
+        return null;
+      });
+    }
+    if ("ndjson".equalsIgnoreCase(format)) {
+      response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+      response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"shipments.ndjson\"");
+      return new WebAsyncTask<>(exportRequestTimeoutMs, () -> {
+        shipmentExportService.exportNdjson(response.getOutputStream());
+        return null;
+      });
+    }
+    throw new BadRequestException("Unsupported export format: " + format);
+  }
+
+  @Operation(summary = "Suscribirse a cambios de un envío", description = "Abre un flujo Server-Sent Events por código de seguimiento. Se envía el estado actual al conectar y un evento 'shipment' cada vez que el envío cambia; el flujo se cierra cuando el envío se elimina. Reemplaza el sondeo periódico de GET /api/shipments/{id}. Disponible para ADMIN, OPERATOR y DRIVER.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Suscripción abierta"),
+      @ApiResponse(responseCode = "404", description = "Envío no encontrado"),
+      @ApiResponse(responseCode = "429", description = "Demasiadas suscripciones abiertas"),
+      @ApiResponse(responseCode = "403", description = "No autorizado")
+  })
+  @GetMapping(path = "/tracking/{trackingCode}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR', 'DRIVER')")
+  public SseEmitter subscribe(
+      @Parameter(description = "Código de seguimiento del envío", required = true) @PathVariable String trackingCode) {
+    ShipmentDTO current = shipmentService.findByTrackingCode(trackingCode)
+        .orElseThrow(() -> new ResourceNotFoundException("Shipment not found with tracking code: " + trackingCode));
+    return shipmentEventHub.subscribe(trackingCode, current);
+  }
+
+  @Operation(summary = "Obtener un envío por ID", description = "Obtiene los detalles de un envío específico mediante su ID. Admite If-None-Match / If-Modified-Since: si no cambió responde 304 sin cargarlo. Disponible para ADMIN, OPERATOR y DRIVER.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Envío encontrado", content = @Content(schema = @Schema(implementation = ShipmentDTO.class))),
+      @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag o la fecha enviados"),
       @ApiResponse(responseCode = "404", description = "Envío no encontrado"),
       @ApiResponse(responseCode = "403", description = "No autorizado")
   })
   @GetMapping("/{id}")
   @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR', 'DRIVER')")
   public ResponseEntity<ShipmentDTO> get(
-      @Parameter(description = "ID del envío", required = true) @PathVariable Long id) {
+      @Parameter(description = "ID del envío", required = true) @PathVariable Long id,
+      WebRequest request) {
+    // a lookup of the version columns decides the 304; the shipment is only loaded and serialized when it changed
+    Optional<VersionStamp> stamp = shipmentService.findVersionStamp(id);
+    if (stamp.isEmpty())
+      return ResponseEntity.notFound().build();
+    if (ETags.notModified(request, stamp.get()))
+      return null;
     return shipmentService.findById(id)
         .map(ResponseEntity::ok)
         .orElse(ResponseEntity.notFound().build());
   }
 
-  @Operation(summary = "Actualizar un envío", description = "Actualiza la información de un envío existente. ADMIN puede actualizar cualquier envío, OPERATOR solo envíos pendientes, y DRIVER solo puede actualizar ciertos campos según las reglas de negocio.")
+  @Operation(summary = "Actualizar un envío", description = "Reemplaza la información de un envío existente. ADMIN puede actualizar cualquier envío, OPERATOR solo envíos pendientes, y DRIVER solo puede actualizar ciertos campos según las reglas de negocio. Si se envía If-Match (o version en el cuerpo) y el envío cambió desde entonces, responde 409.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Envío actualizado exitosamente", content = @Content(schema = @Schema(implementation = ShipmentDTO.class))),
       @ApiResponse(responseCode = "400", description = "Datos inválidos"),
       @ApiResponse(responseCode = "404", description = "Envío no encontrado"),
+      @ApiResponse(responseCode = "409", description = "El envío fue modificado por otra petición"),
       @ApiResponse(responseCode = "403", description = "No autorizado para actualizar este envío")
   })
   @PutMapping("/{id}")
-  @PreAuthorize("hasRole('ADMIN') or " +
-      "(hasRole('OPERATOR') and @shipmentService.isShipmentPending(#id)) or " +
-      "(hasRole('DRIVER') and @shipmentService.canDriverUpdateStatus(#id, #dto))")
+  // per-role rules (pending shipments for OPERATOR, allowed transitions for DRIVER) are enforced by the service
+  @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR', 'DRIVER')")
   public ResponseEntity<ShipmentDTO> update(
       @Parameter(description = "ID del envío", required = true) @PathVariable Long id,
+      @Parameter(description = "ETag obtenido al leer el envío") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @RequestBody ShipmentDTO dto) {
-    ShipmentDTO updated = shipmentService.update(id, dto);
-    return ResponseEntity.ok(updated);
+    ShipmentDTO updated = shipmentService.update(id, dto, ETags.parseIfMatch(ifMatch));
+    return withETag(updated);
+  }
+
+  @Operation(summary = "Actualizar parcialmente un envío", description = "Aplica solo los campos enviados; los campos nulos u omitidos se conservan. Mismas reglas por rol que PUT. Si se envía If-Match (o version en el cuerpo) y el envío cambió desde entonces, responde 409.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Envío actualizado exitosamente", content = @Content(schema = @Schema(implementation = ShipmentDTO.class))),
+      @ApiResponse(responseCode = "400", description = "Datos inválidos"),
+      @ApiResponse(responseCode = "404", description = "Envío no encontrado"),
+      @ApiResponse(responseCode = "409", description = "El envío fue modificado por otra petición"),
+      @ApiResponse(responseCode = "403", description = "No autorizado para actualizar este envío")
+  })
+  @PatchMapping("/{id}")
+  @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR', 'DRIVER')")
+  public ResponseEntity<ShipmentDTO> patch(
+      @Parameter(description = "ID del envío", required = true) @PathVariable Long id,
+      @Parameter(description = "ETag obtenido al leer el envío") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody ShipmentDTO dto) {
+    ShipmentDTO updated = shipmentService.patch(id, dto, ETags.parseIfMatch(ifMatch));
+    return withETag(updated);
   }
 
   @Operation(summary = "Eliminar un envío", description = "Elimina un envío del sistema. ADMIN puede eliminar cualquier envío, OPERATOR solo envíos pendientes.")
@@ -91,17 +251,19 @@ public class ShipmentController {
       @ApiResponse(responseCode = "403", description = "No autorizado para eliminar este envío")
   })
   @DeleteMapping("/{id}")
-  @PreAuthorize("hasRole('ADMIN') or (hasRole('OPERATOR') and @shipmentService.isShipmentPending(#id))")
+  // OPERATOR may only delete pending shipments; enforced by the service
+  @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR')")
   public ResponseEntity<Void> delete(
       @Parameter(description = "ID del envío", required = true) @PathVariable Long id) {
     shipmentService.deleteById(id);
     return ResponseEntity.noContent().build();
   }
 
-  @Operation(summary = "Actualizar estado de un envío", description = "Actualiza el estado de un envío específico. Disponible para ADMIN y DRIVER. Permite agregar observaciones opcionales.")
+  @Operation(summary = "Actualizar estado de un envío", description = "Actualiza el estado de un envío específico. Disponible para ADMIN y DRIVER. Permite agregar observaciones opcionales. Si se envía la cabecera Idempotency-Key, los reintentos con la misma clave devuelven la respuesta original sin volver a registrar el cambio.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Estado actualizado exitosamente", content = @Content(schema = @Schema(implementation = ShipmentDTO.class))),
-      @ApiResponse(responseCode = "400", description = "Estado inválido"),
+      @ApiResponse(responseCode = "400", description = "Estado inválido o Idempotency-Key reutilizada con otra petición"),
+      @ApiResponse(responseCode = "409", description = "Ya hay una petición en curso con la misma Idempotency-Key, o el envío cambió desde el ETag enviado en If-Match"),
       @ApiResponse(responseCode = "404", description = "Envío no encontrado"),
       @ApiResponse(responseCode = "403", description = "No autorizado")
   })
@@ -110,8 +272,60 @@ public class ShipmentController {
   public ResponseEntity<ShipmentDTO> updateStatus(
       @Parameter(description = "ID del envío", required = true) @PathVariable Long id,
       @Parameter(description = "Nuevo estado del envío", required = true) @RequestParam ShipmentStatus status,
-      @Parameter(description = "Observaciones opcionales sobre el cambio de estado") @RequestParam(required = false) String observations) {
-    ShipmentDTO updated = shipmentService.updateStatus(id, status, observations);
-    return ResponseEntity.ok(updated);
+      @Parameter(description = "Observaciones opcionales sobre el cambio de estado") @RequestParam(required = false) String observations,
+      @Parameter(description = "Clave única por intento lógico para reintentar sin duplicar") @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+      @Parameter(description = "ETag obtenido al leer el envío") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    Long expectedVersion = ETags.parseIfMatch(ifMatch);
+    return idempotencyService.execute(idempotencyKey, "PUT /api/shipments/" + id + "/status",
+        Arrays.asList(id, status, observations, expectedVersion), ShipmentDTO.class, () -> {
+          ShipmentDTO updated = shipmentService.updateStatus(id, status, observations, expectedVersion);
+          return withETag(updated);
+        });
+  }
+
+  @Operation(summary = "Actualizar estados en lote", description = "Aplica hasta 500 cambios de estado (id, status, observations y opcionalmente version) en una sola transacción, por ejemplo al cerrar la jornada de un conductor. Cada entrada se valida con las mismas reglas que PUT /{id}/status y la respuesta indica, en el mismo orden, si se aplicó o el motivo del error. Disponible para ADMIN y DRIVER.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Lote procesado; ver el resultado de cada entrada", content = @Content(array = @ArraySchema(schema = @Schema(implementation = BulkStatusResultDTO.class)))),
+      @ApiResponse(responseCode = "400", description = "Lote vacío o demasiado grande"),
+      @ApiResponse(responseCode = "409", description = "Otro proceso modificó un envío del lote; no se aplicó ningún cambio"),
+      @ApiResponse(responseCode = "403", description = "No autorizado")
+  })
+  @PutMapping("/bulk/status")
+  @PreAuthorize("hasAnyRole('ADMIN', 'DRIVER')")
+  public List<BulkStatusResultDTO> updateStatuses(@RequestBody List<StatusUpdateDTO> updates) {
+    return shipmentService.updateStatuses(updates);
+  }
+
+  @Operation(summary = "Asignar vehículos a envíos pendientes", description = "Asigna automáticamente los envíos PENDIENTE sin vehículo a los vehículos disponibles, respetando su capacidad de peso y volumen (incluida la carga que ya llevan) y dando preferencia a los envíos de prioridad ALTA. Sin lista de IDs se procesan como máximo 10000 envíos por petición, primero los de prioridad ALTA y los más antiguos; el resto queda para la siguiente. Si se envía una lista de IDs solo se consideran esos envíos, y los que no existen o no están pendientes sin vehículo se devuelven como no asignados. Disponible para ADMIN y OPERATOR.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Asignación realizada; incluye los envíos que no cupieron", content = @Content(schema = @Schema(implementation = AssignmentResultDTO.class))),
+      @ApiResponse(responseCode = "400", description = "Demasiados IDs en una sola petición"),
+      @ApiResponse(responseCode = "409", description = "Otro proceso modificó un envío durante la asignación"),
+      @ApiResponse(responseCode = "403", description = "No autorizado")
+  })
+  @PostMapping("/assignments")
+  @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR')")
+  public AssignmentResultDTO assignVehicles(@RequestBody(required = false) List<Long> shipmentIds) {
+    return vehicleAssignmentService.assignPending(shipmentIds);
+  }
+
+  @Operation(summary = "Historial de estados de un envío", description = "Obtiene el historial de cambios de estado de un envío, del más reciente al más antiguo, paginado. Disponible para ADMIN, OPERATOR y DRIVER.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Historial obtenido exitosamente"),
+      @ApiResponse(responseCode = "400", description = "Parámetros de paginación inválidos"),
+      @ApiResponse(responseCode = "404", description = "Envío no encontrado"),
+      @ApiResponse(responseCode = "403", description = "No autorizado")
+  })
+  @GetMapping("/{id}/history")
+  @PreAuthorize("hasAnyRole('ADMIN', 'OPERATOR', 'DRIVER')")
+  public Page<StatusHistoryDTO> history(
+      @Parameter(description = "ID del envío", required = true) @PathVariable Long id,
+      @Parameter(description = "Número de página (desde 0)") @RequestParam(defaultValue = "0") int page,
+      @Parameter(description = "Tamaño de página (máximo 100)") @RequestParam(defaultValue = "20") int size) {
+    return shipmentService.findHistory(id, page, size);
+  }
+
+  private static ResponseEntity<ShipmentDTO> withETag(ShipmentDTO dto) {
+    return ResponseEntity.ok().eTag(ETags.of(dto.getVersion())).body(dto);
   }
 }
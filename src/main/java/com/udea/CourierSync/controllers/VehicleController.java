@@ -11,10 +11,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import com.udea.CourierSync.services.RoutePlanningService;
 import com.udea.CourierSync.services.VehicleService;
+import com.udea.CourierSync.DTO.NearbyVehicleDTO;
+import com.udea.CourierSync.DTO.PositionDTO;
+import com.udea.CourierSync.DTO.RouteDTO;
 import com.udea.CourierSync.DTO.VehicleDTO;
+import com.udea.CourierSync.DTO.VersionStamp;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/vehicles")
@@ -24,6 +31,9 @@ public class VehicleController {
   @Autowired
   private VehicleService vehicleService;
 
+  @Autowired
+  private RoutePlanningService routePlanningService;
+
   @Operation(summary = "Crear un nuevo vehículo", description = "Crea un nuevo vehículo en el sistema con la información proporcionada (placa, modelo, capacidad máxima y disponibilidad).")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "201", description = "Vehículo creado exitosamente", content = @Content(schema = @Schema(implementation = VehicleDTO.class))),
@@ -36,26 +46,84 @@ public class VehicleController {
     return ResponseEntity.status(HttpStatus.CREATED).body(created);
   }
 
-  @Operation(summary = "Listar todos los vehículos", description = "Obtiene una lista de todos los vehículos registrados en el sistema.")
+  @Operation(summary = "Listar todos los vehículos", description = "Obtiene una lista de todos los vehículos registrados en el sistema. Admite If-None-Match: si nada cambió responde 304 sin cargar la lista. No se envía Last-Modified porque no refleja los borrados.")
   @ApiResponses(value = {
-      @ApiResponse(responseCode = "200", description = "Lista de vehículos obtenida exitosamente", content = @Content(schema = @Schema(implementation = VehicleDTO.class)))
+      @ApiResponse(responseCode = "200", description = "Lista de vehículos obtenida exitosamente", content = @Content(schema = @Schema(implementation = VehicleDTO.class))),
+      @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag o la fecha enviados")
   })
   @GetMapping
-  public List<VehicleDTO> list() {
+  public List<VehicleDTO> list(WebRequest request) {
+    if (ETags.notModified(request, vehicleService.findAllVersionStamp()))
+      return null;
     return vehicleService.findAll();
   }
 
-  @Operation(summary = "Obtener un vehículo por ID", description = "Obtiene los detalles de un vehículo específico mediante su ID.")
+  @Operation(summary = "Obtener un vehículo por ID", description = "Obtiene los detalles de un vehículo específico mediante su ID. Admite If-None-Match / If-Modified-Since: si no cambió responde 304 sin cargarlo.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Vehículo encontrado", content = @Content(schema = @Schema(implementation = VehicleDTO.class))),
+      @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag o la fecha enviados"),
       @ApiResponse(responseCode = "404", description = "Vehículo no encontrado")
   })
   @GetMapping("/{id}")
   public ResponseEntity<VehicleDTO> get(
-      @Parameter(description = "ID del vehículo", required = true) @PathVariable Long id) {
+      @Parameter(description = "ID del vehículo", required = true) @PathVariable Long id,
+      WebRequest request) {
+    Optional<VersionStamp> stamp = vehicleService.findVersionStamp(id);
+    if (stamp.isEmpty())
+      return ResponseEntity.notFound().build();
+    if (ETags.notModified(request, stamp.get()))
+      return null;
     return vehicleService.findById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
   }
 
+  @Operation(summary = "Ruta de un vehículo", description = "Devuelve las paradas del vehículo en el orden recomendado: primero las recogidas de los envíos PENDIENTE y luego las entregas, de prioridad ALTA a BAJA, minimizando la distancia recorrida. Las paradas sin coordenadas van al final. El cálculo tiene un tiempo máximo; si se alcanza, optimized es false.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Ruta calculada", content = @Content(schema = @Schema(implementation = RouteDTO.class))),
+      @ApiResponse(responseCode = "404", description = "Vehículo no encontrado")
+  })
+  @GetMapping("/{id}/route")
+  public RouteDTO route(
+      @Parameter(description = "ID del vehículo", required = true) @PathVariable Long id) {
+    return routePlanningService.planRoute(id);
+  }
+
+  @Operation(summary = "Rutas de todos los vehículos", description = "Calcula en paralelo la ruta de cada vehículo que tiene envíos pendientes de recoger o de entregar, ordenadas por ID de vehículo.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Rutas calculadas", content = @Content(schema = @Schema(implementation = RouteDTO.class)))
+  })
+  @GetMapping("/routes")
+  public List<RouteDTO> routes() {
+    return routePlanningService.planRoutes();
+  }
+
+  @Operation(summary = "Vehículos más cercanos", description = "Devuelve los k vehículos cuya última posición reportada está más cerca del punto, del más cercano al más lejano, con la distancia en km. Por defecto solo considera los vehículos disponibles.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Vehículos encontrados", content = @Content(schema = @Schema(implementation = NearbyVehicleDTO.class))),
+      @ApiResponse(responseCode = "400", description = "Coordenadas o k inválidos")
+  })
+  @GetMapping("/nearest")
+  public List<NearbyVehicleDTO> nearest(
+      @Parameter(description = "Latitud del punto", required = true) @RequestParam Double latitude,
+      @Parameter(description = "Longitud del punto", required = true) @RequestParam Double longitude,
+      @Parameter(description = "Número de vehículos (1 a 50)") @RequestParam(defaultValue = "5") Integer k,
+      @Parameter(description = "Solo vehículos disponibles") @RequestParam(defaultValue = "true") boolean availableOnly) {
+    return vehicleService.findNearest(latitude, longitude, k, availableOnly);
+  }
+
+  @Operation(summary = "Reportar la posición de un vehículo", description = "Registra la posición actual del vehículo; se usa como punto de partida de su ruta y en la búsqueda de vehículos cercanos.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Posición actualizada", content = @Content(schema = @Schema(implementation = VehicleDTO.class))),
+      @ApiResponse(responseCode = "400", description = "Coordenadas inválidas"),
+      @ApiResponse(responseCode = "404", description = "Vehículo no encontrado")
+  })
+  @CrossOrigin
+  @PutMapping("/{id}/position")
+  public VehicleDTO updatePosition(
+      @Parameter(description = "ID del vehículo", required = true) @PathVariable Long id,
+      @RequestBody PositionDTO position) {
+    return vehicleService.updatePosition(id, position);
+  }
+
   @Operation(summary = "Actualizar un vehículo", description = "Actualiza la información de un vehículo existente.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Vehículo actualizado exitosamente", content = @Content(schema = @Schema(implementation = VehicleDTO.class))),
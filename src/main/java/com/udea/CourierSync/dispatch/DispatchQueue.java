@@ -0,0 +1,140 @@
+package com.udea.CourierSync.dispatch;
+
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import com.udea.CourierSync.planning.VehicleAssignmentEngine;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * PENDIENTE shipments without a vehicle, in dispatch order: ALTA first, then the oldest. Polling is
+ * lock-free and hands each entry to one caller only, so concurrent claims on this node never compete
+ * for the same rows; replicas do, and DispatchService settles that with SKIP LOCKED.
+ *
+ * Committed ShipmentChangedEvents keep it current on this node. Shipments created or claimed on other
+ * replicas show up at the next reload; a stale entry costs nothing but a skipped row at claim time.
+ */
+@Component
+public class DispatchQueue {
+  private static final Logger logger = LoggerFactory.getLogger(DispatchQueue.class);
+
+  // createdAt is null for rows that predate the column; they sort as the oldest
+  public record Entry(long shipmentId, ShipmentPriority priority, Instant createdAt) {
+  }
+
+  private static final Comparator<Entry> ORDER = Comparator
+      .comparingInt((Entry entry) -> VehicleAssignmentEngine.rank(entry.priority()))
+      .thenComparing(Entry::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+      .thenComparingLong(Entry::shipmentId);
+
+  // the set and the map are swapped together on reload
+  private record State(ConcurrentSkipListSet<Entry> queue, ConcurrentHashMap<Long, Entry> entries) {
+
+    State() {
+      this(new ConcurrentSkipListSet<>(ORDER), new ConcurrentHashMap<>());
+    }
+  }
+
+  @Autowired
+  private ShipmentRepository shipmentRepository;
+
+  private volatile State state = new State();
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    reload();
+  }
+
+  @Scheduled(fixedDelayString = "${app.dispatch.reload-interval-ms:15000}",
+      initialDelayString = "${app.dispatch.reload-interval-ms:15000}")
+  public void reload() {
+    try {
+      State loaded = new State();
+      for (Object[] row : shipmentRepository.findDispatchEntries(ShipmentStatus.PENDIENTE)) {
+        Entry entry = new Entry((Long) row[0], (ShipmentPriority) row[1], (Instant) row[2]);
+        loaded.entries().put(entry.shipmentId(), entry);
+        loaded.queue().add(entry);
+      }
+      state = loaded;
+    } catch (RuntimeException ex) {
+      logger.warn("Could not reload the dispatch queue", ex);
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onShipmentChanged(ShipmentChangedEvent event) {
+    ShipmentDTO current = event.getCurrent();
+    if (current != null && current.getStatus() == ShipmentStatus.PENDIENTE && current.getVehicle() == null)
+      offer(current.getId(), current.getPriority(), current.getCreatedAt());
+    else
+      remove(event.getShipmentId());
+  }
+
+  // adds the shipment or moves it after a priority change; a missing createdAt keeps the known one
+  public void offer(long shipmentId, ShipmentPriority priority, Instant createdAt) {
+    State current = state;
+    current.entries().compute(shipmentId, (id, previous) -> {
+      Instant created = createdAt != null ? createdAt : previous != null ? previous.createdAt() : Instant.now();
+      Entry entry = new Entry(shipmentId, priority, created);
+      if (previous != null)
+        current.queue().remove(previous);
+      current.queue().add(entry);
+      return entry;
+    });
+  }
+
+  public void remove(long shipmentId) {
+    State current = state;
+    current.entries().computeIfPresent(shipmentId, (id, previous) -> {
+      current.queue().remove(previous);
+      return null;
+    });
+  }
+
+  // takes up to count entries off the front; the caller owns them and must requeue what it does not claim
+  public List<Entry> poll(int count) {
+    State current = state;
+    List<Entry> polled = new ArrayList<>(count);
+    while (polled.size() < count) {
+      Entry entry = current.queue().pollFirst();
+      if (entry == null)
+        break;
+      // a concurrent offer may have replaced it; then the newer entry is still queued
+      if (current.entries().remove(entry.shipmentId(), entry))
+        polled.add(entry);
+    }
+    return polled;
+  }
+
+  // puts back polled entries unless the shipment was offered again in the meantime
+  public void requeue(Collection<Entry> polled) {
+    State current = state;
+    for (Entry entry : polled) {
+      current.entries().computeIfAbsent(entry.shipmentId(), id -> {
+        current.queue().add(entry);
+        return entry;
+      });
+    }
+  }
+
+  public int size() {
+    return state.entries().size();
+  }
+}
@@ -3,8 +3,14 @@ package com.udea.CourierSync.entity;
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "client")
 @Table(name = "Client")
 public class Client {
   @Id
@@ -23,6 +29,15 @@ public class Client {
   @Column(nullable = false)
   private String address;
 
+  // optimistic lock; with updatedAt it lets conditional GETs answer 304 without loading the row
+  @Version
+  @Column(nullable = false)
+  private Long version;
+
+  @UpdateTimestamp
+  @Column(name = "updated_at")
+  private Instant updatedAt;
+
   public Client() {
   }
 
@@ -78,4 +93,20 @@ public class Client {
   public void setAddress(String address) {
     this.address = address;
   }
-}
\ No newline at end of file
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(Instant updatedAt) {
+    this.updatedAt = updatedAt;
+  }
+}
@@ -10,28 +10,47 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.ManyToOne;
-import jakarta.persistence.OneToOne;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
+
+// only changed columns go into UPDATE statements, so PATCH and status changes write what they touch
 @Entity
-@Table(name = "Shipment")
+@DynamicUpdate
+@Table(name = "Shipment", indexes = {
+        @Index(name = "idx_shipment_status_id", columnList = "status, id"),
+        @Index(name = "idx_shipment_priority_id", columnList = "priority, id"),
+        @Index(name = "idx_shipment_client_id", columnList = "client_id, id"),
+        @Index(name = "idx_shipment_vehicle_status", columnList = "vehicle_id, status")
+})
 public class Shipment {
+    // pooled sequence instead of IDENTITY so inserts can be grouped into JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shipment_seq")
+    @SequenceGenerator(name = "shipment_seq", sequenceName = "shipment_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "tracking_code", nullable = false, unique = true)
     private String trackingCode;
 
-    @ManyToOne
+    // lazy so reads choose what to load; ShipmentRepository's read methods fetch both in the same query
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id", nullable = false)
     private Client client;
 
-    @OneToOne
-    @JoinColumn(name = "vehicle_id", nullable = false)
+    // many shipments share a vehicle; null until assigned (see VehicleAssignmentService)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "vehicle_id")
     private Vehicle vehicle;
 
     @Column(name = "origin_address", nullable = false)
@@ -40,6 +59,19 @@ public class Shipment {
     @Column(name = "destination_address", nullable = false)
     private String destinationAddress;
 
+    // WGS84 degrees; null while the address has not been located
+    @Column(name = "origin_latitude")
+    private Double originLatitude;
+
+    @Column(name = "origin_longitude")
+    private Double originLongitude;
+
+    @Column(name = "destination_latitude")
+    private Double destinationLatitude;
+
+    @Column(name = "destination_longitude")
+    private Double destinationLongitude;
+
     @Column(nullable = false)
     private Double weight;
 
@@ -53,6 +85,21 @@ public class Shipment {
     @Column(nullable = false)
     private ShipmentStatus status;
 
+    // optimistic lock; exposed to clients as the ETag of the shipment
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    // age within a priority for the dispatch queue
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+
+    // sent as Last-Modified
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
     public Shipment() {
     }
 
@@ -125,6 +172,38 @@ public class Shipment {
         this.destinationAddress = destinationAddress;
     }
 
+    public Double getOriginLatitude() {
+        return originLatitude;
+    }
+
+    public void setOriginLatitude(Double originLatitude) {
+        this.originLatitude = originLatitude;
+    }
+
+    public Double getOriginLongitude() {
+        return originLongitude;
+    }
+
+    public void setOriginLongitude(Double originLongitude) {
+        this.originLongitude = originLongitude;
+    }
+
+    public Double getDestinationLatitude() {
+        return destinationLatitude;
+    }
+
+    public void setDestinationLatitude(Double destinationLatitude) {
+        this.destinationLatitude = destinationLatitude;
+    }
+
+    public Double getDestinationLongitude() {
+        return destinationLongitude;
+    }
+
+    public void setDestinationLongitude(Double destinationLongitude) {
+        this.destinationLongitude = destinationLongitude;
+    }
+
     public Double getWeight() {
         return weight;
     }
@@ -156,4 +235,28 @@ public class Shipment {
     public void setStatus(ShipmentStatus status) {
         this.status = status;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
\ No newline at end of file
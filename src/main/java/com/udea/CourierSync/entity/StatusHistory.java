@@ -4,43 +4,71 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.udea.CourierSync.enums.ShipmentStatus;
 import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
 
+import java.time.Instant;
+
+// Append-only log of status changes; rows are never updated or deleted once written. shipment_id is a
+// plain column rather than a foreign key so the log outlives the shipment it describes.
+@Entity
+@Immutable
+@Table(name = "status_history", indexes = {
+    @Index(name = "idx_status_history_shipment_created", columnList = "shipment_id, created_at")
+})
 public class StatusHistory {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "status_history_seq")
+  @SequenceGenerator(name = "status_history_seq", sequenceName = "status_history_seq", allocationSize = 50)
   private Long id;
 
-  @ManyToOne
-  @JoinColumn(name = "shipment_id", nullable = false)
-  private Shipment shipment;
+  @Column(name = "shipment_id", nullable = false)
+  private Long shipmentId;
 
+  // null for the event that records the initial status of a shipment
   @Enumerated(EnumType.STRING)
-  @Column(name = "old_status", nullable = false)
+  @Column(name = "old_status")
   private ShipmentStatus oldStatus;
 
   @Enumerated(EnumType.STRING)
   @Column(name = "new_status", nullable = false)
   private ShipmentStatus newStatus;
 
+  @Column(length = 1000)
+  private String observations;
+
+  @Column(nullable = false)
+  private String actor;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
   public StatusHistory() {
   }
 
   @JsonCreator
   public StatusHistory(@JsonProperty("id") Long id,
-      @JsonProperty("shipment") Shipment shipment,
+      @JsonProperty("shipmentId") Long shipmentId,
       @JsonProperty("oldStatus") ShipmentStatus oldStatus,
-      @JsonProperty("newStatus") ShipmentStatus newStatus) {
+      @JsonProperty("newStatus") ShipmentStatus newStatus,
+      @JsonProperty("observations") String observations,
+      @JsonProperty("actor") String actor,
+      @JsonProperty("createdAt") Instant createdAt) {
     this.id = id;
-    this.shipment = shipment;
+    this.shipmentId = shipmentId;
     this.oldStatus = oldStatus;
     this.newStatus = newStatus;
+    this.observations = observations;
+    this.actor = actor;
+    this.createdAt = createdAt;
   }
 
   public Long getId() {
@@ -51,12 +79,12 @@ public class StatusHistory {
     this.id = id;
   }
 
-  public Shipment getShipment() {
-    return shipment;
+  public Long getShipmentId() {
+    return shipmentId;
   }
 
-  public void setShipment(Shipment shipment) {
-    this.shipment = shipment;
+  public void setShipmentId(Long shipmentId) {
+    this.shipmentId = shipmentId;
   }
 
   public ShipmentStatus getOldStatus() {
@@ -74,4 +102,28 @@ public class StatusHistory {
   public void setNewStatus(ShipmentStatus newStatus) {
     this.newStatus = newStatus;
   }
+
+  public String getObservations() {
+    return observations;
+  }
+
+  public void setObservations(String observations) {
+    this.observations = observations;
+  }
+
+  public String getActor() {
+    return actor;
+  }
+
+  public void setActor(String actor) {
+    this.actor = actor;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
 }
@@ -8,8 +8,15 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "vehicle")
 @Table(name = "Vehicle")
 public class Vehicle {
   @Id
@@ -22,12 +29,26 @@ public class Vehicle {
   @Column(nullable = false)
   private String model;
 
+  // weight limit in kg
   @Column(name = "maximum_capacity", nullable = false)
   private Double maximumCapacity;
 
+  // cargo volume limit; null when unknown, in which case only weight limits assignments
+  @Column(name = "maximum_volume")
+  private Double maximumVolume;
+
   @Column(nullable = false)
   private boolean available;
 
+  // version and updatedAt become the ETag and Last-Modified of vehicle reads
+  @Version
+  @Column(nullable = false)
+  private Long version;
+
+  @UpdateTimestamp
+  @Column(name = "updated_at")
+  private Instant updatedAt;
+
   public Vehicle() {
   }
 
@@ -74,6 +95,14 @@ public class Vehicle {
     this.maximumCapacity = maximumCapacity;
   }
 
+  public Double getMaximumVolume() {
+    return maximumVolume;
+  }
+
+  public void setMaximumVolume(Double maximumVolume) {
+    this.maximumVolume = maximumVolume;
+  }
+
   public boolean isAvailable() {
     return available;
   }
@@ -81,4 +110,20 @@ public class Vehicle {
   public void setAvailable(boolean available) {
     this.available = available;
   }
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(Instant updatedAt) {
+    this.updatedAt = updatedAt;
+  }
 }
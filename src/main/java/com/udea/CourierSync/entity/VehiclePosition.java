@@ -0,0 +1,70 @@
+package com.udea.CourierSync.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+// Last reported position of a vehicle (WGS84 degrees). Kept out of Vehicle so a GPS report does not bump
+// the vehicle's version and ETag nor evict it from the second-level cache; VehiclePositionRepository
+// overwrites the row with a plain UPDATE.
+@Entity
+@Table(name = "vehicle_position")
+public class VehiclePosition {
+  @Id
+  @Column(name = "vehicle_id")
+  private Long vehicleId;
+
+  @Column(nullable = false)
+  private Double latitude;
+
+  @Column(nullable = false)
+  private Double longitude;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  public VehiclePosition() {
+  }
+
+  public VehiclePosition(Long vehicleId, Double latitude, Double longitude, Instant updatedAt) {
+    this.vehicleId = vehicleId;
+    this.latitude = latitude;
+    this.longitude = longitude;
+    this.updatedAt = updatedAt;
+  }
+
+  public Long getVehicleId() {
+    return vehicleId;
+  }
+
+  public void setVehicleId(Long vehicleId) {
+    this.vehicleId = vehicleId;
+  }
+
+  public Double getLatitude() {
+    return latitude;
+  }
+
+  public void setLatitude(Double latitude) {
+    this.latitude = latitude;
+  }
+
+  public Double getLongitude() {
+    return longitude;
+  }
+
+  public void setLongitude(Double longitude) {
+    this.longitude = longitude;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(Instant updatedAt) {
+    this.updatedAt = updatedAt;
+  }
+}
@@ -0,0 +1,7 @@
+package com.udea.CourierSync.enums;
+
+public enum ChangeType {
+  CREATED,
+  UPDATED,
+  DELETED
+}
@@ -0,0 +1,6 @@
+package com.udea.CourierSync.enums;
+
+public enum RouteStopType {
+  PICKUP,
+  DELIVERY
+}
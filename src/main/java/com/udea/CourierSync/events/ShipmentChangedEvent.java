@@ -0,0 +1,41 @@
+package com.udea.CourierSync.events;
+
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.enums.ChangeType;
+
+// Published by ShipmentService; previous is null on creation and current is null on deletion.
+public class ShipmentChangedEvent {
+  private final ChangeType changeType;
+  private final ShipmentDTO previous;
+  private final ShipmentDTO current;
+
+  public ShipmentChangedEvent(ChangeType changeType, ShipmentDTO previous, ShipmentDTO current) {
+    this.changeType = changeType;
+    this.previous = previous;
+    this.current = current;
+  }
+
+  public ChangeType getChangeType() {
+    return changeType;
+  }
+
+  public ShipmentDTO getPrevious() {
+    return previous;
+  }
+
+  public ShipmentDTO getCurrent() {
+    return current;
+  }
+
+  public ShipmentDTO getLatest() {
+    return current != null ? current : previous;
+  }
+
+  public Long getShipmentId() {
+    return getLatest().getId();
+  }
+
+  public String getTrackingCode() {
+    return getLatest().getTrackingCode();
+  }
+}
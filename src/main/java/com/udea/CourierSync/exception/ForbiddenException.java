@@ -0,0 +1,11 @@
+package com.udea.CourierSync.exception;
+
+public class ForbiddenException extends RuntimeException {
+  public ForbiddenException() {
+    super();
+  }
+
+  public ForbiddenException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package com.udea.CourierSync.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+  public TooManyRequestsException() {
+    super();
+  }
+
+  public TooManyRequestsException(String message) {
+    super(message);
+  }
+}
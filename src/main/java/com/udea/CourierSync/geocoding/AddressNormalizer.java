@@ -0,0 +1,46 @@
+package com.udea.CourierSync.geocoding;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a free-text address into the key it is geocoded and cached under, so spelling variants of
+ * the same place share one lookup: "Calle 10 # 43-12", "CL. 10 No 43 - 12" and "calle 10 #43-12"
+ * all become "cl 10 43 12". Accents, case and punctuation are dropped and the usual Colombian
+ * street-type words are reduced to one abbreviation.
+ */
+public final class AddressNormalizer {
+
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+
+  // an empty replacement drops the word
+  private static final Map<String, String> WORDS = Map.ofEntries(
+      Map.entry("calle", "cl"), Map.entry("cll", "cl"), Map.entry("cl", "cl"),
+      Map.entry("carrera", "cr"), Map.entry("cra", "cr"), Map.entry("kra", "cr"), Map.entry("kr", "cr"),
+      Map.entry("avenida", "av"), Map.entry("avda", "av"),
+      Map.entry("diagonal", "dg"), Map.entry("diag", "dg"),
+      Map.entry("transversal", "tv"), Map.entry("trans", "tv"), Map.entry("tr", "tv"),
+      Map.entry("circular", "cq"), Map.entry("circ", "cq"),
+      Map.entry("numero", ""), Map.entry("no", ""), Map.entry("nro", ""));
+
+  private AddressNormalizer() {
+  }
+
+  // empty for null or blank input
+  public static String normalize(String address) {
+    if (address == null)
+      return "";
+    String plain = MARKS.matcher(Normalizer.normalize(address, Normalizer.Form.NFD)).replaceAll("");
+    StringJoiner key = new StringJoiner(" ");
+    for (String token : SEPARATORS.split(plain.toLowerCase(Locale.ROOT))) {
+      String word = WORDS.getOrDefault(token, token);
+      if (!word.isEmpty())
+        key.add(word);
+    }
+    return key.toString();
+  }
+}
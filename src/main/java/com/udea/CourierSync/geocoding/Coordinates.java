@@ -0,0 +1,5 @@
+package com.udea.CourierSync.geocoding;
+
+// WGS84 degrees
+public record Coordinates(double latitude, double longitude) {
+}
@@ -0,0 +1,85 @@
+package com.udea.CourierSync.geocoding;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Store shared by all replicas, kept in the geocoded_address table keyed by normalized address.
+ * Lookups go in IN chunks; writes are one upsert batch, so two nodes geocoding the same new address
+ * at once both succeed and the later result wins. Rows are upserted in key order so two overlapping
+ * batches lock them in the same order and cannot deadlock.
+ */
+@Component
+@ConditionalOnProperty(name = "app.geocoding.store", havingValue = "database")
+public class DatabaseGeocodeCacheStore implements GeocodeCacheStore {
+  private static final int CHUNK_SIZE = 500;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  // Inside a caller's transaction the lookup runs under a savepoint: on PostgreSQL a failed statement
+  // aborts the whole transaction, and a cache read must not cost the caller its write. The savepoint
+  // stays on the caller's connection, so no second pooled connection is taken.
+  @Override
+  public Map<String, GeocodeEntry> findAll(Collection<String> addressKeys) {
+    if (!TransactionSynchronizationManager.isActualTransactionActive())
+      return query(addressKeys);
+    return jdbcTemplate.execute((ConnectionCallback<Map<String, GeocodeEntry>>) connection -> {
+      Savepoint savepoint = connection.setSavepoint();
+      try {
+        Map<String, GeocodeEntry> found = query(addressKeys);
+        connection.releaseSavepoint(savepoint);
+        return found;
+      } catch (RuntimeException ex) {
+        connection.rollback(savepoint);
+        throw ex;
+      }
+    });
+  }
+
+  private Map<String, GeocodeEntry> query(Collection<String> addressKeys) {
+    Map<String, GeocodeEntry> found = new HashMap<>();
+    List<String> keys = new ArrayList<>(addressKeys);
+    for (int from = 0; from < keys.size(); from += CHUNK_SIZE) {
+      List<String> chunk = keys.subList(from, Math.min(from + CHUNK_SIZE, keys.size()));
+      namedParameterJdbcTemplate.query(
+          "SELECT address_key, latitude, longitude, resolved_at FROM geocoded_address WHERE address_key IN (:keys)",
+          new MapSqlParameterSource("keys", chunk),
+          rs -> {
+            found.put(rs.getString(1), new GeocodeEntry((Double) rs.getObject(2), (Double) rs.getObject(3),
+                rs.getTimestamp(4).toInstant()));
+          });
+    }
+    return found;
+  }
+
+  @Override
+  public void saveAll(Map<String, GeocodeEntry> entries) {
+    List<Object[]> rows = new ArrayList<>(entries.size());
+    new TreeMap<>(entries).forEach((key, entry) -> rows.add(new Object[] { key, entry.latitude(), entry.longitude(),
+        Timestamp.from(entry.resolvedAt()) }));
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO geocoded_address (address_key, latitude, longitude, resolved_at) VALUES (?, ?, ?, ?)"
+            + " ON CONFLICT (address_key) DO UPDATE SET latitude = EXCLUDED.latitude,"
+            + " longitude = EXCLUDED.longitude, resolved_at = EXCLUDED.resolved_at",
+        rows);
+  }
+}
@@ -0,0 +1,95 @@
+package com.udea.CourierSync.geocoding;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Offline provider backed by a gazetteer file of "address;latitude;longitude" lines ('#' starts a
+ * comment), loaded into memory at startup under normalized keys. An address that is not listed as
+ * such falls back to its longest listed prefix, so apartment or floor details after the street
+ * number still resolve to the building.
+ */
+@Component
+@ConditionalOnProperty(name = "app.geocoding.provider", havingValue = "gazetteer", matchIfMissing = true)
+public class GazetteerGeocodingProvider implements GeocodingProvider {
+  private static final Logger logger = LoggerFactory.getLogger(GazetteerGeocodingProvider.class);
+
+  // street type plus two numbers; shorter prefixes would match a whole street
+  private static final int MIN_PREFIX_WORDS = 3;
+
+  @Value("${app.geocoding.gazetteer-location:classpath:geocoding/gazetteer.csv}")
+  private Resource gazetteer;
+
+  private Map<String, Coordinates> places = Map.of();
+
+  @PostConstruct
+  void load() {
+    if (!gazetteer.exists()) {
+      logger.warn("Gazetteer {} not found; addresses will not be geocoded", gazetteer.getDescription());
+      return;
+    }
+    Map<String, Coordinates> loaded = new HashMap<>();
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(gazetteer.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      int number = 0;
+      while ((line = reader.readLine()) != null) {
+        number++;
+        line = line.strip();
+        if (line.isEmpty() || line.startsWith("#"))
+          continue;
+        String[] fields = line.split(";");
+        try {
+          if (fields.length != 3)
+            throw new NumberFormatException("expected 3 fields");
+          loaded.put(AddressNormalizer.normalize(fields[0]),
+              new Coordinates(Double.parseDouble(fields[1].strip()), Double.parseDouble(fields[2].strip())));
+        } catch (NumberFormatException ex) {
+          logger.warn("Skipping gazetteer line {}: {}", number, ex.getMessage());
+        }
+      }
+    } catch (IOException ex) {
+      throw new IllegalStateException("Could not read gazetteer " + gazetteer.getDescription(), ex);
+    }
+    places = loaded;
+    logger.info("Loaded {} gazetteer entries from {}", loaded.size(), gazetteer.getDescription());
+  }
+
+  @Override
+  public Map<String, Coordinates> geocode(Collection<String> addressKeys) {
+    Map<String, Coordinates> found = new HashMap<>();
+    for (String key : addressKeys) {
+      Coordinates coordinates = lookup(key);
+      if (coordinates != null)
+        found.put(key, coordinates);
+    }
+    return found;
+  }
+
+  private Coordinates lookup(String key) {
+    Coordinates exact = places.get(key);
+    if (exact != null)
+      return exact;
+    String[] words = key.split(" ");
+    for (int length = words.length - 1; length >= MIN_PREFIX_WORDS; length--) {
+      Coordinates prefix = places.get(String.join(" ", Arrays.copyOf(words, length)));
+      if (prefix != null)
+        return prefix;
+    }
+    return null;
+  }
+}
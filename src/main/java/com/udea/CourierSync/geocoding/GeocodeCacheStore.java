@@ -0,0 +1,12 @@
+package com.udea.CourierSync.geocoding;
+
+import java.util.Collection;
+import java.util.Map;
+
+// Second cache level, shared across restarts (and replicas with the database store).
+public interface GeocodeCacheStore {
+  Map<String, GeocodeEntry> findAll(Collection<String> addressKeys);
+
+  // Inserts new keys and overwrites existing ones.
+  void saveAll(Map<String, GeocodeEntry> entries);
+}
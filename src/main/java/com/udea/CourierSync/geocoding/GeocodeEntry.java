@@ -0,0 +1,23 @@
+package com.udea.CourierSync.geocoding;
+
+import java.time.Instant;
+
+// Cached outcome for one normalized address; latitude and longitude are null when the provider did not know it.
+public record GeocodeEntry(Double latitude, Double longitude, Instant resolvedAt) {
+
+  public static GeocodeEntry of(Coordinates coordinates, Instant resolvedAt) {
+    return new GeocodeEntry(coordinates.latitude(), coordinates.longitude(), resolvedAt);
+  }
+
+  public static GeocodeEntry miss(Instant resolvedAt) {
+    return new GeocodeEntry(null, null, resolvedAt);
+  }
+
+  public boolean found() {
+    return latitude != null && longitude != null;
+  }
+
+  public Coordinates coordinates() {
+    return found() ? new Coordinates(latitude, longitude) : null;
+  }
+}
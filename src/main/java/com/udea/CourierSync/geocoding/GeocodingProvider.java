@@ -0,0 +1,10 @@
+package com.udea.CourierSync.geocoding;
+
+import java.util.Collection;
+import java.util.Map;
+
+// Source of coordinates behind GeocodingService; only asked about addresses missing from both cache levels.
+public interface GeocodingProvider {
+  // Keys are AddressNormalizer output; addresses the provider cannot locate are left out of the result.
+  Map<String, Coordinates> geocode(Collection<String> addressKeys);
+}
@@ -0,0 +1,191 @@
+package com.udea.CourierSync.geocoding;
+
+import com.udea.CourierSync.cache.CacheStats;
+import com.udea.CourierSync.cache.TtlCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geocodes free-text addresses once per distinct normalized address. Lookups go through an in-memory
+ * LRU, then the GeocodeCacheStore, and only what neither knows reaches the GeocodingProvider, in one
+ * batch per call. Addresses the provider cannot locate are cached as misses for
+ * app.geocoding.miss-ttl-seconds so a later gazetteer update gets a chance to resolve them.
+ *
+ * A provider failure is logged and leaves the addresses unlocated; geocoding never fails the write
+ * that asked for it. The same goes for the store: a failed read counts as a miss, and new entries are
+ * written on a background thread once the caller's transaction has ended, so a failed write is only
+ * logged and never holds a second pooled connection or aborts the caller's transaction.
+ */
+@Service
+public class GeocodingService {
+  private static final Logger logger = LoggerFactory.getLogger(GeocodingService.class);
+
+  @Autowired
+  private GeocodingProvider provider;
+
+  @Autowired
+  private GeocodeCacheStore store;
+
+  @Value("${app.geocoding.cache.max-size:10000}")
+  private int maxSize;
+
+  @Value("${app.geocoding.cache.ttl-seconds:86400}")
+  private long ttlSeconds;
+
+  @Value("${app.geocoding.miss-ttl-seconds:86400}")
+  private long missTtlSeconds;
+
+  private TtlCache<String, GeocodeEntry> entries;
+  private ExecutorService writer;
+
+  @PostConstruct
+  void init() {
+    entries = new TtlCache<>(maxSize, ttlSeconds, TimeUnit.SECONDS);
+    writer = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "geocode-store-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @PreDestroy
+  void stop() {
+    writer.shutdown();
+  }
+
+  public Optional<Coordinates> geocode(String address) {
+    if (address == null)
+      return Optional.empty();
+    return Optional.ofNullable(geocodeAll(List.of(address)).get(address));
+  }
+
+  // address as given -> position, for the addresses that could be located
+  public Map<String, Coordinates> geocodeAll(Collection<String> addresses) {
+    Map<String, String> keys = new HashMap<>();
+    for (String address : addresses) {
+      if (address == null || keys.containsKey(address))
+        continue;
+      String key = AddressNormalizer.normalize(address);
+      if (!key.isEmpty())
+        keys.put(address, key);
+    }
+    if (keys.isEmpty())
+      return Map.of();
+
+    Instant now = Instant.now();
+    Map<String, GeocodeEntry> known = new HashMap<>();
+    Set<String> missing = new HashSet<>();
+    for (String key : keys.values()) {
+      GeocodeEntry entry = entries.getIfPresent(key);
+      if (usable(entry, now))
+        known.put(key, entry);
+      else
+        missing.add(key);
+    }
+    if (!missing.isEmpty()) {
+      find(missing).forEach((key, entry) -> {
+        if (usable(entry, now)) {
+          known.put(key, entry);
+          entries.put(key, entry);
+          missing.remove(key);
+        }
+      });
+    }
+    if (!missing.isEmpty()) {
+      Map<String, GeocodeEntry> resolved = resolve(missing, now);
+      if (!resolved.isEmpty()) {
+        resolved.forEach(entries::put);
+        known.putAll(resolved);
+        saveAfterCompletion(resolved);
+      }
+    }
+
+    Map<String, Coordinates> located = new HashMap<>();
+    keys.forEach((address, key) -> {
+      GeocodeEntry entry = known.get(key);
+      if (entry != null && entry.found())
+        located.put(address, entry.coordinates());
+    });
+    return located;
+  }
+
+  public CacheStats cacheStats() {
+    return entries.stats();
+  }
+
+  private Map<String, GeocodeEntry> find(Set<String> keys) {
+    try {
+      return store.findAll(keys);
+    } catch (RuntimeException ex) {
+      logger.warn("Reading {} addresses from the geocode store failed: {}", keys.size(), ex.getMessage());
+      return Map.of();
+    }
+  }
+
+  // outside a transaction the entries are written right away; inside one, after it ends either way, since
+  // they do not depend on what the caller was writing
+  private void saveAfterCompletion(Map<String, GeocodeEntry> resolved) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      save(resolved);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        try {
+          writer.execute(() -> save(resolved));
+        } catch (RejectedExecutionException ex) {
+          logger.warn("Geocode store writer is shut down; {} addresses not stored", resolved.size());
+        }
+      }
+    });
+  }
+
+  private void save(Map<String, GeocodeEntry> resolved) {
+    try {
+      store.saveAll(resolved);
+    } catch (RuntimeException ex) {
+      logger.warn("Writing {} addresses to the geocode store failed: {}", resolved.size(), ex.getMessage());
+    }
+  }
+
+  private Map<String, GeocodeEntry> resolve(Set<String> keys, Instant now) {
+    Map<String, Coordinates> found;
+    try {
+      found = provider.geocode(keys);
+    } catch (RuntimeException ex) {
+      logger.warn("Geocoding of {} addresses failed: {}", keys.size(), ex.getMessage());
+      return Map.of();
+    }
+    Map<String, GeocodeEntry> resolved = new HashMap<>();
+    for (String key : keys) {
+      Coordinates coordinates = found.get(key);
+      resolved.put(key, coordinates != null ? GeocodeEntry.of(coordinates, now) : GeocodeEntry.miss(now));
+    }
+    return resolved;
+  }
+
+  private boolean usable(GeocodeEntry entry, Instant now) {
+    return entry != null && (entry.found() || entry.resolvedAt().plusSeconds(missTtlSeconds).isAfter(now));
+  }
+}
@@ -0,0 +1,33 @@
+package com.udea.CourierSync.geocoding;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-node store that forgets everything on restart; for tests and single-node development.
+@Component
+@ConditionalOnProperty(name = "app.geocoding.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryGeocodeCacheStore implements GeocodeCacheStore {
+
+  private final Map<String, GeocodeEntry> entries = new ConcurrentHashMap<>();
+
+  @Override
+  public Map<String, GeocodeEntry> findAll(Collection<String> addressKeys) {
+    Map<String, GeocodeEntry> found = new HashMap<>();
+    for (String key : addressKeys) {
+      GeocodeEntry entry = entries.get(key);
+      if (entry != null)
+        found.put(key, entry);
+    }
+    return found;
+  }
+
+  @Override
+  public void saveAll(Map<String, GeocodeEntry> newEntries) {
+    entries.putAll(newEntries);
+  }
+}
@@ -0,0 +1,78 @@
+package com.udea.CourierSync.idempotency;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Store shared by all replicas, kept in the idempotency_key table. Statements join the caller's
+ * transaction when there is one: IdempotencyService reserves a key outside any transaction so other
+ * nodes see it at once, and completes it inside the transaction of the write. A key left in progress by
+ * a node that died is freed after app.idempotency.lock-seconds; completed keys live for
+ * app.idempotency.ttl-seconds and are purged periodically.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "database")
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Value("${app.idempotency.ttl-seconds:86400}")
+  private long ttlSeconds;
+
+  @Value("${app.idempotency.lock-seconds:60}")
+  private long lockSeconds;
+
+  @Override
+  public Optional<IdempotencyEntry> find(String key) {
+    List<IdempotencyEntry> rows = jdbcTemplate.query(
+        "SELECT request_hash, status, body FROM idempotency_key WHERE idempotency_key = ? AND expires_at > ?",
+        (rs, i) -> new IdempotencyEntry(rs.getString(1), (Integer) rs.getObject(2), rs.getString(3)),
+        key, Timestamp.from(Instant.now()));
+    return rows.stream().findFirst();
+  }
+
+  @Override
+  public boolean reserve(String key, String requestHash) {
+    Instant now = Instant.now();
+    // an expired row, if any, is replaced rather than blocking the key
+    jdbcTemplate.update("DELETE FROM idempotency_key WHERE idempotency_key = ? AND expires_at <= ?",
+        key, Timestamp.from(now));
+    // reserved outside any transaction, so a duplicate key only fails this statement
+    try {
+      jdbcTemplate.update(
+          "INSERT INTO idempotency_key (idempotency_key, request_hash, created_at, expires_at) VALUES (?, ?, ?, ?)",
+          key, requestHash, Timestamp.from(now), Timestamp.from(now.plusSeconds(lockSeconds)));
+      return true;
+    } catch (DuplicateKeyException ex) {
+      return false;
+    }
+  }
+
+  @Override
+  public void complete(String key, String requestHash, int status, String body) {
+    jdbcTemplate.update("UPDATE idempotency_key SET status = ?, body = ?, expires_at = ? WHERE idempotency_key = ?",
+        status, body, Timestamp.from(Instant.now().plusSeconds(ttlSeconds)), key);
+  }
+
+  @Override
+  public void release(String key) {
+    jdbcTemplate.update("DELETE FROM idempotency_key WHERE idempotency_key = ? AND status IS NULL", key);
+  }
+
+  @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}",
+      initialDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+  public void purgeExpired() {
+    jdbcTemplate.update("DELETE FROM idempotency_key WHERE expires_at <= ?", Timestamp.from(Instant.now()));
+  }
+}
@@ -0,0 +1,13 @@
+package com.udea.CourierSync.idempotency;
+
+// A reserved key: status and body stay null until the first request with the key has finished.
+public record IdempotencyEntry(String requestHash, Integer status, String body) {
+
+  public static IdempotencyEntry inProgress(String requestHash) {
+    return new IdempotencyEntry(requestHash, null, null);
+  }
+
+  public boolean isCompleted() {
+    return status != null;
+  }
+}
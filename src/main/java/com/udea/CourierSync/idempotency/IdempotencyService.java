@@ -0,0 +1,125 @@
+package com.udea.CourierSync.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.CourierSync.exception.BadRequestException;
+import com.udea.CourierSync.exception.ConflictException;
+import com.udea.CourierSync.security.SecurityUtils;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Runs a write at most once per Idempotency-Key. Keys are scoped to the authenticated user and the
+ * operation, and bound to a hash of the request: a retry with the same request gets the stored
+ * response replayed (with an Idempotent-Replayed header), the same key with a different request is
+ * rejected with 400, and a retry while the first attempt is still running gets 409. The action and
+ * the stored response commit in one transaction, so a key is never left reserved for a write that
+ * already happened.
+ */
+@Service
+public class IdempotencyService {
+  public static final String HEADER = "Idempotency-Key";
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+  public static final int MAX_KEY_LENGTH = 255;
+
+  @Autowired
+  private IdempotencyStore store;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate transaction;
+
+  @PostConstruct
+  void init() {
+    transaction = new TransactionTemplate(transactionManager);
+  }
+
+  public <T> ResponseEntity<T> execute(String idempotencyKey, String operation, Object request, Class<T> responseType,
+      Supplier<ResponseEntity<T>> action) {
+    if (idempotencyKey == null) {
+      return action.get();
+    }
+    if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+      throw new BadRequestException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+    }
+
+    String key = SecurityUtils.currentActor() + "|" + operation + "|" + idempotencyKey;
+    String requestHash = hash(request);
+
+    Optional<IdempotencyEntry> existing = store.find(key);
+    if (existing.isPresent()) {
+      return replay(existing.get(), requestHash, responseType);
+    }
+    if (!store.reserve(key, requestHash)) {
+      // lost a race with a concurrent attempt; answer from whatever it stored
+      return replay(store.find(key).orElseThrow(() -> new ConflictException("Request with this " + HEADER
+          + " is still being processed")), requestHash, responseType);
+    }
+
+    try {
+      // the reservation above is already visible to other nodes; the write and its outcome commit together
+      return transaction.execute(status -> {
+        ResponseEntity<T> response = action.get();
+        store.complete(key, requestHash, response.getStatusCode().value(), write(response.getBody()));
+        return response;
+      });
+    } catch (RuntimeException ex) {
+      store.release(key);
+      throw ex;
+    }
+  }
+
+  private <T> ResponseEntity<T> replay(IdempotencyEntry entry, String requestHash, Class<T> responseType) {
+    if (!entry.requestHash().equals(requestHash)) {
+      throw new BadRequestException(HEADER + " was already used for a different request");
+    }
+    if (!entry.isCompleted()) {
+      throw new ConflictException("Request with this " + HEADER + " is still being processed");
+    }
+    T body = entry.body() == null ? null : read(entry.body(), responseType);
+    return ResponseEntity.status(entry.status()).header(REPLAYED_HEADER, "true").body(body);
+  }
+
+  private String hash(Object request) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+      return HexFormat.of().formatHex(digest);
+    } catch (JsonProcessingException ex) {
+      throw new BadRequestException("Request body cannot be serialized");
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 not available", ex);
+    }
+  }
+
+  private String write(Object body) {
+    try {
+      return body == null ? null : objectMapper.writeValueAsString(body);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Response body cannot be serialized", ex);
+    }
+  }
+
+  private <T> T read(String body, Class<T> type) {
+    try {
+      return objectMapper.readValue(body.getBytes(StandardCharsets.UTF_8), type);
+    } catch (IOException ex) {
+      throw new IllegalStateException("Stored response cannot be read", ex);
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.udea.CourierSync.idempotency;
+
+import java.util.Optional;
+
+public interface IdempotencyStore {
+  Optional<IdempotencyEntry> find(String key);
+
+  // Atomically claims the key for a new request; false if it is already claimed or completed.
+  boolean reserve(String key, String requestHash);
+
+  // Stores the response; called inside the transaction of the write it belongs to.
+  void complete(String key, String requestHash, int status, String body);
+
+  // Frees a reserved key after the request failed, so a retry can run it again.
+  void release(String key);
+}
@@ -0,0 +1,49 @@
+package com.udea.CourierSync.idempotency;
+
+import com.udea.CourierSync.cache.TtlCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Per-node store; a retry that lands on another replica is executed again. Use the database store there.
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+  @Value("${app.idempotency.max-keys:10000}")
+  private int maxKeys;
+
+  @Value("${app.idempotency.ttl-seconds:86400}")
+  private long ttlSeconds;
+
+  private TtlCache<String, IdempotencyEntry> entries;
+
+  @PostConstruct
+  void init() {
+    entries = new TtlCache<>(maxKeys, ttlSeconds, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public Optional<IdempotencyEntry> find(String key) {
+    return Optional.ofNullable(entries.getIfPresent(key));
+  }
+
+  @Override
+  public boolean reserve(String key, String requestHash) {
+    return entries.putIfAbsent(key, IdempotencyEntry.inProgress(requestHash));
+  }
+
+  @Override
+  public void complete(String key, String requestHash, int status, String body) {
+    entries.put(key, new IdempotencyEntry(requestHash, status, body));
+  }
+
+  @Override
+  public void release(String key) {
+    entries.invalidate(key);
+  }
+}
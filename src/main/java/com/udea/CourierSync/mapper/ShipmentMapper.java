@@ -3,6 +3,7 @@ package com.udea.CourierSync.mapper;
 import com.udea.CourierSync.DTO.ShipmentDTO;
 import com.udea.CourierSync.entity.Shipment;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 @Mapper(componentModel = "spring", uses = { ClientMapper.class, VehicleMapper.class}) 
@@ -11,5 +12,8 @@ public interface ShipmentMapper {
 
 	ShipmentDTO toDTO(Shipment entity);
 
+	// the version is owned by Hibernate; clients send it back through If-Match
+	@Mapping(target = "version", ignore = true)
+	@Mapping(target = "createdAt", ignore = true)
 	Shipment toEntity(ShipmentDTO dto);
 }
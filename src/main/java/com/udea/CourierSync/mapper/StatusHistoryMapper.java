@@ -0,0 +1,13 @@
+package com.udea.CourierSync.mapper;
+
+import com.udea.CourierSync.DTO.StatusHistoryDTO;
+import com.udea.CourierSync.entity.StatusHistory;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+@Mapper(componentModel = "spring")
+public interface StatusHistoryMapper {
+	StatusHistoryMapper INSTANCE = Mappers.getMapper(StatusHistoryMapper.class);
+
+	StatusHistoryDTO toDTO(StatusHistory entity);
+}
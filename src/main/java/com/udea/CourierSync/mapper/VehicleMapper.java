@@ -3,12 +3,18 @@ package com.udea.CourierSync.mapper;
 import com.udea.CourierSync.DTO.VehicleDTO;
 import com.udea.CourierSync.entity.Vehicle;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 @Mapper(componentModel = "spring")
 public interface VehicleMapper {
   VehicleMapper INSTANCE = Mappers.getMapper(VehicleMapper.class);
+	// the position is stored apart (VehiclePosition); VehicleService fills it in where it is read
+	@Mapping(target = "latitude", ignore = true)
+	@Mapping(target = "longitude", ignore = true)
+	@Mapping(target = "positionUpdatedAt", ignore = true)
 	VehicleDTO toDTO(Vehicle entity);
+
 	Vehicle toEntity(VehicleDTO dto);
 }
 
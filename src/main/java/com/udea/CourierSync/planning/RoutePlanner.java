@@ -0,0 +1,295 @@
+package com.udea.CourierSync.planning;
+
+import com.udea.CourierSync.enums.RouteStopType;
+import com.udea.CourierSync.enums.ShipmentPriority;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Orders the stops of one vehicle. Every pickup comes first, then the deliveries by priority tier
+ * (ALTA, MEDIA, BAJA, none); each group is built nearest-neighbour from where the previous one ended
+ * and then improved with 2-opt and Or-opt moves until none helps or the deadline passes. Collecting
+ * before delivering keeps each shipment's pickup ahead of its delivery, and the tiers keep a BAJA drop
+ * from delaying an ALTA one.
+ *
+ * Distances are straight-line kilometres on an equirectangular projection centred on the stops, well
+ * within 1% of the great-circle distance at city scale. Stops without coordinates go after the
+ * located ones in input order, pickups first.
+ *
+ * Plain Java like VehicleAssignmentEngine; each pass is O(n^2) on primitive arrays and the deadline is
+ * checked between rows, so a plan always comes back complete, if not fully improved, on time.
+ */
+public final class RoutePlanner {
+
+  private static final double EARTH_RADIUS_KM = 6371.0088;
+  private static final double EPSILON = 1e-9;
+  // Or-opt moves chains of up to this many consecutive stops
+  private static final int MAX_SEGMENT = 3;
+
+  // latitude and longitude are null when the address has not been located
+  public record Stop(long shipmentId, RouteStopType type, Double latitude, Double longitude,
+      ShipmentPriority priority) {
+
+    public boolean located() {
+      return latitude != null && longitude != null;
+    }
+  }
+
+  // converged is false when the deadline cut the improvement short; the route holds every stop either way
+  public record Route(List<Stop> stops, double distanceKm, boolean converged) {
+  }
+
+  private RoutePlanner() {
+  }
+
+  // without a start position the route begins at whichever end of the pickups lies farthest out
+  public static Route plan(List<Stop> stops, Double startLatitude, Double startLongitude, long deadlineNanos) {
+    // a delivery cannot be placed ahead of a pickup that has no position, so both wait at the tail
+    Set<Long> unlocatedPickups = new HashSet<>();
+    for (Stop stop : stops) {
+      if (stop.type() == RouteStopType.PICKUP && !stop.located())
+        unlocatedPickups.add(stop.shipmentId());
+    }
+    List<Stop> located = new ArrayList<>(stops.size());
+    List<Stop> tailPickups = new ArrayList<>();
+    List<Stop> tailDeliveries = new ArrayList<>();
+    for (Stop stop : stops) {
+      if (stop.located() && (stop.type() == RouteStopType.PICKUP || !unlocatedPickups.contains(stop.shipmentId())))
+        located.add(stop);
+      else if (stop.type() == RouteStopType.PICKUP)
+        tailPickups.add(stop);
+      else
+        tailDeliveries.add(stop);
+    }
+
+    int n = located.size();
+    boolean hasStart = startLatitude != null && startLongitude != null;
+    double[] x = new double[n + 1];
+    double[] y = new double[n + 1];
+    project(located, hasStart ? startLatitude : null, hasStart ? startLongitude : null, x, y);
+
+    // group 0 holds the pickups, groups 1.. the deliveries by priority rank
+    int tiers = ShipmentPriority.values().length + 1;
+    List<List<Integer>> groups = new ArrayList<>(tiers + 1);
+    for (int g = 0; g <= tiers; g++)
+      groups.add(new ArrayList<>());
+    for (int i = 0; i < n; i++) {
+      Stop stop = located.get(i);
+      groups.get(stop.type() == RouteStopType.PICKUP ? 0 : 1 + VehicleAssignmentEngine.rank(stop.priority())).add(i);
+    }
+
+    int start = hasStart ? n : -1;
+    int anchor = start;
+    int[] order = new int[n];
+    int filled = 0;
+    boolean converged = true;
+    for (List<Integer> group : groups) {
+      if (group.isEmpty())
+        continue;
+      int[] path = nearestNeighbour(group, anchor, x, y);
+      converged &= improve(path, anchor, x, y, deadlineNanos);
+      System.arraycopy(path, 0, order, filled, path.length);
+      filled += path.length;
+      anchor = path[path.length - 1];
+    }
+
+    List<Stop> route = new ArrayList<>(stops.size());
+    double distance = 0;
+    int previous = start;
+    for (int index : order) {
+      route.add(located.get(index));
+      distance += distance(x, y, previous, index);
+      previous = index;
+    }
+    route.addAll(tailPickups);
+    route.addAll(tailDeliveries);
+    return new Route(route, distance, converged);
+  }
+
+  // x/y in kilometres; the start position, when given, goes in slot n
+  private static void project(List<Stop> located, Double startLatitude, Double startLongitude, double[] x,
+      double[] y) {
+    int n = located.size();
+    double sumLatitude = startLatitude != null ? startLatitude : 0;
+    for (Stop stop : located)
+      sumLatitude += stop.latitude();
+    int count = n + (startLatitude != null ? 1 : 0);
+    double scale = count == 0 ? 1 : Math.cos(Math.toRadians(sumLatitude / count));
+    for (int i = 0; i < n; i++) {
+      Stop stop = located.get(i);
+      x[i] = Math.toRadians(stop.longitude()) * scale * EARTH_RADIUS_KM;
+      y[i] = Math.toRadians(stop.latitude()) * EARTH_RADIUS_KM;
+    }
+    if (startLatitude != null) {
+      x[n] = Math.toRadians(startLongitude) * scale * EARTH_RADIUS_KM;
+      y[n] = Math.toRadians(startLatitude) * EARTH_RADIUS_KM;
+    }
+  }
+
+  private static int[] nearestNeighbour(List<Integer> group, int anchor, double[] x, double[] y) {
+    int m = group.size();
+    int[] candidates = new int[m];
+    for (int i = 0; i < m; i++)
+      candidates[i] = group.get(i);
+    int[] path = new int[m];
+    boolean[] used = new boolean[m];
+    int current = anchor;
+    int next = 0;
+    if (current < 0) {
+      // no fixed start: begin at the stop farthest from the group's centre so the path sweeps across it
+      double cx = 0;
+      double cy = 0;
+      for (int c : candidates) {
+        cx += x[c];
+        cy += y[c];
+      }
+      cx /= m;
+      cy /= m;
+      int farthest = 0;
+      double farthestDistance = -1;
+      for (int i = 0; i < m; i++) {
+        double dx = x[candidates[i]] - cx;
+        double dy = y[candidates[i]] - cy;
+        double d = dx * dx + dy * dy;
+        if (d > farthestDistance) {
+          farthestDistance = d;
+          farthest = i;
+        }
+      }
+      used[farthest] = true;
+      current = candidates[farthest];
+      path[next++] = current;
+    }
+    for (; next < m; next++) {
+      int best = -1;
+      double bestDistance = Double.MAX_VALUE;
+      for (int i = 0; i < m; i++) {
+        if (used[i])
+          continue;
+        double d = distance(x, y, current, candidates[i]);
+        if (d < bestDistance) {
+          bestDistance = d;
+          best = i;
+        }
+      }
+      used[best] = true;
+      current = candidates[best];
+      path[next] = current;
+    }
+    return path;
+  }
+
+  // false when the deadline passed before a full pass found nothing left to improve
+  private static boolean improve(int[] path, int anchor, double[] x, double[] y, long deadlineNanos) {
+    while (true) {
+      boolean improved = twoOpt(path, anchor, x, y, deadlineNanos);
+      improved |= orOpt(path, anchor, x, y, deadlineNanos);
+      if (System.nanoTime() - deadlineNanos > 0)
+        return false;
+      if (!improved)
+        return true;
+    }
+  }
+
+  // reverses path[i..k] whenever that shortens the open path hanging from anchor
+  private static boolean twoOpt(int[] path, int anchor, double[] x, double[] y, long deadlineNanos) {
+    int n = path.length;
+    boolean improved = false;
+    for (int i = 0; i < n - 1; i++) {
+      if (System.nanoTime() - deadlineNanos > 0)
+        break;
+      int before = i == 0 ? anchor : path[i - 1];
+      for (int k = i + 1; k < n; k++) {
+        int after = k + 1 < n ? path[k + 1] : -1;
+        double delta = distance(x, y, before, path[k]) + distance(x, y, path[i], after)
+            - distance(x, y, before, path[i]) - distance(x, y, path[k], after);
+        if (delta < -EPSILON) {
+          reverse(path, i, k);
+          improved = true;
+        }
+      }
+    }
+    return improved;
+  }
+
+  // moves a chain of 1..MAX_SEGMENT stops, either way round, to the edge where it costs least
+  private static boolean orOpt(int[] path, int anchor, double[] x, double[] y, long deadlineNanos) {
+    int n = path.length;
+    boolean improved = false;
+    for (int length = 1; length <= MAX_SEGMENT && length < n; length++) {
+      for (int i = 0; i + length <= n; i++) {
+        if (System.nanoTime() - deadlineNanos > 0)
+          return improved;
+        int first = path[i];
+        int last = path[i + length - 1];
+        int before = i == 0 ? anchor : path[i - 1];
+        int after = i + length < n ? path[i + length] : -1;
+        double removed = distance(x, y, before, first) + distance(x, y, last, after) - distance(x, y, before, after);
+        if (removed <= EPSILON)
+          continue;
+        int bestEdge = Integer.MIN_VALUE;
+        boolean bestReversed = false;
+        double bestDelta = -EPSILON;
+        // edge j joins path[j] (or the anchor for j = -1) to path[j + 1] (or nothing past the end)
+        for (int j = -1; j < n; j++) {
+          if (j >= i - 1 && j < i + length)
+            continue;
+          int u = j < 0 ? anchor : path[j];
+          int w = j + 1 < n ? path[j + 1] : -1;
+          double base = distance(x, y, u, w) + removed;
+          double forward = distance(x, y, u, first) + distance(x, y, last, w) - base;
+          double backward = distance(x, y, u, last) + distance(x, y, first, w) - base;
+          if (forward < bestDelta) {
+            bestDelta = forward;
+            bestEdge = j;
+            bestReversed = false;
+          }
+          if (backward < bestDelta) {
+            bestDelta = backward;
+            bestEdge = j;
+            bestReversed = true;
+          }
+        }
+        if (bestEdge != Integer.MIN_VALUE) {
+          moveSegment(path, i, length, bestEdge, bestReversed);
+          improved = true;
+        }
+      }
+    }
+    return improved;
+  }
+
+  private static void moveSegment(int[] path, int i, int length, int edge, boolean reversed) {
+    int[] segment = new int[length];
+    System.arraycopy(path, i, segment, 0, length);
+    if (reversed)
+      reverse(segment, 0, length - 1);
+    if (edge < i) {
+      System.arraycopy(path, edge + 1, path, edge + 1 + length, i - edge - 1);
+      System.arraycopy(segment, 0, path, edge + 1, length);
+    } else {
+      System.arraycopy(path, i + length, path, i, edge - i - length + 1);
+      System.arraycopy(segment, 0, path, edge - length + 1, length);
+    }
+  }
+
+  private static void reverse(int[] values, int from, int to) {
+    while (from < to) {
+      int tmp = values[from];
+      values[from++] = values[to];
+      values[to--] = tmp;
+    }
+  }
+
+  // -1 stands for "no point" (an open start or end) and costs nothing
+  private static double distance(double[] x, double[] y, int a, int b) {
+    if (a < 0 || b < 0)
+      return 0;
+    double dx = x[a] - x[b];
+    double dy = y[a] - y[b];
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+}
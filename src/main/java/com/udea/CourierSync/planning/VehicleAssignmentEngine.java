@@ -0,0 +1,101 @@
+package com.udea.CourierSync.planning;
+
+import com.udea.CourierSync.enums.ShipmentPriority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs shipments into vehicles on two dimensions, weight and volume, with best-fit decreasing:
+ * shipments are taken by priority (ALTA first) and then by size, and each goes to the vehicle it fits
+ * with the least capacity left over. When the fleet runs out of room it is the low-priority, then the
+ * small, shipments that stay unassigned.
+ *
+ * Plain Java with no Spring or JPA types so it can be benchmarked and tested on its own; the cost is
+ * O(shipments x vehicles) with primitive arrays in the inner loop.
+ */
+public final class VehicleAssignmentEngine {
+
+  // maxVolume may be Double.POSITIVE_INFINITY when the vehicle's volume is unknown
+  public record Bin(long vehicleId, double maxWeight, double maxVolume, double usedWeight, double usedVolume) {
+  }
+
+  public record Item(long shipmentId, double weight, double volume, ShipmentPriority priority) {
+  }
+
+  // assignments maps shipment id to vehicle id; unassigned keeps the packing order
+  public record Result(Map<Long, Long> assignments, List<Long> unassigned) {
+  }
+
+  private VehicleAssignmentEngine() {
+  }
+
+  public static Result assign(List<Item> items, List<Bin> bins) {
+    int m = bins.size();
+    long[] vehicleIds = new long[m];
+    double[] freeWeight = new double[m];
+    double[] freeVolume = new double[m];
+    double[] weightScale = new double[m];
+    double[] volumeScale = new double[m];
+    double referenceWeight = 0;
+    double referenceVolume = 0;
+    for (int j = 0; j < m; j++) {
+      Bin bin = bins.get(j);
+      vehicleIds[j] = bin.vehicleId();
+      freeWeight[j] = bin.maxWeight() - bin.usedWeight();
+      freeVolume[j] = bin.maxVolume() - bin.usedVolume();
+      weightScale[j] = bin.maxWeight() > 0 ? 1 / bin.maxWeight() : 0;
+      volumeScale[j] = Double.isFinite(bin.maxVolume()) && bin.maxVolume() > 0 ? 1 / bin.maxVolume() : 0;
+      referenceWeight = Math.max(referenceWeight, bin.maxWeight());
+      if (Double.isFinite(bin.maxVolume()))
+        referenceVolume = Math.max(referenceVolume, bin.maxVolume());
+    }
+
+    Item[] order = items.toArray(new Item[0]);
+    double rw = referenceWeight > 0 ? referenceWeight : 1;
+    double rv = referenceVolume > 0 ? referenceVolume : 1;
+    Arrays.sort(order, Comparator
+        .comparingInt((Item item) -> rank(item.priority()))
+        .thenComparingDouble(item -> -Math.max(item.weight() / rw, item.volume() / rv)));
+
+    Map<Long, Long> assignments = new HashMap<>(order.length * 2);
+    List<Long> unassigned = new ArrayList<>();
+    for (Item item : order) {
+      double w = item.weight();
+      double v = item.volume();
+      int best = -1;
+      double bestSlack = Double.MAX_VALUE;
+      for (int j = 0; j < m; j++) {
+        if (w > freeWeight[j] || v > freeVolume[j])
+          continue;
+        // leftover capacity as a fraction of the vehicle; the tightest fit keeps big vehicles free for big loads
+        double slack = (freeWeight[j] - w) * weightScale[j];
+        if (volumeScale[j] > 0)
+          slack += (freeVolume[j] - v) * volumeScale[j];
+        if (slack < bestSlack) {
+          bestSlack = slack;
+          best = j;
+        }
+      }
+      if (best < 0) {
+        unassigned.add(item.shipmentId());
+        continue;
+      }
+      freeWeight[best] -= w;
+      freeVolume[best] -= v;
+      assignments.put(item.shipmentId(), vehicleIds[best]);
+    }
+    return new Result(assignments, unassigned);
+  }
+
+  public static int rank(ShipmentPriority priority) {
+    if (priority == null)
+      return ShipmentPriority.values().length;
+    // ALTA is declared last
+    return ShipmentPriority.values().length - 1 - priority.ordinal();
+  }
+}
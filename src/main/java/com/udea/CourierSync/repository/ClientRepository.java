@@ -1,10 +1,27 @@
 package com.udea.CourierSync.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import com.udea.CourierSync.DTO.VersionStamp;
 import com.udea.CourierSync.entity.Client;
 
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
+  // results kept in the query cache; invalidated when the table changes
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   java.util.Optional<Client> findByEmail(String email);
-}
\ No newline at end of file
+
+  // conditional GET checks; cacheable like findByEmail, so polling an unchanged table stays in memory
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  @Query("SELECT new com.udea.CourierSync.DTO.VersionStamp(c.version, c.updatedAt) FROM Client c WHERE c.id = :id")
+  java.util.Optional<VersionStamp> findStampById(@Param("id") Long id);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  @Query("SELECT new com.udea.CourierSync.DTO.VersionStamp(COUNT(c), MAX(c.id), SUM(c.version)) FROM Client c")
+  VersionStamp findTableStamp();
+}
@@ -0,0 +1,18 @@
+package com.udea.CourierSync.repository;
+
+import com.udea.CourierSync.DTO.ShipmentRow;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+// Queries whose WHERE clause depends on which filters the caller supplied; implemented in ShipmentPageRepositoryImpl.
+public interface ShipmentPageRepository {
+
+  // Keyset pagination: the caller passes the last id it saw (or null) and a Pageable sized to the rows it
+  // wants. Null filters are left out of the statement, so each combination gets a plan that can seek on
+  // its index instead of a generic one that scans.
+  List<ShipmentRow> findRowPageAfter(Long afterId, ShipmentStatus status, ShipmentPriority priority,
+      Long clientId, Long vehicleId, Pageable pageable);
+}
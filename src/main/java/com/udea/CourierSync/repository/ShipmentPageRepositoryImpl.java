@@ -0,0 +1,69 @@
+package com.udea.CourierSync.repository;
+
+import com.udea.CourierSync.DTO.ShipmentRow;
+import com.udea.CourierSync.entity.Client;
+import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ShipmentPageRepositoryImpl implements ShipmentPageRepository {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<ShipmentRow> findRowPageAfter(Long afterId, ShipmentStatus status, ShipmentPriority priority,
+      Long clientId, Long vehicleId, Pageable pageable) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<ShipmentRow> query = cb.createQuery(ShipmentRow.class);
+    Root<Shipment> s = query.from(Shipment.class);
+    Join<Shipment, Client> c = s.join("client");
+    Join<Shipment, Vehicle> v = s.join("vehicle", JoinType.LEFT);
+
+    // the same columns, in the same order, as ShipmentRepository.SHIPMENT_ROW
+    query.select(cb.construct(ShipmentRow.class, s.get("id"), s.get("trackingCode"),
+        c.get("id"), c.get("name"), c.get("email"), c.get("phone"), c.get("address"),
+        v.get("id"), v.get("plate"), v.get("model"), v.get("maximumCapacity"), v.get("available"),
+        s.get("originAddress"), s.get("destinationAddress"),
+        s.get("originLatitude"), s.get("originLongitude"), s.get("destinationLatitude"), s.get("destinationLongitude"),
+        s.get("weight"), s.get("volume"), s.get("priority"), s.get("status"), s.get("version"), s.get("createdAt")));
+
+    // filter on the shipment's own foreign keys so the predicates match idx_shipment_client_id and
+    // idx_shipment_vehicle_status rather than the joined tables
+    List<Predicate> where = new ArrayList<>();
+    if (afterId != null) {
+      where.add(cb.greaterThan(s.get("id"), afterId));
+    }
+    if (status != null) {
+      where.add(cb.equal(s.get("status"), status));
+    }
+    if (priority != null) {
+      where.add(cb.equal(s.get("priority"), priority));
+    }
+    if (clientId != null) {
+      where.add(cb.equal(s.get("client").get("id"), clientId));
+    }
+    if (vehicleId != null) {
+      where.add(cb.equal(s.get("vehicle").get("id"), vehicleId));
+    }
+    query.where(where.toArray(Predicate[]::new)).orderBy(cb.asc(s.get("id")));
+
+    return entityManager.createQuery(query)
+        .setFirstResult((int) pageable.getOffset())
+        .setMaxResults(pageable.getPageSize())
+        .getResultList();
+  }
+}
@@ -1,10 +1,114 @@
 package com.udea.CourierSync.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import com.udea.CourierSync.DTO.ShipmentRow;
+import com.udea.CourierSync.DTO.VersionStamp;
 import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ShipmentRepository extends JpaRepository<Shipment, Long> {
-  java.util.Optional<Shipment> findByTrackingCode(String trackingCode);
-}
\ No newline at end of file
+public interface ShipmentRepository extends JpaRepository<Shipment, Long>, ShipmentPageRepository {
+  String SHIPMENT_ROW = "SELECT new com.udea.CourierSync.DTO.ShipmentRow(s.id, s.trackingCode,"
+      + " c.id, c.name, c.email, c.phone, c.address,"
+      + " v.id, v.plate, v.model, v.maximumCapacity, v.available,"
+      + " s.originAddress, s.destinationAddress,"
+      + " s.originLatitude, s.originLongitude, s.destinationLatitude, s.destinationLongitude,"
+      + " s.weight, s.volume, s.priority, s.status, s.version, s.createdAt)"
+      + " FROM Shipment s JOIN s.client c LEFT JOIN s.vehicle v";
+
+  // client and vehicle are lazy; every read that ends up in a ShipmentDTO loads them in the same query
+  @EntityGraph(attributePaths = { "client", "vehicle" })
+  Optional<Shipment> findByTrackingCode(String trackingCode);
+
+  @Override
+  @EntityGraph(attributePaths = { "client", "vehicle" })
+  Optional<Shipment> findById(Long id);
+
+  // one IN query for bulk status updates
+  @EntityGraph(attributePaths = { "client", "vehicle" })
+  List<Shipment> findByIdIn(Collection<Long> ids);
+
+  // input of the vehicle assignment engine, one page in dispatch order: ALTA first, then the oldest
+  @EntityGraph(attributePaths = { "client" })
+  @Query("SELECT s FROM Shipment s WHERE s.status = :status AND s.vehicle IS NULL ORDER BY"
+      + " CASE s.priority WHEN com.udea.CourierSync.enums.ShipmentPriority.ALTA THEN 0"
+      + " WHEN com.udea.CourierSync.enums.ShipmentPriority.MEDIA THEN 1"
+      + " WHEN com.udea.CourierSync.enums.ShipmentPriority.BAJA THEN 2 ELSE 3 END, s.createdAt, s.id")
+  List<Shipment> findUnassignedInDispatchOrder(@Param("status") ShipmentStatus status, Pageable pageable);
+
+  // input of route planning: what is still on one vehicle's route, or on every vehicle's
+  @EntityGraph(attributePaths = { "vehicle" })
+  List<Shipment> findByVehicleIdAndStatusIn(Long vehicleId, Collection<ShipmentStatus> statuses);
+
+  @EntityGraph(attributePaths = { "vehicle" })
+  List<Shipment> findByVehicleIsNotNullAndStatusIn(Collection<ShipmentStatus> statuses);
+
+  // Rows of [vehicle id, total weight, total volume] of the shipments a vehicle still carries
+  @Query("SELECT s.vehicle.id, SUM(s.weight), SUM(s.volume) FROM Shipment s"
+      + " WHERE s.vehicle IS NOT NULL AND s.status NOT IN :finished GROUP BY s.vehicle.id")
+  List<Object[]> sumLoadByVehicle(@Param("finished") Collection<ShipmentStatus> finished);
+
+  // the same for one vehicle; no row when it carries nothing
+  @Query("SELECT s.vehicle.id, SUM(s.weight), SUM(s.volume) FROM Shipment s"
+      + " WHERE s.vehicle.id = :vehicleId AND s.status NOT IN :finished GROUP BY s.vehicle.id")
+  List<Object[]> sumLoadOfVehicle(@Param("vehicleId") Long vehicleId,
+      @Param("finished") Collection<ShipmentStatus> finished);
+
+  // Rows of [id, priority, created at] of the shipments waiting to be dispatched; reads idx_shipment_status_id
+  @Query("SELECT s.id, s.priority, s.createdAt FROM Shipment s WHERE s.status = :status AND s.vehicle IS NULL")
+  List<Object[]> findDispatchEntries(@Param("status") ShipmentStatus status);
+
+  // Locks the given shipments that are still waiting, by primary key. Rows another transaction holds
+  // (a claim on another replica) are skipped instead of waited on; -2 is LockOptions.SKIP_LOCKED.
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+  @Query("SELECT s FROM Shipment s WHERE s.id IN :ids AND s.status = :status AND s.vehicle IS NULL")
+  List<Shipment> lockUnassigned(@Param("ids") Collection<Long> ids, @Param("status") ShipmentStatus status);
+
+  // Rows of [id, origin latitude, origin longitude, destination latitude, destination longitude]
+  // of the shipments ShipmentLocationIndex keeps
+  @Query("SELECT s.id, s.originLatitude, s.originLongitude, s.destinationLatitude, s.destinationLongitude"
+      + " FROM Shipment s WHERE s.status NOT IN :finished"
+      + " AND (s.originLatitude IS NOT NULL OR s.destinationLatitude IS NOT NULL)")
+  List<Object[]> findPositions(@Param("finished") Collection<ShipmentStatus> finished);
+
+  @Query(SHIPMENT_ROW + " WHERE s.id IN :ids")
+  List<ShipmentRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+  @Query(SHIPMENT_ROW + " WHERE s.trackingCode = :trackingCode")
+  Optional<ShipmentRow> findRowByTrackingCode(@Param("trackingCode") String trackingCode);
+
+  // version columns only, for conditional GETs; the client and vehicle are part of the response body
+  @Query("SELECT new com.udea.CourierSync.DTO.VersionStamp(s.version, c.version, v.version, s.updatedAt, c.updatedAt,"
+      + " v.updatedAt) FROM Shipment s LEFT JOIN s.client c LEFT JOIN s.vehicle v WHERE s.id = :id")
+  Optional<VersionStamp> findStampById(@Param("id") Long id);
+
+  // Server-side cursor for exports; must be consumed inside a transaction and closed.
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query("SELECT s FROM Shipment s LEFT JOIN FETCH s.client LEFT JOIN FETCH s.vehicle ORDER BY s.id ASC")
+  Stream<Shipment> streamAllForExport();
+
+  // Rows of [ShipmentStatus, Long]; used to reconcile the dashboard counters.
+  @Query("SELECT s.status, COUNT(s) FROM Shipment s GROUP BY s.status")
+  List<Object[]> countByStatus();
+
+  // Rows of [ShipmentPriority, Long]
+  @Query("SELECT s.priority, COUNT(s) FROM Shipment s GROUP BY s.priority")
+  List<Object[]> countByPriority();
+}
@@ -0,0 +1,12 @@
+package com.udea.CourierSync.repository;
+
+import com.udea.CourierSync.entity.StatusHistory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StatusHistoryRepository extends JpaRepository<StatusHistory, Long> {
+  Page<StatusHistory> findByShipmentIdOrderByCreatedAtDescIdDesc(Long shipmentId, Pageable pageable);
+}
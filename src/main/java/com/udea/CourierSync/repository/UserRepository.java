@@ -1,10 +1,15 @@
 package com.udea.CourierSync.repository;
 
 import com.udea.CourierSync.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+  // results kept in the query cache; invalidated when the table changes
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   java.util.Optional<User> findByEmail(String email);
 }
\ No newline at end of file
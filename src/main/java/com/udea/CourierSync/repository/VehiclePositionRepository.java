@@ -0,0 +1,26 @@
+package com.udea.CourierSync.repository;
+
+import com.udea.CourierSync.entity.VehiclePosition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface VehiclePositionRepository extends JpaRepository<VehiclePosition, Long> {
+  // one statement per report; 0 when the vehicle has not reported before and the row must be inserted
+  @Modifying
+  @Query("UPDATE VehiclePosition p SET p.latitude = :latitude, p.longitude = :longitude, p.updatedAt = :updatedAt"
+      + " WHERE p.vehicleId = :vehicleId")
+  int updatePosition(@Param("vehicleId") Long vehicleId, @Param("latitude") Double latitude,
+      @Param("longitude") Double longitude, @Param("updatedAt") Instant updatedAt);
+
+  // Rows of [vehicle id, latitude, longitude, available] for the VehicleLocationIndex reload
+  @Query("SELECT p.vehicleId, p.latitude, p.longitude, v.available FROM VehiclePosition p, Vehicle v"
+      + " WHERE v.id = p.vehicleId")
+  List<Object[]> findIndexEntries();
+}
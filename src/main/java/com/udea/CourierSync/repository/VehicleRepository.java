@@ -1,10 +1,39 @@
 package com.udea.CourierSync.repository;
 
+import com.udea.CourierSync.DTO.VersionStamp;
 import com.udea.CourierSync.entity.Vehicle;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
+  // results kept in the query cache; invalidated when the table changes
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   java.util.Optional<Vehicle> findByPlate(String plate);
-}
\ No newline at end of file
+
+  // SELECT ... FOR UPDATE of one vehicle: claims for it run one at a time, so each sees the load of the previous
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT v FROM Vehicle v WHERE v.id = :id")
+  java.util.Optional<Vehicle> lockById(@Param("id") Long id);
+
+  // the available fleet, FOR UPDATE in id order so concurrent assignment runs cannot deadlock on it
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT v FROM Vehicle v WHERE v.available = true ORDER BY v.id")
+  java.util.List<Vehicle> lockAvailableOrderById();
+
+  // conditional GET checks; cacheable like findByPlate, so polling an unchanged table stays in memory
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  @Query("SELECT new com.udea.CourierSync.DTO.VersionStamp(v.version, v.updatedAt) FROM Vehicle v WHERE v.id = :id")
+  java.util.Optional<VersionStamp> findStampById(@Param("id") Long id);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  @Query("SELECT new com.udea.CourierSync.DTO.VersionStamp(COUNT(v), MAX(v.id), SUM(v.version)) FROM Vehicle v")
+  VersionStamp findTableStamp();
+}
@@ -1,20 +1,50 @@
 package com.udea.CourierSync.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.CacheStats;
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.cache.InvalidationListener;
+import com.udea.CourierSync.cache.TtlCache;
 import com.udea.CourierSync.entity.User;
 import com.udea.CourierSync.repository.UserRepository;
 
+import jakarta.annotation.PostConstruct;
+
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Value("${app.security.principal-cache.max-size:1000}")
+    private int principalCacheMaxSize;
+
+    @Value("${app.security.principal-cache.ttl-seconds:60}")
+    private long principalCacheTtlSeconds;
+
+    // Principals resolved by the JWT filter, so authenticated requests don't query users every time.
+    private TtlCache<Long, UserPrincipal> principalCache;
+
+    @PostConstruct
+    void initCache() {
+        principalCache = new TtlCache<>(principalCacheMaxSize, principalCacheTtlSeconds, TimeUnit.SECONDS);
+        // changes made through other replicas
+        invalidationBus.subscribe(CacheRegion.USER,
+                InvalidationListener.of(key -> evictUser(Long.valueOf(key)), principalCache::invalidateAll));
+    }
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(email)
@@ -23,8 +53,19 @@ public class CustomUserDetailsService implements UserDetailsService {
     }
 
     public UserDetails loadUserById(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with id : " + id));
-        return UserPrincipal.create(user);
+        return principalCache.get(id, key -> {
+            User user = userRepository.findById(key)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with id : " + key));
+            return UserPrincipal.create(user);
+        });
+    }
+
+    // Must be called whenever a user's name, email, password or role changes, or the user is removed.
+    public void evictUser(Long id) {
+        principalCache.invalidate(id);
+    }
+
+    public CacheStats principalCacheStats() {
+        return principalCache.stats();
     }
 }
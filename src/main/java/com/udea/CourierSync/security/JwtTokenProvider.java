@@ -11,9 +11,17 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import com.udea.CourierSync.cache.CacheStats;
+import com.udea.CourierSync.cache.TtlCache;
+
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
@@ -25,11 +33,24 @@ public class JwtTokenProvider {
   @Value("${app.jwt.expiration}")
   private int jwtExpirationInMs;
 
+  @Value("${app.jwt.verified-cache.max-size:10000}")
+  private int verifiedCacheMaxSize;
+
+  @Value("${app.jwt.verified-cache.ttl-seconds:300}")
+  private long verifiedCacheTtlSeconds;
+
   private SecretKey key;
 
+  private JwtParser parser;
+
+  // Claims of recently verified tokens keyed by the token's SHA-256, so repeat requests skip the HMAC check
+  private TtlCache<String, Claims> verifiedTokens;
+
   @PostConstruct
   public void init() {
     this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+    this.verifiedTokens = new TtlCache<>(verifiedCacheMaxSize, verifiedCacheTtlSeconds, TimeUnit.SECONDS);
   }
 
   public String generateToken(@NonNull Authentication authentication) {
@@ -46,23 +67,27 @@ public class JwtTokenProvider {
         .compact();
   }
 
-  public Long getUserIdFromJWT(@NonNull String token) {
-    Claims claims = Jwts.parserBuilder()
-        .setSigningKey(key)
-        .build()
-        .parseClaimsJws(token)
-        .getBody();
-
-    return Long.parseLong(claims.getSubject());
-  }
+  /**
+   * Verifies the token and returns its claims, or empty if it is invalid or expired. The signature
+   * is checked once per token; later calls with the same token are answered from the cache until
+   * the token expires.
+   */
+  public Optional<Claims> parse(@NonNull String token) {
+    String digest = digest(token);
+    Claims cached = verifiedTokens.getIfPresent(digest);
+    if (cached != null) {
+      if (cached.getExpiration() == null || cached.getExpiration().after(new Date())) {
+        return Optional.of(cached);
+      }
+      verifiedTokens.invalidate(digest);
+      logger.error("Expired JWT token");
+      return Optional.empty();
+    }
 
-  public boolean validateToken(@NonNull String authToken) {
     try {
-      Jwts.parserBuilder()
-          .setSigningKey(key)
-          .build()
-          .parseClaimsJws(authToken);
-      return true;
+      Claims claims = parser.parseClaimsJws(token).getBody();
+      verifiedTokens.put(digest, claims);
+      return Optional.of(claims);
     } catch (SignatureException ex) {
       logger.error("Invalid JWT signature");
     } catch (MalformedJwtException ex) {
@@ -74,6 +99,32 @@ public class JwtTokenProvider {
     } catch (IllegalArgumentException ex) {
       logger.error("JWT claims string is empty");
     }
-    return false;
+    return Optional.empty();
+  }
+
+  public Long getUserId(@NonNull Claims claims) {
+    return Long.parseLong(claims.getSubject());
+  }
+
+  public Long getUserIdFromJWT(@NonNull String token) {
+    return parse(token).map(this::getUserId)
+        .orElseThrow(() -> new JwtException("Invalid JWT token"));
+  }
+
+  public boolean validateToken(@NonNull String authToken) {
+    return parse(authToken).isPresent();
+  }
+
+  public CacheStats verifiedTokenCacheStats() {
+    return verifiedTokens.stats();
+  }
+
+  private static String digest(String token) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 not available", ex);
+    }
   }
-}
\ No newline at end of file
+}
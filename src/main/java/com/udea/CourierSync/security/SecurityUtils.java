@@ -0,0 +1,51 @@
+package com.udea.CourierSync.security;
+
+import com.udea.CourierSync.enums.UserRole;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.function.Supplier;
+
+public final class SecurityUtils {
+  public static final String SYSTEM_ACTOR = "system";
+
+  private SecurityUtils() {
+  }
+
+  // Email of the authenticated user, or "system" for work done outside a request
+  public static String currentActor() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null || !authentication.isAuthenticated() || authentication.getName() == null) {
+      return SYSTEM_ACTOR;
+    }
+    return authentication.getName();
+  }
+
+  // True only inside runAsSystem; no authentication at all is not the system, it is nobody
+  public static boolean isSystem() {
+    return SecurityContextHolder.getContext().getAuthentication() instanceof SystemAuthentication;
+  }
+
+  // Runs internal work that goes through role-checked services as the system, then restores the caller
+  public static <T> T runAsSystem(Supplier<T> action) {
+    SecurityContext previous = SecurityContextHolder.getContext();
+    SecurityContext context = SecurityContextHolder.createEmptyContext();
+    context.setAuthentication(SystemAuthentication.INSTANCE);
+    SecurityContextHolder.setContext(context);
+    try {
+      return action.get();
+    } finally {
+      SecurityContextHolder.setContext(previous);
+    }
+  }
+
+  public static boolean hasRole(UserRole role) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null || !authentication.isAuthenticated()) {
+      return false;
+    }
+    String authority = "ROLE_" + role.name();
+    return authentication.getAuthorities().stream().anyMatch(granted -> authority.equals(granted.getAuthority()));
+  }
+}
@@ -0,0 +1,29 @@
+package com.udea.CourierSync.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+
+import java.util.List;
+
+/**
+ * Marks work the application does on its own behalf (schedulers, listeners, startup tasks). It is set
+ * only by SecurityUtils.runAsSystem and is the only thing SecurityUtils.isSystem accepts; a missing or
+ * anonymous authentication is an outside caller with no rights.
+ */
+public final class SystemAuthentication extends AbstractAuthenticationToken {
+  static final SystemAuthentication INSTANCE = new SystemAuthentication();
+
+  private SystemAuthentication() {
+    super(List.of());
+    setAuthenticated(true);
+  }
+
+  @Override
+  public Object getCredentials() {
+    return null;
+  }
+
+  @Override
+  public Object getPrincipal() {
+    return SecurityUtils.SYSTEM_ACTOR;
+  }
+}
@@ -0,0 +1,71 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.cache.CacheStats;
+import com.udea.CourierSync.config.SecondLevelCacheConfig;
+import com.udea.CourierSync.geocoding.GeocodingService;
+import com.udea.CourierSync.security.CustomUserDetailsService;
+import com.udea.CourierSync.security.JwtTokenProvider;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Hit/miss figures of every in-memory cache on this node, for /api/dashboard/caches.
+@Service
+public class CacheStatsService {
+
+  @Autowired
+  private TrackingCodeCache trackingCodeCache;
+
+  @Autowired
+  private CustomUserDetailsService customUserDetailsService;
+
+  @Autowired
+  private JwtTokenProvider jwtTokenProvider;
+
+  @Autowired
+  private GeocodingService geocodingService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private Environment env;
+
+  public Map<String, CacheStats> snapshot() {
+    Map<String, CacheStats> caches = new LinkedHashMap<>();
+    caches.put("trackingCodes", trackingCodeCache.stats());
+    caches.put("principals", customUserDetailsService.principalCacheStats());
+    caches.put("verifiedTokens", jwtTokenProvider.verifiedTokenCacheStats());
+    caches.put("geocoding", geocodingService.cacheStats());
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    if (statistics.isStatisticsEnabled()) {
+      for (String region : SecondLevelCacheConfig.ENTITY_REGIONS) {
+        caches.put("l2." + region, toStats(statistics.getDomainDataRegionStatistics(region), region));
+      }
+      caches.put("l2.query", toStats(statistics.getQueryRegionStatistics(SecondLevelCacheConfig.QUERY_RESULTS_REGION),
+          "query"));
+    }
+    return caches;
+  }
+
+  private CacheStats toStats(CacheRegionStatistics region, String name) {
+    if (region == null) {
+      return new CacheStats(0, 0, 0, maxEntries(name));
+    }
+    // JCache regions may not know their size and report a negative count
+    int size = (int) Math.max(-1, Math.min(Integer.MAX_VALUE, region.getElementCountInMemory()));
+    return new CacheStats(region.getHitCount(), region.getMissCount(), size, maxEntries(name));
+  }
+
+  private int maxEntries(String name) {
+    return env.getProperty("app.cache.l2." + name + ".max-entries", Integer.class, 1000);
+  }
+}
@@ -3,9 +3,12 @@ package com.udea.CourierSync.services;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.InvalidationBus;
 import com.udea.CourierSync.repository.ClientRepository;
 import com.udea.CourierSync.mapper.ClientMapper;
 import com.udea.CourierSync.DTO.ClientDTO;
+import com.udea.CourierSync.DTO.VersionStamp;
 import com.udea.CourierSync.entity.Client;
 
 import java.util.List;
@@ -22,11 +25,18 @@ public class ClientService {
   @Autowired
   private ClientMapper clientMapper;
 
+  @Autowired
+  private InvalidationBus invalidationBus;
+
+  @Autowired
+  private DashboardMetricsService dashboardMetricsService;
+
   public ClientDTO createClient(ClientDTO dto) {
     if (dto == null)
       throw new BadRequestException("ClientDTO must not be null");
     Client entity = clientMapper.toEntity(dto);
     Client saved = clientRepository.save(entity);
+    dashboardMetricsService.clientsChanged(1);
     return clientMapper.toDTO(saved);
   }
 
@@ -38,14 +48,25 @@ public class ClientService {
     return clientRepository.findAll().stream().map(clientMapper::toDTO).toList();
   }
 
+  public Optional<VersionStamp> findVersionStamp(Long id) {
+    return clientRepository.findStampById(id);
+  }
+
+  public VersionStamp findAllVersionStamp() {
+    return clientRepository.findTableStamp();
+  }
+
   public ClientDTO update(Long id, ClientDTO dto) {
     if (dto == null)
       throw new BadRequestException("ClientDTO must not be null");
-    clientRepository.findById(id)
+    Client existing = clientRepository.findById(id)
         .orElseThrow(() -> new ResourceNotFoundException("Client not found with id: " + id));
     Client toSave = clientMapper.toEntity(dto);
     toSave.setId(id);
+    // the merge is checked against the version just read and bumps it
+    toSave.setVersion(existing.getVersion());
     Client saved = clientRepository.save(toSave);
+    invalidationBus.publish(CacheRegion.CLIENT, String.valueOf(id));
     return clientMapper.toDTO(saved);
   }
 
@@ -54,5 +75,7 @@ public class ClientService {
       throw new ResourceNotFoundException("Client not found with id: " + id);
     }
     clientRepository.deleteById(id);
+    invalidationBus.publish(CacheRegion.CLIENT, String.valueOf(id));
+    dashboardMetricsService.clientsChanged(-1);
   }
 }
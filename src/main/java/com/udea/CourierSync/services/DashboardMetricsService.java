@@ -0,0 +1,140 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import com.udea.CourierSync.repository.ClientRepository;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import com.udea.CourierSync.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory counters behind /api/dashboard/metrics, so reading them never touches the database.
+ *
+ * Shipment counters follow committed ShipmentChangedEvents; client and user counters are adjusted by
+ * their services. Writes that bypass the services (seeders, manual SQL) and changes made by other
+ * replicas are picked up by the periodic reconciliation, which replaces every counter with a fresh
+ * count from the database.
+ */
+@Service
+public class DashboardMetricsService {
+  private static final Logger logger = LoggerFactory.getLogger(DashboardMetricsService.class);
+
+  @Autowired
+  private ShipmentRepository shipmentRepository;
+
+  @Autowired
+  private ClientRepository clientRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  private final AtomicLong shipments = new AtomicLong();
+  private final AtomicLong clients = new AtomicLong();
+  private final AtomicLong users = new AtomicLong();
+  private final Map<ShipmentStatus, AtomicLong> byStatus = new EnumMap<>(ShipmentStatus.class);
+  private final Map<ShipmentPriority, AtomicLong> byPriority = new EnumMap<>(ShipmentPriority.class);
+
+  public DashboardMetricsService() {
+    for (ShipmentStatus status : ShipmentStatus.values()) {
+      byStatus.put(status, new AtomicLong());
+    }
+    for (ShipmentPriority priority : ShipmentPriority.values()) {
+      byPriority.put(priority, new AtomicLong());
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onShipmentChanged(ShipmentChangedEvent event) {
+    ShipmentDTO previous = event.getPrevious();
+    ShipmentDTO current = event.getCurrent();
+    if (previous == null && current != null) {
+      shipments.incrementAndGet();
+    } else if (previous != null && current == null) {
+      shipments.decrementAndGet();
+    }
+    if (previous != null) {
+      adjust(byStatus, previous.getStatus(), -1);
+      adjust(byPriority, previous.getPriority(), -1);
+    }
+    if (current != null) {
+      adjust(byStatus, current.getStatus(), 1);
+      adjust(byPriority, current.getPriority(), 1);
+    }
+  }
+
+  public void clientsChanged(long delta) {
+    clients.addAndGet(delta);
+  }
+
+  public void usersChanged(long delta) {
+    users.addAndGet(delta);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    reconcile();
+  }
+
+  // Counters may briefly drift when a write lands between a count and the set below; the next run corrects it.
+  @Scheduled(fixedDelayString = "${app.dashboard.reconcile-interval-ms:300000}",
+      initialDelayString = "${app.dashboard.reconcile-interval-ms:300000}")
+  public void reconcile() {
+    try {
+      shipments.set(shipmentRepository.count());
+      clients.set(clientRepository.count());
+      users.set(userRepository.count());
+      setAll(byStatus, shipmentRepository.countByStatus());
+      setAll(byPriority, shipmentRepository.countByPriority());
+    } catch (RuntimeException ex) {
+      logger.warn("Could not reconcile dashboard counters", ex);
+    }
+  }
+
+  public Map<String, Object> snapshot() {
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    metrics.put("shipments", shipments.get());
+    metrics.put("clients", clients.get());
+    metrics.put("users", users.get());
+    metrics.put("shipmentsByStatus", values(byStatus));
+    metrics.put("shipmentsByPriority", values(byPriority));
+    return metrics;
+  }
+
+  private static <E extends Enum<E>> void adjust(Map<E, AtomicLong> counters, E key, long delta) {
+    if (key != null) {
+      counters.get(key).addAndGet(delta);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E extends Enum<E>> void setAll(Map<E, AtomicLong> counters, List<Object[]> rows) {
+    Map<E, Long> counted = new LinkedHashMap<>();
+    for (Object[] row : rows) {
+      if (row[0] != null) {
+        counted.put((E) row[0], (Long) row[1]);
+      }
+    }
+    counters.forEach((key, counter) -> counter.set(counted.getOrDefault(key, 0L)));
+  }
+
+  private static <E extends Enum<E>> Map<String, Long> values(Map<E, AtomicLong> counters) {
+    Map<String, Long> values = new LinkedHashMap<>();
+    counters.forEach((key, counter) -> values.put(key.name(), counter.get()));
+    return values;
+  }
+}
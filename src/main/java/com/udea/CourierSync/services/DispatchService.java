@@ -0,0 +1,167 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.DispatchRequestDTO;
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.dispatch.DispatchQueue;
+import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.enums.ChangeType;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import com.udea.CourierSync.exception.BadRequestException;
+import com.udea.CourierSync.exception.ConflictException;
+import com.udea.CourierSync.exception.ResourceNotFoundException;
+import com.udea.CourierSync.mapper.ShipmentMapper;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import com.udea.CourierSync.repository.VehicleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hands the next shipments of the DispatchQueue to a vehicle. The queue picks the candidates, so the
+ * database only sees primary-key lookups; each one is locked with SKIP LOCKED and re-checked, so a
+ * shipment claimed or changed elsewhere is passed over rather than waited on or claimed twice, and
+ * replicas claiming at the same time never block one another. The vehicle row itself is locked, so
+ * claims for the same vehicle are serialized and never load it past its capacity.
+ */
+@Service
+public class DispatchService {
+  public static final int MAX_CLAIM = 50;
+
+  // queue rounds per claim; each round only asks for what the previous ones could not lock
+  private static final int MAX_ROUNDS = 3;
+
+  // statuses after which a shipment no longer takes room in its vehicle
+  private static final Set<ShipmentStatus> FINISHED = EnumSet.of(ShipmentStatus.ENTREGADO, ShipmentStatus.CANCELADO);
+
+  @Autowired
+  private DispatchQueue dispatchQueue;
+
+  @Autowired
+  private ShipmentRepository shipmentRepository;
+
+  @Autowired
+  private VehicleRepository vehicleRepository;
+
+  @Autowired
+  private ShipmentMapper shipmentMapper;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private InvalidationBus invalidationBus;
+
+  // the claimed shipments in dispatch order; fewer than asked for (or none) when the queue runs out or
+  // the next shipment does not fit in what is left of the vehicle
+  @Transactional
+  public List<ShipmentDTO> claimNext(DispatchRequestDTO request) {
+    if (request == null || request.getVehicleId() == null)
+      throw new BadRequestException("vehicleId must not be null");
+    int count = request.getCount() == null ? 1 : request.getCount();
+    if (count < 1 || count > MAX_CLAIM)
+      throw new BadRequestException("count must be between 1 and " + MAX_CLAIM);
+    Vehicle vehicle = vehicleRepository.lockById(request.getVehicleId())
+        .orElseThrow(() -> new ResourceNotFoundException("Vehicle not found with id: " + request.getVehicleId()));
+    if (!vehicle.isAvailable())
+      throw new ConflictException("Vehicle " + vehicle.getId() + " is not available");
+    double weightLeft = toDouble(vehicle.getMaximumCapacity());
+    double volumeLeft = vehicle.getMaximumVolume() == null ? Double.POSITIVE_INFINITY : vehicle.getMaximumVolume();
+    for (Object[] row : shipmentRepository.sumLoadOfVehicle(vehicle.getId(), FINISHED)) {
+      weightLeft -= toDouble(row[1]);
+      volumeLeft -= toDouble(row[2]);
+    }
+
+    List<DispatchQueue.Entry> claimed = new ArrayList<>();
+    List<DispatchQueue.Entry> notFitting = new ArrayList<>();
+    Map<Long, Shipment> locked = new HashMap<>();
+    requeueAfterCompletion(claimed, notFitting);
+    for (int round = 0; round < MAX_ROUNDS && claimed.size() < count && notFitting.isEmpty(); round++) {
+      List<DispatchQueue.Entry> candidates = dispatchQueue.poll(count - claimed.size());
+      if (candidates.isEmpty())
+        break;
+      Map<Long, DispatchQueue.Entry> byId = new LinkedHashMap<>();
+      for (DispatchQueue.Entry entry : candidates)
+        byId.put(entry.shipmentId(), entry);
+      // candidates not returned were claimed, changed or are being changed elsewhere; they are dropped
+      // and come back through their change event or the next reload if they are still waiting
+      Map<Long, Shipment> lockedNow = new HashMap<>();
+      for (Shipment shipment : shipmentRepository.lockUnassigned(byId.keySet(), ShipmentStatus.PENDIENTE))
+        lockedNow.put(shipment.getId(), shipment);
+      for (DispatchQueue.Entry entry : candidates) {
+        Shipment shipment = lockedNow.get(entry.shipmentId());
+        if (shipment == null)
+          continue;
+        double weight = toDouble(shipment.getWeight());
+        double volume = toDouble(shipment.getVolume());
+        // claims stop at the first shipment that does not fit, so a smaller one behind it cannot jump the queue
+        if (!notFitting.isEmpty() || weight > weightLeft || volume > volumeLeft) {
+          notFitting.add(entry);
+          continue;
+        }
+        weightLeft -= weight;
+        volumeLeft -= volume;
+        locked.put(shipment.getId(), shipment);
+        claimed.add(entry);
+      }
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive())
+      dispatchQueue.requeue(notFitting);
+    if (claimed.isEmpty())
+      return List.of();
+
+    // the locking query joins nothing, so it locks no client rows; load the clients for the DTOs in one go
+    shipmentRepository.findByIdIn(locked.keySet());
+    List<Shipment> changed = new ArrayList<>(claimed.size());
+    Map<Long, ShipmentDTO> previous = new HashMap<>();
+    for (DispatchQueue.Entry entry : claimed) {
+      Shipment shipment = locked.get(entry.shipmentId());
+      previous.put(shipment.getId(), shipmentMapper.toDTO(shipment));
+      shipment.setVehicle(vehicle);
+      changed.add(shipment);
+    }
+    shipmentRepository.saveAllAndFlush(changed);
+
+    List<ShipmentDTO> result = new ArrayList<>(changed.size());
+    for (Shipment shipment : changed) {
+      ShipmentDTO updated = shipmentMapper.toDTO(shipment);
+      eventPublisher.publishEvent(new ShipmentChangedEvent(ChangeType.UPDATED, previous.get(shipment.getId()), updated));
+      invalidationBus.publish(CacheRegion.SHIPMENT, shipment.getTrackingCode());
+      result.add(updated);
+    }
+    return result;
+  }
+
+  // When the transaction ends, whatever notFitting holds goes back to the queue, and so does claimed
+  // unless it committed. notFitting waits until then because its rows stay locked until the end.
+  private void requeueAfterCompletion(List<DispatchQueue.Entry> claimed, List<DispatchQueue.Entry> notFitting) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive())
+      return;
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        dispatchQueue.requeue(notFitting);
+        if (status != STATUS_COMMITTED)
+          dispatchQueue.requeue(claimed);
+      }
+    });
+  }
+
+  private static double toDouble(Object value) {
+    return value == null ? 0 : ((Number) value).doubleValue();
+  }
+}
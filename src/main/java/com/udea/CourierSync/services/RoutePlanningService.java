@@ -0,0 +1,179 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.RouteDTO;
+import com.udea.CourierSync.DTO.RouteStopDTO;
+import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.entity.VehiclePosition;
+import com.udea.CourierSync.enums.RouteStopType;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.exception.ResourceNotFoundException;
+import com.udea.CourierSync.planning.RoutePlanner;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import com.udea.CourierSync.repository.VehiclePositionRepository;
+import com.udea.CourierSync.repository.VehicleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders the stops of each vehicle with RoutePlanner. Shipments are read in one query on the calling
+ * thread, in a short read-only transaction that only copies them into plain records; the planning runs
+ * after it has closed, so a request holds a pooled connection for the query and not for the time budget.
+ * Planning is CPU-only and runs one vehicle per task on a dedicated fork-join pool, so large fleets use
+ * every core without competing with the common pool. All vehicles of a request share one deadline
+ * (app.routing.time-budget-ms).
+ */
+@Service
+public class RoutePlanningService {
+
+  // PENDIENTE still has to be collected at its origin; the rest are on board
+  private static final Set<ShipmentStatus> TO_PICK_UP = EnumSet.of(ShipmentStatus.PENDIENTE);
+  private static final Set<ShipmentStatus> ON_ROUTE = EnumSet.of(ShipmentStatus.PENDIENTE,
+      ShipmentStatus.EN_TRANSITO, ShipmentStatus.RETRASADO, ShipmentStatus.NOVEDAD);
+
+  @Autowired
+  private ShipmentRepository shipmentRepository;
+
+  @Autowired
+  private VehicleRepository vehicleRepository;
+
+  @Autowired
+  private VehiclePositionRepository vehiclePositionRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${app.routing.parallelism:4}")
+  private int parallelism;
+
+  @Value("${app.routing.time-budget-ms:2000}")
+  private long timeBudgetMs;
+
+  private ForkJoinPool pool;
+  private TransactionTemplate readOnly;
+
+  // what planning needs of a vehicle and of each of its shipments, detached from the session
+  private record VehicleLoad(Long id, String plate, Double latitude, Double longitude, List<ShipmentStops> shipments) {
+  }
+
+  private record ShipmentStops(Long id, String trackingCode, ShipmentStatus status, ShipmentPriority priority,
+      String originAddress, Double originLatitude, Double originLongitude,
+      String destinationAddress, Double destinationLatitude, Double destinationLongitude) {
+
+    static ShipmentStops of(Shipment shipment) {
+      return new ShipmentStops(shipment.getId(), shipment.getTrackingCode(), shipment.getStatus(),
+          shipment.getPriority(), shipment.getOriginAddress(), shipment.getOriginLatitude(),
+          shipment.getOriginLongitude(), shipment.getDestinationAddress(), shipment.getDestinationLatitude(),
+          shipment.getDestinationLongitude());
+    }
+  }
+
+  @PostConstruct
+  void start() {
+    pool = new ForkJoinPool(Math.max(1, parallelism));
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+  }
+
+  @PreDestroy
+  void stop() {
+    pool.shutdownNow();
+  }
+
+  // not @Transactional: the transaction covers the reads in readOnly.execute and ends before planning
+  public RouteDTO planRoute(Long vehicleId) {
+    VehicleLoad load = readOnly.execute(status -> {
+      Vehicle vehicle = vehicleRepository.findById(vehicleId)
+          .orElseThrow(() -> new ResourceNotFoundException("Vehicle not found with id: " + vehicleId));
+      return toLoad(vehicle, vehiclePositionRepository.findById(vehicleId).orElse(null),
+          shipmentRepository.findByVehicleIdAndStatusIn(vehicleId, ON_ROUTE));
+    });
+    return plan(load, deadline());
+  }
+
+  // every vehicle that has shipments on its route, by vehicle id
+  public List<RouteDTO> planRoutes() {
+    List<VehicleLoad> work = readOnly.execute(status -> {
+      Map<Long, List<Shipment>> byVehicle = new TreeMap<>();
+      for (Shipment shipment : shipmentRepository.findByVehicleIsNotNullAndStatusIn(ON_ROUTE)) {
+        byVehicle.computeIfAbsent(shipment.getVehicle().getId(), id -> new ArrayList<>()).add(shipment);
+      }
+      Map<Long, VehiclePosition> positions = new HashMap<>();
+      if (!byVehicle.isEmpty()) {
+        for (VehiclePosition position : vehiclePositionRepository.findAllById(byVehicle.keySet()))
+          positions.put(position.getVehicleId(), position);
+      }
+      List<VehicleLoad> loads = new ArrayList<>(byVehicle.size());
+      for (Map.Entry<Long, List<Shipment>> entry : byVehicle.entrySet())
+        loads.add(toLoad(entry.getValue().get(0).getVehicle(), positions.get(entry.getKey()), entry.getValue()));
+      return loads;
+    });
+    if (work.isEmpty())
+      return List.of();
+    long deadline = deadline();
+    return pool.submit(() -> work.parallelStream()
+        .map(load -> plan(load, deadline))
+        .toList()).join();
+  }
+
+  // the route starts at the vehicle's last reported position, if any
+  private static VehicleLoad toLoad(Vehicle vehicle, VehiclePosition position, List<Shipment> shipments) {
+    List<ShipmentStops> stops = new ArrayList<>(shipments.size());
+    for (Shipment shipment : shipments)
+      stops.add(ShipmentStops.of(shipment));
+    return new VehicleLoad(vehicle.getId(), vehicle.getPlate(), position == null ? null : position.getLatitude(),
+        position == null ? null : position.getLongitude(), stops);
+  }
+
+  private long deadline() {
+    return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+  }
+
+  private static RouteDTO plan(VehicleLoad load, long deadlineNanos) {
+    List<ShipmentStops> sorted = new ArrayList<>(load.shipments());
+    sorted.sort(Comparator.comparing(ShipmentStops::id));
+    Map<Long, ShipmentStops> byId = new HashMap<>(sorted.size() * 2);
+    List<RoutePlanner.Stop> stops = new ArrayList<>(sorted.size() * 2);
+    for (ShipmentStops shipment : sorted) {
+      byId.put(shipment.id(), shipment);
+      if (TO_PICK_UP.contains(shipment.status())) {
+        stops.add(new RoutePlanner.Stop(shipment.id(), RouteStopType.PICKUP, shipment.originLatitude(),
+            shipment.originLongitude(), shipment.priority()));
+      }
+      stops.add(new RoutePlanner.Stop(shipment.id(), RouteStopType.DELIVERY, shipment.destinationLatitude(),
+          shipment.destinationLongitude(), shipment.priority()));
+    }
+
+    // the route starts where the vehicle last reported; without a position the planner picks the start
+    RoutePlanner.Route route = RoutePlanner.plan(stops, load.latitude(), load.longitude(), deadlineNanos);
+    List<RouteStopDTO> ordered = new ArrayList<>(route.stops().size());
+    int sequence = 1;
+    for (RoutePlanner.Stop stop : route.stops()) {
+      ShipmentStops shipment = byId.get(stop.shipmentId());
+      String address = stop.type() == RouteStopType.PICKUP ? shipment.originAddress()
+          : shipment.destinationAddress();
+      ordered.add(new RouteStopDTO(sequence++, shipment.id(), shipment.trackingCode(), stop.type(), address,
+          stop.latitude(), stop.longitude(), stop.priority()));
+    }
+    // metre precision is plenty for a straight-line estimate
+    double distanceKm = Math.round(route.distanceKm() * 1000) / 1000.0;
+    return new RouteDTO(load.id(), load.plate(), distanceKm, route.converged(), ordered);
+  }
+}
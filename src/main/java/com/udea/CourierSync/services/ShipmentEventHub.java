@@ -0,0 +1,352 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.DTO.ShipmentRow;
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.cache.InvalidationListener;
+import com.udea.CourierSync.enums.ChangeType;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import com.udea.CourierSync.exception.TooManyRequestsException;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fans shipment changes out to Server-Sent Event subscribers keyed by tracking code.
+ *
+ * Each subscriber keeps only the latest undelivered snapshot, so a slow client receives the most
+ * recent state instead of a growing backlog, and a client whose write has been stuck for longer than
+ * the stall timeout is disconnected. SseEmitter.send blocks on the client's socket, so sends run on a
+ * pool that can give every subscriber its own thread: a stalled client holds up only itself, never the
+ * other subscribers nor the request thread that changed the shipment. Threads are started on demand
+ * and dropped when idle.
+ *
+ * Changes made on this node arrive as ShipmentChangedEvents. Changes made on other replicas arrive as
+ * SHIPMENT keys on the InvalidationBus; for codes someone here is watching, the current row is re-read
+ * on one background thread and sent if it is newer than what the subscriber already has, so a client
+ * sees every committed change whichever replica it is connected to. Versions also drop the echo of this
+ * node's own changes, which the bus delivers here too. When a shipment's tracking code changes, the
+ * subscribers of the old code get the new snapshot as a last event and are closed.
+ */
+@Component
+public class ShipmentEventHub {
+  private static final Logger logger = LoggerFactory.getLogger(ShipmentEventHub.class);
+
+  static final String EVENT_NAME = "shipment";
+
+  @Value("${app.sse.max-subscribers:1000}")
+  private int maxSubscribers;
+
+  @Value("${app.sse.max-subscribers-per-code:20}")
+  private int maxSubscribersPerCode;
+
+  @Value("${app.sse.timeout-ms:1800000}")
+  private long timeoutMs;
+
+  @Value("${app.sse.heartbeat-ms:15000}")
+  private long heartbeatMs;
+
+  @Value("${app.sse.stall-timeout-ms:30000}")
+  private long stallTimeoutMs;
+
+  private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+  private final AtomicInteger subscriberCount = new AtomicInteger();
+
+  // tracking codes changed on the bus and not yet re-read; a burst for one code costs one read
+  private final Set<String> stale = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+  @Autowired
+  private InvalidationBus invalidationBus;
+
+  @Autowired
+  private ShipmentRepository shipmentRepository;
+
+  private ExecutorService sender;
+  private ScheduledExecutorService heartbeat;
+  private ExecutorService refresher;
+
+  @PostConstruct
+  void start() {
+    // at most one drain per subscriber runs at a time, so maxSubscribers threads never queue a send
+    sender = new ThreadPoolExecutor(0, Math.max(1, maxSubscribers), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+        daemon("sse-sender"));
+    heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("sse-heartbeat"));
+    heartbeat.scheduleAtFixedRate(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    refresher = Executors.newSingleThreadExecutor(daemon("sse-refresh"));
+    invalidationBus.subscribe(CacheRegion.SHIPMENT,
+        InvalidationListener.of(this::markStale, () -> subscribers.keySet().forEach(this::markStale)));
+  }
+
+  @PreDestroy
+  void stop() {
+    heartbeat.shutdownNow();
+    refresher.shutdownNow();
+    sender.shutdownNow();
+    subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+    subscribers.clear();
+  }
+
+  public SseEmitter subscribe(String trackingCode, ShipmentDTO current) {
+    if (subscriberCount.incrementAndGet() > maxSubscribers) {
+      subscriberCount.decrementAndGet();
+      throw new TooManyRequestsException("Too many open shipment subscriptions, try again later");
+    }
+    Subscriber subscriber = new Subscriber(trackingCode, newEmitter(timeoutMs));
+    AtomicBoolean added = new AtomicBoolean();
+    subscribers.compute(trackingCode, (code, set) -> {
+      Set<Subscriber> forCode = set != null ? set : ConcurrentHashMap.newKeySet();
+      if (forCode.size() < maxSubscribersPerCode) {
+        added.set(forCode.add(subscriber));
+      }
+      return forCode.isEmpty() ? null : forCode;
+    });
+    if (!added.get()) {
+      subscriberCount.decrementAndGet();
+      throw new TooManyRequestsException("Too many subscriptions for tracking code " + trackingCode);
+    }
+
+    subscriber.emitter.onCompletion(() -> remove(subscriber));
+    subscriber.emitter.onTimeout(() -> remove(subscriber));
+    subscriber.emitter.onError(ex -> remove(subscriber));
+
+    subscriber.offer(current);
+    return subscriber.emitter;
+  }
+
+  SseEmitter newEmitter(long timeout) {
+    return new SseEmitter(timeout);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onShipmentChanged(ShipmentChangedEvent event) {
+    ShipmentDTO previous = event.getPrevious();
+    if (event.getChangeType() == ChangeType.UPDATED && previous != null
+        && !Objects.equals(previous.getTrackingCode(), event.getTrackingCode())) {
+      // nothing will be published under the old code again; tell its watchers where the shipment went
+      Set<Subscriber> renamed = subscribers.get(previous.getTrackingCode());
+      if (renamed != null) {
+        renamed.forEach(subscriber -> subscriber.offerLast(event.getLatest()));
+      }
+    }
+    Set<Subscriber> forCode = subscribers.get(event.getTrackingCode());
+    if (forCode == null) {
+      return;
+    }
+    for (Subscriber subscriber : forCode) {
+      if (event.getChangeType() == ChangeType.DELETED) {
+        subscriber.offerLast(event.getLatest());
+      } else {
+        subscriber.offer(event.getLatest());
+      }
+    }
+  }
+
+  // bus listener: runs on the bus thread (or inside the publishing transaction), so it only queues the code
+  private void markStale(String trackingCode) {
+    if (subscribers.containsKey(trackingCode) && stale.add(trackingCode)) {
+      scheduleRefresh();
+    }
+  }
+
+  private void scheduleRefresh() {
+    if (stale.isEmpty() || !refreshScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      refresher.execute(this::refresh);
+    } catch (RejectedExecutionException ex) {
+      refreshScheduled.set(false);
+    }
+  }
+
+  private void refresh() {
+    try {
+      while (!stale.isEmpty()) {
+        for (String trackingCode : stale) {
+          stale.remove(trackingCode);
+          Set<Subscriber> forCode = subscribers.get(trackingCode);
+          if (forCode == null) {
+            continue;
+          }
+          try {
+            Optional<ShipmentRow> row = shipmentRepository.findRowByTrackingCode(trackingCode);
+            for (Subscriber subscriber : forCode) {
+              if (row.isPresent()) {
+                subscriber.offer(row.get().toDTO());
+              } else {
+                // deleted on another replica
+                subscriber.completeAfterDrain();
+              }
+            }
+          } catch (RuntimeException ex) {
+            logger.warn("Could not refresh SSE subscribers of {}: {}", trackingCode, ex.getMessage());
+          }
+        }
+      }
+    } finally {
+      refreshScheduled.set(false);
+      // a code marked between the last pass and the reset would otherwise wait for the next change
+      scheduleRefresh();
+    }
+  }
+
+  public int getSubscriberCount() {
+    return subscriberCount.get();
+  }
+
+  private void heartbeat() {
+    long now = System.nanoTime();
+    for (Set<Subscriber> forCode : subscribers.values()) {
+      for (Subscriber subscriber : forCode) {
+        long started = subscriber.sendStartedAt.get();
+        if (started != 0 && now - started > TimeUnit.MILLISECONDS.toNanos(stallTimeoutMs)) {
+          logger.info("Dropping stalled SSE subscriber for {}", subscriber.trackingCode);
+          remove(subscriber);
+          subscriber.emitter.complete();
+        } else {
+          subscriber.offerHeartbeat();
+        }
+      }
+    }
+  }
+
+  private void remove(Subscriber subscriber) {
+    if (!subscriber.removed.compareAndSet(false, true)) {
+      return;
+    }
+    subscriberCount.decrementAndGet();
+    subscribers.computeIfPresent(subscriber.trackingCode, (code, set) -> {
+      set.remove(subscriber);
+      return set.isEmpty() ? null : set;
+    });
+  }
+
+  private static java.util.concurrent.ThreadFactory daemon(String name) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private final class Subscriber {
+    private final String trackingCode;
+    private final SseEmitter emitter;
+    // latest snapshot not yet written; older ones are overwritten (coalesced)
+    private final AtomicReference<ShipmentDTO> pending = new AtomicReference<>();
+    // highest version offered, so a late or echoed snapshot never replaces a newer one
+    private final AtomicLong offeredVersion = new AtomicLong(-1);
+    private final AtomicBoolean heartbeatPending = new AtomicBoolean();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean completeWhenDrained = new AtomicBoolean();
+    private final AtomicBoolean removed = new AtomicBoolean();
+    private final AtomicLong sendStartedAt = new AtomicLong();
+
+    private Subscriber(String trackingCode, SseEmitter emitter) {
+      this.trackingCode = trackingCode;
+      this.emitter = emitter;
+    }
+
+    private void offer(ShipmentDTO snapshot) {
+      Long version = snapshot.getVersion();
+      if (version != null && offeredVersion.getAndAccumulate(version, Math::max) >= version) {
+        return;
+      }
+      pending.set(snapshot);
+      schedule();
+    }
+
+    // the final snapshot of a deleted or renamed shipment is sent even if its version was already seen
+    private void offerLast(ShipmentDTO snapshot) {
+      pending.set(snapshot);
+      completeAfterDrain();
+    }
+
+    private void offerHeartbeat() {
+      heartbeatPending.set(true);
+      schedule();
+    }
+
+    private void completeAfterDrain() {
+      completeWhenDrained.set(true);
+      schedule();
+    }
+
+    private void schedule() {
+      if (!removed.get() && scheduled.compareAndSet(false, true)) {
+        try {
+          sender.execute(this::drain);
+        } catch (RejectedExecutionException ex) {
+          // every thread is stuck on a stalled client or the hub is stopping
+          remove(this);
+          emitter.completeWithError(ex);
+        }
+      }
+    }
+
+    private void drain() {
+      try {
+        while (!removed.get()) {
+          ShipmentDTO snapshot = pending.getAndSet(null);
+          boolean ping = heartbeatPending.getAndSet(false);
+          if (snapshot != null) {
+            send(SseEmitter.event().name(EVENT_NAME).id(String.valueOf(snapshot.getId())).data(snapshot));
+          } else if (ping) {
+            send(SseEmitter.event().comment("heartbeat"));
+          } else if (completeWhenDrained.get()) {
+            remove(this);
+            emitter.complete();
+            return;
+          } else {
+            scheduled.set(false);
+            // re-check in case something was offered after the last poll
+            if ((pending.get() == null && !heartbeatPending.get() && !completeWhenDrained.get())
+                || !scheduled.compareAndSet(false, true)) {
+              return;
+            }
+          }
+        }
+      } catch (IOException | IllegalStateException ex) {
+        remove(this);
+        emitter.completeWithError(ex);
+      }
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) throws IOException {
+      sendStartedAt.set(System.nanoTime());
+      try {
+        emitter.send(event);
+      } finally {
+        sendStartedAt.set(0);
+      }
+    }
+  }
+}
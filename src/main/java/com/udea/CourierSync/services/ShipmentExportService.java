@@ -0,0 +1,139 @@
+package com.udea.CourierSync.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.mapper.ShipmentMapper;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Service
+public class ShipmentExportService {
+  // rows between flushes of the response and the persistence context
+  private static final int FLUSH_EVERY = 500;
+
+  private static final String CSV_HEADER = "id,trackingCode,clientId,vehicleId,originAddress,destinationAddress,"
+      + "weight,volume,priority,status";
+
+  // written in place of the rest of the rows when the export fails after the 200 has been sent,
+  // so a cut-off file never looks complete
+  static final String NDJSON_ERROR_TRAILER = "{\"error\":\"export incomplete\"}";
+  static final String CSV_ERROR_TRAILER = "#error,export incomplete";
+
+  @Autowired
+  private ShipmentRepository shipmentRepository;
+
+  @Autowired
+  private ShipmentMapper shipmentMapper;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Value("${app.export.timeout-seconds:590}")
+  private long timeoutSeconds;
+
+  @Value("${app.export.request-timeout-ms:600000}")
+  private long requestTimeoutMs;
+
+  // the transaction has to time out first, while the response is still open for the error trailer
+  @PostConstruct
+  void checkTimeouts() {
+    if (TimeUnit.SECONDS.toMillis(timeoutSeconds) >= requestTimeoutMs) {
+      throw new IllegalStateException("app.export.timeout-seconds must be shorter than app.export.request-timeout-ms");
+    }
+  }
+
+  @Transactional(readOnly = true, timeoutString = "${app.export.timeout-seconds:590}")
+  public long exportNdjson(OutputStream out) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    return export(writer, NDJSON_ERROR_TRAILER, dto -> {
+      writer.write(objectMapper.writeValueAsString(dto));
+      writer.write('\n');
+    });
+  }
+
+  @Transactional(readOnly = true, timeoutString = "${app.export.timeout-seconds:590}")
+  public long exportCsv(OutputStream out) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    writer.write(CSV_HEADER);
+    writer.write('\n');
+    return export(writer, CSV_ERROR_TRAILER, dto -> {
+      writer.write(String.join(",",
+          csv(dto.getId()),
+          csv(dto.getTrackingCode()),
+          csv(dto.getClient() != null ? dto.getClient().getId() : null),
+          csv(dto.getVehicle() != null ? dto.getVehicle().getId() : null),
+          csv(dto.getOriginAddress()),
+          csv(dto.getDestinationAddress()),
+          csv(dto.getWeight()),
+          csv(dto.getVolume()),
+          csv(dto.getPriority()),
+          csv(dto.getStatus())));
+      writer.write('\n');
+    });
+  }
+
+  private long export(Writer writer, String errorTrailer, RowWriter rowWriter) throws IOException {
+    long count = 0;
+    try (Stream<Shipment> rows = shipmentRepository.streamAllForExport()) {
+      Iterator<Shipment> it = rows.iterator();
+      while (it.hasNext()) {
+        Shipment shipment = it.next();
+        rowWriter.write(shipmentMapper.toDTO(shipment));
+        // nothing is written back, so drop each row from the persistence context as soon as it is serialized
+        entityManager.detach(shipment);
+        if (++count % FLUSH_EVERY == 0) {
+          entityManager.clear();
+          writer.flush();
+        }
+      }
+    } catch (RuntimeException ex) {
+      // a query timeout or lost connection; an IOException means the client is gone and gets no trailer
+      try {
+        writer.write(errorTrailer);
+        writer.write('\n');
+        writer.flush();
+      } catch (IOException trailerFailure) {
+        ex.addSuppressed(trailerFailure);
+      }
+      throw ex;
+    }
+    writer.flush();
+    return count;
+  }
+
+  private static String csv(Object value) {
+    if (value == null) {
+      return "";
+    }
+    String text = value.toString();
+    if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+      return '"' + text.replace("\"", "\"\"") + '"';
+    }
+    return text;
+  }
+
+  @FunctionalInterface
+  private interface RowWriter {
+    void write(ShipmentDTO dto) throws IOException;
+  }
+}
@@ -2,36 +2,117 @@ package com.udea.CourierSync.services;
 
 import com.udea.CourierSync.repository.ShipmentRepository;
 import com.udea.CourierSync.repository.ClientRepository;
-import java.util.concurrent.ThreadLocalRandom;
+import com.udea.CourierSync.repository.StatusHistoryRepository;
+import com.udea.CourierSync.repository.VehicleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.udea.CourierSync.entity.Shipment;
 import com.udea.CourierSync.entity.Client;
+import com.udea.CourierSync.entity.Vehicle;
 import com.udea.CourierSync.mapper.ShipmentMapper;
+import com.udea.CourierSync.mapper.StatusHistoryMapper;
+import com.udea.CourierSync.security.SecurityUtils;
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.DTO.BulkShipmentResultDTO;
+import com.udea.CourierSync.DTO.BulkStatusResultDTO;
+import com.udea.CourierSync.DTO.NearbyShipmentDTO;
 import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.DTO.ShipmentPageDTO;
+import com.udea.CourierSync.DTO.ShipmentRow;
+import com.udea.CourierSync.DTO.StatusHistoryDTO;
+import com.udea.CourierSync.DTO.StatusUpdateDTO;
+import com.udea.CourierSync.DTO.VersionStamp;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import com.udea.CourierSync.exception.BadRequestException;
+import com.udea.CourierSync.exception.ConflictException;
+import com.udea.CourierSync.exception.ForbiddenException;
 import com.udea.CourierSync.exception.ResourceNotFoundException;
+import com.udea.CourierSync.enums.ChangeType;
+import com.udea.CourierSync.enums.RouteStopType;
+import com.udea.CourierSync.enums.ShipmentPriority;
 import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.enums.UserRole;
 import com.udea.CourierSync.entity.StatusHistory;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import com.udea.CourierSync.geocoding.Coordinates;
+import com.udea.CourierSync.geocoding.GeocodingService;
+import com.udea.CourierSync.spatial.GeoIndex;
+import com.udea.CourierSync.spatial.ShipmentLocationIndex;
 
 @Service
 public class ShipmentService {
+  public static final int DEFAULT_PAGE_SIZE = 50;
+  public static final int MAX_PAGE_SIZE = 200;
+  public static final double MAX_NEARBY_RADIUS_KM = 50;
+  public static final int MAX_BULK_SIZE = 5000;
+  public static final int MAX_BULK_STATUS_SIZE = 500;
+  public static final int MAX_HISTORY_PAGE_SIZE = 100;
+  static final String DELETED_NOTE = "Shipment deleted";
+
   @Autowired
   private ShipmentRepository shipmentRepository;
 
   @Autowired
   private ClientRepository clientRepository;
 
+  @Autowired
+  private VehicleRepository vehicleRepository;
+
   @Autowired
   private ShipmentMapper shipmentMapper;
 
+  @Autowired
+  private TrackingCodeGenerator trackingCodeGenerator;
+
+  @Autowired
+  private StatusHistoryRepository statusHistoryRepository;
+
+  @Autowired
+  private StatusHistoryMapper statusHistoryMapper;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private TrackingCodeCache trackingCodeCache;
+
+  @Autowired
+  private InvalidationBus invalidationBus;
+
+  @Autowired
+  private GeocodingService geocodingService;
+
+  @Autowired
+  private ShipmentLocationIndex shipmentLocationIndex;
+
+  @Transactional
   public ShipmentDTO createShipment(ShipmentDTO dto) {
     if (dto == null)
       throw new BadRequestException("ShipmentDTO must not be null");
 
     Shipment shipment = shipmentMapper.toEntity(dto);
+    shipment.setId(null);
 
     if (shipment.getClient() == null || shipment.getClient().getId() == null) {
       throw new BadRequestException("Shipment must reference an existing client id");
@@ -42,85 +123,559 @@ public class ShipmentService {
       throw new ResourceNotFoundException("Client not found with id: " + shipment.getClient().getId());
     }
     shipment.setClient(c.get());
-    shipment.setTrackingCode(generateTrackingCode());
+    // the vehicle is optional: unassigned shipments are picked up by VehicleAssignmentService
+    if (shipment.getVehicle() != null && shipment.getVehicle().getId() != null) {
+      Long vehicleId = shipment.getVehicle().getId();
+      shipment.setVehicle(vehicleRepository.findById(vehicleId)
+          .orElseThrow(() -> new ResourceNotFoundException("Vehicle not found with id: " + vehicleId)));
+    } else {
+      shipment.setVehicle(null);
+    }
+    // as in the bulk create, a shipment sent without a status starts out PENDIENTE
+    if (shipment.getStatus() == null)
+      shipment.setStatus(ShipmentStatus.PENDIENTE);
+    shipment.setTrackingCode(trackingCodeGenerator.nextCode());
+    locate(List.of(shipment));
 
     Shipment saved = shipmentRepository.save(shipment);
-    return shipmentMapper.toDTO(saved);
+    statusHistoryRepository.save(newHistory(saved, null, saved.getStatus(), null, SecurityUtils.currentActor(),
+        Instant.now()));
+    ShipmentDTO created = shipmentMapper.toDTO(saved);
+    eventPublisher.publishEvent(new ShipmentChangedEvent(ChangeType.CREATED, null, created));
+    return created;
+  }
+
+  @Transactional
+  public List<BulkShipmentResultDTO> createShipments(List<ShipmentDTO> dtos) {
+    if (dtos == null || dtos.isEmpty())
+      throw new BadRequestException("Shipment list must not be empty");
+    if (dtos.size() > MAX_BULK_SIZE)
+      throw new BadRequestException("At most " + MAX_BULK_SIZE + " shipments can be created per request");
+
+    // resolve every referenced client and vehicle with one IN query each
+    Set<Long> clientIds = new HashSet<>();
+    Set<Long> vehicleIds = new HashSet<>();
+    for (ShipmentDTO dto : dtos) {
+      if (dto != null && dto.getClient() != null && dto.getClient().getId() != null)
+        clientIds.add(dto.getClient().getId());
+      if (dto != null && dto.getVehicle() != null && dto.getVehicle().getId() != null)
+        vehicleIds.add(dto.getVehicle().getId());
+    }
+    Map<Long, Client> clients = clientRepository.findAllById(clientIds).stream()
+        .collect(Collectors.toMap(Client::getId, Function.identity()));
+    Map<Long, Vehicle> vehicles = vehicleRepository.findAllById(vehicleIds).stream()
+        .collect(Collectors.toMap(Vehicle::getId, Function.identity()));
+
+    boolean admin = SecurityUtils.hasRole(UserRole.ADMIN);
+    BulkShipmentResultDTO[] results = new BulkShipmentResultDTO[dtos.size()];
+    List<Shipment> toInsert = new ArrayList<>();
+    List<Integer> insertIndexes = new ArrayList<>();
+    for (int i = 0; i < dtos.size(); i++) {
+      ShipmentDTO dto = dtos.get(i);
+      String error = validateForBulk(dto, clients, vehicles);
+      // same rule as the single create: only ADMIN may start a shipment past PENDIENTE
+      if (error == null && !admin && dto.getStatus() != null && dto.getStatus() != ShipmentStatus.PENDIENTE)
+        error = "Only ADMIN can create shipments with status " + dto.getStatus();
+      if (error != null) {
+        results[i] = BulkShipmentResultDTO.failed(i, error);
+        continue;
+      }
+      Shipment shipment = shipmentMapper.toEntity(dto);
+      shipment.setId(null);
+      shipment.setClient(clients.get(dto.getClient().getId()));
+      shipment.setVehicle(hasVehicle(dto) ? vehicles.get(dto.getVehicle().getId()) : null);
+      if (shipment.getStatus() == null)
+        shipment.setStatus(ShipmentStatus.PENDIENTE);
+      shipment.setTrackingCode(trackingCodeGenerator.nextCode());
+      toInsert.add(shipment);
+      insertIndexes.add(i);
+    }
+
+    locate(toInsert);
+    // ids come from the pooled sequence, so Hibernate sends these as JDBC batches on flush
+    List<Shipment> saved = shipmentRepository.saveAll(toInsert);
+    String actor = SecurityUtils.currentActor();
+    Instant now = Instant.now();
+    List<StatusHistory> history = new ArrayList<>(saved.size());
+    for (int j = 0; j < saved.size(); j++) {
+      int index = insertIndexes.get(j);
+      history.add(newHistory(saved.get(j), null, saved.get(j).getStatus(), null, actor, now));
+      ShipmentDTO created = shipmentMapper.toDTO(saved.get(j));
+      results[index] = BulkShipmentResultDTO.created(index, created);
+      eventPublisher.publishEvent(new ShipmentChangedEvent(ChangeType.CREATED, null, created));
+    }
+    statusHistoryRepository.saveAll(history);
+    return Arrays.asList(results);
+  }
+
+  private static String validateForBulk(ShipmentDTO dto, Map<Long, Client> clients, Map<Long, Vehicle> vehicles) {
+    if (dto == null)
+      return "Shipment must not be null";
+    if (dto.getClient() == null || dto.getClient().getId() == null)
+      return "Shipment must reference an existing client id";
+    if (!clients.containsKey(dto.getClient().getId()))
+      return "Client not found with id: " + dto.getClient().getId();
+    if (hasVehicle(dto) && !vehicles.containsKey(dto.getVehicle().getId()))
+      return "Vehicle not found with id: " + dto.getVehicle().getId();
+    if (isBlank(dto.getOriginAddress()) || isBlank(dto.getDestinationAddress()))
+      return "Origin and destination addresses are required";
+    if (dto.getWeight() == null || dto.getVolume() == null)
+      return "Weight and volume are required";
+    return null;
+  }
+
+  // fills in missing coordinates; the whole batch costs one geocoding call
+  private void locate(List<Shipment> shipments) {
+    List<String> addresses = new ArrayList<>();
+    for (Shipment shipment : shipments) {
+      if (shipment.getOriginLatitude() == null || shipment.getOriginLongitude() == null)
+        addresses.add(shipment.getOriginAddress());
+      if (shipment.getDestinationLatitude() == null || shipment.getDestinationLongitude() == null)
+        addresses.add(shipment.getDestinationAddress());
+    }
+    if (addresses.isEmpty())
+      return;
+    Map<String, Coordinates> located = geocodingService.geocodeAll(addresses);
+    if (located.isEmpty())
+      return;
+    for (Shipment shipment : shipments) {
+      Coordinates origin = shipment.getOriginLatitude() == null || shipment.getOriginLongitude() == null
+          ? located.get(shipment.getOriginAddress()) : null;
+      if (origin != null) {
+        shipment.setOriginLatitude(origin.latitude());
+        shipment.setOriginLongitude(origin.longitude());
+      }
+      Coordinates destination = shipment.getDestinationLatitude() == null || shipment.getDestinationLongitude() == null
+          ? located.get(shipment.getDestinationAddress()) : null;
+      if (destination != null) {
+        shipment.setDestinationLatitude(destination.latitude());
+        shipment.setDestinationLongitude(destination.longitude());
+      }
+    }
+  }
+
+  private static boolean hasVehicle(ShipmentDTO dto) {
+    return dto.getVehicle() != null && dto.getVehicle().getId() != null;
   }
 
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
+  }
+
+  // read paths below select ShipmentRow projections; no entities are loaded or dirty-checked.
+  // No transaction here so cache hits never borrow a connection; the repository query runs read-only.
   public Optional<ShipmentDTO> findByTrackingCode(String trackingCode) {
     if (trackingCode == null || trackingCode.isBlank()) {
       throw new BadRequestException("trackingCode must not be null or blank");
     }
-    return shipmentRepository.findByTrackingCode(trackingCode).map(shipmentMapper::toDTO);
+    return trackingCodeCache.get(trackingCode, shipmentRepository::findRowByTrackingCode);
+  }
+
+  @Transactional(readOnly = true)
+  public ShipmentPageDTO findPage(String cursor, Integer size, ShipmentStatus status, ShipmentPriority priority,
+      Long clientId, Long vehicleId) {
+    int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new BadRequestException("size must be between 1 and " + MAX_PAGE_SIZE);
+    }
+
+    // one extra row tells us whether there is a next page without a count query
+    List<ShipmentRow> rows = shipmentRepository.findRowPageAfter(decodeCursor(cursor), status, priority, clientId,
+        vehicleId, PageRequest.ofSize(pageSize + 1));
+    boolean hasMore = rows.size() > pageSize;
+    List<ShipmentRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+    String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1).id()) : null;
+
+    return new ShipmentPageDTO(page.stream().map(ShipmentRow::toDTO).toList(), nextCursor);
+  }
+
+  // open shipments whose pickup (origin) or delivery (destination) point lies within radiusKm, closest first
+  @Transactional(readOnly = true)
+  public List<NearbyShipmentDTO> findNearby(Double latitude, Double longitude, Double radiusKm, RouteStopType stop,
+      Integer limit) {
+    validatePosition(latitude, longitude);
+    if (radiusKm == null || !(radiusKm > 0) || radiusKm > MAX_NEARBY_RADIUS_KM) {
+      throw new BadRequestException("radiusKm must be greater than 0 and at most " + MAX_NEARBY_RADIUS_KM);
+    }
+    int max = limit == null ? DEFAULT_PAGE_SIZE : limit;
+    if (max < 1 || max > MAX_PAGE_SIZE) {
+      throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+
+    RouteStopType type = stop == null ? RouteStopType.PICKUP : stop;
+    List<GeoIndex.Hit> hits = shipmentLocationIndex.withinRadius(type, latitude, longitude, radiusKm, max);
+    if (hits.isEmpty()) {
+      return List.of();
+    }
+    // The index may trail the table (a missed event, or until the next reload), so every hit is checked
+    // against its row: gone, finished or moved out of the radius since then, it is skipped, and the
+    // distance returned is the one to the row's current position
+    Map<Long, ShipmentRow> rows = shipmentRepository.findRowsByIdIn(hits.stream().map(GeoIndex.Hit::id).toList())
+        .stream().collect(Collectors.toMap(ShipmentRow::id, Function.identity()));
+    List<NearbyShipmentDTO> result = new ArrayList<>(hits.size());
+    for (GeoIndex.Hit hit : hits) {
+      ShipmentRow row = rows.get(hit.id());
+      if (row == null || row.status() == ShipmentStatus.ENTREGADO || row.status() == ShipmentStatus.CANCELADO) {
+        continue;
+      }
+      Double rowLatitude = type == RouteStopType.PICKUP ? row.originLatitude() : row.destinationLatitude();
+      Double rowLongitude = type == RouteStopType.PICKUP ? row.originLongitude() : row.destinationLongitude();
+      if (rowLatitude == null || rowLongitude == null) {
+        continue;
+      }
+      double distanceKm = GeoIndex.distanceKm(latitude, longitude, rowLatitude, rowLongitude);
+      if (distanceKm <= radiusKm) {
+        result.add(new NearbyShipmentDTO(row.toDTO(), distanceKm));
+      }
+    }
+    result.sort(Comparator.comparingDouble(NearbyShipmentDTO::getDistanceKm));
+    return result;
+  }
+
+  static void validatePosition(Double latitude, Double longitude) {
+    if (latitude == null || !(latitude >= -90 && latitude <= 90)) {
+      throw new BadRequestException("latitude must be between -90 and 90");
+    }
+    if (longitude == null || !(longitude >= -180 && longitude <= 180)) {
+      throw new BadRequestException("longitude must be between -180 and 180");
+    }
   }
 
-  public List<ShipmentDTO> findAll() {
-    return shipmentRepository.findAll().stream().map(shipmentMapper::toDTO).toList();
+  private static String encodeCursor(Long lastId) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
   }
 
-  private String generateTrackingCode() {
-    long n = ThreadLocalRandom.current().nextLong(1_000_000L, 9_999_999L);
-    return "CS" + Long.toString(n);
+  private static Long decodeCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+    } catch (IllegalArgumentException ex) {
+      throw new BadRequestException("Invalid cursor: " + cursor);
+    }
   }
 
   public Optional<ShipmentDTO> findById(Long id) {
     return shipmentRepository.findById(id).map(shipmentMapper::toDTO);
   }
 
+  public Optional<VersionStamp> findVersionStamp(Long id) {
+    return shipmentRepository.findStampById(id);
+  }
+
   public ShipmentDTO update(Long id, ShipmentDTO dto) {
+    return update(id, dto, null);
+  }
+
+  // Full replacement (PUT). expectedVersion comes from If-Match; without it the version in the body, if any, is checked
+  @Transactional
+  public ShipmentDTO update(Long id, ShipmentDTO dto, Long expectedVersion) {
     if (dto == null)
       throw new BadRequestException("ShipmentDTO must not be null");
+    return applyChanges(id, dto, expectedVersion != null ? expectedVersion : dto.getVersion(), false);
+  }
 
+  // Partial update (PATCH): only the non-null fields of dto are applied
+  @Transactional
+  public ShipmentDTO patch(Long id, ShipmentDTO dto, Long expectedVersion) {
+    if (dto == null)
+      throw new BadRequestException("ShipmentDTO must not be null");
+    return applyChanges(id, dto, expectedVersion != null ? expectedVersion : dto.getVersion(), true);
+  }
+
+  // Changes are copied onto the loaded entity, so the UPDATE carries the version check and, with
+  // @DynamicUpdate, only the columns that actually changed.
+  private ShipmentDTO applyChanges(Long id, ShipmentDTO dto, Long expectedVersion, boolean partial) {
     Shipment existing = shipmentRepository.findById(id)
         .orElseThrow(() -> new ResourceNotFoundException("Shipment not found with id: " + id));
+    checkVersion(existing, expectedVersion);
+    ShipmentStatus newStatus = partial && dto.getStatus() == null ? existing.getStatus() : dto.getStatus();
+    checkCanUpdate(existing, newStatus);
+    checkTransition(existing.getStatus(), newStatus);
+    ShipmentStatus previousStatus = existing.getStatus();
+    ShipmentDTO previous = shipmentMapper.toDTO(existing);
 
-    Shipment toSave = shipmentMapper.toEntity(dto);
-    toSave.setId(id);
-    // preserve tracking code and creation date if not provided
-    if (toSave.getTrackingCode() == null)
-      toSave.setTrackingCode(existing.getTrackingCode());
+    copyFields(existing, dto, partial);
+    locate(List.of(existing));
 
-    Shipment saved = shipmentRepository.save(toSave);
-    return shipmentMapper.toDTO(saved);
+    Shipment saved = saveAndFlush(existing);
+    if (saved.getStatus() != previousStatus) {
+      statusHistoryRepository.save(newHistory(saved, previousStatus, saved.getStatus(), null,
+          SecurityUtils.currentActor(), Instant.now()));
+    }
+    ShipmentDTO updated = shipmentMapper.toDTO(saved);
+    eventPublisher.publishEvent(new ShipmentChangedEvent(ChangeType.UPDATED, previous, updated));
+    invalidationBus.publish(CacheRegion.SHIPMENT, previous.getTrackingCode());
+    if (!Objects.equals(previous.getTrackingCode(), updated.getTrackingCode())) {
+      invalidationBus.publish(CacheRegion.SHIPMENT, updated.getTrackingCode());
+    }
+    return updated;
   }
 
+  private void copyFields(Shipment target, ShipmentDTO dto, boolean partial) {
+    // tracking code, client and vehicle are kept when not provided, for PUT as well
+    if (dto.getTrackingCode() != null)
+      target.setTrackingCode(dto.getTrackingCode());
+    if (dto.getClient() != null && dto.getClient().getId() != null) {
+      if (target.getClient() == null || !dto.getClient().getId().equals(target.getClient().getId())) {
+        target.setClient(clientRepository.findById(dto.getClient().getId())
+            .orElseThrow(() -> new ResourceNotFoundException("Client not found with id: " + dto.getClient().getId())));
+      }
+    }
+    if (dto.getVehicle() != null && dto.getVehicle().getId() != null) {
+      if (target.getVehicle() == null || !dto.getVehicle().getId().equals(target.getVehicle().getId())) {
+        target.setVehicle(vehicleRepository.findById(dto.getVehicle().getId())
+            .orElseThrow(() -> new ResourceNotFoundException("Vehicle not found with id: " + dto.getVehicle().getId())));
+      }
+    }
+    // coordinates sent with the request win; an address that changes without them is geocoded again
+    if (dto.getOriginLatitude() != null && dto.getOriginLongitude() != null) {
+      target.setOriginLatitude(dto.getOriginLatitude());
+      target.setOriginLongitude(dto.getOriginLongitude());
+    } else if ((!partial || dto.getOriginAddress() != null)
+        && !Objects.equals(dto.getOriginAddress(), target.getOriginAddress())) {
+      target.setOriginLatitude(null);
+      target.setOriginLongitude(null);
+    }
+    if (dto.getDestinationLatitude() != null && dto.getDestinationLongitude() != null) {
+      target.setDestinationLatitude(dto.getDestinationLatitude());
+      target.setDestinationLongitude(dto.getDestinationLongitude());
+    } else if ((!partial || dto.getDestinationAddress() != null)
+        && !Objects.equals(dto.getDestinationAddress(), target.getDestinationAddress())) {
+      target.setDestinationLatitude(null);
+      target.setDestinationLongitude(null);
+    }
+    if (!partial || dto.getOriginAddress() != null)
+      target.setOriginAddress(dto.getOriginAddress());
+    if (!partial || dto.getDestinationAddress() != null)
+      target.setDestinationAddress(dto.getDestinationAddress());
+    if (!partial || dto.getWeight() != null)
+      target.setWeight(dto.getWeight());
+    if (!partial || dto.getVolume() != null)
+      target.setVolume(dto.getVolume());
+    if (!partial || dto.getPriority() != null)
+      target.setPriority(dto.getPriority());
+    if (!partial || dto.getStatus() != null)
+      target.setStatus(dto.getStatus());
+  }
+
+  private static void checkVersion(Shipment existing, Long expectedVersion) {
+    if (expectedVersion != null && !expectedVersion.equals(existing.getVersion())) {
+      throw new ConflictException("Shipment " + existing.getId() + " has been modified: expected version "
+          + expectedVersion + " but found " + existing.getVersion());
+    }
+  }
+
+  // flushes so a concurrent commit surfaces here as a conflict and the returned DTO carries the new version
+  private Shipment saveAndFlush(Shipment shipment) {
+    try {
+      return shipmentRepository.saveAndFlush(shipment);
+    } catch (ObjectOptimisticLockingFailureException ex) {
+      throw new ConflictException("Shipment " + shipment.getId() + " was modified concurrently");
+    }
+  }
+
+  @Transactional
   public void deleteById(Long id) {
-    if (!shipmentRepository.existsById(id)) {
-      throw new ResourceNotFoundException("Shipment not found with id: " + id);
+    Shipment existing = shipmentRepository.findById(id)
+        .orElseThrow(() -> new ResourceNotFoundException("Shipment not found with id: " + id));
+    checkCanDelete(existing);
+    ShipmentDTO previous = shipmentMapper.toDTO(existing);
+    // the history stays; a last entry records who deleted the shipment and in which status
+    statusHistoryRepository.save(newHistory(existing, existing.getStatus(), existing.getStatus(), DELETED_NOTE,
+        SecurityUtils.currentActor(), Instant.now()));
+    shipmentRepository.delete(existing);
+    eventPublisher.publishEvent(new ShipmentChangedEvent(ChangeType.DELETED, previous, null));
+    invalidationBus.publish(CacheRegion.SHIPMENT, previous.getTrackingCode());
+  }
+
+  // Same status (a note only) or no status yet is always accepted; otherwise some role of the caller must
+  // allow the edge. Internal callers (SecurityUtils.runAsSystem) follow the plain lifecycle; a caller with
+  // no authentication has no role and is refused.
+  private static boolean callerMayTransition(ShipmentStatus from, ShipmentStatus to) {
+    if (from == null || to == null || from == to)
+      return true;
+    if (SecurityUtils.isSystem())
+      return ShipmentStateMachine.isValid(from, to);
+    for (UserRole role : UserRole.values()) {
+      if (SecurityUtils.hasRole(role) && ShipmentStateMachine.canTransition(role, from, to))
+        return true;
     }
-    shipmentRepository.deleteById(id);
+    return false;
   }
 
-  public boolean isShipmentPending(Long id) {
-    return shipmentRepository.findById(id)
-        .map(shipment -> shipment.getStatus() == ShipmentStatus.PENDIENTE)
-        .orElse(false);
+  // Rejects the change before anything is written: 400 if no one may do it, 403 if only other roles may
+  private static void checkTransition(ShipmentStatus from, ShipmentStatus to) {
+    if (callerMayTransition(from, to))
+      return;
+    if (!ShipmentStateMachine.isValid(from, to))
+      throw new BadRequestException("Invalid status transition from " + from + " to " + to);
+    throw new ForbiddenException("Not allowed to change status from " + from + " to " + to);
   }
 
-  public boolean canDriverUpdateStatus(Long id, ShipmentDTO dto) {
-    return shipmentRepository.findById(id)
-        .map(shipment -> {
-          ShipmentStatus currentStatus = shipment.getStatus();
-          ShipmentStatus newStatus = dto.getStatus();
-          return (currentStatus == ShipmentStatus.PENDIENTE && newStatus == ShipmentStatus.EN_TRANSITO) ||
-              (currentStatus == ShipmentStatus.EN_TRANSITO && newStatus == ShipmentStatus.ENTREGADO) ||
-              (currentStatus == ShipmentStatus.EN_TRANSITO && newStatus == ShipmentStatus.NOVEDAD);
-        })
-        .orElse(false);
+  // Role rules for PUT and PATCH /{id}, checked against the shipment already loaded so it is read only once
+  private static void checkCanUpdate(Shipment existing, ShipmentStatus newStatus) {
+    if (SecurityUtils.isSystem() || SecurityUtils.hasRole(UserRole.ADMIN))
+      return;
+    if (SecurityUtils.hasRole(UserRole.OPERATOR) && existing.getStatus() == ShipmentStatus.PENDIENTE)
+      return;
+    if (SecurityUtils.hasRole(UserRole.DRIVER) && existing.getStatus() != null && newStatus != null
+        && ShipmentStateMachine.canTransition(UserRole.DRIVER, existing.getStatus(), newStatus))
+      return;
+    throw new ForbiddenException("Not allowed to update shipment with id: " + existing.getId());
+  }
+
+  private static void checkCanDelete(Shipment existing) {
+    if (SecurityUtils.isSystem() || SecurityUtils.hasRole(UserRole.ADMIN))
+      return;
+    if (SecurityUtils.hasRole(UserRole.OPERATOR) && existing.getStatus() == ShipmentStatus.PENDIENTE)
+      return;
+    throw new ForbiddenException("Not allowed to delete shipment with id: " + existing.getId());
   }
 
   public ShipmentDTO updateStatus(Long id, ShipmentStatus status, String observations) {
+    return updateStatus(id, status, observations, null);
+  }
+
+  @Transactional
+  public ShipmentDTO updateStatus(Long id, ShipmentStatus status, String observations, Long expectedVersion) {
+    if (status == null)
+      throw new BadRequestException("status must not be null");
+
     Shipment shipment = shipmentRepository.findById(id)
         .orElseThrow(() -> new ResourceNotFoundException("Shipment not found"));
+    checkVersion(shipment, expectedVersion);
+    checkTransition(shipment.getStatus(), status);
 
+    ShipmentStatus previousStatus = shipment.getStatus();
+    ShipmentDTO previous = shipmentMapper.toDTO(shipment);
+    boolean hasObservations = observations != null && !observations.trim().isEmpty();
     shipment.setStatus(status);
-    if (observations != null && !observations.trim().isEmpty()) {
-      StatusHistory history = new StatusHistory();
-      history.setShipment(shipment);
-      history.setNewStatus(status);
+    Shipment saved = saveAndFlush(shipment);
+    // the history row is written in the same transaction as the status change
+    if (status != previousStatus || hasObservations) {
+      statusHistoryRepository.save(newHistory(saved, previousStatus, status,
+          hasObservations ? observations.trim() : null, SecurityUtils.currentActor(), Instant.now()));
     }
 
-    return shipmentMapper.toDTO(shipmentRepository.save(shipment));
+    ShipmentDTO updated = shipmentMapper.toDTO(saved);
+    eventPublisher.publishEvent(new ShipmentChangedEvent(ChangeType.UPDATED, previous, updated));
+    invalidationBus.publish(CacheRegion.SHIPMENT, updated.getTrackingCode());
+    return updated;
+  }
+
+  /**
+   * Applies many status changes at once, e.g. a driver closing the day. The shipments are loaded with
+   * one IN query and every entry is checked in memory with the same rules as a single update; entries
+   * that fail are reported and skipped. The changed rows and their history are written in one flush,
+   * which Hibernate sends as JDBC batches (all UPDATEs touch the same columns thanks to @DynamicUpdate).
+   */
+  @Transactional
+  public List<BulkStatusResultDTO> updateStatuses(List<StatusUpdateDTO> updates) {
+    if (updates == null || updates.isEmpty())
+      throw new BadRequestException("Status update list must not be empty");
+    if (updates.size() > MAX_BULK_STATUS_SIZE)
+      throw new BadRequestException("At most " + MAX_BULK_STATUS_SIZE + " status updates can be sent per request");
+
+    Set<Long> ids = new HashSet<>();
+    for (StatusUpdateDTO update : updates) {
+      if (update != null && update.getId() != null)
+        ids.add(update.getId());
+    }
+    Map<Long, Shipment> shipments = shipmentRepository.findByIdIn(ids).stream()
+        .collect(Collectors.toMap(Shipment::getId, Function.identity()));
+
+    String actor = SecurityUtils.currentActor();
+    Instant now = Instant.now();
+    BulkStatusResultDTO[] results = new BulkStatusResultDTO[updates.size()];
+    Map<Long, ShipmentDTO> previous = new HashMap<>();
+    List<Integer> appliedIndexes = new ArrayList<>();
+    Set<Shipment> changed = new LinkedHashSet<>();
+    List<StatusHistory> history = new ArrayList<>();
+    for (int i = 0; i < updates.size(); i++) {
+      StatusUpdateDTO update = updates.get(i);
+      Shipment shipment = update == null || update.getId() == null ? null : shipments.get(update.getId());
+      String error = validateStatusUpdate(update, shipment);
+      if (error != null) {
+        results[i] = BulkStatusResultDTO.failed(i, error);
+        continue;
+      }
+      // the same shipment may appear twice; the later entry sees the earlier one's status
+      previous.computeIfAbsent(shipment.getId(), id -> shipmentMapper.toDTO(shipment));
+      ShipmentStatus previousStatus = shipment.getStatus();
+      boolean hasObservations = update.getObservations() != null && !update.getObservations().trim().isEmpty();
+      shipment.setStatus(update.getStatus());
+      if (update.getStatus() != previousStatus || hasObservations) {
+        history.add(newHistory(shipment, previousStatus, update.getStatus(),
+            hasObservations ? update.getObservations().trim() : null, actor, now));
+      }
+      changed.add(shipment);
+      appliedIndexes.add(i);
+    }
+    if (changed.isEmpty())
+      return Arrays.asList(results);
+
+    try {
+      shipmentRepository.saveAllAndFlush(changed);
+    } catch (ObjectOptimisticLockingFailureException ex) {
+      throw new ConflictException("A shipment in the batch was modified concurrently; nothing was updated");
+    }
+    statusHistoryRepository.saveAll(history);
+
+    Map<Long, ShipmentDTO> updated = new HashMap<>();
+    for (Shipment shipment : changed) {
+      ShipmentDTO dto = shipmentMapper.toDTO(shipment);
+      updated.put(shipment.getId(), dto);
+      eventPublisher.publishEvent(new ShipmentChangedEvent(ChangeType.UPDATED, previous.get(shipment.getId()), dto));
+      invalidationBus.publish(CacheRegion.SHIPMENT, dto.getTrackingCode());
+    }
+    for (int index : appliedIndexes) {
+      results[index] = BulkStatusResultDTO.updated(index, updated.get(updates.get(index).getId()));
+    }
+    return Arrays.asList(results);
+  }
+
+  // Same rules as updateStatus, including the per-role transition table
+  private static String validateStatusUpdate(StatusUpdateDTO update, Shipment shipment) {
+    if (update == null || update.getId() == null)
+      return "Status update must reference a shipment id";
+    if (update.getStatus() == null)
+      return "status must not be null";
+    if (shipment == null)
+      return "Shipment not found with id: " + update.getId();
+    if (update.getVersion() != null && !update.getVersion().equals(shipment.getVersion()))
+      return "Shipment " + shipment.getId() + " has been modified: expected version " + update.getVersion()
+          + " but found " + shipment.getVersion();
+    if (!callerMayTransition(shipment.getStatus(), update.getStatus()))
+      return "Transition from " + shipment.getStatus() + " to " + update.getStatus() + " is not allowed";
+    return null;
+  }
+
+  @Transactional(readOnly = true)
+  public Page<StatusHistoryDTO> findHistory(Long shipmentId, int page, int size) {
+    if (page < 0 || size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+      throw new BadRequestException("page must be >= 0 and size between 1 and " + MAX_HISTORY_PAGE_SIZE);
+    }
+    // the history of a deleted shipment is still served
+    Page<StatusHistory> history = statusHistoryRepository.findByShipmentIdOrderByCreatedAtDescIdDesc(shipmentId,
+        PageRequest.of(page, size));
+    if (history.getTotalElements() == 0 && !shipmentRepository.existsById(shipmentId)) {
+      throw new ResourceNotFoundException("Shipment not found with id: " + shipmentId);
+    }
+    return history.map(statusHistoryMapper::toDTO);
+  }
+
+  private static StatusHistory newHistory(Shipment shipment, ShipmentStatus oldStatus, ShipmentStatus newStatus,
+      String observations, String actor, Instant createdAt) {
+    StatusHistory history = new StatusHistory();
+    history.setShipmentId(shipment.getId());
+    history.setOldStatus(oldStatus);
+    history.setNewStatus(newStatus);
+    history.setObservations(observations);
+    history.setActor(actor);
+    history.setCreatedAt(createdAt);
+    return history;
   }
 }
@@ -0,0 +1,70 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.enums.UserRole;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Allowed shipment status transitions, per role. Each role maps to an int[] indexed by the ordinal of
+ * the current status whose bits are the ordinals of the statuses it may move to, so a check is two
+ * array reads and a mask with no allocation. The tables are built once from the rules below.
+ *
+ * ADMIN (and internal callers) may follow the whole lifecycle; OPERATOR only moves shipments that
+ * have not left the warehouse yet; DRIVER only reports progress on the road.
+ */
+public final class ShipmentStateMachine {
+
+  private static final ShipmentStatus[] STATUSES = ShipmentStatus.values();
+  private static final int[] LIFECYCLE = new int[STATUSES.length];
+  private static final Map<UserRole, int[]> BY_ROLE = new EnumMap<>(UserRole.class);
+
+  static {
+    allow(LIFECYCLE, ShipmentStatus.REGISTRADO, ShipmentStatus.PENDIENTE, ShipmentStatus.CANCELADO);
+    allow(LIFECYCLE, ShipmentStatus.PENDIENTE, ShipmentStatus.EN_TRANSITO, ShipmentStatus.RETRASADO,
+        ShipmentStatus.CANCELADO);
+    allow(LIFECYCLE, ShipmentStatus.EN_TRANSITO, ShipmentStatus.ENTREGADO, ShipmentStatus.NOVEDAD,
+        ShipmentStatus.RETRASADO);
+    allow(LIFECYCLE, ShipmentStatus.RETRASADO, ShipmentStatus.EN_TRANSITO, ShipmentStatus.NOVEDAD,
+        ShipmentStatus.CANCELADO);
+    allow(LIFECYCLE, ShipmentStatus.NOVEDAD, ShipmentStatus.EN_TRANSITO, ShipmentStatus.ENTREGADO,
+        ShipmentStatus.RETRASADO, ShipmentStatus.CANCELADO);
+    // ENTREGADO and CANCELADO are final
+
+    BY_ROLE.put(UserRole.ADMIN, LIFECYCLE);
+
+    int[] operator = new int[STATUSES.length];
+    operator[ShipmentStatus.REGISTRADO.ordinal()] = LIFECYCLE[ShipmentStatus.REGISTRADO.ordinal()];
+    operator[ShipmentStatus.PENDIENTE.ordinal()] = LIFECYCLE[ShipmentStatus.PENDIENTE.ordinal()];
+    BY_ROLE.put(UserRole.OPERATOR, operator);
+
+    int[] driver = new int[STATUSES.length];
+    allow(driver, ShipmentStatus.PENDIENTE, ShipmentStatus.EN_TRANSITO);
+    allow(driver, ShipmentStatus.EN_TRANSITO, ShipmentStatus.ENTREGADO, ShipmentStatus.NOVEDAD);
+    BY_ROLE.put(UserRole.DRIVER, driver);
+  }
+
+  private ShipmentStateMachine() {
+  }
+
+  private static void allow(int[] table, ShipmentStatus from, ShipmentStatus... targets) {
+    for (ShipmentStatus to : targets) {
+      table[from.ordinal()] |= 1 << to.ordinal();
+    }
+  }
+
+  // True when the lifecycle has an edge from -> to, regardless of who asks
+  public static boolean isValid(ShipmentStatus from, ShipmentStatus to) {
+    return (LIFECYCLE[from.ordinal()] & (1 << to.ordinal())) != 0;
+  }
+
+  public static boolean canTransition(UserRole role, ShipmentStatus from, ShipmentStatus to) {
+    int[] table = BY_ROLE.get(role);
+    return table != null && (table[from.ordinal()] & (1 << to.ordinal())) != 0;
+  }
+
+  public static boolean isFinal(ShipmentStatus status) {
+    return LIFECYCLE[status.ordinal()] == 0;
+  }
+}
@@ -0,0 +1,166 @@
+package com.udea.CourierSync.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates tracking codes from a 63-bit id made of a millisecond timestamp (41 bits), the node id
+ * (10 bits) and a per-node sequence (12 bits). TrackingNodeLease gives every live replica a
+ * different node id, so codes are unique across replicas with no database round trip per code.
+ * Timestamps start above the lease's floorMillis(), where the previous holder of the node id stopped.
+ *
+ * The id is written as 13 Crockford Base32 characters followed by a Luhn mod 32 check character,
+ * after the historical "CS" prefix.
+ */
+@Component
+public class TimeOrderedTrackingCodeGenerator implements TrackingCodeGenerator {
+  public static final String PREFIX = "CS";
+  public static final int CODE_LENGTH = PREFIX.length() + 14;
+
+  // 2024-01-01T00:00:00Z, gives the 41-bit timestamp about 69 years of range
+  static final long EPOCH_MILLIS = 1_704_067_200_000L;
+  static final int NODE_BITS = 10;
+  static final int SEQUENCE_BITS = 12;
+  static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+  static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+  private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+  private static final int[] ALPHABET_INDEX = new int[128];
+
+  static {
+    java.util.Arrays.fill(ALPHABET_INDEX, -1);
+    for (int i = 0; i < ALPHABET.length; i++) {
+      ALPHABET_INDEX[ALPHABET[i]] = i;
+    }
+  }
+
+  private final long nodeId;
+  private final LongSupplier clock;
+  // false once the node id may have passed to another replica
+  private final BooleanSupplier nodeIdHeld;
+  // last issued timestamp (relative to EPOCH_MILLIS) << SEQUENCE_BITS | last sequence
+  private final AtomicLong state = new AtomicLong();
+
+  @Autowired
+  public TimeOrderedTrackingCodeGenerator(TrackingNodeLease lease) {
+    this(lease, System::currentTimeMillis);
+  }
+
+  TimeOrderedTrackingCodeGenerator(TrackingNodeLease lease, LongSupplier clock) {
+    this(lease.nodeId(), clock, lease::isHeld, lease.floorMillis());
+    lease.trackIssued(this::lastIssuedMillis);
+  }
+
+  TimeOrderedTrackingCodeGenerator(long nodeId, LongSupplier clock) {
+    this(nodeId, clock, () -> true);
+  }
+
+  TimeOrderedTrackingCodeGenerator(long nodeId, LongSupplier clock, BooleanSupplier nodeIdHeld) {
+    this(nodeId, clock, nodeIdHeld, 0);
+  }
+
+  TimeOrderedTrackingCodeGenerator(long nodeId, LongSupplier clock, BooleanSupplier nodeIdHeld, long floorMillis) {
+    if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+      throw new IllegalArgumentException("node id must be between 0 and " + MAX_NODE_ID);
+    }
+    this.nodeId = nodeId;
+    this.clock = clock;
+    this.nodeIdHeld = nodeIdHeld;
+    if (floorMillis > EPOCH_MILLIS) {
+      // an exhausted sequence at the floor, so the first id lands on a later millisecond
+      state.set(((floorMillis - EPOCH_MILLIS) << SEQUENCE_BITS) | SEQUENCE_MASK);
+    }
+  }
+
+  @Override
+  public String nextCode() {
+    return encode(nextId());
+  }
+
+  public long nextId() {
+    if (!nodeIdHeld.getAsBoolean()) {
+      throw new IllegalStateException("Tracking node id " + nodeId + " is no longer leased by this replica");
+    }
+    while (true) {
+      long current = state.get();
+      long lastTimestamp = current >>> SEQUENCE_BITS;
+      // if the clock moves backwards keep issuing from the last timestamp instead of failing
+      long now = Math.max(clock.getAsLong() - EPOCH_MILLIS, lastTimestamp);
+      long next;
+      if (now > lastTimestamp) {
+        next = now << SEQUENCE_BITS;
+      } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+        next = current + 1;
+      } else {
+        // sequence exhausted for this millisecond, borrow the next one
+        next = (lastTimestamp + 1) << SEQUENCE_BITS;
+      }
+      if (state.compareAndSet(current, next)) {
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+      }
+    }
+  }
+
+  public long getNodeId() {
+    return nodeId;
+  }
+
+  // epoch millis of the newest timestamp issued, or of the floor when nothing was issued yet
+  long lastIssuedMillis() {
+    long lastTimestamp = state.get() >>> SEQUENCE_BITS;
+    return lastTimestamp == 0 ? 0 : lastTimestamp + EPOCH_MILLIS;
+  }
+
+  static String encode(long id) {
+    char[] code = new char[CODE_LENGTH];
+    PREFIX.getChars(0, PREFIX.length(), code, 0);
+    long value = id;
+    for (int i = CODE_LENGTH - 2; i >= PREFIX.length(); i--) {
+      code[i] = ALPHABET[(int) (value & 31)];
+      value >>>= 5;
+    }
+    code[CODE_LENGTH - 1] = ALPHABET[checkDigit(code, PREFIX.length(), CODE_LENGTH - 1)];
+    return new String(code);
+  }
+
+  static long decode(String code) {
+    if (!isValid(code)) {
+      throw new IllegalArgumentException("Invalid tracking code: " + code);
+    }
+    long value = 0;
+    for (int i = PREFIX.length(); i < CODE_LENGTH - 1; i++) {
+      value = (value << 5) | ALPHABET_INDEX[code.charAt(i)];
+    }
+    return value;
+  }
+
+  public static boolean isValid(String code) {
+    if (code == null || code.length() != CODE_LENGTH || !code.startsWith(PREFIX)) {
+      return false;
+    }
+    char[] chars = code.toCharArray();
+    for (int i = PREFIX.length(); i < CODE_LENGTH; i++) {
+      if (chars[i] >= 128 || ALPHABET_INDEX[chars[i]] < 0) {
+        return false;
+      }
+    }
+    return ALPHABET_INDEX[chars[CODE_LENGTH - 1]] == checkDigit(chars, PREFIX.length(), CODE_LENGTH - 1);
+  }
+
+  // Luhn mod N over the Base32 alphabet: catches every single-character error and most transpositions
+  private static int checkDigit(char[] chars, int from, int to) {
+    int factor = 2;
+    int sum = 0;
+    for (int i = to - 1; i >= from; i--) {
+      int addend = factor * ALPHABET_INDEX[chars[i]];
+      factor = factor == 2 ? 1 : 2;
+      sum += addend / 32 + addend % 32;
+    }
+    return (32 - sum % 32) % 32;
+  }
+}
@@ -0,0 +1,76 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.DTO.ShipmentRow;
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.CacheStats;
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.cache.InvalidationListener;
+import com.udea.CourierSync.cache.TtlCache;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Near-cache for ShipmentService.findByTrackingCode. Rows are immutable, so every hit builds a fresh
+ * ShipmentDTO that callers may modify freely. Entries are dropped once a change to the shipment
+ * commits, and when another node broadcasts a change on the InvalidationBus. Rows embed client and
+ * vehicle data, so a client or vehicle change clears the whole cache. Unknown codes are not cached.
+ */
+@Component
+public class TrackingCodeCache {
+
+  @Value("${app.cache.tracking-code.max-size:10000}")
+  private int maxSize;
+
+  @Value("${app.cache.tracking-code.ttl-seconds:30}")
+  private long ttlSeconds;
+
+  @Autowired
+  private InvalidationBus invalidationBus;
+
+  private TtlCache<String, ShipmentRow> rows;
+
+  @PostConstruct
+  void init() {
+    rows = new TtlCache<>(maxSize, ttlSeconds, TimeUnit.SECONDS);
+    invalidationBus.subscribe(CacheRegion.SHIPMENT, InvalidationListener.of(this::invalidate, this::invalidateAll));
+    InvalidationListener clearAll = InvalidationListener.of(key -> invalidateAll(), this::invalidateAll);
+    invalidationBus.subscribe(CacheRegion.CLIENT, clearAll);
+    invalidationBus.subscribe(CacheRegion.VEHICLE, clearAll);
+  }
+
+  public Optional<ShipmentDTO> get(String trackingCode, Function<String, Optional<ShipmentRow>> loader) {
+    return Optional.ofNullable(rows.get(trackingCode, code -> loader.apply(code).orElse(null)))
+        .map(ShipmentRow::toDTO);
+  }
+
+  public void invalidate(String trackingCode) {
+    rows.invalidate(trackingCode);
+  }
+
+  public void invalidateAll() {
+    rows.invalidateAll();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onShipmentChanged(ShipmentChangedEvent event) {
+    if (event.getPrevious() != null) {
+      invalidate(event.getPrevious().getTrackingCode());
+    }
+    if (event.getCurrent() != null) {
+      invalidate(event.getCurrent().getTrackingCode());
+    }
+  }
+
+  public CacheStats stats() {
+    return rows.stats();
+  }
+}
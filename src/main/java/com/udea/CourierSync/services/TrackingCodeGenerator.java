@@ -0,0 +1,5 @@
+package com.udea.CourierSync.services;
+
+public interface TrackingCodeGenerator {
+  String nextCode();
+}
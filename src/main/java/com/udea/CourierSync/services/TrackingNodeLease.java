@@ -0,0 +1,196 @@
+package com.udea.CourierSync.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The node id of this replica for TimeOrderedTrackingCodeGenerator. A configured app.tracking.node-id
+ * (a StatefulSet ordinal, say) is used as is; otherwise the lowest free id is leased from the
+ * tracking_node_lease table, so two live replicas never hold the same one. The lease is renewed on a
+ * schedule; if a renewal is missed the lease is treated as lost once it would have expired, and
+ * codes stop being issued rather than risk a duplicate. Startup fails when no id can be leased.
+ *
+ * Expiry is computed with the database clock, so clock skew between pods cannot free a lease early.
+ *
+ * On shutdown the row is kept with expires_at set to the last timestamp the generator issued, which
+ * may be ahead of the wall clock. The id stays taken until that time has passed, and the next holder
+ * reads it back as floorMillis() and never issues below it, even if its own clock is behind.
+ */
+@Component
+public class TrackingNodeLease {
+  private static final Logger logger = LoggerFactory.getLogger(TrackingNodeLease.class);
+
+  // the local view of the lease ends this long before the database one
+  private static final long SAFETY_MARGIN_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Value("${app.tracking.node-id:-1}")
+  private long configuredNodeId;
+
+  @Value("${app.tracking.lease-seconds:60}")
+  private long leaseSeconds;
+
+  private final String owner = hostName() + "/" + UUID.randomUUID();
+  private long nodeId = -1;
+  private boolean leased;
+  // epoch millis the previous holder of the id issued up to; 0 for a fresh id
+  private long floorMillis;
+  // epoch millis of the last timestamp issued under this lease, stored on release
+  private volatile LongSupplier lastIssuedMillis = () -> 0L;
+  // System.nanoTime() after which the lease may belong to someone else
+  private volatile long validUntil = Long.MAX_VALUE;
+
+  // a configured id that never lapses, for code that builds a generator outside Spring
+  public static TrackingNodeLease fixed(long nodeId) {
+    TrackingNodeLease lease = new TrackingNodeLease();
+    lease.configuredNodeId = nodeId;
+    lease.acquire();
+    return lease;
+  }
+
+  @PostConstruct
+  void acquire() {
+    if (configuredNodeId >= 0) {
+      if (configuredNodeId > TimeOrderedTrackingCodeGenerator.MAX_NODE_ID) {
+        throw new IllegalStateException("app.tracking.node-id must be between 0 and "
+            + TimeOrderedTrackingCodeGenerator.MAX_NODE_ID);
+      }
+      nodeId = configuredNodeId;
+      return;
+    }
+    try {
+      Set<Integer> held = new HashSet<>();
+      Map<Integer, Timestamp> lapsed = new HashMap<>();
+      for (Map<String, Object> row : jdbcTemplate.queryForList(
+          "SELECT node_id, expires_at, expires_at >= now() AS live FROM tracking_node_lease")) {
+        int id = ((Number) row.get("node_id")).intValue();
+        if (Boolean.TRUE.equals(row.get("live"))) {
+          held.add(id);
+        } else {
+          lapsed.put(id, (Timestamp) row.get("expires_at"));
+        }
+      }
+      for (int candidate = 0; candidate <= TimeOrderedTrackingCodeGenerator.MAX_NODE_ID; candidate++) {
+        if (held.contains(candidate)) {
+          continue;
+        }
+        long start = System.nanoTime();
+        Timestamp previous = lapsed.get(candidate);
+        int claimed;
+        if (previous == null) {
+          claimed = jdbcTemplate.update(
+              "INSERT INTO tracking_node_lease (node_id, owner, expires_at) VALUES (?, ?, now() + ? * interval '1 second')"
+                  + " ON CONFLICT (node_id) DO NOTHING",
+              candidate, owner, leaseSeconds);
+        } else {
+          // taken over only if nobody claimed or released it since it was read, so previous is the floor
+          claimed = jdbcTemplate.update(
+              "UPDATE tracking_node_lease SET owner = ?, expires_at = now() + ? * interval '1 second'"
+                  + " WHERE node_id = ? AND expires_at = ? AND expires_at < now()",
+              owner, leaseSeconds, candidate, previous);
+        }
+        if (claimed == 1) {
+          nodeId = candidate;
+          leased = true;
+          floorMillis = previous == null ? 0 : previous.getTime();
+          validUntil = start + TimeUnit.SECONDS.toNanos(leaseSeconds) - SAFETY_MARGIN_NANOS;
+          logger.info("Leased tracking node id {} as {}", nodeId, owner);
+          return;
+        }
+      }
+    } catch (DataAccessException ex) {
+      throw new IllegalStateException("Could not lease a tracking node id; set app.tracking.node-id", ex);
+    }
+    throw new IllegalStateException("Every tracking node id is leased; set app.tracking.node-id");
+  }
+
+  @Scheduled(fixedDelayString = "${app.tracking.lease-renew-ms:15000}",
+      initialDelayString = "${app.tracking.lease-renew-ms:15000}")
+  public void renew() {
+    if (!leased) {
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      int renewed = jdbcTemplate.update(
+          "UPDATE tracking_node_lease SET expires_at = now() + ? * interval '1 second' WHERE node_id = ? AND owner = ?",
+          leaseSeconds, nodeId, owner);
+      if (renewed == 1) {
+        validUntil = start + TimeUnit.SECONDS.toNanos(leaseSeconds) - SAFETY_MARGIN_NANOS;
+      } else {
+        validUntil = start;
+        logger.error("Tracking node id {} was taken over by another replica; no more tracking codes will be issued",
+            nodeId);
+      }
+    } catch (DataAccessException ex) {
+      // the current lease still stands until it expires; the next run tries again
+      logger.warn("Could not renew tracking node id {}", nodeId, ex);
+    }
+  }
+
+  @PreDestroy
+  void release() {
+    if (!leased) {
+      return;
+    }
+    validUntil = System.nanoTime();
+    try {
+      // kept rather than deleted, so the next holder starts above what this one issued
+      jdbcTemplate.update("UPDATE tracking_node_lease SET expires_at = ? WHERE node_id = ? AND owner = ?",
+          new Timestamp(Math.max(lastIssuedMillis.getAsLong(), floorMillis)), nodeId, owner);
+    } catch (DataAccessException ex) {
+      logger.warn("Could not release tracking node id {}; it frees itself when the lease expires", nodeId, ex);
+    }
+  }
+
+  public long nodeId() {
+    return nodeId;
+  }
+
+  public long floorMillis() {
+    return floorMillis;
+  }
+
+  // the generator registers how far it has issued, for release to store
+  public void trackIssued(LongSupplier lastIssuedMillis) {
+    this.lastIssuedMillis = lastIssuedMillis;
+  }
+
+  public boolean isHeld() {
+    return System.nanoTime() - validUntil < 0;
+  }
+
+  private static String hostName() {
+    String host = System.getenv("HOSTNAME");
+    if (host != null && !host.isBlank()) {
+      return host;
+    }
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException ex) {
+      return Long.toString(ProcessHandle.current().pid());
+    }
+  }
+}
@@ -3,10 +3,13 @@ package com.udea.CourierSync.services;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.InvalidationBus;
 import com.udea.CourierSync.repository.UserRepository;
 import com.udea.CourierSync.mapper.UserMapper;
 import com.udea.CourierSync.DTO.UserDTO;
 import com.udea.CourierSync.entity.User;
+import com.udea.CourierSync.security.CustomUserDetailsService;
 
 import java.util.List;
 import java.util.Optional;
@@ -22,11 +25,21 @@ public class UserService {
   @Autowired
   private UserMapper userMapper;
 
+  @Autowired
+  private InvalidationBus invalidationBus;
+
+  @Autowired
+  private DashboardMetricsService dashboardMetricsService;
+
+  @Autowired
+  private CustomUserDetailsService customUserDetailsService;
+
   public UserDTO create(UserDTO dto) {
     if (dto == null)
       throw new BadRequestException("UserDTO must not be null");
     User entity = userMapper.toEntity(dto);
     User saved = userRepository.save(entity);
+    dashboardMetricsService.usersChanged(1);
     return userMapper.toDTO(saved);
   }
 
@@ -60,6 +73,8 @@ public class UserService {
     }
     
     User saved = userRepository.save(toSave);
+    customUserDetailsService.evictUser(id);
+    invalidationBus.publish(CacheRegion.USER, String.valueOf(id));
     return userMapper.toDTO(saved);
   }
 
@@ -68,5 +83,8 @@ public class UserService {
       throw new ResourceNotFoundException("User not found with id: " + id);
     }
     userRepository.deleteById(id);
+    invalidationBus.publish(CacheRegion.USER, String.valueOf(id));
+    dashboardMetricsService.usersChanged(-1);
+    customUserDetailsService.evictUser(id);
   }
 }
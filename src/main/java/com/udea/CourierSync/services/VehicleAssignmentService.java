@@ -0,0 +1,145 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.AssignmentResultDTO;
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.DTO.VehicleAssignmentDTO;
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.enums.ChangeType;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import com.udea.CourierSync.exception.BadRequestException;
+import com.udea.CourierSync.exception.ConflictException;
+import com.udea.CourierSync.mapper.ShipmentMapper;
+import com.udea.CourierSync.planning.VehicleAssignmentEngine;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import com.udea.CourierSync.repository.VehicleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Assigns pending shipments without a vehicle to the available fleet with VehicleAssignmentEngine,
+ * taking into account what each vehicle already carries. Everything is read with three queries and
+ * written in one flush. The fleet is locked before its loads are read, so runs on different replicas,
+ * and dispatch claims for the same vehicles, take turns instead of overfilling a vehicle.
+ */
+@Service
+public class VehicleAssignmentService {
+  public static final int MAX_SHIPMENTS = 10000;
+
+  // statuses after which a shipment no longer takes room in its vehicle
+  private static final Set<ShipmentStatus> FINISHED = EnumSet.of(ShipmentStatus.ENTREGADO, ShipmentStatus.CANCELADO);
+
+  @Autowired
+  private ShipmentRepository shipmentRepository;
+
+  @Autowired
+  private VehicleRepository vehicleRepository;
+
+  @Autowired
+  private ShipmentMapper shipmentMapper;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private InvalidationBus invalidationBus;
+
+  // shipmentIds restricts the batch; null or empty takes the first MAX_SHIPMENTS pending shipments without
+  // a vehicle in dispatch order, and the rest wait for the next run. Requested ids that do not exist or
+  // are not waiting for a vehicle are reported as unassigned
+  @Transactional
+  public AssignmentResultDTO assignPending(List<Long> shipmentIds) {
+    List<Shipment> candidates;
+    List<Long> unassigned = new ArrayList<>();
+    if (shipmentIds == null || shipmentIds.isEmpty()) {
+      candidates = shipmentRepository.findUnassignedInDispatchOrder(ShipmentStatus.PENDIENTE,
+          PageRequest.ofSize(MAX_SHIPMENTS));
+    } else {
+      Set<Long> requested = new LinkedHashSet<>(shipmentIds);
+      requested.remove(null);
+      if (requested.size() > MAX_SHIPMENTS)
+        throw new BadRequestException("At most " + MAX_SHIPMENTS + " shipments can be assigned per request");
+      Map<Long, Shipment> found = shipmentRepository.findByIdIn(requested).stream()
+          .collect(Collectors.toMap(Shipment::getId, Function.identity()));
+      candidates = new ArrayList<>();
+      for (Long id : requested) {
+        Shipment shipment = found.get(id);
+        if (shipment != null && shipment.getStatus() == ShipmentStatus.PENDIENTE && shipment.getVehicle() == null)
+          candidates.add(shipment);
+        else
+          unassigned.add(id);
+      }
+    }
+    if (candidates.isEmpty())
+      return new AssignmentResultDTO(List.of(), unassigned);
+
+    List<Vehicle> fleet = vehicleRepository.lockAvailableOrderById();
+    Map<Long, double[]> loads = new HashMap<>();
+    for (Object[] row : shipmentRepository.sumLoadByVehicle(FINISHED)) {
+      loads.put((Long) row[0], new double[] { toDouble(row[1]), toDouble(row[2]) });
+    }
+    List<VehicleAssignmentEngine.Bin> bins = new ArrayList<>(fleet.size());
+    for (Vehicle vehicle : fleet) {
+      double[] load = loads.getOrDefault(vehicle.getId(), new double[2]);
+      bins.add(new VehicleAssignmentEngine.Bin(vehicle.getId(), toDouble(vehicle.getMaximumCapacity()),
+          vehicle.getMaximumVolume() == null ? Double.POSITIVE_INFINITY : vehicle.getMaximumVolume(),
+          load[0], load[1]));
+    }
+    List<VehicleAssignmentEngine.Item> items = new ArrayList<>(candidates.size());
+    for (Shipment shipment : candidates) {
+      items.add(new VehicleAssignmentEngine.Item(shipment.getId(), toDouble(shipment.getWeight()),
+          toDouble(shipment.getVolume()), shipment.getPriority()));
+    }
+
+    VehicleAssignmentEngine.Result result = VehicleAssignmentEngine.assign(items, bins);
+    unassigned.addAll(result.unassigned());
+
+    Map<Long, Vehicle> vehiclesById = fleet.stream().collect(Collectors.toMap(Vehicle::getId, Function.identity()));
+    Map<Long, ShipmentDTO> previous = new HashMap<>();
+    List<Shipment> changed = new ArrayList<>();
+    for (Shipment shipment : candidates) {
+      Long vehicleId = result.assignments().get(shipment.getId());
+      if (vehicleId == null)
+        continue;
+      previous.put(shipment.getId(), shipmentMapper.toDTO(shipment));
+      shipment.setVehicle(vehiclesById.get(vehicleId));
+      changed.add(shipment);
+    }
+    try {
+      shipmentRepository.saveAllAndFlush(changed);
+    } catch (ObjectOptimisticLockingFailureException ex) {
+      throw new ConflictException("A shipment was modified while assigning vehicles; nothing was assigned");
+    }
+
+    List<VehicleAssignmentDTO> assignments = new ArrayList<>(changed.size());
+    for (Shipment shipment : changed) {
+      ShipmentDTO updated = shipmentMapper.toDTO(shipment);
+      eventPublisher.publishEvent(new ShipmentChangedEvent(ChangeType.UPDATED, previous.get(shipment.getId()), updated));
+      invalidationBus.publish(CacheRegion.SHIPMENT, shipment.getTrackingCode());
+      assignments.add(new VehicleAssignmentDTO(shipment.getId(), shipment.getTrackingCode(),
+          shipment.getVehicle().getId(), shipment.getVehicle().getPlate()));
+    }
+    return new AssignmentResultDTO(assignments, unassigned);
+  }
+
+  private static double toDouble(Object value) {
+    return value == null ? 0 : ((Number) value).doubleValue();
+  }
+}
@@ -2,61 +2,190 @@ package com.udea.CourierSync.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.repository.VehiclePositionRepository;
 import com.udea.CourierSync.repository.VehicleRepository;
 import com.udea.CourierSync.mapper.VehicleMapper;
+import com.udea.CourierSync.DTO.NearbyVehicleDTO;
+import com.udea.CourierSync.DTO.PositionDTO;
 import com.udea.CourierSync.DTO.VehicleDTO;
+import com.udea.CourierSync.DTO.VersionStamp;
 import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.entity.VehiclePosition;
+import com.udea.CourierSync.spatial.GeoIndex;
+import com.udea.CourierSync.spatial.VehicleLocationIndex;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import com.udea.CourierSync.exception.BadRequestException;
 import com.udea.CourierSync.exception.ResourceNotFoundException;
 
 @Service
 public class VehicleService {
 
+  public static final int MAX_NEAREST = 50;
+
   @Autowired
   private VehicleRepository vehicleRepository;
 
+  @Autowired
+  private VehiclePositionRepository vehiclePositionRepository;
+
   @Autowired
   private VehicleMapper vehicleMapper;
 
+  @Autowired
+  private InvalidationBus invalidationBus;
+
+  @Autowired
+  private VehicleLocationIndex vehicleLocationIndex;
+
+  @Transactional
   public VehicleDTO createVehicle(VehicleDTO dto) {
     if (dto == null)
       throw new BadRequestException("VehicleDTO must not be null");
-    Vehicle entity = vehicleMapper.toEntity(dto);
-    Vehicle saved = vehicleRepository.save(entity);
-    return vehicleMapper.toDTO(saved);
+    boolean hasPosition = dto.getLatitude() != null || dto.getLongitude() != null;
+    if (hasPosition)
+      ShipmentService.validatePosition(dto.getLatitude(), dto.getLongitude());
+    Vehicle saved = vehicleRepository.save(vehicleMapper.toEntity(dto));
+    VehiclePosition position = hasPosition ? savePosition(saved.getId(), dto.getLatitude(), dto.getLongitude()) : null;
+    index(saved, position);
+    return toDTO(saved, position);
   }
 
   public Optional<VehicleDTO> findById(Long id) {
-    return vehicleRepository.findById(id).map(vehicleMapper::toDTO);
+    return vehicleRepository.findById(id).map(this::toDTO);
   }
 
   public Optional<VehicleDTO> findByPlate(String plate) {
-    return vehicleRepository.findByPlate(plate).map(vehicleMapper::toDTO);
+    return vehicleRepository.findByPlate(plate).map(this::toDTO);
   }
 
   public List<VehicleDTO> findAll() {
-    return vehicleRepository.findAll().stream().map(vehicleMapper::toDTO).toList();
+    List<Vehicle> vehicles = vehicleRepository.findAll();
+    Map<Long, VehiclePosition> positions = findPositions(vehicles);
+    return vehicles.stream().map(vehicle -> toDTO(vehicle, positions.get(vehicle.getId()))).toList();
   }
 
+  // the stamps cover the vehicle record, not its last position: a position report changes neither
+  public Optional<VersionStamp> findVersionStamp(Long id) {
+    return vehicleRepository.findStampById(id);
+  }
+
+  public VersionStamp findAllVersionStamp() {
+    return vehicleRepository.findTableStamp();
+  }
+
+  @Transactional
   public VehicleDTO update(Long id, VehicleDTO dto) {
     if (dto == null)
       throw new BadRequestException("VehicleDTO must not be null");
-    vehicleRepository.findById(id)
+    Vehicle existing = vehicleRepository.findById(id)
         .orElseThrow(() -> new ResourceNotFoundException("Vehicle not found with id: " + id));
     Vehicle toSave = vehicleMapper.toEntity(dto);
     toSave.setId(id);
+    // the merge is checked against the version just read and bumps it
+    toSave.setVersion(existing.getVersion());
+    // the position is normally reported through updatePosition; a body without one keeps the last fix
+    VehiclePosition position;
+    if (dto.getLatitude() == null || dto.getLongitude() == null) {
+      position = vehiclePositionRepository.findById(id).orElse(null);
+    } else {
+      ShipmentService.validatePosition(dto.getLatitude(), dto.getLongitude());
+      position = savePosition(id, dto.getLatitude(), dto.getLongitude());
+    }
     Vehicle saved = vehicleRepository.save(toSave);
-    return vehicleMapper.toDTO(saved);
+    invalidationBus.publish(CacheRegion.VEHICLE, String.valueOf(id));
+    index(saved, position);
+    return toDTO(saved, position);
+  }
+
+  // A GPS report: only the vehicle_position row is written, so the vehicle's version, ETag and cached
+  // entries stay as they are, and nothing is broadcast; other replicas pick the position up on their
+  // next VehicleLocationIndex reload.
+  @Transactional
+  public VehicleDTO updatePosition(Long id, PositionDTO position) {
+    if (position == null)
+      throw new BadRequestException("PositionDTO must not be null");
+    ShipmentService.validatePosition(position.getLatitude(), position.getLongitude());
+    Vehicle vehicle = vehicleRepository.findById(id)
+        .orElseThrow(() -> new ResourceNotFoundException("Vehicle not found with id: " + id));
+    VehiclePosition saved = savePosition(id, position.getLatitude(), position.getLongitude());
+    index(vehicle, saved);
+    return toDTO(vehicle, saved);
+  }
+
+  private VehiclePosition savePosition(Long vehicleId, Double latitude, Double longitude) {
+    VehiclePosition position = new VehiclePosition(vehicleId, latitude, longitude, Instant.now());
+    if (vehiclePositionRepository.updatePosition(vehicleId, latitude, longitude, position.getUpdatedAt()) == 0)
+      vehiclePositionRepository.save(position);
+    return position;
+  }
+
+  private void index(Vehicle vehicle, VehiclePosition position) {
+    vehicleLocationIndex.update(vehicle.getId(), position == null ? null : position.getLatitude(),
+        position == null ? null : position.getLongitude(), vehicle.isAvailable());
+  }
+
+  private Map<Long, VehiclePosition> findPositions(List<Vehicle> vehicles) {
+    if (vehicles.isEmpty())
+      return Map.of();
+    return vehiclePositionRepository.findAllById(vehicles.stream().map(Vehicle::getId).toList()).stream()
+        .collect(Collectors.toMap(VehiclePosition::getVehicleId, Function.identity()));
+  }
+
+  private VehicleDTO toDTO(Vehicle vehicle) {
+    return toDTO(vehicle, vehiclePositionRepository.findById(vehicle.getId()).orElse(null));
+  }
+
+  private VehicleDTO toDTO(Vehicle vehicle, VehiclePosition position) {
+    VehicleDTO dto = vehicleMapper.toDTO(vehicle);
+    if (dto != null && position != null) {
+      dto.setLatitude(position.getLatitude());
+      dto.setLongitude(position.getLongitude());
+      dto.setPositionUpdatedAt(position.getUpdatedAt());
+    }
+    return dto;
+  }
+
+  // the k vehicles last reported closest to the point, closest first
+  public List<NearbyVehicleDTO> findNearest(Double latitude, Double longitude, Integer k, boolean availableOnly) {
+    ShipmentService.validatePosition(latitude, longitude);
+    int count = k == null ? 5 : k;
+    if (count < 1 || count > MAX_NEAREST)
+      throw new BadRequestException("k must be between 1 and " + MAX_NEAREST);
+
+    List<GeoIndex.Hit> hits = vehicleLocationIndex.nearest(latitude, longitude, count, availableOnly);
+    if (hits.isEmpty())
+      return List.of();
+    List<Vehicle> found = vehicleRepository.findAllById(hits.stream().map(GeoIndex.Hit::id).toList());
+    Map<Long, Vehicle> vehicles = found.stream().collect(Collectors.toMap(Vehicle::getId, Function.identity()));
+    Map<Long, VehiclePosition> positions = findPositions(found);
+    List<NearbyVehicleDTO> result = new ArrayList<>(hits.size());
+    for (GeoIndex.Hit hit : hits) {
+      Vehicle vehicle = vehicles.get(hit.id());
+      if (vehicle != null)
+        result.add(new NearbyVehicleDTO(toDTO(vehicle, positions.get(vehicle.getId())), hit.distanceKm()));
+    }
+    return result;
   }
 
+  @Transactional
   public void deleteById(Long id) {
     if (!vehicleRepository.existsById(id)) {
       throw new ResourceNotFoundException("Vehicle not found with id: " + id);
     }
+    vehiclePositionRepository.deleteById(id);
     vehicleRepository.deleteById(id);
+    invalidationBus.publish(CacheRegion.VEHICLE, String.valueOf(id));
+    vehicleLocationIndex.remove(id);
   }
 }
@@ -0,0 +1,269 @@
+package com.udea.CourierSync.spatial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * In-memory point index on a uniform latitude/longitude grid, keyed by entity id. A radius query
+ * reads only the cells its bounding box overlaps; a k-nearest query scans rings of cells outwards
+ * and stops once no unread ring can hold anything closer than the k-th hit. With cells around a
+ * kilometre wide a city-sized set of 100k+ points answers either in well under a millisecond.
+ *
+ * Distances are equirectangular at the query latitude, within 0.1% of great-circle distance over
+ * the tens of kilometres dispatch works with; the grid does not wrap at the antimeridian. Reads
+ * share a read lock and writes take the write lock, so queries see each put or remove whole.
+ */
+public final class GeoIndex {
+
+  // mean Earth radius x pi / 180
+  private static final double KM_PER_DEGREE = 111.195;
+  private static final double MIN_COS = 0.01;
+
+  public record Hit(long id, double latitude, double longitude, double distanceKm) {
+  }
+
+  private record Point(double latitude, double longitude, long cell) {
+  }
+
+  // parallel arrays so a scan touches no per-point objects
+  private static final class Cell {
+    long[] ids = new long[4];
+    double[] latitudes = new double[4];
+    double[] longitudes = new double[4];
+    int size;
+
+    void add(long id, double latitude, double longitude) {
+      if (size == ids.length) {
+        int capacity = size * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+      }
+      ids[size] = id;
+      latitudes[size] = latitude;
+      longitudes[size] = longitude;
+      size++;
+    }
+
+    void remove(long id) {
+      for (int i = 0; i < size; i++) {
+        if (ids[i] == id) {
+          size--;
+          ids[i] = ids[size];
+          latitudes[i] = latitudes[size];
+          longitudes[i] = longitudes[size];
+          return;
+        }
+      }
+    }
+  }
+
+  private final double cellDegrees;
+  private final Map<Long, Cell> cells = new HashMap<>();
+  private final Map<Long, Point> points = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  // occupied grid extent; only grows, it just bounds how far a nearest query may search
+  private int minRow = Integer.MAX_VALUE;
+  private int maxRow = Integer.MIN_VALUE;
+  private int minColumn = Integer.MAX_VALUE;
+  private int maxColumn = Integer.MIN_VALUE;
+
+  public GeoIndex(double cellDegrees) {
+    if (!(cellDegrees > 0))
+      throw new IllegalArgumentException("cellDegrees must be positive");
+    this.cellDegrees = cellDegrees;
+  }
+
+  // adds the point or moves it if the id is already indexed
+  public void put(long id, double latitude, double longitude) {
+    int row = row(latitude);
+    int column = column(longitude);
+    long cell = key(row, column);
+    lock.writeLock().lock();
+    try {
+      Point previous = points.put(id, new Point(latitude, longitude, cell));
+      if (previous != null)
+        removeFromCell(id, previous.cell());
+      cells.computeIfAbsent(cell, k -> new Cell()).add(id, latitude, longitude);
+      minRow = Math.min(minRow, row);
+      maxRow = Math.max(maxRow, row);
+      minColumn = Math.min(minColumn, column);
+      maxColumn = Math.max(maxColumn, column);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(long id) {
+    lock.writeLock().lock();
+    try {
+      Point previous = points.remove(id);
+      if (previous != null)
+        removeFromCell(id, previous.cell());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return points.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // points within radiusKm, closest first, at most limit of them
+  public List<Hit> withinRadius(double latitude, double longitude, double radiusKm, int limit) {
+    double scale = cos(latitude);
+    double latitudeSpan = radiusKm / KM_PER_DEGREE;
+    double longitudeSpan = latitudeSpan / scale;
+    int firstRow = row(latitude - latitudeSpan);
+    int lastRow = row(latitude + latitudeSpan);
+    int firstColumn = column(longitude - longitudeSpan);
+    int lastColumn = column(longitude + longitudeSpan);
+
+    if (limit <= 0)
+      return List.of();
+    // bounded max-heap: a dense area costs one distance per point, not a sort of every match
+    PriorityQueue<Hit> best = newHeap(limit);
+    lock.readLock().lock();
+    try {
+      for (int row = firstRow; row <= lastRow; row++) {
+        for (int column = firstColumn; column <= lastColumn; column++) {
+          Cell cell = cells.get(key(row, column));
+          if (cell == null)
+            continue;
+          for (int i = 0; i < cell.size; i++) {
+            double distance = distance(latitude, longitude, scale, cell.latitudes[i], cell.longitudes[i]);
+            if (distance <= radiusKm)
+              offer(best, limit, cell, i, distance);
+          }
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return sorted(best);
+  }
+
+  // the k closest points whose id passes accept, closest first
+  public List<Hit> nearest(double latitude, double longitude, int k, LongPredicate accept) {
+    if (k <= 0)
+      return List.of();
+    int centerRow = row(latitude);
+    int centerColumn = column(longitude);
+    double scale = cos(latitude);
+    PriorityQueue<Hit> best = newHeap(k);
+
+    lock.readLock().lock();
+    try {
+      if (points.isEmpty())
+        return List.of();
+      int lastRing = Math.max(Math.max(Math.abs(centerRow - minRow), Math.abs(maxRow - centerRow)),
+          Math.max(Math.abs(centerColumn - minColumn), Math.abs(maxColumn - centerColumn)));
+      for (int ring = 0; ring <= lastRing; ring++) {
+        for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+          boolean edgeRow = row == centerRow - ring || row == centerRow + ring;
+          // inner rows of the ring only have their two end cells
+          int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+          for (int column = centerColumn - ring; column <= centerColumn + ring; column += step) {
+            Cell cell = cells.get(key(row, column));
+            if (cell == null)
+              continue;
+            for (int i = 0; i < cell.size; i++) {
+              if (!accept.test(cell.ids[i]))
+                continue;
+              offer(best, k, cell, i,
+                  distance(latitude, longitude, scale, cell.latitudes[i], cell.longitudes[i]));
+            }
+          }
+        }
+        // anything beyond this ring is at least ring cell-widths away (a cell is narrowest east-west)
+        if (best.size() == k && best.peek().distanceKm() <= ring * cellDegrees * KM_PER_DEGREE * scale)
+          break;
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return sorted(best);
+  }
+
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      cells.clear();
+      points.clear();
+      minRow = Integer.MAX_VALUE;
+      maxRow = Integer.MIN_VALUE;
+      minColumn = Integer.MAX_VALUE;
+      maxColumn = Integer.MIN_VALUE;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private static PriorityQueue<Hit> newHeap(int limit) {
+    return new PriorityQueue<>(Math.min(limit, 64) + 1, Comparator.comparingDouble(Hit::distanceKm).reversed());
+  }
+
+  private static void offer(PriorityQueue<Hit> best, int limit, Cell cell, int i, double distance) {
+    if (best.size() < limit || distance < best.peek().distanceKm()) {
+      best.add(new Hit(cell.ids[i], cell.latitudes[i], cell.longitudes[i], distance));
+      if (best.size() > limit)
+        best.poll();
+    }
+  }
+
+  private static List<Hit> sorted(PriorityQueue<Hit> best) {
+    List<Hit> hits = new ArrayList<>(best);
+    hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+    return hits;
+  }
+
+  private void removeFromCell(long id, long key) {
+    Cell cell = cells.get(key);
+    if (cell == null)
+      return;
+    cell.remove(id);
+    if (cell.size == 0)
+      cells.remove(key);
+  }
+
+  private int row(double latitude) {
+    return (int) Math.floor(latitude / cellDegrees);
+  }
+
+  private int column(double longitude) {
+    return (int) Math.floor(longitude / cellDegrees);
+  }
+
+  private static long key(int row, int column) {
+    return ((long) row << 32) | (column & 0xffffffffL);
+  }
+
+  // the metric queries rank by, for callers that re-check a hit against fresher coordinates
+  public static double distanceKm(double latitude, double longitude, double otherLatitude, double otherLongitude) {
+    return distance(latitude, longitude, cos(latitude), otherLatitude, otherLongitude);
+  }
+
+  private static double cos(double latitude) {
+    return Math.max(MIN_COS, Math.cos(Math.toRadians(latitude)));
+  }
+
+  private static double distance(double latitude, double longitude, double scale, double otherLatitude,
+      double otherLongitude) {
+    double dy = otherLatitude - latitude;
+    double dx = (otherLongitude - longitude) * scale;
+    return Math.sqrt(dx * dx + dy * dy) * KM_PER_DEGREE;
+  }
+}
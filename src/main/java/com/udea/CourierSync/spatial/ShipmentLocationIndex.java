@@ -0,0 +1,111 @@
+package com.udea.CourierSync.spatial;
+
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.enums.RouteStopType;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Origins and destinations of the shipments still in play (not ENTREGADO or CANCELADO), in two
+ * GeoIndexes. Committed ShipmentChangedEvents keep them current on this node; changes made by other
+ * replicas or outside the services are picked up by the periodic reload, which rebuilds both indexes
+ * from one projection query and swaps them in.
+ */
+@Component
+public class ShipmentLocationIndex {
+  private static final Logger logger = LoggerFactory.getLogger(ShipmentLocationIndex.class);
+
+  private static final Set<ShipmentStatus> FINISHED = EnumSet.of(ShipmentStatus.ENTREGADO, ShipmentStatus.CANCELADO);
+
+  @Autowired
+  private ShipmentRepository shipmentRepository;
+
+  @Value("${app.spatial.cell-degrees:0.01}")
+  private double cellDegrees;
+
+  private volatile GeoIndex origins;
+  private volatile GeoIndex destinations;
+
+  @PostConstruct
+  void init() {
+    origins = new GeoIndex(cellDegrees);
+    destinations = new GeoIndex(cellDegrees);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    reload();
+  }
+
+  // An event landing between the query and the swap is lost until the next run, like the dashboard counters.
+  @Scheduled(fixedDelayString = "${app.spatial.reload-interval-ms:300000}",
+      initialDelayString = "${app.spatial.reload-interval-ms:300000}")
+  public void reload() {
+    try {
+      GeoIndex newOrigins = new GeoIndex(cellDegrees);
+      GeoIndex newDestinations = new GeoIndex(cellDegrees);
+      for (Object[] row : shipmentRepository.findPositions(FINISHED)) {
+        long id = (Long) row[0];
+        put(newOrigins, id, (Double) row[1], (Double) row[2]);
+        put(newDestinations, id, (Double) row[3], (Double) row[4]);
+      }
+      origins = newOrigins;
+      destinations = newDestinations;
+    } catch (RuntimeException ex) {
+      logger.warn("Could not reload shipment locations", ex);
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onShipmentChanged(ShipmentChangedEvent event) {
+    ShipmentDTO current = event.getCurrent();
+    if (current == null || FINISHED.contains(current.getStatus())) {
+      long id = current != null ? current.getId() : event.getPrevious().getId();
+      origins.remove(id);
+      destinations.remove(id);
+      return;
+    }
+    put(origins, current.getId(), current.getOriginLatitude(), current.getOriginLongitude());
+    put(destinations, current.getId(), current.getDestinationLatitude(), current.getDestinationLongitude());
+  }
+
+  // PICKUP searches origins, DELIVERY destinations
+  public List<GeoIndex.Hit> withinRadius(RouteStopType stop, double latitude, double longitude, double radiusKm,
+      int limit) {
+    return index(stop).withinRadius(latitude, longitude, radiusKm, limit);
+  }
+
+  public List<GeoIndex.Hit> nearest(RouteStopType stop, double latitude, double longitude, int k) {
+    return index(stop).nearest(latitude, longitude, k, id -> true);
+  }
+
+  public int size(RouteStopType stop) {
+    return index(stop).size();
+  }
+
+  private GeoIndex index(RouteStopType stop) {
+    return stop == RouteStopType.DELIVERY ? destinations : origins;
+  }
+
+  private static void put(GeoIndex index, long id, Double latitude, Double longitude) {
+    if (latitude == null || longitude == null)
+      index.remove(id);
+    else
+      index.put(id, latitude, longitude);
+  }
+}
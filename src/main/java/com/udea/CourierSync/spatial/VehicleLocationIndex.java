@@ -0,0 +1,92 @@
+package com.udea.CourierSync.spatial;
+
+import com.udea.CourierSync.repository.VehiclePositionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last reported position of every vehicle, plus which of them are available, for nearest-vehicle
+ * queries. VehicleService updates it directly on each write, without the invalidation bus, so a
+ * position report costs no cluster-wide traffic; the periodic reload catches up with other replicas,
+ * where position reports usually land.
+ */
+@Component
+public class VehicleLocationIndex {
+  private static final Logger logger = LoggerFactory.getLogger(VehicleLocationIndex.class);
+
+  @Autowired
+  private VehiclePositionRepository vehiclePositionRepository;
+
+  @Value("${app.spatial.cell-degrees:0.01}")
+  private double cellDegrees;
+
+  private volatile GeoIndex positions;
+  private volatile Set<Long> available = ConcurrentHashMap.newKeySet();
+
+  @PostConstruct
+  void init() {
+    positions = new GeoIndex(cellDegrees);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    reload();
+  }
+
+  @Scheduled(fixedDelayString = "${app.spatial.vehicle-reload-interval-ms:30000}",
+      initialDelayString = "${app.spatial.vehicle-reload-interval-ms:30000}")
+  public void reload() {
+    try {
+      GeoIndex newPositions = new GeoIndex(cellDegrees);
+      Set<Long> newAvailable = ConcurrentHashMap.newKeySet();
+      for (Object[] row : vehiclePositionRepository.findIndexEntries()) {
+        Long id = (Long) row[0];
+        newPositions.put(id, (Double) row[1], (Double) row[2]);
+        if ((Boolean) row[3])
+          newAvailable.add(id);
+      }
+      positions = newPositions;
+      available = newAvailable;
+    } catch (RuntimeException ex) {
+      logger.warn("Could not reload vehicle locations", ex);
+    }
+  }
+
+  // a null position removes the vehicle
+  public void update(Long id, Double latitude, Double longitude, boolean isAvailable) {
+    if (latitude == null || longitude == null) {
+      remove(id);
+      return;
+    }
+    positions.put(id, latitude, longitude);
+    if (isAvailable)
+      available.add(id);
+    else
+      available.remove(id);
+  }
+
+  public void remove(Long id) {
+    positions.remove(id);
+    available.remove(id);
+  }
+
+  public List<GeoIndex.Hit> nearest(double latitude, double longitude, int k, boolean availableOnly) {
+    Set<Long> eligible = available;
+    return positions.nearest(latitude, longitude, k, availableOnly ? eligible::contains : id -> true);
+  }
+
+  public int size() {
+    return positions.size();
+  }
+}
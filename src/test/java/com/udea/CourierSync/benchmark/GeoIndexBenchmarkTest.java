@@ -0,0 +1,54 @@
+package com.udea.CourierSync.benchmark;
+
+import com.udea.CourierSync.spatial.GeoIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -Pbenchmark
+@Tag("benchmark")
+class GeoIndexBenchmarkTest {
+
+  private static final int QUERIES = 10_000;
+
+  @Test
+  void queryCitySizedIndexes() {
+    for (int size : new int[] { 10_000, 100_000, 200_000 }) {
+      // uniform over a ~33 km square, about the Aburrá valley
+      Random random = new Random(42);
+      GeoIndex index = new GeoIndex(0.01);
+      for (int i = 0; i < size; i++)
+        index.put(i, 6.1 + random.nextDouble() * 0.3, -75.7 + random.nextDouble() * 0.3);
+
+      double[] latitudes = new double[QUERIES];
+      double[] longitudes = new double[QUERIES];
+      for (int q = 0; q < QUERIES; q++) {
+        latitudes[q] = 6.1 + random.nextDouble() * 0.3;
+        longitudes[q] = -75.7 + random.nextDouble() * 0.3;
+      }
+
+      long hits = 0;
+      for (int q = 0; q < QUERIES; q++) // warm-up
+        hits += index.withinRadius(latitudes[q], longitudes[q], 2.0, 50).size()
+            + index.nearest(latitudes[q], longitudes[q], 5, id -> true).size();
+
+      long start = System.nanoTime();
+      for (int q = 0; q < QUERIES; q++)
+        hits += index.withinRadius(latitudes[q], longitudes[q], 2.0, 50).size();
+      double radiusMicros = (System.nanoTime() - start) / 1000.0 / QUERIES;
+
+      start = System.nanoTime();
+      for (int q = 0; q < QUERIES; q++)
+        hits += index.nearest(latitudes[q], longitudes[q], 5, id -> (id & 1) == 0).size();
+      double nearestMicros = (System.nanoTime() - start) / 1000.0 / QUERIES;
+
+      System.out.printf("geo index: %d points -> radius 2 km %.1f us, 5 nearest %.1f us per query (%d hits)%n",
+          size, radiusMicros, nearestMicros, hits);
+      assertTrue(radiusMicros < 1000, "radius query took " + radiusMicros + " us");
+      assertTrue(nearestMicros < 1000, "nearest query took " + nearestMicros + " us");
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.udea.CourierSync.benchmark;
+
+import com.udea.CourierSync.enums.RouteStopType;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.planning.RoutePlanner;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -Pbenchmark
+@Tag("benchmark")
+class RoutePlannerBenchmarkTest {
+
+  private static final long BUDGET_MS = 2000;
+
+  @Test
+  void sequenceSyntheticStopSets() {
+    Random random = new Random(42);
+    ShipmentPriority[] priorities = ShipmentPriority.values();
+    for (int size : new int[] { 50, 100, 250, 500 }) {
+      // a third of the shipments still to be collected, spread over a ~11 km square
+      List<RoutePlanner.Stop> stops = new ArrayList<>(size);
+      for (int i = 0; stops.size() < size; i++) {
+        ShipmentPriority priority = priorities[random.nextInt(priorities.length)];
+        if (i % 3 == 0 && stops.size() + 1 < size) {
+          stops.add(new RoutePlanner.Stop(i, RouteStopType.PICKUP, 6.2 + random.nextDouble() * 0.1,
+              -75.6 + random.nextDouble() * 0.1, priority));
+        }
+        stops.add(new RoutePlanner.Stop(i, RouteStopType.DELIVERY, 6.2 + random.nextDouble() * 0.1,
+            -75.6 + random.nextDouble() * 0.1, priority));
+      }
+
+      RoutePlanner.plan(stops, 6.25, -75.55, deadline()); // warm-up
+      RoutePlanner.Route constructed = RoutePlanner.plan(stops, 6.25, -75.55, System.nanoTime() - 1);
+      long start = System.nanoTime();
+      RoutePlanner.Route route = RoutePlanner.plan(stops, 6.25, -75.55, deadline());
+      long millis = (System.nanoTime() - start) / 1_000_000;
+      System.out.printf("routing: %d stops -> %d ms, %.1f km (nearest neighbour %.1f km, converged %b)%n",
+          size, millis, route.distanceKm(), constructed.distanceKm(), route.converged());
+      assertEquals(size, route.stops().size());
+      assertTrue(route.distanceKm() <= constructed.distanceKm());
+      assertTrue(millis < BUDGET_MS + 100, "routing took " + millis + " ms");
+    }
+  }
+
+  private static long deadline() {
+    return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BUDGET_MS);
+  }
+}
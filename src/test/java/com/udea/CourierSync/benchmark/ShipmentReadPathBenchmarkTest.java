@@ -0,0 +1,112 @@
+package com.udea.CourierSync.benchmark;
+
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.DTO.ShipmentRow;
+import com.udea.CourierSync.entity.Client;
+import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.repository.ClientRepository;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import com.udea.CourierSync.repository.VehicleRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -Pbenchmark
+// Keyset pages are read by primary key, so the last page of the listing should cost about the same as the first.
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class ShipmentReadPathBenchmarkTest {
+
+  private static final int SHIPMENTS = 2_000;
+  private static final int PAGE_SIZE = 200;
+  private static final int ROUNDS = 50;
+
+  @Autowired
+  private ShipmentRepository shipmentRepository;
+
+  @Autowired
+  private ClientRepository clientRepository;
+
+  @Autowired
+  private VehicleRepository vehicleRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  void firstPageVersusDeepPage() {
+    seed();
+    TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+
+    PageReader reader = after -> shipmentRepository.findRowPageAfter(after, null, null, null, null,
+        PageRequest.ofSize(PAGE_SIZE)).stream().map(ShipmentRow::toDTO).toList();
+    List<Long> cursors = readOnly.execute(status -> cursors(reader));
+    assertEquals(SHIPMENTS / PAGE_SIZE, cursors.size());
+
+    Long first = cursors.get(0);
+    Long last = cursors.get(cursors.size() - 1);
+    Supplier<Integer> firstPage = () -> readOnly.execute(status -> reader.read(first).size());
+    Supplier<Integer> deepPage = () -> readOnly.execute(status -> reader.read(last).size());
+
+    // warm up both pages before measuring
+    time(firstPage, ROUNDS / 5);
+    time(deepPage, ROUNDS / 5);
+    double firstMs = time(firstPage, ROUNDS);
+    double deepMs = time(deepPage, ROUNDS);
+    System.out.printf("page of %d out of %,d shipments: first %.2f ms, last %.2f ms (%.1fx)%n",
+        PAGE_SIZE, SHIPMENTS, firstMs, deepMs, deepMs / firstMs);
+  }
+
+  private interface PageReader {
+    List<ShipmentDTO> read(Long afterId);
+  }
+
+  // the cursor each page starts after, walking the whole table
+  private static List<Long> cursors(PageReader reader) {
+    List<Long> cursors = new ArrayList<>();
+    Long after = null;
+    List<ShipmentDTO> page = reader.read(after);
+    while (!page.isEmpty()) {
+      cursors.add(after);
+      after = page.get(page.size() - 1).getId();
+      page = page.size() == PAGE_SIZE ? reader.read(after) : List.of();
+    }
+    return cursors;
+  }
+
+  private static double time(Supplier<Integer> path, int rounds) {
+    long start = System.nanoTime();
+    for (int i = 0; i < rounds; i++) {
+      path.get();
+    }
+    return (System.nanoTime() - start) / 1e6 / rounds;
+  }
+
+  private void seed() {
+    Client client = clientRepository.save(new Client(null, "Bench", "bench@example.com", "3000000000", "Calle 1"));
+    List<Shipment> shipments = new ArrayList<>();
+    for (int i = 0; i < SHIPMENTS; i++) {
+      // vehicle is one-to-one, so each shipment needs its own
+      Vehicle vehicle = vehicleRepository.save(new Vehicle("BEN" + i, "NPR", 1000.0, true));
+      shipments.add(new Shipment("BENCH" + i, client, vehicle, "Origen", "Destino", 10.0, 1.0,
+          ShipmentPriority.MEDIA, ShipmentStatus.PENDIENTE));
+    }
+    shipmentRepository.saveAll(shipments);
+  }
+}
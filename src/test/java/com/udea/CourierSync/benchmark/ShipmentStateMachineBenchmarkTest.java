@@ -0,0 +1,40 @@
+package com.udea.CourierSync.benchmark;
+
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.enums.UserRole;
+import com.udea.CourierSync.services.ShipmentStateMachine;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+// Run with: mvn test -Pbenchmark
+@Tag("benchmark")
+class ShipmentStateMachineBenchmarkTest {
+
+  private static final int ITERATIONS = 200_000_000;
+
+  @Test
+  void transitionCheckThroughput() {
+    ShipmentStatus[] statuses = ShipmentStatus.values();
+    UserRole[] roles = UserRole.values();
+    // warm up so the JIT has compiled the check before timing
+    long allowed = run(statuses, roles, ITERATIONS / 10);
+
+    long start = System.nanoTime();
+    allowed += run(statuses, roles, ITERATIONS);
+    long elapsed = System.nanoTime() - start;
+    System.out.printf("transition checks: %,.1f ns/check, %,.0f checks/s (%d allowed)%n",
+        (double) elapsed / ITERATIONS, ITERATIONS / (elapsed / 1e9), allowed);
+  }
+
+  private static long run(ShipmentStatus[] statuses, UserRole[] roles, int iterations) {
+    long allowed = 0;
+    for (int i = 0; i < iterations; i++) {
+      // the result feeds the return value so the loop cannot be eliminated
+      if (ShipmentStateMachine.canTransition(roles[i % roles.length], statuses[i % statuses.length],
+          statuses[(i >>> 3) % statuses.length])) {
+        allowed++;
+      }
+    }
+    return allowed;
+  }
+}
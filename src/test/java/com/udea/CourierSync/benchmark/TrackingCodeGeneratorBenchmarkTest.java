@@ -0,0 +1,78 @@
+package com.udea.CourierSync.benchmark;
+
+import com.udea.CourierSync.services.TimeOrderedTrackingCodeGenerator;
+import com.udea.CourierSync.services.TrackingNodeLease;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -Pbenchmark (needs a few GB of heap for the collision check)
+@Tag("benchmark")
+class TrackingCodeGeneratorBenchmarkTest {
+
+  private static final int TOTAL_CODES = 24_000_000;
+
+  @Test
+  void throughputAcrossThreads() throws Exception {
+    TimeOrderedTrackingCodeGenerator generator = new TimeOrderedTrackingCodeGenerator(TrackingNodeLease.fixed(1));
+    int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      int perThread = 2_000_000 / threads;
+      long start = System.nanoTime();
+      run(threads, perThread, (t, i) -> generator.nextCode());
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf("tracking codes: %2d threads -> %,.0f codes/s%n", threads, threads * perThread / seconds);
+    }
+  }
+
+  @Test
+  void noCollisionsAcrossThreeReplicas() throws Exception {
+    TimeOrderedTrackingCodeGenerator[] replicas = {
+        new TimeOrderedTrackingCodeGenerator(TrackingNodeLease.fixed(0)),
+        new TimeOrderedTrackingCodeGenerator(TrackingNodeLease.fixed(1)),
+        new TimeOrderedTrackingCodeGenerator(TrackingNodeLease.fixed(2))
+    };
+    int threads = 12;
+    int perThread = TOTAL_CODES / threads;
+    long[] ids = new long[threads * perThread];
+
+    long start = System.nanoTime();
+    run(threads, perThread, (t, i) -> ids[t * perThread + i] = replicas[t % replicas.length].nextId());
+    System.out.printf("generated %,d ids in %d ms%n", ids.length, (System.nanoTime() - start) / 1_000_000);
+
+    Arrays.sort(ids);
+    for (int i = 1; i < ids.length; i++) {
+      assertNotEquals(ids[i - 1], ids[i], "collision at index " + i);
+    }
+  }
+
+  private interface Work {
+    void run(int thread, int iteration);
+  }
+
+  private static void run(int threads, int perThread, Work work) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      Future<?>[] futures = new Future<?>[threads];
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures[t] = pool.submit(() -> {
+          for (int i = 0; i < perThread; i++) {
+            work.run(thread, i);
+          }
+        });
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.udea.CourierSync.benchmark;
+
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.planning.VehicleAssignmentEngine;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -Pbenchmark
+@Tag("benchmark")
+class VehicleAssignmentBenchmarkTest {
+
+  @Test
+  void assignThousandsOfShipmentsToHundredsOfVehicles() {
+    Random random = new Random(42);
+    ShipmentPriority[] priorities = ShipmentPriority.values();
+    for (int[] size : new int[][] { { 1_000, 100 }, { 5_000, 300 }, { 10_000, 500 } }) {
+      List<VehicleAssignmentEngine.Item> items = new ArrayList<>(size[0]);
+      for (int i = 0; i < size[0]; i++) {
+        items.add(new VehicleAssignmentEngine.Item(i, 1 + random.nextDouble() * 49, 0.01 + random.nextDouble(),
+            priorities[random.nextInt(priorities.length)]));
+      }
+      List<VehicleAssignmentEngine.Bin> bins = new ArrayList<>(size[1]);
+      for (int j = 0; j < size[1]; j++) {
+        bins.add(new VehicleAssignmentEngine.Bin(j, 500 + random.nextInt(1500), 10 + random.nextInt(30),
+            random.nextDouble() * 200, 0));
+      }
+
+      VehicleAssignmentEngine.assign(items, bins); // warm-up
+      long start = System.nanoTime();
+      VehicleAssignmentEngine.Result result = VehicleAssignmentEngine.assign(items, bins);
+      long millis = (System.nanoTime() - start) / 1_000_000;
+      System.out.printf("assignment: %,d shipments x %d vehicles -> %d ms (%,d assigned, %,d left)%n",
+          size[0], size[1], millis, result.assignments().size(), result.unassigned().size());
+      assertTrue(millis < 1000, "assignment took " + millis + " ms");
+    }
+  }
+}
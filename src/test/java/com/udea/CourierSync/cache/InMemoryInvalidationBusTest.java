@@ -0,0 +1,52 @@
+package com.udea.CourierSync.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryInvalidationBusTest {
+
+  private InMemoryInvalidationBus bus;
+  private List<String> received;
+
+  @BeforeEach
+  void setUp() {
+    bus = new InMemoryInvalidationBus();
+    received = new ArrayList<>();
+    bus.subscribe(CacheRegion.USER, InvalidationListener.of(received::add, () -> received.add("*")));
+  }
+
+  @Test
+  void testPublish_DeliversOnlyToRegionListeners() {
+    bus.publish(CacheRegion.USER, "7");
+    bus.publish(CacheRegion.CLIENT, "8");
+
+    assertEquals(List.of("7"), received);
+  }
+
+  @Test
+  void testDispatchEncoded_KeyMayContainSeparator() {
+    bus.dispatchEncoded(AbstractInvalidationBus.encode(CacheRegion.USER, "a:b"));
+
+    assertEquals(List.of("a:b"), received);
+  }
+
+  @Test
+  void testDispatchEncoded_MalformedOrUnknownRegion_IsIgnored() {
+    bus.dispatchEncoded("no-separator");
+    bus.dispatchEncoded("UNKNOWN:1");
+
+    assertTrue(received.isEmpty());
+  }
+
+  @Test
+  void testDispatchAll_NotifiesEveryListener() {
+    bus.dispatchAll();
+
+    assertEquals(List.of("*"), received);
+  }
+}
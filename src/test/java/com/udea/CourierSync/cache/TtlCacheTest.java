@@ -0,0 +1,83 @@
+package com.udea.CourierSync.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TtlCacheTest {
+
+  private AtomicLong now;
+  private TtlCache<String, String> cache;
+
+  @BeforeEach
+  void setUp() {
+    now = new AtomicLong();
+    cache = new TtlCache<>(2, 10, TimeUnit.SECONDS, now::get);
+  }
+
+  @Test
+  void testGet_LoadsOnceThenServesFromCache() {
+    AtomicInteger loads = new AtomicInteger();
+
+    assertEquals("v", cache.get("k", key -> {
+      loads.incrementAndGet();
+      return "v";
+    }));
+    assertEquals("v", cache.get("k", key -> {
+      loads.incrementAndGet();
+      return "other";
+    }));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void testGetIfPresent_ExpiredEntry_ReturnsNull() {
+    cache.put("k", "v");
+    now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+    assertNull(cache.getIfPresent("k"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void testPut_OverCapacity_EvictsLeastRecentlyUsed() {
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.getIfPresent("a");
+    cache.put("c", "3");
+
+    assertEquals("1", cache.getIfPresent("a"));
+    assertNull(cache.getIfPresent("b"));
+    assertEquals("3", cache.getIfPresent("c"));
+  }
+
+  @Test
+  void testInvalidate_RemovesEntry() {
+    cache.put("k", "v");
+    cache.invalidate("k");
+
+    assertNull(cache.getIfPresent("k"));
+  }
+
+  @Test
+  void testGet_LoaderReturnsNull_IsNotCached() {
+    assertNull(cache.get("k", key -> null));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void testPutIfAbsent_OnlyStoresWhenNoLiveEntry() {
+    assertTrue(cache.putIfAbsent("k", "first"));
+    assertFalse(cache.putIfAbsent("k", "second"));
+    assertEquals("first", cache.getIfPresent("k"));
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    assertTrue(cache.putIfAbsent("k", "third"));
+    assertEquals("third", cache.getIfPresent("k"));
+  }
+}
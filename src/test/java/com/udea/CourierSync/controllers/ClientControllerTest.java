@@ -2,6 +2,7 @@ package com.udea.CourierSync.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.udea.CourierSync.DTO.ClientDTO;
+import com.udea.CourierSync.DTO.VersionStamp;
 import com.udea.CourierSync.services.ClientService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Optional;
 
@@ -67,10 +69,12 @@ class ClientControllerTest {
     clientDTO2.setId(2L);
     clientDTO2.setName("Jane Doe");
 
+    when(clientService.findAllVersionStamp()).thenReturn(new VersionStamp(2L, 2L, 0L));
     when(clientService.findAll()).thenReturn(Arrays.asList(clientDTO, clientDTO2));
 
     mockMvc.perform(get("/api/clients"))
         .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("Last-Modified"))
         .andExpect(jsonPath("$").isArray())
         .andExpect(jsonPath("$.length()").value(2))
         .andExpect(jsonPath("$[0].id").value(1L))
@@ -81,10 +85,12 @@ class ClientControllerTest {
 
   @Test
   void testGetClientById_Success() throws Exception {
+    when(clientService.findVersionStamp(1L)).thenReturn(Optional.of(new VersionStamp(3L, null)));
     when(clientService.findById(1L)).thenReturn(Optional.of(clientDTO));
 
     mockMvc.perform(get("/api/clients/1"))
         .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"3\""))
         .andExpect(jsonPath("$.id").value(1L))
         .andExpect(jsonPath("$.name").value("John Doe"));
 
@@ -93,12 +99,33 @@ class ClientControllerTest {
 
   @Test
   void testGetClientById_NotFound() throws Exception {
-    when(clientService.findById(999L)).thenReturn(Optional.empty());
+    when(clientService.findVersionStamp(999L)).thenReturn(Optional.empty());
 
     mockMvc.perform(get("/api/clients/999"))
         .andExpect(status().isNotFound());
 
-    verify(clientService, times(1)).findById(999L);
+    verify(clientService, never()).findById(999L);
+  }
+
+  @Test
+  void testGetClientById_MatchingETag_NotModified() throws Exception {
+    when(clientService.findVersionStamp(1L)).thenReturn(Optional.of(new VersionStamp(3L, Instant.now())));
+
+    mockMvc.perform(get("/api/clients/1").header("If-None-Match", "\"3\""))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+
+    verify(clientService, never()).findById(any());
+  }
+
+  @Test
+  void testGetAllClients_MatchingETag_NotModified() throws Exception {
+    when(clientService.findAllVersionStamp()).thenReturn(new VersionStamp(2L, 2L, 5L));
+
+    mockMvc.perform(get("/api/clients").header("If-None-Match", "\"2-2-5\""))
+        .andExpect(status().isNotModified());
+
+    verify(clientService, never()).findAll();
   }
 
   @Test
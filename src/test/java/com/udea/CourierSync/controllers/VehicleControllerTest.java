@@ -1,7 +1,14 @@
 package com.udea.CourierSync.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.CourierSync.DTO.RouteDTO;
+import com.udea.CourierSync.DTO.RouteStopDTO;
 import com.udea.CourierSync.DTO.VehicleDTO;
+import com.udea.CourierSync.DTO.VersionStamp;
+import com.udea.CourierSync.enums.RouteStopType;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.exception.ResourceNotFoundException;
+import com.udea.CourierSync.services.RoutePlanningService;
 import com.udea.CourierSync.services.VehicleService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,7 +19,9 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -31,6 +40,9 @@ class VehicleControllerTest {
   @MockBean
   private VehicleService vehicleService;
 
+  @MockBean
+  private RoutePlanningService routePlanningService;
+
   @Autowired
   private ObjectMapper objectMapper;
 
@@ -67,10 +79,12 @@ class VehicleControllerTest {
     vehicleDTO2.setId(2L);
     vehicleDTO2.setPlate("XYZ789");
 
+    when(vehicleService.findAllVersionStamp()).thenReturn(new VersionStamp(2L, 2L, 0L));
     when(vehicleService.findAll()).thenReturn(Arrays.asList(vehicleDTO, vehicleDTO2));
 
     mockMvc.perform(get("/api/vehicles"))
         .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("Last-Modified"))
         .andExpect(jsonPath("$").isArray())
         .andExpect(jsonPath("$.length()").value(2))
         .andExpect(jsonPath("$[0].id").value(1L))
@@ -81,10 +95,12 @@ class VehicleControllerTest {
 
   @Test
   void testGetVehicleById_Success() throws Exception {
+    when(vehicleService.findVersionStamp(1L)).thenReturn(Optional.of(new VersionStamp(3L, null)));
     when(vehicleService.findById(1L)).thenReturn(Optional.of(vehicleDTO));
 
     mockMvc.perform(get("/api/vehicles/1"))
         .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"3\""))
         .andExpect(jsonPath("$.id").value(1L))
         .andExpect(jsonPath("$.plate").value("ABC123"));
 
@@ -93,12 +109,33 @@ class VehicleControllerTest {
 
   @Test
   void testGetVehicleById_NotFound() throws Exception {
-    when(vehicleService.findById(999L)).thenReturn(Optional.empty());
+    when(vehicleService.findVersionStamp(999L)).thenReturn(Optional.empty());
 
     mockMvc.perform(get("/api/vehicles/999"))
         .andExpect(status().isNotFound());
 
-    verify(vehicleService, times(1)).findById(999L);
+    verify(vehicleService, never()).findById(999L);
+  }
+
+  @Test
+  void testGetVehicleById_MatchingETag_NotModified() throws Exception {
+    when(vehicleService.findVersionStamp(1L)).thenReturn(Optional.of(new VersionStamp(3L, Instant.now())));
+
+    mockMvc.perform(get("/api/vehicles/1").header("If-None-Match", "\"3\""))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+
+    verify(vehicleService, never()).findById(any());
+  }
+
+  @Test
+  void testGetAllVehicles_MatchingETag_NotModified() throws Exception {
+    when(vehicleService.findAllVersionStamp()).thenReturn(new VersionStamp(2L, 2L, 5L));
+
+    mockMvc.perform(get("/api/vehicles").header("If-None-Match", "\"2-2-5\""))
+        .andExpect(status().isNotModified());
+
+    verify(vehicleService, never()).findAll();
   }
 
   @Test
@@ -128,4 +165,27 @@ class VehicleControllerTest {
 
     verify(vehicleService, times(1)).deleteById(1L);
   }
+
+  @Test
+  void testRoute_ReturnsOrderedStops() throws Exception {
+    RouteDTO route = new RouteDTO(1L, "ABC123", 3.5, true, List.of(
+        new RouteStopDTO(1, 10L, "CS10", RouteStopType.PICKUP, "Calle 1", 6.25, -75.56, ShipmentPriority.ALTA),
+        new RouteStopDTO(2, 10L, "CS10", RouteStopType.DELIVERY, "Calle 2", 6.27, -75.58, ShipmentPriority.ALTA)));
+    when(routePlanningService.planRoute(1L)).thenReturn(route);
+
+    mockMvc.perform(get("/api/vehicles/1/route"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.plate").value("ABC123"))
+        .andExpect(jsonPath("$.stops[0].type").value("PICKUP"))
+        .andExpect(jsonPath("$.stops[1].type").value("DELIVERY"))
+        .andExpect(jsonPath("$.stops[1].sequence").value(2));
+  }
+
+  @Test
+  void testRoute_VehicleNotFound_Returns404() throws Exception {
+    when(routePlanningService.planRoute(99L)).thenThrow(new ResourceNotFoundException("Vehicle not found with id: 99"));
+
+    mockMvc.perform(get("/api/vehicles/99/route"))
+        .andExpect(status().isNotFound());
+  }
 }
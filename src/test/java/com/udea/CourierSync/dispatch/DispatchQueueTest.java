@@ -0,0 +1,144 @@
+package com.udea.CourierSync.dispatch;
+
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.DTO.VehicleDTO;
+import com.udea.CourierSync.enums.ChangeType;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DispatchQueueTest {
+
+  private static final Instant T0 = Instant.parse("2026-01-01T08:00:00Z");
+
+  @Mock
+  private ShipmentRepository shipmentRepository;
+
+  @InjectMocks
+  private DispatchQueue dispatchQueue;
+
+  @BeforeEach
+  void setUp() {
+    when(shipmentRepository.findDispatchEntries(ShipmentStatus.PENDIENTE)).thenReturn(List.of(
+        new Object[] { 1L, ShipmentPriority.BAJA, T0 },
+        new Object[] { 2L, ShipmentPriority.ALTA, T0.plusSeconds(60) },
+        new Object[] { 3L, ShipmentPriority.ALTA, T0 },
+        new Object[] { 4L, null, T0 },
+        new Object[] { 5L, ShipmentPriority.MEDIA, null }));
+    dispatchQueue.reload();
+  }
+
+  private static List<Long> ids(List<DispatchQueue.Entry> entries) {
+    return entries.stream().map(DispatchQueue.Entry::shipmentId).toList();
+  }
+
+  private static ShipmentDTO shipment(long id, ShipmentPriority priority, ShipmentStatus status) {
+    ShipmentDTO dto = new ShipmentDTO();
+    dto.setId(id);
+    dto.setPriority(priority);
+    dto.setStatus(status);
+    return dto;
+  }
+
+  @Test
+  void testPoll_ReturnsPriorityThenAge() {
+    assertEquals(List.of(3L, 2L, 5L, 1L, 4L), ids(dispatchQueue.poll(10)));
+    assertEquals(0, dispatchQueue.size());
+  }
+
+  @Test
+  void testPoll_HandsEachEntryOutOnce() {
+    List<DispatchQueue.Entry> first = dispatchQueue.poll(2);
+
+    assertEquals(List.of(3L, 2L), ids(first));
+    assertEquals(List.of(5L), ids(dispatchQueue.poll(1)));
+    dispatchQueue.requeue(first);
+    assertEquals(List.of(3L, 2L, 1L, 4L), ids(dispatchQueue.poll(10)));
+  }
+
+  @Test
+  void testOnShipmentChanged_PriorityChangeKeepsAge() {
+    ShipmentDTO raised = shipment(1L, ShipmentPriority.ALTA, ShipmentStatus.PENDIENTE);
+
+    dispatchQueue.onShipmentChanged(new ShipmentChangedEvent(ChangeType.UPDATED,
+        shipment(1L, ShipmentPriority.BAJA, ShipmentStatus.PENDIENTE), raised));
+
+    // same priority as 3 and 2 and created with 3, so it ties on age and goes by id
+    assertEquals(List.of(1L, 3L, 2L), ids(dispatchQueue.poll(3)));
+  }
+
+  @Test
+  void testOnShipmentChanged_RemovesAssignedFinishedAndDeleted() {
+    ShipmentDTO assigned = shipment(3L, ShipmentPriority.ALTA, ShipmentStatus.PENDIENTE);
+    assigned.setVehicle(new VehicleDTO());
+    dispatchQueue.onShipmentChanged(new ShipmentChangedEvent(ChangeType.UPDATED, null, assigned));
+    dispatchQueue.onShipmentChanged(new ShipmentChangedEvent(ChangeType.UPDATED, null,
+        shipment(2L, ShipmentPriority.ALTA, ShipmentStatus.CANCELADO)));
+    dispatchQueue.onShipmentChanged(new ShipmentChangedEvent(ChangeType.DELETED,
+        shipment(5L, ShipmentPriority.MEDIA, ShipmentStatus.PENDIENTE), null));
+
+    assertEquals(List.of(1L, 4L), ids(dispatchQueue.poll(10)));
+  }
+
+  @Test
+  void testOnShipmentChanged_AddsNewShipment() {
+    dispatchQueue.onShipmentChanged(new ShipmentChangedEvent(ChangeType.CREATED, null,
+        shipment(9L, ShipmentPriority.ALTA, ShipmentStatus.PENDIENTE)));
+
+    assertEquals(List.of(3L, 2L, 9L), ids(dispatchQueue.poll(3)));
+  }
+
+  @Test
+  void testPoll_ConcurrentCallersNeverShareEntries() throws Exception {
+    for (long id = 100; id < 5100; id++)
+      dispatchQueue.offer(id, ShipmentPriority.values()[(int) (id % 3)], T0.plusSeconds(id));
+    int expected = dispatchQueue.size();
+
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<List<DispatchQueue.Entry>>> futures = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        List<DispatchQueue.Entry> taken = new ArrayList<>();
+        List<DispatchQueue.Entry> batch;
+        while (!(batch = dispatchQueue.poll(7)).isEmpty())
+          taken.addAll(batch);
+        return taken;
+      }));
+    }
+    start.countDown();
+    Set<Long> seen = ConcurrentHashMap.newKeySet();
+    int total = 0;
+    for (Future<List<DispatchQueue.Entry>> future : futures) {
+      for (DispatchQueue.Entry entry : future.get()) {
+        assertTrue(seen.add(entry.shipmentId()), "entry " + entry.shipmentId() + " polled twice");
+        total++;
+      }
+    }
+    executor.shutdown();
+    assertEquals(expected, total);
+  }
+}
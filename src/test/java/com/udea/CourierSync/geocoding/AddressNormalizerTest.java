@@ -0,0 +1,28 @@
+package com.udea.CourierSync.geocoding;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AddressNormalizerTest {
+
+  @Test
+  void testNormalize_SpellingVariantsShareOneKey() {
+    assertEquals("cl 10 43 12", AddressNormalizer.normalize("Calle 10 # 43-12"));
+    assertEquals("cl 10 43 12", AddressNormalizer.normalize("CL. 10 No 43 - 12"));
+    assertEquals("cl 10 43 12", AddressNormalizer.normalize("  calle 10 #43-12 "));
+  }
+
+  @Test
+  void testNormalize_DropsAccentsAndAbbreviatesStreetTypes() {
+    assertEquals("cr 43a 1 50 medellin", AddressNormalizer.normalize("Carrera 43A No. 1-50, Medellín"));
+    assertEquals("av 80 33 20", AddressNormalizer.normalize("Avenida 80 # 33-20"));
+    assertEquals("dg 75b 2a 80", AddressNormalizer.normalize("Diagonal 75B # 2A-80"));
+  }
+
+  @Test
+  void testNormalize_NullOrBlank_ReturnsEmpty() {
+    assertEquals("", AddressNormalizer.normalize(null));
+    assertEquals("", AddressNormalizer.normalize("  #-, "));
+  }
+}
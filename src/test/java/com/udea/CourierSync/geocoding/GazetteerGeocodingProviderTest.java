@@ -0,0 +1,44 @@
+package com.udea.CourierSync.geocoding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GazetteerGeocodingProviderTest {
+
+  private GazetteerGeocodingProvider provider;
+
+  @BeforeEach
+  void setUp() {
+    String file = """
+        # comment
+        Calle 10 # 43-12;6.2087;-75.5679
+        Carrera 70 # 44-30;6.2486;-75.5898
+        broken line
+        """;
+    provider = new GazetteerGeocodingProvider();
+    ReflectionTestUtils.setField(provider, "gazetteer", new ByteArrayResource(file.getBytes(StandardCharsets.UTF_8)));
+    provider.load();
+  }
+
+  @Test
+  void testGeocode_ExactAndPrefixMatches() {
+    Map<String, Coordinates> found = provider.geocode(List.of("cl 10 43 12", "cr 70 44 30 apto 301", "cl 99 1 1"));
+
+    assertEquals(new Coordinates(6.2087, -75.5679), found.get("cl 10 43 12"));
+    assertEquals(new Coordinates(6.2486, -75.5898), found.get("cr 70 44 30 apto 301"));
+    assertFalse(found.containsKey("cl 99 1 1"));
+  }
+
+  @Test
+  void testGeocode_StreetAloneDoesNotMatchABuilding() {
+    assertTrue(provider.geocode(List.of("cl 10")).isEmpty());
+  }
+}
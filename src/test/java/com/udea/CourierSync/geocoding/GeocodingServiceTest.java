@@ -0,0 +1,149 @@
+package com.udea.CourierSync.geocoding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeocodingServiceTest {
+
+  private final List<Collection<String>> calls = new ArrayList<>();
+  private final Map<String, Coordinates> places = new HashMap<>();
+  private GeocodingService service;
+  private InMemoryGeocodeCacheStore store;
+
+  @BeforeEach
+  void setUp() {
+    places.put("cl 10 43 12", new Coordinates(6.2087, -75.5679));
+    store = new InMemoryGeocodeCacheStore();
+    service = newService();
+  }
+
+  private GeocodingService newService() {
+    GeocodingService geocoding = new GeocodingService();
+    GeocodingProvider provider = keys -> {
+      calls.add(List.copyOf(keys));
+      Map<String, Coordinates> found = new HashMap<>();
+      for (String key : keys) {
+        if (places.containsKey(key))
+          found.put(key, places.get(key));
+      }
+      return found;
+    };
+    ReflectionTestUtils.setField(geocoding, "provider", provider);
+    ReflectionTestUtils.setField(geocoding, "store", store);
+    ReflectionTestUtils.setField(geocoding, "maxSize", 100);
+    ReflectionTestUtils.setField(geocoding, "ttlSeconds", 3600L);
+    ReflectionTestUtils.setField(geocoding, "missTtlSeconds", 3600L);
+    geocoding.init();
+    return geocoding;
+  }
+
+  @Test
+  void testGeocodeAll_VariantsOfOneAddressCostOneLookup() {
+    Map<String, Coordinates> found = service.geocodeAll(List.of("Calle 10 # 43-12", "CL. 10 No 43 - 12", "Nowhere 1"));
+
+    assertEquals(2, found.size());
+    assertEquals(new Coordinates(6.2087, -75.5679), found.get("CL. 10 No 43 - 12"));
+    assertEquals(1, calls.size());
+    assertEquals(2, calls.get(0).size());
+  }
+
+  @Test
+  void testGeocodeAll_SecondCallServedFromMemory() {
+    service.geocodeAll(List.of("Calle 10 # 43-12", "Nowhere 1"));
+    Map<String, Coordinates> found = service.geocodeAll(List.of("calle 10 #43-12", "Nowhere 1"));
+
+    assertEquals(1, found.size());
+    assertEquals(1, calls.size());
+  }
+
+  @Test
+  void testGeocodeAll_NewNodeReadsTheStore() {
+    service.geocodeAll(List.of("Calle 10 # 43-12"));
+
+    Map<String, Coordinates> found = newService().geocodeAll(List.of("Calle 10 # 43-12"));
+
+    assertEquals(1, found.size());
+    assertEquals(1, calls.size());
+  }
+
+  @Test
+  void testGeocodeAll_ExpiredMissIsAskedAgain() {
+    store.saveAll(Map.of("cl 99 1 1", GeocodeEntry.miss(Instant.now().minusSeconds(7200))));
+    places.put("cl 99 1 1", new Coordinates(6.25, -75.57));
+
+    Map<String, Coordinates> found = service.geocodeAll(List.of("Calle 99 # 1-1"));
+
+    assertEquals(new Coordinates(6.25, -75.57), found.get("Calle 99 # 1-1"));
+    assertTrue(store.findAll(List.of("cl 99 1 1")).get("cl 99 1 1").found());
+  }
+
+  @Test
+  void testGeocodeAll_ProviderFailureLeavesAddressesUnlocated() {
+    ReflectionTestUtils.setField(service, "provider", (GeocodingProvider) keys -> {
+      throw new IllegalStateException("down");
+    });
+
+    assertTrue(service.geocodeAll(List.of("Calle 10 # 43-12")).isEmpty());
+    assertTrue(store.findAll(List.of("cl 10 43 12")).isEmpty());
+  }
+
+  @Test
+  void testGeocodeAll_StoreFailuresAreMissesAndSkippedWrites() {
+    ReflectionTestUtils.setField(service, "store", new GeocodeCacheStore() {
+      @Override
+      public Map<String, GeocodeEntry> findAll(Collection<String> addressKeys) {
+        throw new IllegalStateException("store down");
+      }
+
+      @Override
+      public void saveAll(Map<String, GeocodeEntry> entries) {
+        throw new IllegalStateException("store down");
+      }
+    });
+
+    Map<String, Coordinates> found = service.geocodeAll(List.of("Calle 10 # 43-12"));
+
+    assertEquals(new Coordinates(6.2087, -75.5679), found.get("Calle 10 # 43-12"));
+    assertEquals(1, calls.size());
+  }
+
+  @Test
+  void testGeocodeAll_InsideATransaction_WritesTheStoreAfterItEnds() throws InterruptedException {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      service.geocodeAll(List.of("Calle 10 # 43-12"));
+      assertTrue(store.findAll(List.of("cl 10 43 12")).isEmpty());
+
+      for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations())
+        synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    ExecutorService writer = (ExecutorService) ReflectionTestUtils.getField(service, "writer");
+    writer.shutdown();
+    assertTrue(writer.awaitTermination(5, TimeUnit.SECONDS));
+
+    assertTrue(store.findAll(List.of("cl 10 43 12")).get("cl 10 43 12").found());
+  }
+
+  @Test
+  void testGeocode_NullOrBlank_ReturnsEmpty() {
+    assertTrue(service.geocode(null).isEmpty());
+    assertTrue(service.geocode("  ").isEmpty());
+    assertTrue(calls.isEmpty());
+  }
+}
@@ -0,0 +1,107 @@
+package com.udea.CourierSync.idempotency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs without the test transaction so each statement commits the way it does for IdempotencyService.
+@DataJpaTest(properties = "app.idempotency.store=database")
+@ActiveProfiles("test")
+@Import(DatabaseIdempotencyStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DatabaseIdempotencyStoreTest {
+
+  @Autowired
+  private DatabaseIdempotencyStore store;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setUp() {
+    // the table has no entity, so ddl-auto does not create it
+    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS idempotency_key (idempotency_key VARCHAR(600) PRIMARY KEY,"
+        + " request_hash VARCHAR(64) NOT NULL, status INTEGER, body TEXT, created_at TIMESTAMP NOT NULL,"
+        + " expires_at TIMESTAMP NOT NULL)");
+    jdbcTemplate.update("DELETE FROM idempotency_key");
+  }
+
+  @Test
+  void testReserve_SecondReservationOfTheKeyFails() {
+    assertTrue(store.reserve("k1", "h1"));
+    assertFalse(store.reserve("k1", "h1"));
+
+    Optional<IdempotencyEntry> entry = store.find("k1");
+    assertTrue(entry.isPresent());
+    assertEquals("h1", entry.get().requestHash());
+    assertFalse(entry.get().isCompleted());
+  }
+
+  @Test
+  void testReserve_ReplacesAnExpiredReservation() {
+    Timestamp past = Timestamp.from(Instant.now().minusSeconds(5));
+    jdbcTemplate.update("INSERT INTO idempotency_key (idempotency_key, request_hash, created_at, expires_at)"
+        + " VALUES (?, ?, ?, ?)", "k1", "old", past, past);
+
+    assertTrue(store.find("k1").isEmpty());
+    assertTrue(store.reserve("k1", "h1"));
+    assertEquals("h1", store.find("k1").orElseThrow().requestHash());
+  }
+
+  @Test
+  void testComplete_StoresTheResponseAndSurvivesRelease() {
+    store.reserve("k1", "h1");
+
+    store.complete("k1", "h1", 201, "{\"id\":7}");
+    store.release("k1");
+
+    IdempotencyEntry entry = store.find("k1").orElseThrow();
+    assertEquals(201, entry.status());
+    assertEquals("{\"id\":7}", entry.body());
+  }
+
+  @Test
+  void testComplete_RolledBackWithTheCallersTransaction() {
+    store.reserve("k1", "h1");
+
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      store.complete("k1", "h1", 201, "{\"id\":7}");
+      status.setRollbackOnly();
+    });
+
+    // the reservation stays in progress, so release frees the key for a retry
+    assertFalse(store.find("k1").orElseThrow().isCompleted());
+    store.release("k1");
+    assertTrue(store.find("k1").isEmpty());
+  }
+
+  @Test
+  void testPurgeExpired_RemovesOnlyExpiredKeys() {
+    Timestamp past = Timestamp.from(Instant.now().minusSeconds(5));
+    jdbcTemplate.update("INSERT INTO idempotency_key (idempotency_key, request_hash, created_at, expires_at)"
+        + " VALUES (?, ?, ?, ?)", "old", "h0", past, past);
+    store.reserve("k1", "h1");
+
+    store.purgeExpired();
+
+    assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_key", Integer.class));
+    assertTrue(store.find("k1").isPresent());
+  }
+}
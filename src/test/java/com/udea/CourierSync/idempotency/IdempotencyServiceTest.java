@@ -0,0 +1,147 @@
+package com.udea.CourierSync.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.exception.BadRequestException;
+import com.udea.CourierSync.exception.ConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+  private IdempotencyService service;
+  private InMemoryIdempotencyStore store;
+  private ShipmentDTO request;
+  private PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setUp() {
+    store = new InMemoryIdempotencyStore();
+    ReflectionTestUtils.setField(store, "maxKeys", 100);
+    ReflectionTestUtils.setField(store, "ttlSeconds", 60L);
+    store.init();
+
+    service = new IdempotencyService();
+    ReflectionTestUtils.setField(service, "store", store);
+    ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper().findAndRegisterModules());
+    transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+    service.init();
+
+    request = new ShipmentDTO();
+    request.setTrackingCode("CS1");
+  }
+
+  private ResponseEntity<ShipmentDTO> created(AtomicInteger calls) {
+    calls.incrementAndGet();
+    ShipmentDTO dto = new ShipmentDTO();
+    dto.setId(7L);
+    dto.setTrackingCode("CS1");
+    return ResponseEntity.status(HttpStatus.CREATED).body(dto);
+  }
+
+  @Test
+  void testExecute_NoKey_AlwaysRunsAction() {
+    AtomicInteger calls = new AtomicInteger();
+
+    service.execute(null, "op", request, ShipmentDTO.class, () -> created(calls));
+    service.execute(null, "op", request, ShipmentDTO.class, () -> created(calls));
+
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void testExecute_RetryWithSameKey_ReplaysStoredResponse() {
+    AtomicInteger calls = new AtomicInteger();
+
+    service.execute("k1", "op", request, ShipmentDTO.class, () -> created(calls));
+    ResponseEntity<ShipmentDTO> replayed = service.execute("k1", "op", request, ShipmentDTO.class, () -> created(calls));
+
+    assertEquals(1, calls.get());
+    assertEquals(HttpStatus.CREATED, replayed.getStatusCode());
+    assertEquals(7L, replayed.getBody().getId());
+    assertEquals("true", replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+  }
+
+  @Test
+  void testExecute_SameKeyDifferentRequest_ThrowsBadRequest() {
+    AtomicInteger calls = new AtomicInteger();
+    service.execute("k1", "op", request, ShipmentDTO.class, () -> created(calls));
+
+    ShipmentDTO other = new ShipmentDTO();
+    other.setTrackingCode("CS2");
+
+    assertThrows(BadRequestException.class,
+        () -> service.execute("k1", "op", other, ShipmentDTO.class, () -> created(calls)));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void testExecute_KeyStillInProgress_ThrowsConflict() {
+    AtomicInteger calls = new AtomicInteger();
+
+    assertThrows(ConflictException.class, () -> service.execute("k1", "op", request, ShipmentDTO.class,
+        () -> service.execute("k1", "op", request, ShipmentDTO.class, () -> created(calls))));
+    assertEquals(0, calls.get());
+  }
+
+  @Test
+  void testExecute_ActionFails_ReleasesKeyForRetry() {
+    AtomicInteger calls = new AtomicInteger();
+
+    assertThrows(IllegalStateException.class, () -> service.execute("k1", "op", request, ShipmentDTO.class, () -> {
+      throw new IllegalStateException("boom");
+    }));
+    service.execute("k1", "op", request, ShipmentDTO.class, () -> created(calls));
+
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void testExecute_KeysAreScopedByOperation() {
+    AtomicInteger calls = new AtomicInteger();
+
+    service.execute("k1", "op-a", request, ShipmentDTO.class, () -> created(calls));
+    service.execute("k1", "op-b", request, ShipmentDTO.class, () -> created(calls));
+
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void testExecute_CommitFails_ReleasesKeyForRetry() {
+    AtomicInteger calls = new AtomicInteger();
+    doThrow(new IllegalStateException("commit failed")).doNothing()
+        .when(transactionManager).commit(any(TransactionStatus.class));
+
+    assertThrows(IllegalStateException.class,
+        () -> service.execute("k1", "op", request, ShipmentDTO.class, () -> created(calls)));
+    ResponseEntity<ShipmentDTO> retried = service.execute("k1", "op", request, ShipmentDTO.class, () -> created(calls));
+
+    // the first write rolled back with its stored response, so the retry runs it again
+    assertEquals(2, calls.get());
+    assertNull(retried.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+  }
+
+  @Test
+  void testExecute_ActionFails_RollsBackItsTransaction() {
+    assertThrows(IllegalStateException.class, () -> service.execute("k1", "op", request, ShipmentDTO.class, () -> {
+      throw new IllegalStateException("boom");
+    }));
+
+    verify(transactionManager).rollback(any(TransactionStatus.class));
+    verify(transactionManager, never()).commit(any(TransactionStatus.class));
+  }
+}
@@ -0,0 +1,118 @@
+package com.udea.CourierSync.planning;
+
+import com.udea.CourierSync.enums.RouteStopType;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutePlannerTest {
+
+  private static final long NO_LIMIT = Long.MAX_VALUE / 2;
+
+  private static RoutePlanner.Stop delivery(long id, Double lat, Double lng, ShipmentPriority priority) {
+    return new RoutePlanner.Stop(id, RouteStopType.DELIVERY, lat, lng, priority);
+  }
+
+  private static RoutePlanner.Stop pickup(long id, Double lat, Double lng) {
+    return new RoutePlanner.Stop(id, RouteStopType.PICKUP, lat, lng, ShipmentPriority.MEDIA);
+  }
+
+  private static List<Long> ids(RoutePlanner.Route route) {
+    return route.stops().stream().map(RoutePlanner.Stop::shipmentId).toList();
+  }
+
+  private static long deadline() {
+    return System.nanoTime() + NO_LIMIT;
+  }
+
+  @Test
+  void testPlan_StopsOnALineAreVisitedInOrder() {
+    List<RoutePlanner.Stop> stops = List.of(
+        delivery(3L, 6.0, -75.03, null),
+        delivery(1L, 6.0, -75.01, null),
+        delivery(4L, 6.0, -75.04, null),
+        delivery(2L, 6.0, -75.02, null));
+
+    RoutePlanner.Route route = RoutePlanner.plan(stops, 6.0, -75.0, deadline());
+
+    assertEquals(List.of(1L, 2L, 3L, 4L), ids(route));
+    assertTrue(route.converged());
+    // 0.04 degrees of longitude at 6 degrees north
+    assertEquals(4.42, route.distanceKm(), 0.01);
+  }
+
+  @Test
+  void testPlan_PickupsBeforeDeliveries() {
+    List<RoutePlanner.Stop> stops = List.of(
+        delivery(1L, 6.0, -75.01, ShipmentPriority.ALTA),
+        pickup(1L, 6.0, -75.05),
+        delivery(2L, 6.0, -75.02, ShipmentPriority.MEDIA),
+        pickup(2L, 6.0, -75.06));
+
+    RoutePlanner.Route route = RoutePlanner.plan(stops, 6.0, -75.0, deadline());
+
+    assertEquals(RouteStopType.PICKUP, route.stops().get(0).type());
+    assertEquals(RouteStopType.PICKUP, route.stops().get(1).type());
+    assertEquals(List.of(1L, 2L), ids(route).subList(2, 4));
+  }
+
+  @Test
+  void testPlan_HigherPriorityDeliveredFirst() {
+    // the BAJA stop is next to the start, the ALTA one far away
+    List<RoutePlanner.Stop> stops = List.of(
+        delivery(1L, 6.0, -75.001, ShipmentPriority.BAJA),
+        delivery(2L, 6.0, -75.1, ShipmentPriority.ALTA),
+        delivery(3L, 6.0, -75.05, ShipmentPriority.MEDIA));
+
+    RoutePlanner.Route route = RoutePlanner.plan(stops, 6.0, -75.0, deadline());
+
+    assertEquals(List.of(2L, 3L, 1L), ids(route));
+  }
+
+  @Test
+  void testPlan_UnlocatedStopsGoLast() {
+    List<RoutePlanner.Stop> stops = List.of(
+        delivery(1L, null, null, ShipmentPriority.ALTA),
+        delivery(2L, 6.0, -75.01, ShipmentPriority.BAJA),
+        pickup(3L, null, null),
+        delivery(3L, 6.0, -75.02, ShipmentPriority.ALTA));
+
+    RoutePlanner.Route route = RoutePlanner.plan(stops, null, null, deadline());
+
+    // shipment 3 cannot be delivered before its unlocated pickup
+    assertEquals(List.of(2L, 3L, 1L, 3L), ids(route));
+    assertEquals(RouteStopType.PICKUP, route.stops().get(1).type());
+  }
+
+  @Test
+  void testPlan_ImprovesOnNearestNeighbour() {
+    Random random = new Random(7);
+    List<RoutePlanner.Stop> stops = new ArrayList<>();
+    for (int i = 0; i < 200; i++)
+      stops.add(delivery(i, 6.2 + random.nextDouble() * 0.1, -75.6 + random.nextDouble() * 0.1, null));
+
+    // a deadline already in the past leaves the nearest-neighbour construction untouched
+    RoutePlanner.Route constructed = RoutePlanner.plan(stops, 6.25, -75.55, System.nanoTime() - 1);
+    RoutePlanner.Route improved = RoutePlanner.plan(stops, 6.25, -75.55, deadline());
+
+    assertFalse(constructed.converged());
+    assertTrue(improved.converged());
+    assertEquals(200, improved.stops().size());
+    assertEquals(200, ids(improved).stream().distinct().count());
+    assertTrue(improved.distanceKm() < constructed.distanceKm() * 0.95,
+        improved.distanceKm() + " km vs " + constructed.distanceKm() + " km");
+  }
+
+  @Test
+  void testPlan_Empty() {
+    RoutePlanner.Route route = RoutePlanner.plan(List.of(), null, null, deadline());
+
+    assertTrue(route.stops().isEmpty());
+    assertEquals(0.0, route.distanceKm());
+  }
+}
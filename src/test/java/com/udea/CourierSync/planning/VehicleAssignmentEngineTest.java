@@ -0,0 +1,72 @@
+package com.udea.CourierSync.planning;
+
+import com.udea.CourierSync.enums.ShipmentPriority;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VehicleAssignmentEngineTest {
+
+  private static VehicleAssignmentEngine.Item item(long id, double weight, double volume, ShipmentPriority priority) {
+    return new VehicleAssignmentEngine.Item(id, weight, volume, priority);
+  }
+
+  @Test
+  void testAssign_RespectsWeightAndVolume() {
+    List<VehicleAssignmentEngine.Bin> bins = List.of(
+        new VehicleAssignmentEngine.Bin(10L, 100, 1, 0, 0),
+        new VehicleAssignmentEngine.Bin(20L, 100, 10, 0, 0));
+
+    VehicleAssignmentEngine.Result result = VehicleAssignmentEngine.assign(List.of(
+        item(1L, 10, 5, ShipmentPriority.MEDIA),
+        item(2L, 10, 0.5, ShipmentPriority.MEDIA)), bins);
+
+    // only the second vehicle has room for 5 units of volume
+    assertEquals(20L, result.assignments().get(1L));
+    assertTrue(result.assignments().containsKey(2L));
+    assertTrue(result.unassigned().isEmpty());
+  }
+
+  @Test
+  void testAssign_CountsLoadAlreadyOnVehicle() {
+    List<VehicleAssignmentEngine.Bin> bins = List.of(
+        new VehicleAssignmentEngine.Bin(10L, 100, Double.POSITIVE_INFINITY, 95, 0));
+
+    VehicleAssignmentEngine.Result result = VehicleAssignmentEngine.assign(List.of(
+        item(1L, 10, 1, ShipmentPriority.MEDIA)), bins);
+
+    assertEquals(List.of(1L), result.unassigned());
+  }
+
+  @Test
+  void testAssign_HighPriorityWinsWhenFleetIsShort() {
+    List<VehicleAssignmentEngine.Bin> bins = List.of(
+        new VehicleAssignmentEngine.Bin(10L, 50, Double.POSITIVE_INFINITY, 0, 0));
+
+    VehicleAssignmentEngine.Result result = VehicleAssignmentEngine.assign(List.of(
+        item(1L, 40, 1, ShipmentPriority.BAJA),
+        item(2L, 30, 1, ShipmentPriority.ALTA)), bins);
+
+    assertEquals(10L, result.assignments().get(2L));
+    assertEquals(List.of(1L), result.unassigned());
+  }
+
+  @Test
+  void testAssign_BestFitKeepsLargeVehicleForLargeLoad() {
+    List<VehicleAssignmentEngine.Bin> bins = List.of(
+        new VehicleAssignmentEngine.Bin(10L, 1000, Double.POSITIVE_INFINITY, 0, 0),
+        new VehicleAssignmentEngine.Bin(20L, 100, Double.POSITIVE_INFINITY, 0, 0));
+
+    VehicleAssignmentEngine.Result result = VehicleAssignmentEngine.assign(List.of(
+        item(1L, 880, 1, ShipmentPriority.MEDIA),
+        item(2L, 90, 1, ShipmentPriority.MEDIA),
+        item(3L, 100, 1, ShipmentPriority.MEDIA)), bins);
+
+    assertEquals(10L, result.assignments().get(1L));
+    assertEquals(20L, result.assignments().get(3L));
+    assertEquals(10L, result.assignments().get(2L));
+    assertTrue(result.unassigned().isEmpty());
+  }
+}
@@ -0,0 +1,17 @@
+package com.udea.CourierSync.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Keeps the SQL Hibernate generates so repository tests can assert on it; Hibernate creates the instance
+public class RecordingStatementInspector implements StatementInspector {
+  static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+  @Override
+  public String inspect(String sql) {
+    STATEMENTS.add(sql);
+    return sql;
+  }
+}
@@ -0,0 +1,112 @@
+package com.udea.CourierSync.repository;
+
+import com.udea.CourierSync.entity.Client;
+import com.udea.CourierSync.entity.User;
+import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.entity.VehiclePosition;
+import com.udea.CourierSync.enums.UserRole;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional: the second-level and query caches only see committed data.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+  @Autowired
+  private ClientRepository clientRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private VehicleRepository vehicleRepository;
+
+  @Autowired
+  private VehiclePositionRepository vehiclePositionRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    entityManagerFactory.getCache().evictAll();
+  }
+
+  @AfterEach
+  void tearDown() {
+    clientRepository.deleteAll();
+    userRepository.deleteAll();
+    vehiclePositionRepository.deleteAll();
+    vehicleRepository.deleteAll();
+  }
+
+  @Test
+  void testClientFindById_SecondReadServedFromCache() {
+    Long id = clientRepository.save(new Client(null, "Cached", "cached@example.com", "3001112233", "Calle 1"))
+        .getId();
+    entityManagerFactory.getCache().evictAll();
+    clientRepository.findById(id).orElseThrow();
+    statistics.clear();
+
+    assertEquals("Cached", clientRepository.findById(id).orElseThrow().getName());
+    assertEquals(0, statistics.getPrepareStatementCount());
+    assertEquals(1, statistics.getSecondLevelCacheHitCount());
+  }
+
+  @Test
+  void testUserFindByEmail_UsesQueryCache() {
+    User user = new User();
+    user.setName("Jane");
+    user.setEmail("jane@example.com");
+    user.setPassword("secret");
+    user.setRole(UserRole.ADMIN);
+    userRepository.save(user);
+    userRepository.findByEmail("jane@example.com").orElseThrow();
+    statistics.clear();
+
+    assertEquals("Jane", userRepository.findByEmail("jane@example.com").orElseThrow().getName());
+    assertEquals(1, statistics.getQueryCacheHitCount());
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testVehiclePositionUpdate_LeavesVersionAndCacheEntryAlone() {
+    Vehicle vehicle = vehicleRepository.save(new Vehicle("GPS123", "Van", 1000.0, true));
+    vehiclePositionRepository.save(new VehiclePosition(vehicle.getId(), 6.20, -75.50, Instant.now()));
+    entityManagerFactory.getCache().evictAll();
+    vehicleRepository.findById(vehicle.getId()).orElseThrow();
+    statistics.clear();
+
+    int updated = new TransactionTemplate(transactionManager).execute(status ->
+        vehiclePositionRepository.updatePosition(vehicle.getId(), 6.25, -75.57, Instant.now()));
+    Vehicle reread = vehicleRepository.findById(vehicle.getId()).orElseThrow();
+
+    assertEquals(1, updated);
+    assertEquals(vehicle.getVersion(), reread.getVersion());
+    assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    assertEquals(6.25, vehiclePositionRepository.findById(vehicle.getId()).orElseThrow().getLatitude());
+  }
+}
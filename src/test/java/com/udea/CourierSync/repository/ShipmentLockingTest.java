@@ -0,0 +1,62 @@
+package com.udea.CourierSync.repository;
+
+import com.udea.CourierSync.enums.ShipmentStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Renders the locking queries with the production dialect. H2 cannot run PostgreSQL's locking clauses,
+// so the statements fail there; only the SQL Hibernate generated for them is checked.
+@DataJpaTest(properties = {
+    "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.udea.CourierSync.repository.RecordingStatementInspector" })
+@ActiveProfiles("test")
+class ShipmentLockingTest {
+
+  @Autowired
+  private ShipmentRepository shipmentRepository;
+
+  @Autowired
+  private VehicleRepository vehicleRepository;
+
+  @BeforeEach
+  void setUp() {
+    RecordingStatementInspector.STATEMENTS.clear();
+  }
+
+  private static String lastStatement() {
+    List<String> statements = RecordingStatementInspector.STATEMENTS;
+    assertFalse(statements.isEmpty());
+    return statements.get(statements.size() - 1).toLowerCase();
+  }
+
+  @Test
+  void testLockUnassigned_SkipsLockedRows() {
+    assertThrows(DataAccessException.class, () -> {
+      shipmentRepository.lockUnassigned(List.of(1L), ShipmentStatus.PENDIENTE);
+    });
+
+    String sql = lastStatement();
+    assertTrue(sql.contains("update skip locked"), sql);
+  }
+
+  @Test
+  void testLockVehicleById_WaitsForTheLock() {
+    assertThrows(DataAccessException.class, () -> {
+      vehicleRepository.lockById(1L);
+    });
+
+    // claims for the same vehicle must queue up behind each other, not skip it
+    String sql = lastStatement();
+    assertTrue(sql.contains(" for ") && sql.contains("update"), sql);
+    assertFalse(sql.contains("skip locked"), sql);
+  }
+}
@@ -0,0 +1,146 @@
+package com.udea.CourierSync.repository;
+
+import com.udea.CourierSync.DTO.ShipmentRow;
+import com.udea.CourierSync.DTO.VersionStamp;
+import com.udea.CourierSync.entity.Client;
+import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = { "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.udea.CourierSync.repository.RecordingStatementInspector" })
+@ActiveProfiles("test")
+class ShipmentRepositoryTest {
+
+  private static final int SHIPMENTS = 5;
+
+  @Autowired
+  private ShipmentRepository shipmentRepository;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  private Statistics statistics;
+  private Long firstId;
+
+  @BeforeEach
+  void setUp() {
+    for (int i = 0; i < SHIPMENTS; i++) {
+      Client client = entityManager.persist(new Client(null, "Client " + i, "client" + i + "@example.com",
+          "300000000" + i, "Calle " + i));
+      Vehicle vehicle = entityManager.persist(new Vehicle("ABC10" + i, "NPR", 1000.0, true));
+      Shipment shipment = entityManager.persist(new Shipment("CS" + i, client, vehicle, "Origen " + i,
+          "Destino " + i, 10.0, 1.0, ShipmentPriority.MEDIA, ShipmentStatus.PENDIENTE));
+      if (firstId == null) {
+        firstId = shipment.getId();
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = entityManager.getEntityManager().getEntityManagerFactory()
+        .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    RecordingStatementInspector.STATEMENTS.clear();
+  }
+
+  private static void touchAssociations(List<Shipment> shipments) {
+    for (Shipment shipment : shipments) {
+      assertNotNull(shipment.getClient().getName());
+      assertNotNull(shipment.getVehicle().getPlate());
+    }
+  }
+
+  @Test
+  void testFindStampById_ChangesWhenTheClientChanges() {
+    VersionStamp before = shipmentRepository.findStampById(firstId).orElseThrow();
+    Shipment shipment = entityManager.find(Shipment.class, firstId);
+    shipment.getClient().setPhone("3999999999");
+    entityManager.flush();
+    entityManager.clear();
+
+    VersionStamp after = shipmentRepository.findStampById(firstId).orElseThrow();
+
+    assertNotEquals(before.tag(), after.tag());
+    assertEquals(before.tag().substring(0, before.tag().indexOf('-')),
+        after.tag().substring(0, after.tag().indexOf('-')));
+    assertNotNull(after.lastModified());
+    assertFalse(after.lastModified().isBefore(before.lastModified()));
+  }
+
+  @Test
+  void testFindRowPageAfter_FirstPageIsOneStatement() {
+    List<ShipmentRow> rows = shipmentRepository.findRowPageAfter(null, null, null, null, null,
+        PageRequest.ofSize(SHIPMENTS + 1));
+
+    assertEquals(SHIPMENTS, rows.size());
+    assertEquals(firstId, rows.get(0).id());
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testFindById_LoadsClientAndVehicleInOneStatement() {
+    Shipment shipment = shipmentRepository.findById(firstId).orElseThrow();
+    touchAssociations(List.of(shipment));
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testFindByTrackingCode_LoadsClientAndVehicleInOneStatement() {
+    Shipment shipment = shipmentRepository.findByTrackingCode("CS2").orElseThrow();
+    touchAssociations(List.of(shipment));
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testFindRowPageAfter_SelectsProjectionWithoutEntities() {
+    List<ShipmentRow> rows = shipmentRepository.findRowPageAfter(firstId, null, null, null, null,
+        PageRequest.ofSize(SHIPMENTS + 1));
+
+    assertEquals(SHIPMENTS - 1, rows.size());
+    assertEquals("ABC101", rows.get(0).vehiclePlate());
+    assertEquals("Client 1", rows.get(0).toDTO().getClient().getName());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void testFindRowPageAfter_OnlyFiltersOnSuppliedParameters() {
+    Long clientId = shipmentRepository.findRowByTrackingCode("CS2").orElseThrow().clientId();
+    RecordingStatementInspector.STATEMENTS.clear();
+
+    List<ShipmentRow> rows = shipmentRepository.findRowPageAfter(firstId, ShipmentStatus.PENDIENTE, null, clientId,
+        null, PageRequest.ofSize(SHIPMENTS));
+
+    assertEquals(List.of("CS2"), rows.stream().map(ShipmentRow::trackingCode).toList());
+    // no "(? is null or ...)" guards, so PostgreSQL can seek on the matching index
+    String sql = RecordingStatementInspector.STATEMENTS.get(0).toLowerCase();
+    assertFalse(sql.contains("is null"), sql);
+    assertFalse(sql.contains("priority=?") || sql.contains("priority = ?"), sql);
+  }
+
+  @Test
+  void testFindRowByTrackingCode_ReturnsRow() {
+    ShipmentRow row = shipmentRepository.findRowByTrackingCode("CS3").orElseThrow();
+
+    assertEquals("Destino 3", row.destinationAddress());
+    assertTrue(row.vehicleAvailable());
+  }
+}
@@ -0,0 +1,62 @@
+package com.udea.CourierSync.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+
+  private JwtTokenProvider tokenProvider;
+  private String token;
+
+  @BeforeEach
+  void setUp() {
+    tokenProvider = new JwtTokenProvider();
+    ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "23b73933d4b6588568f142cd423b9c0e");
+    ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 60000);
+    ReflectionTestUtils.setField(tokenProvider, "verifiedCacheMaxSize", 10);
+    ReflectionTestUtils.setField(tokenProvider, "verifiedCacheTtlSeconds", 60L);
+    tokenProvider.init();
+
+    UserPrincipal principal = new UserPrincipal(7L, "Jane", "jane@example.com", "secret",
+        Collections.emptyList());
+    token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(principal, null));
+  }
+
+  @Test
+  void testParse_ValidToken_ReturnsClaims() {
+    Optional<Claims> claims = tokenProvider.parse(token);
+
+    assertTrue(claims.isPresent());
+    assertEquals(7L, tokenProvider.getUserId(claims.get()));
+  }
+
+  @Test
+  void testParse_SameTokenTwice_ReusesVerifiedClaims() {
+    Claims first = tokenProvider.parse(token).orElseThrow();
+    Claims second = tokenProvider.parse(token).orElseThrow();
+
+    assertSame(first, second);
+  }
+
+  @Test
+  void testParse_TamperedToken_ReturnsEmpty() {
+    int signatureStart = token.lastIndexOf('.') + 1;
+    char replacement = token.charAt(signatureStart) == 'A' ? 'B' : 'A';
+    String tampered = token.substring(0, signatureStart) + replacement + token.substring(signatureStart + 1);
+
+    assertTrue(tokenProvider.parse(tampered).isEmpty());
+  }
+
+  @Test
+  void testParse_Garbage_ReturnsEmpty() {
+    assertFalse(tokenProvider.validateToken("not-a-jwt"));
+  }
+}
@@ -1,5 +1,6 @@
 package com.udea.CourierSync.services;
 
+import com.udea.CourierSync.cache.InvalidationBus;
 import com.udea.CourierSync.DTO.ClientDTO;
 import com.udea.CourierSync.entity.Client;
 import com.udea.CourierSync.exception.BadRequestException;
@@ -30,6 +31,12 @@ class ClientServiceTest {
   @Mock
   private ClientMapper clientMapper;
 
+  @Mock
+  private DashboardMetricsService dashboardMetricsService;
+
+  @Mock
+  private InvalidationBus invalidationBus;
+
   @InjectMocks
   private ClientService clientService;
 
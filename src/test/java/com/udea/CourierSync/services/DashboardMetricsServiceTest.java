@@ -0,0 +1,93 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.enums.ChangeType;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import com.udea.CourierSync.repository.ClientRepository;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import com.udea.CourierSync.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardMetricsServiceTest {
+
+  @Mock
+  private ShipmentRepository shipmentRepository;
+
+  @Mock
+  private ClientRepository clientRepository;
+
+  @Mock
+  private UserRepository userRepository;
+
+  @InjectMocks
+  private DashboardMetricsService dashboardMetricsService;
+
+  private static ShipmentDTO shipment(ShipmentStatus status, ShipmentPriority priority) {
+    ShipmentDTO dto = new ShipmentDTO();
+    dto.setId(1L);
+    dto.setTrackingCode("CS1");
+    dto.setStatus(status);
+    dto.setPriority(priority);
+    return dto;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Long> section(String name) {
+    return (Map<String, Long>) dashboardMetricsService.snapshot().get(name);
+  }
+
+  @Test
+  void testOnShipmentChanged_TracksCreateUpdateAndDelete() {
+    ShipmentDTO pending = shipment(ShipmentStatus.PENDIENTE, ShipmentPriority.ALTA);
+    ShipmentDTO inTransit = shipment(ShipmentStatus.EN_TRANSITO, ShipmentPriority.ALTA);
+
+    dashboardMetricsService.onShipmentChanged(new ShipmentChangedEvent(ChangeType.CREATED, null, pending));
+    dashboardMetricsService.onShipmentChanged(new ShipmentChangedEvent(ChangeType.UPDATED, pending, inTransit));
+
+    assertEquals(1L, dashboardMetricsService.snapshot().get("shipments"));
+    assertEquals(0L, section("shipmentsByStatus").get("PENDIENTE"));
+    assertEquals(1L, section("shipmentsByStatus").get("EN_TRANSITO"));
+    assertEquals(1L, section("shipmentsByPriority").get("ALTA"));
+
+    dashboardMetricsService.onShipmentChanged(new ShipmentChangedEvent(ChangeType.DELETED, inTransit, null));
+
+    assertEquals(0L, dashboardMetricsService.snapshot().get("shipments"));
+    assertEquals(0L, section("shipmentsByStatus").get("EN_TRANSITO"));
+    assertEquals(0L, section("shipmentsByPriority").get("ALTA"));
+  }
+
+  @Test
+  void testReconcile_ReplacesCountersWithDatabaseCounts() {
+    dashboardMetricsService.clientsChanged(5);
+    when(shipmentRepository.count()).thenReturn(3L);
+    when(clientRepository.count()).thenReturn(2L);
+    when(userRepository.count()).thenReturn(4L);
+    when(shipmentRepository.countByStatus()).thenReturn(List.<Object[]>of(
+        new Object[] { ShipmentStatus.PENDIENTE, 2L }, new Object[] { ShipmentStatus.ENTREGADO, 1L }));
+    when(shipmentRepository.countByPriority()).thenReturn(List.<Object[]>of(
+        new Object[] { ShipmentPriority.BAJA, 3L }));
+
+    dashboardMetricsService.reconcile();
+
+    Map<String, Object> metrics = dashboardMetricsService.snapshot();
+    assertEquals(3L, metrics.get("shipments"));
+    assertEquals(2L, metrics.get("clients"));
+    assertEquals(4L, metrics.get("users"));
+    assertEquals(2L, section("shipmentsByStatus").get("PENDIENTE"));
+    assertEquals(0L, section("shipmentsByStatus").get("EN_TRANSITO"));
+    assertEquals(3L, section("shipmentsByPriority").get("BAJA"));
+  }
+}
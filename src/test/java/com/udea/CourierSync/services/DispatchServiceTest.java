@@ -0,0 +1,183 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.DispatchRequestDTO;
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.dispatch.DispatchQueue;
+import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import com.udea.CourierSync.exception.BadRequestException;
+import com.udea.CourierSync.exception.ConflictException;
+import com.udea.CourierSync.mapper.ShipmentMapper;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import com.udea.CourierSync.repository.VehicleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DispatchServiceTest {
+
+  @Mock
+  private DispatchQueue dispatchQueue;
+
+  @Mock
+  private ShipmentRepository shipmentRepository;
+
+  @Mock
+  private VehicleRepository vehicleRepository;
+
+  @Mock
+  private ShipmentMapper shipmentMapper;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private InvalidationBus invalidationBus;
+
+  @InjectMocks
+  private DispatchService dispatchService;
+
+  private Vehicle vehicle;
+
+  @BeforeEach
+  void setUp() {
+    vehicle = new Vehicle();
+    vehicle.setId(7L);
+    vehicle.setPlate("ABC123");
+    vehicle.setAvailable(true);
+    vehicle.setMaximumCapacity(100.0);
+    vehicle.setMaximumVolume(10.0);
+  }
+
+  private static DispatchQueue.Entry entry(long id) {
+    return new DispatchQueue.Entry(id, ShipmentPriority.ALTA, null);
+  }
+
+  private static Shipment shipment(long id) {
+    Shipment shipment = new Shipment();
+    shipment.setId(id);
+    shipment.setTrackingCode("CS" + id);
+    shipment.setStatus(ShipmentStatus.PENDIENTE);
+    shipment.setWeight(10.0);
+    shipment.setVolume(1.0);
+    return shipment;
+  }
+
+  @Test
+  void testClaimNext_TopsUpWhatCouldNotBeLocked() {
+    Shipment first = shipment(1L);
+    Shipment third = shipment(3L);
+    when(vehicleRepository.lockById(7L)).thenReturn(Optional.of(vehicle));
+    when(dispatchQueue.poll(2)).thenReturn(List.of(entry(1L), entry(2L)));
+    when(dispatchQueue.poll(1)).thenReturn(List.of(entry(3L)));
+    // 2 was claimed by another replica
+    when(shipmentRepository.lockUnassigned(Set.of(1L, 2L), ShipmentStatus.PENDIENTE)).thenReturn(List.of(first));
+    when(shipmentRepository.lockUnassigned(Set.of(3L), ShipmentStatus.PENDIENTE)).thenReturn(List.of(third));
+    when(shipmentMapper.toDTO(any(Shipment.class))).thenAnswer(invocation -> {
+      ShipmentDTO dto = new ShipmentDTO();
+      dto.setId(((Shipment) invocation.getArgument(0)).getId());
+      return dto;
+    });
+
+    List<ShipmentDTO> result = dispatchService.claimNext(new DispatchRequestDTO(7L, 2));
+
+    assertEquals(List.of(1L, 3L), result.stream().map(ShipmentDTO::getId).toList());
+    assertSame(vehicle, first.getVehicle());
+    assertSame(vehicle, third.getVehicle());
+    verify(shipmentRepository).saveAllAndFlush(List.of(first, third));
+    verify(eventPublisher, times(2)).publishEvent(any(ShipmentChangedEvent.class));
+    verify(invalidationBus).publish(CacheRegion.SHIPMENT, "CS1");
+  }
+
+  @Test
+  void testClaimNext_StopsAtTheFirstShipmentThatDoesNotFit() {
+    Shipment first = shipment(1L);
+    Shipment heavy = shipment(2L);
+    heavy.setWeight(31.0);
+    Shipment light = shipment(3L);
+    when(vehicleRepository.lockById(7L)).thenReturn(Optional.of(vehicle));
+    // 60 of 100 kg already on board
+    when(shipmentRepository.sumLoadOfVehicle(eq(7L), any())).thenReturn(List.<Object[]>of(new Object[] { 7L, 60.0, 2.0 }));
+    when(dispatchQueue.poll(3)).thenReturn(List.of(entry(1L), entry(2L), entry(3L)));
+    when(shipmentRepository.lockUnassigned(Set.of(1L, 2L, 3L), ShipmentStatus.PENDIENTE))
+        .thenReturn(List.of(first, heavy, light));
+    when(shipmentMapper.toDTO(any(Shipment.class))).thenAnswer(invocation -> {
+      ShipmentDTO dto = new ShipmentDTO();
+      dto.setId(((Shipment) invocation.getArgument(0)).getId());
+      return dto;
+    });
+
+    List<ShipmentDTO> result = dispatchService.claimNext(new DispatchRequestDTO(7L, 3));
+
+    assertEquals(List.of(1L), result.stream().map(ShipmentDTO::getId).toList());
+    assertNull(heavy.getVehicle());
+    assertNull(light.getVehicle());
+    verify(dispatchQueue).requeue(List.of(entry(2L), entry(3L)));
+    verify(dispatchQueue, times(1)).poll(anyInt());
+    verify(shipmentRepository).saveAllAndFlush(List.of(first));
+  }
+
+  @Test
+  void testClaimNext_FullVehicleClaimsNothing() {
+    when(vehicleRepository.lockById(7L)).thenReturn(Optional.of(vehicle));
+    when(shipmentRepository.sumLoadOfVehicle(eq(7L), any())).thenReturn(List.<Object[]>of(new Object[] { 7L, 95.0, 2.0 }));
+    when(dispatchQueue.poll(1)).thenReturn(List.of(entry(1L)));
+    when(shipmentRepository.lockUnassigned(Set.of(1L), ShipmentStatus.PENDIENTE)).thenReturn(List.of(shipment(1L)));
+
+    assertTrue(dispatchService.claimNext(new DispatchRequestDTO(7L, 1)).isEmpty());
+    verify(dispatchQueue).requeue(List.of(entry(1L)));
+    verify(shipmentRepository, never()).saveAllAndFlush(any());
+  }
+
+  @Test
+  void testClaimNext_EmptyQueueReturnsNothing() {
+    when(vehicleRepository.lockById(7L)).thenReturn(Optional.of(vehicle));
+    when(dispatchQueue.poll(1)).thenReturn(List.of());
+
+    assertTrue(dispatchService.claimNext(new DispatchRequestDTO(7L, null)).isEmpty());
+    verify(shipmentRepository, never()).lockUnassigned(any(), any());
+    verify(shipmentRepository, never()).saveAllAndFlush(any());
+  }
+
+  @Test
+  void testClaimNext_UnavailableVehicle_ThrowsConflict() {
+    vehicle.setAvailable(false);
+    when(vehicleRepository.lockById(7L)).thenReturn(Optional.of(vehicle));
+
+    assertThrows(ConflictException.class, () -> {
+      dispatchService.claimNext(new DispatchRequestDTO(7L, 1));
+    });
+    verify(dispatchQueue, never()).poll(anyInt());
+  }
+
+  @Test
+  void testClaimNext_InvalidCount_ThrowsException() {
+    assertThrows(BadRequestException.class, () -> {
+      dispatchService.claimNext(new DispatchRequestDTO(7L, DispatchService.MAX_CLAIM + 1));
+    });
+    assertThrows(BadRequestException.class, () -> {
+      dispatchService.claimNext(new DispatchRequestDTO(null, 1));
+    });
+    verifyNoInteractions(dispatchQueue, vehicleRepository);
+  }
+}
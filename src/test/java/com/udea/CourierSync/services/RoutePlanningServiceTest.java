@@ -0,0 +1,107 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.RouteDTO;
+import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.enums.RouteStopType;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.exception.ResourceNotFoundException;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import com.udea.CourierSync.repository.VehiclePositionRepository;
+import com.udea.CourierSync.repository.VehicleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoutePlanningServiceTest {
+
+  @Mock
+  private ShipmentRepository shipmentRepository;
+
+  @Mock
+  private VehicleRepository vehicleRepository;
+
+  @Mock
+  private VehiclePositionRepository vehiclePositionRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @InjectMocks
+  private RoutePlanningService routePlanningService;
+
+  private Vehicle vehicle;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(routePlanningService, "parallelism", 2);
+    ReflectionTestUtils.setField(routePlanningService, "timeBudgetMs", 2000L);
+    routePlanningService.start();
+    vehicle = new Vehicle();
+    vehicle.setId(7L);
+    vehicle.setPlate("ABC123");
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+  }
+
+  @AfterEach
+  void tearDown() {
+    routePlanningService.stop();
+  }
+
+  private Shipment shipment(long id, ShipmentStatus status) {
+    Shipment shipment = new Shipment();
+    shipment.setId(id);
+    shipment.setTrackingCode("CS" + id);
+    shipment.setStatus(status);
+    shipment.setPriority(ShipmentPriority.MEDIA);
+    shipment.setVehicle(vehicle);
+    shipment.setOriginAddress("Origen " + id);
+    shipment.setOriginLatitude(6.2);
+    shipment.setOriginLongitude(-75.5);
+    shipment.setDestinationAddress("Destino " + id);
+    shipment.setDestinationLatitude(6.3);
+    shipment.setDestinationLongitude(-75.6);
+    return shipment;
+  }
+
+  @Test
+  void testPlanRoute_PlansFromRecordsAfterTheReadTransactionCommits() {
+    Shipment shipment = shipment(1L, ShipmentStatus.PENDIENTE);
+    when(vehicleRepository.findById(7L)).thenReturn(Optional.of(vehicle));
+    when(shipmentRepository.findByVehicleIdAndStatusIn(eq(7L), any())).thenReturn(List.of(shipment));
+
+    RouteDTO route = routePlanningService.planRoute(7L);
+
+    verify(transactionManager).commit(any(TransactionStatus.class));
+    assertEquals(2, route.getStops().size());
+    assertEquals(RouteStopType.PICKUP, route.getStops().get(0).getType());
+    assertEquals("Destino 1", route.getStops().get(1).getAddress());
+  }
+
+  @Test
+  void testPlanRoute_UnknownVehicle_RollsBackAndThrows() {
+    when(vehicleRepository.findById(99L)).thenReturn(Optional.empty());
+
+    assertThrows(ResourceNotFoundException.class, () -> routePlanningService.planRoute(99L));
+    verify(transactionManager).rollback(any(TransactionStatus.class));
+    verify(shipmentRepository, never()).findByVehicleIdAndStatusIn(any(), any());
+  }
+}
@@ -0,0 +1,186 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.InMemoryInvalidationBus;
+import com.udea.CourierSync.enums.ChangeType;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import com.udea.CourierSync.exception.TooManyRequestsException;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ShipmentEventHubTest {
+
+  private final InMemoryInvalidationBus invalidationBus = new InMemoryInvalidationBus();
+  private final ShipmentRepository shipmentRepository = mock(ShipmentRepository.class);
+  // emitters handed out by the hub, in subscription order; a plain SseEmitter once this runs out
+  private final Queue<SseEmitter> emitters = new ConcurrentLinkedQueue<>();
+  private ShipmentEventHub hub;
+  private ShipmentDTO shipmentDTO;
+
+  @BeforeEach
+  void setUp() {
+    hub = new ShipmentEventHub() {
+      @Override
+      SseEmitter newEmitter(long timeout) {
+        SseEmitter next = emitters.poll();
+        return next != null ? next : super.newEmitter(timeout);
+      }
+    };
+    ReflectionTestUtils.setField(hub, "maxSubscribers", 3);
+    ReflectionTestUtils.setField(hub, "maxSubscribersPerCode", 2);
+    ReflectionTestUtils.setField(hub, "timeoutMs", 60000L);
+    ReflectionTestUtils.setField(hub, "heartbeatMs", 60000L);
+    ReflectionTestUtils.setField(hub, "stallTimeoutMs", 60000L);
+    ReflectionTestUtils.setField(hub, "invalidationBus", invalidationBus);
+    ReflectionTestUtils.setField(hub, "shipmentRepository", shipmentRepository);
+    hub.start();
+
+    shipmentDTO = new ShipmentDTO();
+    shipmentDTO.setId(1L);
+    shipmentDTO.setTrackingCode("CS1");
+    shipmentDTO.setStatus(ShipmentStatus.PENDIENTE);
+    shipmentDTO.setVersion(0L);
+  }
+
+  @AfterEach
+  void tearDown() {
+    hub.stop();
+  }
+
+  @Test
+  void testSubscribe_ReturnsEmitterAndCountsSubscriber() {
+    SseEmitter emitter = hub.subscribe("CS1", shipmentDTO);
+
+    assertNotNull(emitter);
+    assertEquals(1, hub.getSubscriberCount());
+  }
+
+  @Test
+  void testSubscribe_PerCodeLimitReached_ThrowsException() {
+    hub.subscribe("CS1", shipmentDTO);
+    hub.subscribe("CS1", shipmentDTO);
+
+    assertThrows(TooManyRequestsException.class, () -> hub.subscribe("CS1", shipmentDTO));
+    assertEquals(2, hub.getSubscriberCount());
+  }
+
+  @Test
+  void testSubscribe_GlobalLimitReached_ThrowsException() {
+    hub.subscribe("CS1", shipmentDTO);
+    hub.subscribe("CS2", shipmentDTO);
+    hub.subscribe("CS3", shipmentDTO);
+
+    assertThrows(TooManyRequestsException.class, () -> hub.subscribe("CS4", shipmentDTO));
+    assertEquals(3, hub.getSubscriberCount());
+  }
+
+  @Test
+  void testOnShipmentChanged_NoSubscribers_DoesNothing() {
+    assertDoesNotThrow(() -> hub.onShipmentChanged(
+        new ShipmentChangedEvent(ChangeType.UPDATED, shipmentDTO, shipmentDTO)));
+    assertEquals(0, hub.getSubscriberCount());
+  }
+
+  @Test
+  void testBusKey_RereadsWatchedCodesOnly() {
+    hub.subscribe("CS1", shipmentDTO);
+    when(shipmentRepository.findRowByTrackingCode("CS1")).thenReturn(Optional.empty());
+
+    invalidationBus.publish(CacheRegion.SHIPMENT, "CS2");
+    invalidationBus.publish(CacheRegion.SHIPMENT, "CS1");
+
+    // a change made on another replica reaches this node's subscribers; here the row was deleted there
+    verify(shipmentRepository, timeout(2000)).findRowByTrackingCode("CS1");
+    verify(shipmentRepository, never()).findRowByTrackingCode("CS2");
+    long deadline = System.currentTimeMillis() + 2000;
+    while (hub.getSubscriberCount() > 0 && System.currentTimeMillis() < deadline) {
+      Thread.onSpinWait();
+    }
+    assertEquals(0, hub.getSubscriberCount());
+  }
+
+  @Test
+  void testSend_StalledSubscriberDoesNotHoldUpOthers() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch stalled = new CountDownLatch(1);
+    RecordingEmitter other = new RecordingEmitter();
+    emitters.add(new SseEmitter(60000L) {
+      @Override
+      public void send(SseEventBuilder builder) throws IOException {
+        stalled.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    emitters.add(other);
+
+    try {
+      hub.subscribe("CS1", shipmentDTO);
+      assertTrue(stalled.await(2, TimeUnit.SECONDS));
+      hub.subscribe("CS2", shipmentDTO);
+
+      // the first client's write is stuck, the second still gets its snapshot
+      assertTrue(other.sent.await(2, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  void testOnShipmentChanged_TrackingCodeChanged_ClosesOldCodeSubscribers() throws Exception {
+    RecordingEmitter emitter = new RecordingEmitter();
+    emitters.add(emitter);
+    hub.subscribe("CS1", shipmentDTO);
+    assertTrue(emitter.sent.await(2, TimeUnit.SECONDS));
+
+    ShipmentDTO renamed = new ShipmentDTO();
+    renamed.setId(1L);
+    renamed.setTrackingCode("CS9");
+    renamed.setStatus(ShipmentStatus.PENDIENTE);
+    renamed.setVersion(1L);
+    emitter.sent = new CountDownLatch(1);
+    hub.onShipmentChanged(new ShipmentChangedEvent(ChangeType.UPDATED, shipmentDTO, renamed));
+
+    assertTrue(emitter.sent.await(2, TimeUnit.SECONDS));
+    assertTrue(emitter.completed.await(2, TimeUnit.SECONDS));
+    assertEquals(0, hub.getSubscriberCount());
+  }
+
+  private static final class RecordingEmitter extends SseEmitter {
+    private volatile CountDownLatch sent = new CountDownLatch(1);
+    private final CountDownLatch completed = new CountDownLatch(1);
+
+    private RecordingEmitter() {
+      super(60000L);
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) {
+      sent.countDown();
+    }
+
+    @Override
+    public synchronized void complete() {
+      completed.countDown();
+    }
+  }
+}
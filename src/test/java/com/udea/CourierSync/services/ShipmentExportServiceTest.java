@@ -0,0 +1,122 @@
+package com.udea.CourierSync.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.mapper.ShipmentMapper;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShipmentExportServiceTest {
+
+  @Mock
+  private ShipmentRepository shipmentRepository;
+
+  @Mock
+  private ShipmentMapper shipmentMapper;
+
+  @Mock
+  private EntityManager entityManager;
+
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper();
+
+  @InjectMocks
+  private ShipmentExportService shipmentExportService;
+
+  private Shipment first;
+  private Shipment second;
+
+  @BeforeEach
+  void setUp() {
+    first = new Shipment();
+    first.setId(1L);
+    second = new Shipment();
+    second.setId(2L);
+
+    ShipmentDTO firstDTO = new ShipmentDTO();
+    firstDTO.setId(1L);
+    firstDTO.setTrackingCode("CS1");
+    firstDTO.setOriginAddress("Calle 10, Medellín");
+    firstDTO.setStatus(ShipmentStatus.PENDIENTE);
+
+    ShipmentDTO secondDTO = new ShipmentDTO();
+    secondDTO.setId(2L);
+    secondDTO.setTrackingCode("CS2");
+    secondDTO.setStatus(ShipmentStatus.ENTREGADO);
+
+    when(shipmentRepository.streamAllForExport()).thenReturn(Stream.of(first, second));
+    when(shipmentMapper.toDTO(first)).thenReturn(firstDTO);
+    when(shipmentMapper.toDTO(second)).thenReturn(secondDTO);
+  }
+
+  @Test
+  void testExportNdjson_WritesOneLinePerShipment() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long count = shipmentExportService.exportNdjson(out);
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, count);
+    assertEquals(2, lines.length);
+    assertEquals("CS1", objectMapper.readTree(lines[0]).get("trackingCode").asText());
+    assertEquals("ENTREGADO", objectMapper.readTree(lines[1]).get("status").asText());
+    verify(entityManager).detach(first);
+    verify(entityManager).detach(second);
+  }
+
+  @Test
+  void testExportCsv_QuotesFieldsWithSeparators() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long count = shipmentExportService.exportCsv(out);
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, count);
+    assertEquals(3, lines.length);
+    assertTrue(lines[0].startsWith("id,trackingCode"));
+    assertEquals("1,CS1,,,\"Calle 10, Medellín\",,,,,PENDIENTE", lines[1]);
+  }
+
+  @Test
+  void testExportNdjson_FailureMidStream_EndsWithErrorTrailer() {
+    when(shipmentMapper.toDTO(second)).thenThrow(new QueryTimeoutException("statement timeout"));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    assertThrows(QueryTimeoutException.class, () -> shipmentExportService.exportNdjson(out));
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, lines.length);
+    assertTrue(lines[0].contains("\"CS1\""));
+    assertEquals(ShipmentExportService.NDJSON_ERROR_TRAILER, lines[1]);
+  }
+
+  @Test
+  void testExportCsv_FailureMidStream_EndsWithErrorTrailer() {
+    when(shipmentMapper.toDTO(second)).thenThrow(new QueryTimeoutException("statement timeout"));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    assertThrows(QueryTimeoutException.class, () -> shipmentExportService.exportCsv(out));
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(3, lines.length);
+    assertEquals(ShipmentExportService.CSV_ERROR_TRAILER, lines[2]);
+  }
+}
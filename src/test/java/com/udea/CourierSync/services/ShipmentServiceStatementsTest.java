@@ -0,0 +1,135 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.entity.Client;
+import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.geocoding.GeocodingService;
+import com.udea.CourierSync.mapper.ClientMapperImpl;
+import com.udea.CourierSync.mapper.ShipmentMapperImpl;
+import com.udea.CourierSync.mapper.StatusHistoryMapperImpl;
+import com.udea.CourierSync.mapper.VehicleMapperImpl;
+import com.udea.CourierSync.spatial.ShipmentLocationIndex;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Counts the statements PUT, PATCH and DELETE /api/shipments/{id} send: authorization reuses the row the
+// write loads, so the shipment is read once.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({ ShipmentService.class, ShipmentMapperImpl.class, ClientMapperImpl.class, VehicleMapperImpl.class,
+    StatusHistoryMapperImpl.class })
+class ShipmentServiceStatementsTest {
+
+  @Autowired
+  private ShipmentService shipmentService;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  @MockBean
+  private TrackingCodeGenerator trackingCodeGenerator;
+
+  @MockBean
+  private TrackingCodeCache trackingCodeCache;
+
+  @MockBean
+  private InvalidationBus invalidationBus;
+
+  @MockBean
+  private GeocodingService geocodingService;
+
+  @MockBean
+  private ShipmentLocationIndex shipmentLocationIndex;
+
+  private Statistics statistics;
+  private Long id;
+
+  @BeforeEach
+  void setUp() {
+    Client client = entityManager.persist(new Client(null, "Client", "client@example.com", "3000000000", "Calle 1"));
+    Vehicle vehicle = entityManager.persist(new Vehicle("ABC100", "NPR", 1000.0, true));
+    Shipment shipment = new Shipment("CS1", client, vehicle, "Origen", "Destino", 10.0, 1.0,
+        ShipmentPriority.MEDIA, ShipmentStatus.PENDIENTE);
+    shipment.setOriginLatitude(6.2);
+    shipment.setOriginLongitude(-75.5);
+    shipment.setDestinationLatitude(6.3);
+    shipment.setDestinationLongitude(-75.6);
+    id = entityManager.persist(shipment).getId();
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = entityManager.getEntityManager().getEntityManagerFactory()
+        .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+        "user@example.com", null, List.of(new SimpleGrantedAuthority("ROLE_OPERATOR"))));
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void testPatch_ReadsTheShipmentOnce() {
+    ShipmentDTO changes = new ShipmentDTO();
+    changes.setWeight(12.5);
+
+    shipmentService.patch(id, changes, null);
+
+    // the shipment with its client and vehicle, then the update
+    assertEquals(2, statistics.getPrepareStatementCount());
+    assertEquals(1, statistics.getEntityUpdateCount());
+  }
+
+  @Test
+  void testUpdate_ReadsTheShipmentOnce() {
+    ShipmentDTO dto = new ShipmentDTO();
+    dto.setOriginAddress("Origen");
+    dto.setDestinationAddress("Destino");
+    dto.setWeight(12.5);
+    dto.setVolume(1.0);
+    dto.setPriority(ShipmentPriority.ALTA);
+    dto.setStatus(ShipmentStatus.PENDIENTE);
+
+    shipmentService.update(id, dto);
+
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testDeleteById_ReadsTheShipmentOnceAndKeepsItsHistory() {
+    shipmentService.deleteById(id);
+    entityManager.flush();
+
+    // one read of the shipment with its client and vehicle; the id of the history row may also need a
+    // sequence call, so the entity counts are checked rather than the statements
+    assertEquals(1, statistics.getEntityStatistics(Shipment.class.getName()).getLoadCount());
+    assertEquals(0, statistics.getEntityFetchCount());
+    assertEquals(1, statistics.getEntityInsertCount());
+    assertEquals(1, statistics.getEntityDeleteCount());
+    assertEquals(1L, entityManager.getEntityManager()
+        .createQuery("SELECT COUNT(h) FROM StatusHistory h WHERE h.shipmentId = :id", Long.class)
+        .setParameter("id", id).getSingleResult());
+  }
+}
@@ -1,27 +1,66 @@
 package com.udea.CourierSync.services;
 
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.DTO.BulkShipmentResultDTO;
+import com.udea.CourierSync.DTO.BulkStatusResultDTO;
 import com.udea.CourierSync.DTO.ClientDTO;
+import com.udea.CourierSync.DTO.NearbyShipmentDTO;
 import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.DTO.ShipmentPageDTO;
+import com.udea.CourierSync.DTO.ShipmentRow;
+import com.udea.CourierSync.DTO.StatusHistoryDTO;
+import com.udea.CourierSync.DTO.StatusUpdateDTO;
+import com.udea.CourierSync.DTO.VehicleDTO;
 import com.udea.CourierSync.entity.Client;
 import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.entity.StatusHistory;
+import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.enums.ChangeType;
+import com.udea.CourierSync.enums.RouteStopType;
 import com.udea.CourierSync.enums.ShipmentPriority;
 import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
 import com.udea.CourierSync.exception.BadRequestException;
+import com.udea.CourierSync.exception.ConflictException;
+import com.udea.CourierSync.exception.ForbiddenException;
 import com.udea.CourierSync.exception.ResourceNotFoundException;
+import com.udea.CourierSync.geocoding.Coordinates;
+import com.udea.CourierSync.geocoding.GeocodingService;
 import com.udea.CourierSync.mapper.ShipmentMapper;
+import com.udea.CourierSync.mapper.StatusHistoryMapper;
 import com.udea.CourierSync.repository.ClientRepository;
 import com.udea.CourierSync.repository.ShipmentRepository;
+import com.udea.CourierSync.repository.StatusHistoryRepository;
+import com.udea.CourierSync.repository.VehicleRepository;
+import com.udea.CourierSync.security.SecurityUtils;
+import com.udea.CourierSync.spatial.GeoIndex;
+import com.udea.CourierSync.spatial.ShipmentLocationIndex;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,9 +72,36 @@ class ShipmentServiceTest {
   @Mock
   private ClientRepository clientRepository;
 
+  @Mock
+  private VehicleRepository vehicleRepository;
+
   @Mock
   private ShipmentMapper shipmentMapper;
 
+  @Mock
+  private TrackingCodeGenerator trackingCodeGenerator;
+
+  @Mock
+  private StatusHistoryRepository statusHistoryRepository;
+
+  @Mock
+  private StatusHistoryMapper statusHistoryMapper;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private TrackingCodeCache trackingCodeCache;
+
+  @Mock
+  private InvalidationBus invalidationBus;
+
+  @Mock
+  private GeocodingService geocodingService;
+
+  @Mock
+  private ShipmentLocationIndex shipmentLocationIndex;
+
   @InjectMocks
   private ShipmentService shipmentService;
 
@@ -69,10 +135,21 @@ class ShipmentServiceTest {
     shipmentDTO.setPriority(ShipmentPriority.MEDIA);
   }
 
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private static void authenticateAs(String role) {
+    SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+        "user@example.com", null, List.of(new SimpleGrantedAuthority("ROLE_" + role))));
+  }
+
   @Test
   void testCreateShipment_Success() {
     when(shipmentMapper.toEntity(shipmentDTO)).thenReturn(shipment);
     when(clientRepository.findById(1L)).thenReturn(Optional.of(client));
+    when(trackingCodeGenerator.nextCode()).thenReturn("CS0A8GJNBN80M00R");
     when(shipmentRepository.save(any(Shipment.class))).thenReturn(shipment);
     when(shipmentMapper.toDTO(shipment)).thenReturn(shipmentDTO);
 
@@ -81,9 +158,43 @@ class ShipmentServiceTest {
     assertNotNull(result);
     assertNotNull(result.getTrackingCode());
     assertTrue(result.getTrackingCode().startsWith("CS"));
+    assertEquals("CS0A8GJNBN80M00R", shipment.getTrackingCode());
     verify(shipmentRepository, times(1)).save(any(Shipment.class));
   }
 
+  @Test
+  void testCreateShipment_WithoutStatus_StartsPendiente() {
+    shipment.setStatus(null);
+    when(shipmentMapper.toEntity(shipmentDTO)).thenReturn(shipment);
+    when(clientRepository.findById(1L)).thenReturn(Optional.of(client));
+    when(trackingCodeGenerator.nextCode()).thenReturn("CS0A8GJNBN80M00R");
+    when(shipmentRepository.save(any(Shipment.class))).thenReturn(shipment);
+    when(shipmentMapper.toDTO(shipment)).thenReturn(shipmentDTO);
+
+    shipmentService.createShipment(shipmentDTO);
+
+    assertEquals(ShipmentStatus.PENDIENTE, shipment.getStatus());
+  }
+
+  @Test
+  void testCreateShipment_FillsCoordinatesFromGeocoding() {
+    shipment.setOriginAddress("Calle 10 # 43-12");
+    shipment.setDestinationAddress("Somewhere unknown");
+    when(shipmentMapper.toEntity(shipmentDTO)).thenReturn(shipment);
+    when(clientRepository.findById(1L)).thenReturn(Optional.of(client));
+    when(trackingCodeGenerator.nextCode()).thenReturn("CS0A8GJNBN80M00R");
+    when(geocodingService.geocodeAll(List.of("Calle 10 # 43-12", "Somewhere unknown")))
+        .thenReturn(Map.of("Calle 10 # 43-12", new Coordinates(6.2087, -75.5679)));
+    when(shipmentRepository.save(any(Shipment.class))).thenReturn(shipment);
+    when(shipmentMapper.toDTO(shipment)).thenReturn(shipmentDTO);
+
+    shipmentService.createShipment(shipmentDTO);
+
+    assertEquals(6.2087, shipment.getOriginLatitude());
+    assertEquals(-75.5679, shipment.getOriginLongitude());
+    assertNull(shipment.getDestinationLatitude());
+  }
+
   @Test
   void testCreateShipment_NullDTO_ThrowsException() {
     assertThrows(BadRequestException.class, () -> {
@@ -115,19 +226,19 @@ class ShipmentServiceTest {
 
   @Test
   void testUpdate_Success() {
+    authenticateAs("ADMIN");
     ShipmentDTO updatedDTO = new ShipmentDTO();
     updatedDTO.setStatus(ShipmentStatus.EN_TRANSITO);
 
     when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
-    when(shipmentMapper.toEntity(updatedDTO)).thenReturn(shipment);
-    when(shipmentRepository.save(any(Shipment.class))).thenReturn(shipment);
+    when(shipmentRepository.saveAndFlush(shipment)).thenReturn(shipment);
     when(shipmentMapper.toDTO(shipment)).thenReturn(updatedDTO);
 
     ShipmentDTO result = shipmentService.update(1L, updatedDTO);
 
     assertNotNull(result);
     verify(shipmentRepository, times(1)).findById(1L);
-    verify(shipmentRepository, times(1)).save(any(Shipment.class));
+    verify(shipmentRepository, times(1)).saveAndFlush(shipment);
   }
 
   @Test
@@ -141,67 +252,409 @@ class ShipmentServiceTest {
   }
 
   @Test
-  void testIsShipmentPending_True() {
+  void testUpdate_AsDriver_LoadsShipmentOnce() {
+    authenticateAs("DRIVER");
     shipment.setStatus(ShipmentStatus.PENDIENTE);
+    ShipmentDTO updatedDTO = new ShipmentDTO();
+    updatedDTO.setStatus(ShipmentStatus.EN_TRANSITO);
+
     when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
+    when(shipmentRepository.saveAndFlush(shipment)).thenReturn(shipment);
+    when(shipmentMapper.toDTO(shipment)).thenReturn(updatedDTO);
 
-    boolean result = shipmentService.isShipmentPending(1L);
+    shipmentService.update(1L, updatedDTO);
 
-    assertTrue(result);
+    // authorization reuses the entity loaded for the update instead of querying again
+    verify(shipmentRepository, times(1)).findById(1L);
   }
 
   @Test
-  void testIsShipmentPending_False() {
-    shipment.setStatus(ShipmentStatus.EN_TRANSITO);
+  void testUpdate_AsDriver_InvalidTransition_ThrowsForbidden() {
+    authenticateAs("DRIVER");
+    shipment.setStatus(ShipmentStatus.ENTREGADO);
+    ShipmentDTO updatedDTO = new ShipmentDTO();
+    updatedDTO.setStatus(ShipmentStatus.PENDIENTE);
+
+    when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
+
+    assertThrows(ForbiddenException.class, () -> shipmentService.update(1L, updatedDTO));
+    verify(shipmentRepository, never()).saveAndFlush(any(Shipment.class));
+  }
+
+  @Test
+  void testUpdate_StaleVersion_ThrowsConflict() {
+    shipment.setVersion(3L);
     when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
 
-    boolean result = shipmentService.isShipmentPending(1L);
+    assertThrows(ConflictException.class, () -> shipmentService.update(1L, new ShipmentDTO(), 2L));
+    verify(shipmentRepository, never()).saveAndFlush(any(Shipment.class));
+  }
+
+  @Test
+  void testUpdate_ConcurrentCommit_ThrowsConflict() {
+    authenticateAs("ADMIN");
+    when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
+    when(shipmentRepository.saveAndFlush(shipment))
+        .thenThrow(new ObjectOptimisticLockingFailureException(Shipment.class, 1L));
 
-    assertFalse(result);
+    assertThrows(ConflictException.class, () -> shipmentService.update(1L, new ShipmentDTO()));
   }
 
   @Test
-  void testCanDriverUpdateStatus_ValidTransition() {
-    shipment.setStatus(ShipmentStatus.PENDIENTE);
-    shipmentDTO.setStatus(ShipmentStatus.EN_TRANSITO);
+  void testPatch_OnlyAppliesProvidedFields() {
+    authenticateAs("ADMIN");
+    shipment.setVersion(3L);
+    shipment.setOriginAddress("Origin");
+    shipment.setWeight(1.0);
+    ShipmentDTO changes = new ShipmentDTO();
+    changes.setWeight(2.5);
 
     when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
+    when(shipmentRepository.saveAndFlush(shipment)).thenReturn(shipment);
+    when(shipmentMapper.toDTO(shipment)).thenReturn(shipmentDTO);
 
-    boolean result = shipmentService.canDriverUpdateStatus(1L, shipmentDTO);
+    shipmentService.patch(1L, changes, 3L);
 
-    assertTrue(result);
+    assertEquals(2.5, shipment.getWeight());
+    assertEquals("Origin", shipment.getOriginAddress());
+    assertEquals(ShipmentStatus.PENDIENTE, shipment.getStatus());
+    assertEquals("CS1234567", shipment.getTrackingCode());
+    verify(clientRepository, never()).findById(any());
+    verify(statusHistoryRepository, never()).save(any());
   }
 
   @Test
-  void testCanDriverUpdateStatus_InvalidTransition() {
-    shipment.setStatus(ShipmentStatus.ENTREGADO);
-    shipmentDTO.setStatus(ShipmentStatus.PENDIENTE);
+  void testDeleteById_AsOperator_NotPending_ThrowsForbidden() {
+    authenticateAs("OPERATOR");
+    shipment.setStatus(ShipmentStatus.EN_TRANSITO);
 
     when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
 
-    boolean result = shipmentService.canDriverUpdateStatus(1L, shipmentDTO);
+    assertThrows(ForbiddenException.class, () -> shipmentService.deleteById(1L));
+    verify(shipmentRepository, times(1)).findById(1L);
+    verify(shipmentRepository, never()).delete(any(Shipment.class));
+  }
+
+  @Test
+  void testDeleteById_WithoutAuthentication_ThrowsForbidden() {
+    when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
 
-    assertFalse(result);
+    // no authentication is not the system
+    assertThrows(ForbiddenException.class, () -> shipmentService.deleteById(1L));
+    SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("user@example.com", null));
+    assertThrows(ForbiddenException.class, () -> shipmentService.deleteById(1L));
+    verify(shipmentRepository, never()).delete(any(Shipment.class));
   }
 
   @Test
   void testDeleteById_Success() {
-    when(shipmentRepository.existsById(1L)).thenReturn(true);
-    doNothing().when(shipmentRepository).deleteById(1L);
+    authenticateAs("ADMIN");
+    when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
+    when(shipmentMapper.toDTO(shipment)).thenReturn(shipmentDTO);
+    doNothing().when(shipmentRepository).delete(shipment);
 
     assertDoesNotThrow(() -> {
       shipmentService.deleteById(1L);
     });
 
-    verify(shipmentRepository, times(1)).deleteById(1L);
+    ArgumentCaptor<StatusHistory> history = ArgumentCaptor.forClass(StatusHistory.class);
+    verify(statusHistoryRepository).save(history.capture());
+    assertEquals(1L, history.getValue().getShipmentId());
+    assertEquals(ShipmentService.DELETED_NOTE, history.getValue().getObservations());
+    verify(shipmentRepository, times(1)).delete(shipment);
+    ArgumentCaptor<ShipmentChangedEvent> captor = ArgumentCaptor.forClass(ShipmentChangedEvent.class);
+    verify(eventPublisher).publishEvent(captor.capture());
+    assertEquals(ChangeType.DELETED, captor.getValue().getChangeType());
+    assertEquals("CS1234567", captor.getValue().getTrackingCode());
   }
 
   @Test
   void testDeleteById_NotFound_ThrowsException() {
-    when(shipmentRepository.existsById(999L)).thenReturn(false);
+    when(shipmentRepository.findById(999L)).thenReturn(Optional.empty());
 
     assertThrows(ResourceNotFoundException.class, () -> {
       shipmentService.deleteById(999L);
     });
   }
+
+  @Test
+  void testFindPage_ReturnsNextCursorWhenMoreRows() {
+    ShipmentRow first = row(1L, "CS1");
+    ShipmentRow second = row(2L, "CS2");
+    when(shipmentRepository.findRowPageAfter(isNull(), eq(ShipmentStatus.PENDIENTE), isNull(), isNull(), isNull(),
+        any())).thenReturn(List.of(first, second));
+
+    ShipmentPageDTO page = shipmentService.findPage(null, 1, ShipmentStatus.PENDIENTE, null, null, null);
+
+    assertEquals(1, page.getItems().size());
+    assertEquals("CS1", page.getItems().get(0).getTrackingCode());
+    assertEquals(1L, page.getItems().get(0).getClient().getId());
+    assertNotNull(page.getNextCursor());
+
+    when(shipmentRepository.findRowPageAfter(eq(1L), isNull(), isNull(), isNull(), isNull(), any()))
+        .thenReturn(List.of(second));
+
+    ShipmentPageDTO next = shipmentService.findPage(page.getNextCursor(), 1, null, null, null, null);
+
+    assertEquals(1, next.getItems().size());
+    assertNull(next.getNextCursor());
+    verify(shipmentMapper, never()).toDTO(any(Shipment.class));
+  }
+
+  @Test
+  void testFindByTrackingCode_UsesProjection() {
+    when(shipmentRepository.findRowByTrackingCode("CS1")).thenReturn(Optional.of(row(1L, "CS1")));
+    when(trackingCodeCache.get(eq("CS1"), any())).thenAnswer(invocation -> invocation
+        .<Function<String, Optional<ShipmentRow>>>getArgument(1).apply("CS1").map(ShipmentRow::toDTO));
+
+    Optional<ShipmentDTO> result = shipmentService.findByTrackingCode("CS1");
+
+    assertTrue(result.isPresent());
+    assertEquals(5L, result.get().getVehicle().getId());
+    verify(shipmentRepository, never()).findByTrackingCode(any());
+  }
+
+  private static ShipmentRow row(Long id, String trackingCode) {
+    return new ShipmentRow(id, trackingCode, 1L, "John Doe", "john@example.com", "1234567890", "Calle 1",
+        5L, "ABC123", "NPR", 1000.0, true, "Origin", "Destination", null, null, null, null, 1.0, 1.0, ShipmentPriority.MEDIA,
+        ShipmentStatus.PENDIENTE, 0L, null);
+  }
+
+  @Test
+  void testFindPage_InvalidSize_ThrowsException() {
+    assertThrows(BadRequestException.class, () -> {
+      shipmentService.findPage(null, ShipmentService.MAX_PAGE_SIZE + 1, null, null, null, null);
+    });
+    verify(shipmentRepository, never()).findRowPageAfter(any(), any(), any(), any(), any(), any());
+  }
+
+  private static ShipmentRow rowDeliveringTo(Long id, ShipmentStatus status, Double latitude, Double longitude) {
+    return new ShipmentRow(id, "CS" + id, 1L, "John Doe", "john@example.com", "1234567890", "Calle 1",
+        5L, "ABC123", "NPR", 1000.0, true, "Origin", "Destination", null, null, latitude, longitude, 1.0, 1.0,
+        ShipmentPriority.MEDIA, status, 0L, null);
+  }
+
+  @Test
+  void testFindNearby_ChecksHitsAgainstTheirCurrentRows() {
+    when(shipmentLocationIndex.withinRadius(RouteStopType.DELIVERY, 6.25, -75.57, 2.0, 10)).thenReturn(List.of(
+        new GeoIndex.Hit(3L, 6.251, -75.57, 0.11),
+        new GeoIndex.Hit(9L, 6.252, -75.57, 0.22),
+        new GeoIndex.Hit(4L, 6.253, -75.57, 0.33),
+        new GeoIndex.Hit(5L, 6.254, -75.57, 0.44),
+        new GeoIndex.Hit(1L, 6.26, -75.57, 1.11)));
+    // the index has not heard yet that 9 was deleted, 4 delivered, 5 re-addressed and 3 corrected
+    when(shipmentRepository.findRowsByIdIn(List.of(3L, 9L, 4L, 5L, 1L))).thenReturn(List.of(
+        rowDeliveringTo(1L, ShipmentStatus.PENDIENTE, 6.26, -75.57),
+        rowDeliveringTo(3L, ShipmentStatus.EN_TRANSITO, 6.265, -75.57),
+        rowDeliveringTo(4L, ShipmentStatus.ENTREGADO, 6.253, -75.57),
+        rowDeliveringTo(5L, ShipmentStatus.PENDIENTE, 6.40, -75.57)));
+
+    List<NearbyShipmentDTO> result = shipmentService.findNearby(6.25, -75.57, 2.0, RouteStopType.DELIVERY, 10);
+
+    assertEquals(List.of(1L, 3L), result.stream().map(nearby -> nearby.getShipment().getId()).toList());
+    assertEquals(GeoIndex.distanceKm(6.25, -75.57, 6.265, -75.57), result.get(1).getDistanceKm());
+    assertEquals(1.67, result.get(1).getDistanceKm(), 0.01);
+  }
+
+  @Test
+  void testFindNearby_InvalidRadius_ThrowsException() {
+    assertThrows(BadRequestException.class, () -> {
+      shipmentService.findNearby(6.25, -75.57, ShipmentService.MAX_NEARBY_RADIUS_KM + 1, RouteStopType.PICKUP, null);
+    });
+    assertThrows(BadRequestException.class, () -> {
+      shipmentService.findNearby(91.0, -75.57, 2.0, RouteStopType.PICKUP, null);
+    });
+    verifyNoInteractions(shipmentLocationIndex);
+  }
+
+  @Test
+  void testCreateShipments_ReportsPerRowResults() {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(5L);
+    VehicleDTO vehicleDTO = new VehicleDTO();
+    vehicleDTO.setId(5L);
+    shipmentDTO.setVehicle(vehicleDTO);
+    shipmentDTO.setOriginAddress("Origin");
+    shipmentDTO.setDestinationAddress("Destination");
+    shipmentDTO.setWeight(1.0);
+    shipmentDTO.setVolume(1.0);
+
+    ShipmentDTO unknownClient = new ShipmentDTO();
+    ClientDTO missing = new ClientDTO();
+    missing.setId(99L);
+    unknownClient.setClient(missing);
+    unknownClient.setVehicle(vehicleDTO);
+
+    when(clientRepository.findAllById(any())).thenReturn(List.of(client));
+    when(vehicleRepository.findAllById(any())).thenReturn(List.of(vehicle));
+    when(shipmentMapper.toEntity(shipmentDTO)).thenReturn(shipment);
+    when(trackingCodeGenerator.nextCode()).thenReturn("CS0A8GJNBN80M00R");
+    when(shipmentRepository.saveAll(any())).thenReturn(List.of(shipment));
+    when(shipmentMapper.toDTO(shipment)).thenReturn(shipmentDTO);
+
+    List<BulkShipmentResultDTO> results = shipmentService.createShipments(List.of(shipmentDTO, unknownClient));
+
+    assertEquals(2, results.size());
+    assertTrue(results.get(0).isCreated());
+    assertSame(vehicle, shipment.getVehicle());
+    assertFalse(results.get(1).isCreated());
+    assertEquals("Client not found with id: 99", results.get(1).getError());
+    verify(clientRepository, never()).findById(any());
+    verify(shipmentRepository, times(1)).saveAll(any());
+    verify(statusHistoryRepository, times(1)).saveAll(any());
+  }
+
+  @Test
+  void testCreateShipments_AsOperator_RejectsRowsThatAreNotPendiente() {
+    authenticateAs("OPERATOR");
+    shipmentDTO.setOriginAddress("Origin");
+    shipmentDTO.setDestinationAddress("Destination");
+    shipmentDTO.setWeight(1.0);
+    shipmentDTO.setVolume(1.0);
+
+    ShipmentDTO delivered = new ShipmentDTO();
+    delivered.setClient(shipmentDTO.getClient());
+    delivered.setOriginAddress("Origin");
+    delivered.setDestinationAddress("Destination");
+    delivered.setWeight(1.0);
+    delivered.setVolume(1.0);
+    delivered.setStatus(ShipmentStatus.ENTREGADO);
+
+    when(clientRepository.findAllById(any())).thenReturn(List.of(client));
+    when(shipmentMapper.toEntity(shipmentDTO)).thenReturn(shipment);
+    when(trackingCodeGenerator.nextCode()).thenReturn("CS0A8GJNBN80M00R");
+    when(shipmentRepository.saveAll(any())).thenReturn(List.of(shipment));
+    when(shipmentMapper.toDTO(shipment)).thenReturn(shipmentDTO);
+
+    List<BulkShipmentResultDTO> results = shipmentService.createShipments(List.of(shipmentDTO, delivered));
+
+    assertTrue(results.get(0).isCreated());
+    assertFalse(results.get(1).isCreated());
+    assertEquals("Only ADMIN can create shipments with status ENTREGADO", results.get(1).getError());
+    verify(shipmentMapper, never()).toEntity(delivered);
+  }
+
+  @Test
+  void testCreateShipments_TooMany_ThrowsException() {
+    List<ShipmentDTO> tooMany = java.util.Collections.nCopies(ShipmentService.MAX_BULK_SIZE + 1, shipmentDTO);
+
+    assertThrows(BadRequestException.class, () -> {
+      shipmentService.createShipments(tooMany);
+    });
+  }
+
+  @Test
+  void testUpdateStatuses_AsDriver_ValidatesInMemoryAndReportsPerEntry() {
+    authenticateAs("DRIVER");
+    shipment.setStatus(ShipmentStatus.EN_TRANSITO);
+    Shipment delivered = new Shipment();
+    delivered.setId(2L);
+    delivered.setStatus(ShipmentStatus.ENTREGADO);
+
+    when(shipmentRepository.findByIdIn(any())).thenReturn(List.of(shipment, delivered));
+    when(shipmentMapper.toDTO(shipment)).thenReturn(shipmentDTO);
+
+    List<BulkStatusResultDTO> results = shipmentService.updateStatuses(List.of(
+        new StatusUpdateDTO(1L, ShipmentStatus.ENTREGADO, "Recibido"),
+        new StatusUpdateDTO(2L, ShipmentStatus.PENDIENTE, null),
+        new StatusUpdateDTO(99L, ShipmentStatus.ENTREGADO, null)));
+
+    assertEquals(3, results.size());
+    assertTrue(results.get(0).isUpdated());
+    assertEquals(ShipmentStatus.ENTREGADO, shipment.getStatus());
+    assertFalse(results.get(1).isUpdated());
+    assertEquals("Transition from ENTREGADO to PENDIENTE is not allowed", results.get(1).getError());
+    assertEquals(ShipmentStatus.ENTREGADO, delivered.getStatus());
+    assertEquals("Shipment not found with id: 99", results.get(2).getError());
+    verify(shipmentRepository, times(1)).findByIdIn(any());
+    verify(shipmentRepository, never()).findById(any());
+    verify(shipmentRepository, times(1)).saveAllAndFlush(any());
+    verify(statusHistoryRepository, times(1)).saveAll(any());
+  }
+
+  @Test
+  void testUpdateStatuses_NothingValid_DoesNotWrite() {
+    when(shipmentRepository.findByIdIn(any())).thenReturn(List.of());
+
+    List<BulkStatusResultDTO> results = shipmentService.updateStatuses(List.of(
+        new StatusUpdateDTO(99L, ShipmentStatus.ENTREGADO, null)));
+
+    assertFalse(results.get(0).isUpdated());
+    verify(shipmentRepository, never()).saveAllAndFlush(any());
+    verify(statusHistoryRepository, never()).saveAll(any());
+  }
+
+  @Test
+  void testUpdateStatuses_TooMany_ThrowsException() {
+    List<StatusUpdateDTO> tooMany = java.util.Collections.nCopies(ShipmentService.MAX_BULK_STATUS_SIZE + 1,
+        new StatusUpdateDTO(1L, ShipmentStatus.ENTREGADO, null));
+
+    assertThrows(BadRequestException.class, () -> shipmentService.updateStatuses(tooMany));
+    verify(shipmentRepository, never()).findByIdIn(any());
+  }
+
+  @Test
+  void testUpdateStatus_AsAdmin_InvalidTransition_ThrowsBadRequest() {
+    authenticateAs("ADMIN");
+    shipment.setStatus(ShipmentStatus.ENTREGADO);
+    when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
+
+    assertThrows(BadRequestException.class,
+        () -> shipmentService.updateStatus(1L, ShipmentStatus.EN_TRANSITO, null));
+    verify(shipmentRepository, never()).saveAndFlush(any(Shipment.class));
+  }
+
+  @Test
+  void testUpdateStatus_AsDriver_TransitionOfAnotherRole_ThrowsForbidden() {
+    authenticateAs("DRIVER");
+    shipment.setStatus(ShipmentStatus.PENDIENTE);
+    when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
+
+    assertThrows(ForbiddenException.class,
+        () -> shipmentService.updateStatus(1L, ShipmentStatus.CANCELADO, null));
+    verify(shipmentRepository, never()).saveAndFlush(any(Shipment.class));
+  }
+
+  @Test
+  void testUpdateStatus_RecordsHistoryEvent() {
+    shipment.setStatus(ShipmentStatus.PENDIENTE);
+    when(shipmentRepository.findById(1L)).thenReturn(Optional.of(shipment));
+    when(shipmentRepository.saveAndFlush(shipment)).thenReturn(shipment);
+    when(shipmentMapper.toDTO(shipment)).thenReturn(shipmentDTO);
+
+    SecurityUtils.runAsSystem(() -> shipmentService.updateStatus(1L, ShipmentStatus.EN_TRANSITO, "  Salió de bodega "));
+
+    ArgumentCaptor<StatusHistory> captor = ArgumentCaptor.forClass(StatusHistory.class);
+    verify(statusHistoryRepository).save(captor.capture());
+    StatusHistory history = captor.getValue();
+    assertEquals(1L, history.getShipmentId());
+    assertEquals(ShipmentStatus.PENDIENTE, history.getOldStatus());
+    assertEquals(ShipmentStatus.EN_TRANSITO, history.getNewStatus());
+    assertEquals("Salió de bodega", history.getObservations());
+    assertEquals("system", history.getActor());
+    assertNotNull(history.getCreatedAt());
+  }
+
+  @Test
+  void testFindHistory_ShipmentNotFound_ThrowsException() {
+    when(statusHistoryRepository.findByShipmentIdOrderByCreatedAtDescIdDesc(eq(999L), any()))
+        .thenReturn(Page.empty());
+    when(shipmentRepository.existsById(999L)).thenReturn(false);
+
+    assertThrows(ResourceNotFoundException.class, () -> {
+      shipmentService.findHistory(999L, 0, 20);
+    });
+  }
+
+  @Test
+  void testFindHistory_DeletedShipment_StillServesItsHistory() {
+    StatusHistory deleted = new StatusHistory(9L, 1L, ShipmentStatus.PENDIENTE, ShipmentStatus.PENDIENTE,
+        ShipmentService.DELETED_NOTE, "admin@example.com", Instant.now());
+    when(statusHistoryRepository.findByShipmentIdOrderByCreatedAtDescIdDesc(eq(1L), any()))
+        .thenReturn(new PageImpl<>(List.of(deleted)));
+    when(statusHistoryMapper.toDTO(deleted)).thenReturn(new StatusHistoryDTO());
+
+    assertEquals(1, shipmentService.findHistory(1L, 0, 20).getTotalElements());
+    verify(shipmentRepository, never()).existsById(any());
+  }
 }
@@ -0,0 +1,52 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.enums.UserRole;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShipmentStateMachineTest {
+
+  @Test
+  void testDriver_KeepsPreviousTransitions() {
+    assertTrue(ShipmentStateMachine.canTransition(UserRole.DRIVER, ShipmentStatus.PENDIENTE, ShipmentStatus.EN_TRANSITO));
+    assertTrue(ShipmentStateMachine.canTransition(UserRole.DRIVER, ShipmentStatus.EN_TRANSITO, ShipmentStatus.ENTREGADO));
+    assertTrue(ShipmentStateMachine.canTransition(UserRole.DRIVER, ShipmentStatus.EN_TRANSITO, ShipmentStatus.NOVEDAD));
+    assertFalse(ShipmentStateMachine.canTransition(UserRole.DRIVER, ShipmentStatus.PENDIENTE, ShipmentStatus.ENTREGADO));
+    assertFalse(ShipmentStateMachine.canTransition(UserRole.DRIVER, ShipmentStatus.PENDIENTE, ShipmentStatus.CANCELADO));
+  }
+
+  @Test
+  void testAdmin_FollowsLifecycle() {
+    assertTrue(ShipmentStateMachine.canTransition(UserRole.ADMIN, ShipmentStatus.NOVEDAD, ShipmentStatus.CANCELADO));
+    assertFalse(ShipmentStateMachine.canTransition(UserRole.ADMIN, ShipmentStatus.ENTREGADO, ShipmentStatus.PENDIENTE));
+  }
+
+  @Test
+  void testOperator_OnlyBeforeDispatch() {
+    assertTrue(ShipmentStateMachine.canTransition(UserRole.OPERATOR, ShipmentStatus.REGISTRADO, ShipmentStatus.PENDIENTE));
+    assertTrue(ShipmentStateMachine.canTransition(UserRole.OPERATOR, ShipmentStatus.PENDIENTE, ShipmentStatus.CANCELADO));
+    assertFalse(ShipmentStateMachine.canTransition(UserRole.OPERATOR, ShipmentStatus.EN_TRANSITO, ShipmentStatus.ENTREGADO));
+  }
+
+  @Test
+  void testRoleTables_AreSubsetsOfLifecycle() {
+    for (UserRole role : UserRole.values()) {
+      for (ShipmentStatus from : ShipmentStatus.values()) {
+        for (ShipmentStatus to : ShipmentStatus.values()) {
+          if (ShipmentStateMachine.canTransition(role, from, to)) {
+            assertTrue(ShipmentStateMachine.isValid(from, to), role + ": " + from + " -> " + to);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void testFinalStatuses() {
+    assertTrue(ShipmentStateMachine.isFinal(ShipmentStatus.ENTREGADO));
+    assertTrue(ShipmentStateMachine.isFinal(ShipmentStatus.CANCELADO));
+    assertFalse(ShipmentStateMachine.isFinal(ShipmentStatus.EN_TRANSITO));
+  }
+}
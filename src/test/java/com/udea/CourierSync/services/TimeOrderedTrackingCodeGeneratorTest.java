@@ -0,0 +1,100 @@
+package com.udea.CourierSync.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedTrackingCodeGeneratorTest {
+
+  @Test
+  void testNextCode_IsValidAndRoundTrips() {
+    TimeOrderedTrackingCodeGenerator generator = new TimeOrderedTrackingCodeGenerator(7, System::currentTimeMillis);
+
+    String code = generator.nextCode();
+
+    assertTrue(code.startsWith(TimeOrderedTrackingCodeGenerator.PREFIX));
+    assertEquals(TimeOrderedTrackingCodeGenerator.CODE_LENGTH, code.length());
+    assertTrue(TimeOrderedTrackingCodeGenerator.isValid(code));
+    long id = TimeOrderedTrackingCodeGenerator.decode(code);
+    assertEquals(7, (id >>> TimeOrderedTrackingCodeGenerator.SEQUENCE_BITS) & TimeOrderedTrackingCodeGenerator.MAX_NODE_ID);
+  }
+
+  @Test
+  void testIsValid_RejectsSingleCharacterErrors() {
+    String code = new TimeOrderedTrackingCodeGenerator(1, System::currentTimeMillis).nextCode();
+
+    for (int i = TimeOrderedTrackingCodeGenerator.PREFIX.length(); i < code.length(); i++) {
+      char[] typo = code.toCharArray();
+      typo[i] = typo[i] == 'X' ? 'Y' : 'X';
+      assertFalse(TimeOrderedTrackingCodeGenerator.isValid(new String(typo)));
+    }
+    assertFalse(TimeOrderedTrackingCodeGenerator.isValid("CS1234567"));
+    assertFalse(TimeOrderedTrackingCodeGenerator.isValid(null));
+  }
+
+  @Test
+  void testNextId_FailsOnceTheNodeIdIsNoLongerHeld() {
+    AtomicBoolean held = new AtomicBoolean(true);
+    TimeOrderedTrackingCodeGenerator generator = new TimeOrderedTrackingCodeGenerator(5, System::currentTimeMillis,
+        held::get);
+
+    generator.nextId();
+    held.set(false);
+
+    assertThrows(IllegalStateException.class, generator::nextId);
+  }
+
+  @Test
+  void testNextId_IsMonotonicWhenClockMovesBackwards() {
+    AtomicLong clock = new AtomicLong(TimeOrderedTrackingCodeGenerator.EPOCH_MILLIS + 10_000);
+    TimeOrderedTrackingCodeGenerator generator = new TimeOrderedTrackingCodeGenerator(3, clock::get);
+
+    long previous = generator.nextId();
+    clock.addAndGet(-5_000);
+    for (int i = 0; i < 10_000; i++) {
+      long next = generator.nextId();
+      assertTrue(next > previous);
+      previous = next;
+    }
+  }
+
+  @Test
+  void testNextId_UniqueAcrossThreadsAndNodes() throws Exception {
+    int threads = 8;
+    int perThread = 100_000;
+    TimeOrderedTrackingCodeGenerator nodeA = new TimeOrderedTrackingCodeGenerator(1, System::currentTimeMillis);
+    TimeOrderedTrackingCodeGenerator nodeB = new TimeOrderedTrackingCodeGenerator(2, System::currentTimeMillis);
+    long[] ids = new long[threads * perThread];
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      Future<?>[] futures = new Future<?>[threads];
+      for (int t = 0; t < threads; t++) {
+        int offset = t * perThread;
+        TimeOrderedTrackingCodeGenerator generator = t % 2 == 0 ? nodeA : nodeB;
+        futures[t] = pool.submit(() -> {
+          for (int i = 0; i < perThread; i++) {
+            ids[offset + i] = generator.nextId();
+          }
+        });
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    Arrays.sort(ids);
+    for (int i = 1; i < ids.length; i++) {
+      assertNotEquals(ids[i - 1], ids[i]);
+    }
+  }
+}
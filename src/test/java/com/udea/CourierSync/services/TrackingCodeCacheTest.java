@@ -0,0 +1,94 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.DTO.ShipmentRow;
+import com.udea.CourierSync.cache.CacheRegion;
+import com.udea.CourierSync.cache.InMemoryInvalidationBus;
+import com.udea.CourierSync.enums.ChangeType;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.events.ShipmentChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackingCodeCacheTest {
+
+  private TrackingCodeCache cache;
+  private InMemoryInvalidationBus invalidationBus;
+  private AtomicInteger loads;
+  private Function<String, Optional<ShipmentRow>> loader;
+
+  @BeforeEach
+  void setUp() {
+    cache = new TrackingCodeCache();
+    invalidationBus = new InMemoryInvalidationBus();
+    ReflectionTestUtils.setField(cache, "invalidationBus", invalidationBus);
+    ReflectionTestUtils.setField(cache, "maxSize", 10);
+    ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+    cache.init();
+
+    loads = new AtomicInteger();
+    loader = code -> {
+      loads.incrementAndGet();
+      return "MISSING".equals(code) ? Optional.empty()
+          : Optional.of(new ShipmentRow(1L, code, 1L, "John Doe", "john@example.com", "1234567890", "Calle 1",
+              5L, "ABC123", "NPR", 1000.0, true, "Origin", "Destination", null, null, null, null, 1.0, 1.0, ShipmentPriority.MEDIA,
+              ShipmentStatus.PENDIENTE, 0L, null));
+    };
+  }
+
+  @Test
+  void testGet_RepeatedLookup_ServedFromMemory() {
+    ShipmentDTO first = cache.get("CS1", loader).orElseThrow();
+    ShipmentDTO second = cache.get("CS1", loader).orElseThrow();
+
+    assertEquals(1, loads.get());
+    assertEquals("CS1", second.getTrackingCode());
+    assertNotSame(first, second);
+    assertEquals(1, cache.stats().hits());
+    assertEquals(1, cache.stats().misses());
+  }
+
+  @Test
+  void testGet_UnknownCode_IsNotCached() {
+    assertTrue(cache.get("MISSING", loader).isEmpty());
+    assertTrue(cache.get("MISSING", loader).isEmpty());
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void testOnShipmentChanged_InvalidatesPreviousAndCurrentCodes() {
+    cache.get("CS1", loader);
+    cache.get("CS2", loader);
+    ShipmentDTO previous = new ShipmentDTO();
+    previous.setTrackingCode("CS1");
+    ShipmentDTO current = new ShipmentDTO();
+    current.setTrackingCode("CS2");
+
+    cache.onShipmentChanged(new ShipmentChangedEvent(ChangeType.UPDATED, previous, current));
+    cache.get("CS1", loader);
+    cache.get("CS2", loader);
+
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  void testInvalidationBus_ShipmentKeyDropsEntryAndClientChangeClearsAll() {
+    cache.get("CS1", loader);
+    cache.get("CS2", loader);
+
+    invalidationBus.publish(CacheRegion.SHIPMENT, "CS1");
+    assertEquals(1, cache.stats().size());
+
+    invalidationBus.publish(CacheRegion.CLIENT, "1");
+    assertEquals(0, cache.stats().size());
+  }
+}
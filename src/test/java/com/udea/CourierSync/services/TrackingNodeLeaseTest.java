@@ -0,0 +1,128 @@
+package com.udea.CourierSync.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrackingNodeLeaseTest {
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @InjectMocks
+  private TrackingNodeLease lease;
+
+  private void configure(long nodeId) {
+    ReflectionTestUtils.setField(lease, "configuredNodeId", nodeId);
+    ReflectionTestUtils.setField(lease, "leaseSeconds", 60L);
+  }
+
+  private static Map<String, Object> row(int nodeId, Timestamp expiresAt, boolean live) {
+    return Map.of("node_id", nodeId, "expires_at", expiresAt, "live", live);
+  }
+
+  @Test
+  void testAcquire_ConfiguredNodeIdSkipsTheDatabase() {
+    configure(12);
+
+    lease.acquire();
+
+    assertEquals(12, lease.nodeId());
+    assertTrue(lease.isHeld());
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void testAcquire_LeasesTheLowestFreeId() {
+    configure(-1);
+    Timestamp later = new Timestamp(System.currentTimeMillis() + 60_000);
+    Timestamp earlier = new Timestamp(System.currentTimeMillis() - 60_000);
+    when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of(row(0, later, true), row(1, later, true),
+        row(2, earlier, false), row(3, later, true)));
+    // 2 had lapsed but another replica claimed it first
+    when(jdbcTemplate.update(anyString(), anyString(), eq(60L), eq(2), eq(earlier))).thenReturn(0);
+    when(jdbcTemplate.update(anyString(), eq(4), anyString(), eq(60L))).thenReturn(1);
+
+    lease.acquire();
+
+    assertEquals(4, lease.nodeId());
+    assertEquals(0, lease.floorMillis());
+    assertTrue(lease.isHeld());
+  }
+
+  @Test
+  void testAcquire_DatabaseFailureFailsStartup() {
+    configure(-1);
+    when(jdbcTemplate.queryForList(anyString()))
+        .thenThrow(new DataAccessResourceFailureException("down"));
+
+    assertThrows(IllegalStateException.class, () -> lease.acquire());
+  }
+
+  @Test
+  void testRenew_LostLeaseIsNoLongerHeld() {
+    configure(-1);
+    when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of());
+    when(jdbcTemplate.update(anyString(), eq(0), anyString(), eq(60L))).thenReturn(1);
+    lease.acquire();
+    when(jdbcTemplate.update(anyString(), eq(60L), eq(0L), anyString())).thenReturn(0);
+
+    lease.renew();
+
+    assertFalse(lease.isHeld());
+  }
+
+  @Test
+  void testRelease_NextHolderIssuesAboveTheLastCodeAfterTheClockStepsBack() {
+    configure(-1);
+    when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of());
+    when(jdbcTemplate.update(anyString(), eq(0), anyString(), eq(60L))).thenReturn(1);
+    lease.acquire();
+    AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+    TimeOrderedTrackingCodeGenerator first = new TimeOrderedTrackingCodeGenerator(lease, clock::get);
+    first.nextId();
+    // a burst borrows milliseconds ahead of the wall clock
+    long lastId = 0;
+    for (int i = 0; i < 3 * 4096; i++) {
+      lastId = first.nextId();
+    }
+
+    lease.release();
+    ArgumentCaptor<Timestamp> stored = ArgumentCaptor.forClass(Timestamp.class);
+    verify(jdbcTemplate).update(startsWith("UPDATE tracking_node_lease SET expires_at = ?"), stored.capture(),
+        eq(0L), anyString());
+    assertTrue(stored.getValue().getTime() > clock.get());
+
+    // the next replica gets node id 0 back with a clock one second behind
+    TrackingNodeLease next = new TrackingNodeLease();
+    ReflectionTestUtils.setField(next, "jdbcTemplate", jdbcTemplate);
+    ReflectionTestUtils.setField(next, "configuredNodeId", -1L);
+    ReflectionTestUtils.setField(next, "leaseSeconds", 60L);
+    when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of(row(0, stored.getValue(), false)));
+    when(jdbcTemplate.update(anyString(), anyString(), eq(60L), eq(0), eq(stored.getValue()))).thenReturn(1);
+    next.acquire();
+    TimeOrderedTrackingCodeGenerator second = new TimeOrderedTrackingCodeGenerator(next, () -> clock.get() - 1000);
+
+    assertEquals(0, next.nodeId());
+    assertEquals(stored.getValue().getTime(), next.floorMillis());
+    assertTrue(second.nextId() > lastId);
+  }
+}
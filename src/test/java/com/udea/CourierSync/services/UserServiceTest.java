@@ -1,5 +1,6 @@
 package com.udea.CourierSync.services;
 
+import com.udea.CourierSync.cache.InvalidationBus;
 import com.udea.CourierSync.DTO.UserDTO;
 import com.udea.CourierSync.entity.User;
 import com.udea.CourierSync.enums.UserRole;
@@ -7,6 +8,7 @@ import com.udea.CourierSync.exception.BadRequestException;
 import com.udea.CourierSync.exception.ResourceNotFoundException;
 import com.udea.CourierSync.mapper.UserMapper;
 import com.udea.CourierSync.repository.UserRepository;
+import com.udea.CourierSync.security.CustomUserDetailsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -31,6 +33,15 @@ class UserServiceTest {
   @Mock
   private UserMapper userMapper;
 
+  @Mock
+  private DashboardMetricsService dashboardMetricsService;
+
+  @Mock
+  private CustomUserDetailsService customUserDetailsService;
+
+  @Mock
+  private InvalidationBus invalidationBus;
+
   @InjectMocks
   private UserService userService;
 
@@ -141,6 +152,7 @@ class UserServiceTest {
     assertNotNull(result);
     verify(userRepository, times(1)).findById(1L);
     verify(userRepository, times(1)).save(any(User.class));
+    verify(customUserDetailsService, times(1)).evictUser(1L);
   }
 
   @Test
@@ -183,6 +195,7 @@ class UserServiceTest {
     });
 
     verify(userRepository, times(1)).deleteById(1L);
+    verify(customUserDetailsService, times(1)).evictUser(1L);
   }
 
   @Test
@@ -0,0 +1,113 @@
+package com.udea.CourierSync.services;
+
+import com.udea.CourierSync.DTO.AssignmentResultDTO;
+import com.udea.CourierSync.DTO.ShipmentDTO;
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.entity.Shipment;
+import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.enums.ShipmentPriority;
+import com.udea.CourierSync.enums.ShipmentStatus;
+import com.udea.CourierSync.mapper.ShipmentMapper;
+import com.udea.CourierSync.repository.ShipmentRepository;
+import com.udea.CourierSync.repository.VehicleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VehicleAssignmentServiceTest {
+
+  @Mock
+  private ShipmentRepository shipmentRepository;
+
+  @Mock
+  private VehicleRepository vehicleRepository;
+
+  @Mock
+  private ShipmentMapper shipmentMapper;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private InvalidationBus invalidationBus;
+
+  @InjectMocks
+  private VehicleAssignmentService vehicleAssignmentService;
+
+  private Vehicle vehicle;
+
+  @BeforeEach
+  void setUp() {
+    vehicle = new Vehicle();
+    vehicle.setId(7L);
+    vehicle.setPlate("ABC123");
+    vehicle.setAvailable(true);
+    vehicle.setMaximumCapacity(100.0);
+  }
+
+  private static Shipment shipment(long id, ShipmentStatus status) {
+    Shipment shipment = new Shipment();
+    shipment.setId(id);
+    shipment.setTrackingCode("CS" + id);
+    shipment.setStatus(status);
+    shipment.setPriority(ShipmentPriority.MEDIA);
+    shipment.setWeight(10.0);
+    shipment.setVolume(1.0);
+    return shipment;
+  }
+
+  @Test
+  void testAssignPending_ReportsRequestedIdsThatCannotBeAssigned() {
+    Shipment pending = shipment(1L, ShipmentStatus.PENDIENTE);
+    Shipment delivered = shipment(2L, ShipmentStatus.ENTREGADO);
+    when(shipmentRepository.findByIdIn(Set.of(1L, 2L, 3L))).thenReturn(List.of(pending, delivered));
+    when(vehicleRepository.lockAvailableOrderById()).thenReturn(List.of(vehicle));
+    when(shipmentMapper.toDTO(any(Shipment.class))).thenReturn(new ShipmentDTO());
+
+    // 3 does not exist
+    AssignmentResultDTO result = vehicleAssignmentService.assignPending(List.of(1L, 2L, 3L, 1L));
+
+    assertEquals(1, result.getAssignments().size());
+    assertSame(vehicle, pending.getVehicle());
+    assertEquals(List.of(2L, 3L), result.getUnassignedShipmentIds());
+  }
+
+  @Test
+  void testAssignPending_TakesOneBoundedBatchInDispatchOrder() {
+    when(shipmentRepository.findUnassignedInDispatchOrder(ShipmentStatus.PENDIENTE,
+        PageRequest.ofSize(VehicleAssignmentService.MAX_SHIPMENTS))).thenReturn(List.of());
+
+    AssignmentResultDTO result = vehicleAssignmentService.assignPending(null);
+
+    assertTrue(result.getAssignments().isEmpty());
+    verify(vehicleRepository, never()).lockAvailableOrderById();
+  }
+
+  @Test
+  void testAssignPending_LocksTheFleetBeforeReadingLoads() {
+    Shipment pending = shipment(1L, ShipmentStatus.PENDIENTE);
+    when(shipmentRepository.findUnassignedInDispatchOrder(any(), any())).thenReturn(List.of(pending));
+    when(vehicleRepository.lockAvailableOrderById()).thenReturn(List.of(vehicle));
+    when(shipmentMapper.toDTO(any(Shipment.class))).thenReturn(new ShipmentDTO());
+
+    vehicleAssignmentService.assignPending(List.of());
+
+    InOrder order = inOrder(vehicleRepository, shipmentRepository);
+    order.verify(vehicleRepository).lockAvailableOrderById();
+    order.verify(shipmentRepository).sumLoadByVehicle(any());
+  }
+}
@@ -1,11 +1,18 @@
 package com.udea.CourierSync.services;
 
+import com.udea.CourierSync.cache.InvalidationBus;
+import com.udea.CourierSync.DTO.NearbyVehicleDTO;
+import com.udea.CourierSync.DTO.PositionDTO;
 import com.udea.CourierSync.DTO.VehicleDTO;
 import com.udea.CourierSync.entity.Vehicle;
+import com.udea.CourierSync.entity.VehiclePosition;
 import com.udea.CourierSync.exception.BadRequestException;
 import com.udea.CourierSync.exception.ResourceNotFoundException;
 import com.udea.CourierSync.mapper.VehicleMapper;
+import com.udea.CourierSync.repository.VehiclePositionRepository;
 import com.udea.CourierSync.repository.VehicleRepository;
+import com.udea.CourierSync.spatial.GeoIndex;
+import com.udea.CourierSync.spatial.VehicleLocationIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,12 +20,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,9 +36,18 @@ class VehicleServiceTest {
   @Mock
   private VehicleRepository vehicleRepository;
 
+  @Mock
+  private VehiclePositionRepository vehiclePositionRepository;
+
   @Mock
   private VehicleMapper vehicleMapper;
 
+  @Mock
+  private InvalidationBus invalidationBus;
+
+  @Mock
+  private VehicleLocationIndex vehicleLocationIndex;
+
   @InjectMocks
   private VehicleService vehicleService;
 
@@ -144,6 +162,81 @@ class VehicleServiceTest {
     });
   }
 
+  @Test
+  void testUpdate_WithoutPosition_KeepsLastPosition() {
+    Vehicle toSave = new Vehicle();
+    toSave.setAvailable(true);
+    VehicleDTO updatedDTO = new VehicleDTO();
+
+    when(vehicleRepository.findById(1L)).thenReturn(Optional.of(vehicle));
+    when(vehicleMapper.toEntity(updatedDTO)).thenReturn(toSave);
+    when(vehicleRepository.save(toSave)).thenReturn(toSave);
+    when(vehiclePositionRepository.findById(1L))
+        .thenReturn(Optional.of(new VehiclePosition(1L, 6.25, -75.57, Instant.now())));
+    when(vehicleMapper.toDTO(toSave)).thenReturn(updatedDTO);
+
+    VehicleDTO result = vehicleService.update(1L, updatedDTO);
+
+    assertEquals(6.25, result.getLatitude());
+    verify(vehiclePositionRepository, never()).updatePosition(any(), any(), any(), any());
+    verify(vehicleLocationIndex).update(1L, 6.25, -75.57, true);
+  }
+
+  @Test
+  void testUpdatePosition_WritesOnlyThePositionRow() {
+    when(vehicleRepository.findById(1L)).thenReturn(Optional.of(vehicle));
+    when(vehiclePositionRepository.updatePosition(eq(1L), eq(6.25), eq(-75.57), any())).thenReturn(1);
+    when(vehicleMapper.toDTO(vehicle)).thenReturn(vehicleDTO);
+
+    VehicleDTO result = vehicleService.updatePosition(1L, new PositionDTO(6.25, -75.57));
+
+    assertEquals(6.25, result.getLatitude());
+    assertNotNull(result.getPositionUpdatedAt());
+    // the vehicle row, its version and the caches of other replicas are left alone
+    verify(vehicleRepository, never()).save(any(Vehicle.class));
+    verify(vehiclePositionRepository, never()).save(any(VehiclePosition.class));
+    verifyNoInteractions(invalidationBus);
+    verify(vehicleLocationIndex).update(1L, 6.25, -75.57, true);
+  }
+
+  @Test
+  void testUpdatePosition_FirstReport_InsertsThePositionRow() {
+    when(vehicleRepository.findById(1L)).thenReturn(Optional.of(vehicle));
+    when(vehiclePositionRepository.updatePosition(eq(1L), eq(6.25), eq(-75.57), any())).thenReturn(0);
+    when(vehicleMapper.toDTO(vehicle)).thenReturn(vehicleDTO);
+
+    vehicleService.updatePosition(1L, new PositionDTO(6.25, -75.57));
+
+    verify(vehiclePositionRepository).save(any(VehiclePosition.class));
+  }
+
+  @Test
+  void testUpdatePosition_InvalidLongitude_ThrowsException() {
+    assertThrows(BadRequestException.class, () -> {
+      vehicleService.updatePosition(1L, new PositionDTO(6.25, 181.0));
+    });
+    verify(vehicleRepository, never()).save(any(Vehicle.class));
+  }
+
+  @Test
+  void testFindNearest_ReturnsVehiclesInIndexOrder() {
+    Vehicle vehicle2 = new Vehicle();
+    vehicle2.setId(2L);
+    VehicleDTO vehicleDTO2 = new VehicleDTO();
+    vehicleDTO2.setId(2L);
+    when(vehicleLocationIndex.nearest(6.25, -75.57, 2, true)).thenReturn(List.of(
+        new GeoIndex.Hit(2L, 6.25, -75.56, 1.1),
+        new GeoIndex.Hit(1L, 6.27, -75.57, 2.2)));
+    when(vehicleRepository.findAllById(List.of(2L, 1L))).thenReturn(Arrays.asList(vehicle, vehicle2));
+    when(vehicleMapper.toDTO(vehicle)).thenReturn(vehicleDTO);
+    when(vehicleMapper.toDTO(vehicle2)).thenReturn(vehicleDTO2);
+
+    List<NearbyVehicleDTO> result = vehicleService.findNearest(6.25, -75.57, 2, true);
+
+    assertEquals(List.of(2L, 1L), result.stream().map(nearby -> nearby.getVehicle().getId()).toList());
+    assertEquals(1.1, result.get(0).getDistanceKm());
+  }
+
   @Test
   void testDeleteById_Success() {
     when(vehicleRepository.existsById(1L)).thenReturn(true);
@@ -154,6 +247,7 @@ class VehicleServiceTest {
     });
 
     verify(vehicleRepository, times(1)).deleteById(1L);
+    verify(vehicleLocationIndex).remove(1L);
   }
 
   @Test
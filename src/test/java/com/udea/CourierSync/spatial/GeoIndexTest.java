@@ -0,0 +1,103 @@
+package com.udea.CourierSync.spatial;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoIndexTest {
+
+  private static List<Long> ids(List<GeoIndex.Hit> hits) {
+    return hits.stream().map(GeoIndex.Hit::id).toList();
+  }
+
+  // same metric as the index, over every point
+  private static List<GeoIndex.Hit> bruteForce(double[][] points, double latitude, double longitude) {
+    double scale = Math.cos(Math.toRadians(latitude));
+    List<GeoIndex.Hit> hits = new ArrayList<>(points.length);
+    for (int i = 0; i < points.length; i++) {
+      double dy = points[i][0] - latitude;
+      double dx = (points[i][1] - longitude) * scale;
+      hits.add(new GeoIndex.Hit(i, points[i][0], points[i][1], Math.sqrt(dx * dx + dy * dy) * 111.195));
+    }
+    hits.sort(Comparator.comparingDouble(GeoIndex.Hit::distanceKm));
+    return hits;
+  }
+
+  @Test
+  void testWithinRadius_ReturnsClosestFirstUpToLimit() {
+    GeoIndex index = new GeoIndex(0.01);
+    index.put(1L, 6.250, -75.570);
+    index.put(2L, 6.255, -75.570);
+    index.put(3L, 6.260, -75.570);
+    index.put(4L, 6.400, -75.570);
+
+    assertEquals(List.of(1L, 2L, 3L), ids(index.withinRadius(6.2501, -75.570, 2.0, 10)));
+    assertEquals(List.of(1L, 2L), ids(index.withinRadius(6.2501, -75.570, 2.0, 2)));
+    assertTrue(index.withinRadius(6.2501, -75.570, 2.0, 0).isEmpty());
+  }
+
+  @Test
+  void testPut_MovesAnExistingPoint() {
+    GeoIndex index = new GeoIndex(0.01);
+    index.put(1L, 6.25, -75.57);
+    index.put(1L, 6.45, -75.57);
+
+    assertEquals(1, index.size());
+    assertTrue(index.withinRadius(6.25, -75.57, 1.0, 10).isEmpty());
+    assertEquals(List.of(1L), ids(index.withinRadius(6.45, -75.57, 1.0, 10)));
+  }
+
+  @Test
+  void testRemove_DropsThePoint() {
+    GeoIndex index = new GeoIndex(0.01);
+    index.put(1L, 6.25, -75.57);
+    index.put(2L, 6.25, -75.57);
+    index.remove(1L);
+    index.remove(99L);
+
+    assertEquals(List.of(2L), ids(index.nearest(6.25, -75.57, 5, id -> true)));
+  }
+
+  @Test
+  void testNearest_SkipsRejectedIdsAndSearchesFarCells() {
+    GeoIndex index = new GeoIndex(0.01);
+    index.put(1L, 6.25, -75.57);
+    index.put(2L, 6.90, -75.57);
+
+    assertEquals(List.of(2L), ids(index.nearest(6.25, -75.57, 1, id -> id != 1L)));
+    assertTrue(new GeoIndex(0.01).nearest(6.25, -75.57, 3, id -> true).isEmpty());
+  }
+
+  @Test
+  void testQueries_MatchBruteForce() {
+    Random random = new Random(7);
+    double[][] points = new double[5000][];
+    GeoIndex index = new GeoIndex(0.01);
+    for (int i = 0; i < points.length; i++) {
+      points[i] = new double[] { 6.1 + random.nextDouble() * 0.3, -75.7 + random.nextDouble() * 0.3 };
+      index.put(i, points[i][0], points[i][1]);
+    }
+
+    for (int q = 0; q < 200; q++) {
+      double latitude = 6.05 + random.nextDouble() * 0.4;
+      double longitude = -75.75 + random.nextDouble() * 0.4;
+      List<GeoIndex.Hit> expected = bruteForce(points, latitude, longitude);
+
+      List<GeoIndex.Hit> nearest = index.nearest(latitude, longitude, 10, id -> true);
+      assertEquals(10, nearest.size());
+      for (int i = 0; i < nearest.size(); i++)
+        assertEquals(expected.get(i).distanceKm(), nearest.get(i).distanceKm(), 1e-9);
+
+      double radiusKm = 1.5;
+      long inRadius = expected.stream().filter(hit -> hit.distanceKm() <= radiusKm).count();
+      List<GeoIndex.Hit> within = index.withinRadius(latitude, longitude, radiusKm, points.length);
+      assertEquals(inRadius, within.size());
+      assertEquals(ids(expected.subList(0, within.size())), ids(within));
+    }
+  }
+}